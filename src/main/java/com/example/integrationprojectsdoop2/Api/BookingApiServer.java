@@ -0,0 +1,496 @@
+package com.example.integrationprojectsdoop2.Api;
+
+import com.example.integrationprojectsdoop2.Helpers.JsonWriter;
+import com.example.integrationprojectsdoop2.Models.AdmissionQueue;
+import com.example.integrationprojectsdoop2.Models.Client;
+import com.example.integrationprojectsdoop2.Models.ETicket;
+import com.example.integrationprojectsdoop2.Models.ETicketManager;
+import com.example.integrationprojectsdoop2.Models.Show;
+import com.example.integrationprojectsdoop2.Models.TheatreService;
+import com.example.integrationprojectsdoop2.Models.User;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded HTTP API selling tickets through the {@link TheatreService}, for lobby kiosks and
+ * web front ends. Every request is handled on its own virtual thread, so thousands of buyers
+ * can wait on the ticket store at once without tying up platform threads.
+ * <p>
+ * The server only listens on the loopback address. Responses are JSON documents encoded by a
+ * {@link JsonWriter}; errors are reported as {@code {"error": "..."}} with the message the
+ * desktop application would show.
+ * <p>
+ * Purchases wait their turn in the {@link AdmissionQueue}, like those of the desktop application,
+ * which also caps the purchases in progress at once. A purchase expected to wait more than
+ * {@value #MAX_QUEUE_WAIT_SECONDS} seconds, or still waiting after that long, leaves the line and
+ * is answered with status 503, its place in line and a {@code Retry-After} header, so a request
+ * is never held long while the line is long.
+ *
+ * <ul>
+ *     <li>{@code GET /api/shows?date=2024-12-31} lists the shows of a date and their free seats.</li>
+ *     <li>{@code POST /api/tickets} with the form fields {@code email}, {@code password}, {@code showID}
+ *     and {@code quantity} buys tickets for a client, all of them or none.</li>
+ *     <li>{@code GET /api/tickets/<ticketID>} looks up a ticket.</li>
+ *     <li>{@code GET /api/admission} gives the length of the admission queue, its admission rate
+ *     and the purchases in progress.</li>
+ * </ul>
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * BookingApiServer server = BookingApiServer.start(8080);
+ * ...
+ * server.stop();
+ * }
+ * </pre>
+ *
+ * <p>Run without the desktop application with:
+ * {@code java -cp <classes> com.example.integrationprojectsdoop2.Api.BookingApiServer [port]}</p>
+ *
+ * @author agent
+ */
+public final class BookingApiServer {
+
+    /** The port listened on by default. */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** Number of connections the system may queue before they are accepted. */
+    private static final int BACKLOG = 4096;
+
+    /** Largest request body read, in bytes. */
+    private static final int MAX_BODY_SIZE = 4096;
+
+    /** Seconds given to the requests in progress when the server stops. */
+    private static final int STOP_DELAY = 1;
+
+    /** Longest a purchase waits in the admission queue, in seconds. */
+    private static final int MAX_QUEUE_WAIT_SECONDS = 10;
+
+    /** The HTTP server. */
+    private final HttpServer aServer;
+
+    /** The executor running each request on a new virtual thread. */
+    private final ExecutorService aExecutor;
+
+    /**
+     * Creates a server bound to a port of the loopback address.
+     *
+     * @param pServer   the HTTP server.
+     * @param pExecutor the executor of the requests.
+     * @author agent
+     */
+    private BookingApiServer(HttpServer pServer, ExecutorService pExecutor) {
+        this.aServer = pServer;
+        this.aExecutor = pExecutor;
+    }
+
+    /**
+     * Starts a server on a port of the loopback address.
+     * The ticket store is opened first, so the first buyers do not wait for it.
+     *
+     * @param pPort the port, or 0 for any free port.
+     * @return the started server.
+     * @throws IOException if the port cannot be bound.
+     * @author agent
+     */
+    public static BookingApiServer start(int pPort) throws IOException {
+        ETicketManager.getInstance();
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), pPort), BACKLOG);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        BookingApiServer api = new BookingApiServer(server, executor);
+        server.createContext("/api/shows", api::handleShows);
+        server.createContext("/api/tickets", api::handleTickets);
+        server.createContext("/api/admission", api::handleAdmission);
+        server.setExecutor(executor);
+        server.start();
+        System.out.println("Booking API listening on http://localhost:" + api.getPort() + "/api");
+        return api;
+    }
+
+    /**
+     * Retrieves the port the server listens on.
+     *
+     * @return the port.
+     * @author agent
+     */
+    public int getPort() {
+        return aServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops the server, letting the requests in progress finish.
+     *
+     * @author agent
+     */
+    public void stop() {
+        aServer.stop(STOP_DELAY);
+        aExecutor.close();
+    }
+
+    /**
+     * Runs the server until the process is stopped.
+     *
+     * @param pArgs the port, {@value #DEFAULT_PORT} if none is given.
+     * @throws IOException if the port cannot be bound.
+     * @author agent
+     */
+    public static void main(String[] pArgs) throws IOException {
+        BookingApiServer server = start(pArgs.length > 0 ? Integer.parseInt(pArgs[0]) : DEFAULT_PORT);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    }
+
+    /**
+     * Handles {@code GET /api/shows?date=yyyy-MM-dd}.
+     *
+     * @param pExchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private void handleShows(HttpExchange pExchange) throws IOException {
+        try (pExchange) {
+            if (!pExchange.getRequestMethod().equals("GET")) {
+                sendError(pExchange, 405, "Use GET to list shows.");
+                return;
+            }
+            LocalDate date;
+            try {
+                String dateParameter = parseForm(pExchange.getRequestURI().getRawQuery()).get("date");
+                date = dateParameter == null ? LocalDate.now() : LocalDate.parse(dateParameter);
+            } catch (DateTimeParseException e) {
+                sendError(pExchange, 400, "The date must be written as yyyy-MM-dd.");
+                return;
+            } catch (IllegalArgumentException e) {
+                sendError(pExchange, 400, e.getMessage());
+                return;
+            }
+
+            TheatreService theatre = TheatreService.getInstance();
+            JsonWriter json = new JsonWriter();
+            try {
+                json.beginObject().name("date").value(date).name("shows").beginArray();
+                for (List<Show> shows : theatre.getShowsOn(date).values()) {
+                    for (Show show : shows) {
+                        writeShow(json, show);
+                        json.name("seatsLeft").value(theatre.getSeatsLeft(show)).endObject();
+                    }
+                }
+                json.endArray().endObject();
+            } catch (RuntimeException e) {
+                System.err.println("Error listing shows: " + e.getMessage());
+                sendError(pExchange, 500, "Error listing shows: " + e.getMessage());
+                return;
+            }
+            send(pExchange, 200, json);
+        }
+    }
+
+    /**
+     * Handles {@code POST /api/tickets} and {@code GET /api/tickets/<ticketID>}.
+     *
+     * @param pExchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private void handleTickets(HttpExchange pExchange) throws IOException {
+        try (pExchange) {
+            String path = pExchange.getRequestURI().getPath();
+            String method = pExchange.getRequestMethod();
+            if (path.equals("/api/tickets") && method.equals("POST")) {
+                buyTickets(pExchange);
+            } else if (path.startsWith("/api/tickets/") && method.equals("GET")) {
+                findTicket(pExchange, path.substring("/api/tickets/".length()));
+            } else {
+                sendError(pExchange, 405, "Use POST /api/tickets to buy tickets, or GET /api/tickets/<ticketID> to look one up.");
+            }
+        }
+    }
+
+    /**
+     * Buys tickets for the client and the show of the form sent.
+     *
+     * @param pExchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private void buyTickets(HttpExchange pExchange) throws IOException {
+        Map<String, String> form;
+        int quantity;
+        try {
+            form = parseForm(readBody(pExchange));
+            quantity = Integer.parseInt(form.getOrDefault("quantity", "1"));
+        } catch (NumberFormatException e) {
+            sendError(pExchange, 400, "The quantity must be a whole number.");
+            return;
+        } catch (IllegalArgumentException e) {
+            sendError(pExchange, 400, e.getMessage());
+            return;
+        }
+        if (quantity < 1 || quantity > TheatreService.MAX_TICKETS_PER_PURCHASE) {
+            sendError(pExchange, 400, "The quantity must be between 1 and " + TheatreService.MAX_TICKETS_PER_PURCHASE + ".");
+            return;
+        }
+
+        TheatreService theatre = TheatreService.getInstance();
+        User user;
+        try {
+            user = theatre.login(form.get("email"), form.get("password"));
+        } catch (IllegalArgumentException e) {
+            sendError(pExchange, 401, e.getMessage());
+            return;
+        }
+        if (!(user instanceof Client client)) {
+            sendError(pExchange, 403, "Only clients can buy tickets.");
+            return;
+        }
+        Show show = theatre.getShow(form.get("showID"));
+        if (show == null) {
+            sendError(pExchange, 404, "Selected show not found. Please try again.");
+            return;
+        }
+
+        AdmissionQueue.Admission admission = awaitAdmission(pExchange);
+        if (admission == null) {
+            return;
+        }
+
+        List<ETicket> eTickets;
+        try {
+            eTickets = theatre.buyTickets(show, client, quantity);
+        } catch (IllegalArgumentException e) {
+            sendError(pExchange, 400, e.getMessage());
+            return;
+        } catch (IllegalStateException e) {
+            sendError(pExchange, 409, e.getMessage()); // Other buyers took the last seats
+            return;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error saving ETicket: " + e.getMessage());
+            sendError(pExchange, 500, "Error saving ETicket: " + e.getMessage());
+            return;
+        } finally {
+            admission.finish();
+        }
+
+        JsonWriter json = new JsonWriter();
+        json.beginObject().name("tickets").beginArray();
+        for (ETicket eTicket : eTickets) {
+            writeETicket(json, eTicket);
+        }
+        json.endArray().endObject();
+        send(pExchange, 201, json);
+    }
+
+    /**
+     * Waits for the purchase to be admitted by the {@link AdmissionQueue}. A purchase expected to
+     * wait too long, or not admitted in time, leaves the line and is answered with status 503.
+     *
+     * @param pExchange the request and its response.
+     * @return the admission of the purchase, to finish once it is done, or null if the response was sent.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private AdmissionQueue.Admission awaitAdmission(HttpExchange pExchange) throws IOException {
+        AdmissionQueue.Admission admission = AdmissionQueue.getInstance().enter();
+        Duration maxWait = Duration.ofSeconds(MAX_QUEUE_WAIT_SECONDS);
+        try {
+            if (admission.getEstimatedWait().compareTo(maxWait) <= 0 && admission.await(maxWait)) {
+                return admission;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        int position = admission.getPosition();
+        long waitSeconds = Math.max(1, admission.getEstimatedWait().toSeconds());
+        admission.cancel();
+        JsonWriter json = new JsonWriter(128);
+        json.beginObject().name("error").value("Too many clients are buying. Please try again shortly.")
+                .name("position").value(position)
+                .name("estimatedWaitSeconds").value(waitSeconds).endObject();
+        pExchange.getResponseHeaders().set("Retry-After", String.valueOf(waitSeconds));
+        send(pExchange, 503, json);
+        return null;
+    }
+
+    /**
+     * Handles {@code GET /api/admission}.
+     *
+     * @param pExchange the request and its response.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private void handleAdmission(HttpExchange pExchange) throws IOException {
+        try (pExchange) {
+            if (!pExchange.getRequestMethod().equals("GET")) {
+                sendError(pExchange, 405, "Use GET to see the admission queue.");
+                return;
+            }
+            AdmissionQueue.AdmissionMetrics metrics = AdmissionQueue.getInstance().getMetrics();
+            JsonWriter json = new JsonWriter(256);
+            json.beginObject()
+                    .name("waiting").value(metrics.waiting())
+                    .name("maxWaiting").value(metrics.maxWaiting())
+                    .name("admitted").value(metrics.admitted())
+                    .name("admittedAtOnce").value(metrics.admittedAtOnce())
+                    .name("cancelled").value(metrics.cancelled())
+                    .name("admittedLastMinute").value(metrics.admittedLastMinute())
+                    .name("averageWaitMillis").value(metrics.averageWaitMillis())
+                    .name("maxWaitMillis").value(metrics.maxWaitMillis())
+                    .name("inFlight").value(metrics.inFlight())
+                    .name("rate").value(metrics.rate())
+                    .name("burst").value(metrics.burst())
+                    .name("maxInFlight").value(metrics.maxInFlight())
+                    .endObject();
+            send(pExchange, 200, json);
+        }
+    }
+
+    /**
+     * Looks up a ticket by its ID.
+     *
+     * @param pExchange  the request and its response.
+     * @param pETicketID the ID of the ticket.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private void findTicket(HttpExchange pExchange, String pETicketID) throws IOException {
+        ETicket eTicket = TheatreService.getInstance().findETicket(pETicketID);
+        if (eTicket == null) {
+            sendError(pExchange, 404, "No ticket with the ID " + pETicketID + ".");
+            return;
+        }
+        JsonWriter json = new JsonWriter();
+        writeETicket(json, eTicket);
+        send(pExchange, 200, json);
+    }
+
+    /**
+     * Writes the members of a show into an object left open, for the caller to add its own members.
+     *
+     * @param pJson the writer.
+     * @param pShow the show.
+     * @author agent
+     */
+    private static void writeShow(JsonWriter pJson, Show pShow) {
+        pJson.beginObject()
+                .name("showID").value(pShow.getShowID())
+                .name("movieID").value(pShow.getMovieID())
+                .name("movie").value(pShow.getMovie() == null ? null : pShow.getMovie().getMovie_Title())
+                .name("date").value(pShow.getShowDate())
+                .name("showtime").value(pShow.getShowtime() == null ? null : pShow.getShowtime().getShowtimeTime())
+                .name("screenroom").value(pShow.getScreenroom() == null ? null : pShow.getScreenroom().getScreenroom_Name());
+    }
+
+    /**
+     * Writes a ticket as an object.
+     *
+     * @param pJson    the writer.
+     * @param pETicket the ticket.
+     * @author agent
+     */
+    private static void writeETicket(JsonWriter pJson, ETicket pETicket) {
+        pJson.beginObject()
+                .name("ticketID").value(pETicket.getETicketID())
+                .name("clientID").value(pETicket.getClientID())
+                .name("purchased").value(pETicket.getPurchaseDateTime())
+                .name("seat").value(pETicket.getSeatLabel())
+                .name("show");
+        Show show = pETicket.getShow();
+        if (show == null) {
+            pJson.beginObject().name("showID").value(pETicket.getShowID()).endObject();
+        } else {
+            writeShow(pJson, show);
+            pJson.endObject();
+        }
+        pJson.endObject();
+    }
+
+    /**
+     * Reads the body of a request.
+     *
+     * @param pExchange the request.
+     * @return the body.
+     * @throws IOException              if the body cannot be read.
+     * @throws IllegalArgumentException if the body is too large.
+     * @author agent
+     */
+    private static String readBody(HttpExchange pExchange) throws IOException {
+        try (InputStream in = pExchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_SIZE + 1);
+            if (body.length > MAX_BODY_SIZE) {
+                throw new IllegalArgumentException("The request is too large.");
+            }
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Parses URL-encoded fields, such as {@code showID=S1&quantity=2}.
+     *
+     * @param pEncoded the encoded fields, possibly null.
+     * @return the fields, by name.
+     * @throws IllegalArgumentException if a field is badly encoded.
+     * @author agent
+     */
+    private static Map<String, String> parseForm(String pEncoded) {
+        Map<String, String> fields = new HashMap<>();
+        if (pEncoded == null || pEncoded.isEmpty()) {
+            return fields;
+        }
+        for (String field : pEncoded.split("&")) {
+            int equals = field.indexOf('=');
+            if (equals > 0) {
+                fields.put(URLDecoder.decode(field.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(field.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Sends an error response.
+     *
+     * @param pExchange the request and its response.
+     * @param pStatus   the HTTP status.
+     * @param pMessage  the message of the error.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private static void sendError(HttpExchange pExchange, int pStatus, String pMessage) throws IOException {
+        JsonWriter json = new JsonWriter(128);
+        json.beginObject().name("error").value(pMessage).endObject();
+        send(pExchange, pStatus, json);
+    }
+
+    /**
+     * Sends a JSON response.
+     *
+     * @param pExchange the request and its response.
+     * @param pStatus   the HTTP status.
+     * @param pJson     the document to send.
+     * @throws IOException if the response cannot be sent.
+     * @author agent
+     */
+    private static void send(HttpExchange pExchange, int pStatus, JsonWriter pJson) throws IOException {
+        pExchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        pExchange.sendResponseHeaders(pStatus, pJson.size());
+        try (OutputStream out = pExchange.getResponseBody()) {
+            pJson.writeTo(out);
+        }
+    }
+}
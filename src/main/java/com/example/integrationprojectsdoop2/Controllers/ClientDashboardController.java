@@ -1,12 +1,13 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
+import com.example.integrationprojectsdoop2.Helpers.ListCells;
 import com.example.integrationprojectsdoop2.Models.Client;
+import com.example.integrationprojectsdoop2.Models.Movie;
 import com.example.integrationprojectsdoop2.Models.Show;
+import com.example.integrationprojectsdoop2.Models.TheatreService;
 import com.example.integrationprojectsdoop2.MovieTheatreApplication;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -15,12 +16,13 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.stage.Stage;
+import javafx.util.Callback;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.*;
 
 /**
@@ -41,8 +43,16 @@ public class ClientDashboardController {
     /** The logged-in client. */
     private Client aLoggedClient;
 
-    /** The list of shows loaded from the serialized file. */
-    private List<Show> aShowsList;
+    /** Displays the shows of a movie as the title, genre and synopsis of the movie. */
+    private static final Callback<ListView<List<Show>>, ListCell<List<Show>>> MOVIE_CELLS = ListCells.withText(shows -> {
+        Movie movie = shows.isEmpty() ? null : shows.getFirst().getMovie();
+        if (movie == null) {
+            return Show.MISSING_REFERENCE;
+        }
+        return "Title : " + movie.getMovie_Title() +
+                "\nGenre : " + movie.getMovie_Genre() +
+                "\nSynopsis : " + movie.getMovie_Synopsis();
+    });
 
     /** Label to display the welcome message. */
     @FXML
@@ -52,18 +62,18 @@ public class ClientDashboardController {
     @FXML
     private DatePicker movieDatePicker;
 
-    /** ListView to display movie titles and details. */
+    /** ListView to display the movies of the selected date, each with its shows of that day. */
     @FXML
-    private ListView<String> movieListView;
+    private ListView<List<Show>> movieListView;
 
     /**
      * Sets up the client dashboard view with the provided serialized file and client data.
+     * The shows are looked up by date through the {@link TheatreService}.
      *
      * @param pSerializedFileName The name of the file containing serialized show data.
      * @param pClient             The logged-in client.
      */
     public void setClientDashboardView(String pSerializedFileName, Client pClient) {
-        this.aShowsList = showsReader(pSerializedFileName);
         this.aLoggedClient = pClient;
 
         updateWelcomeLabel();
@@ -77,63 +87,28 @@ public class ClientDashboardController {
     }
 
     /**
-     * Reads the list of shows from the given serialized file.
-     *
-     * @param pFilename The filename of the serialized shows data.
-     * @return A list of shows read from the file.
-     */
-    private List<Show> showsReader(String pFilename) {
-        List<Show> shows = new ArrayList<>();
-        try {
-            ReadObjects readObjects = new ReadObjects(pFilename);
-            List<Object> rawObjects = readObjects.read();
-
-            shows = rawObjects.stream()
-                    .filter(Show.class::isInstance)
-                    .map(Show.class::cast)
-                    .toList();
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error reading shows from file: " + e.getMessage());
-            e.printStackTrace();
-        }
-        return shows;
-    }
-
-    /**
-     * Initializes the controller. Sets the default date in the DatePicker to today's date.
+     * Initializes the controller. Sets the default date in the DatePicker to today's date,
+     * and displays each movie of the list from its shows.
      */
     @FXML
     public void initialize() {
         this.movieDatePicker.setValue(LocalDate.now());
+        this.movieListView.setCellFactory(MOVIE_CELLS);
+        this.movieListView.setPlaceholder(new Label("There are no movies available for this date."));
     }
 
     /**
      * Updates the ListView to display movie titles and details for the selected date.
+     * Only the shows of that day are read, through the date index of the catalog.
+     * Shows whose movie was deleted from the catalog are left out.
      *
      * @param selectedDate The selected date to filter movies.
      */
     private void updateMovieListView(LocalDate selectedDate) {
-        ObservableList<String> movieTitles = FXCollections.observableArrayList();
-        Set<String> uniqueMovieTitles = new HashSet<>();
-        boolean hasMoviesForDate = false;
-
-        for (Show show : this.aShowsList) {
-            if (show.getShowDate() != null && show.getShowDate().equals(selectedDate)) {
-                // Filter by date and add unique movie titles
-                if (uniqueMovieTitles.add(show.getMovie().getMovie_Title())) {
-                    movieTitles.add("Title : " + show.getMovie().getMovie_Title() +
-                                    "\nGenre : " + show.getMovie().getMovie_Genre() +
-                                    "\nSynopsis : " + show.getMovie().getMovie_Synopsis());
-                }
-                hasMoviesForDate = true;
-            }
-        }
-
-        if (!hasMoviesForDate) {
-            movieTitles.add("There are no movies available for this date.");
-        }
-
-        this.movieListView.setItems(movieTitles);
+        Map<String, List<Show>> showsByMovie = TheatreService.getInstance().getShowsOn(selectedDate);
+        this.movieListView.setItems(FXCollections.observableArrayList(showsByMovie.values().stream()
+                .filter(shows -> !shows.isEmpty() && shows.getFirst().getMovie() != null)
+                .toList()));
     }
 
     /**
@@ -144,24 +119,14 @@ public class ClientDashboardController {
      */
     @FXML
     protected void onSeeShowOptionsButtonClick(ActionEvent pEvent) {
-        String selectedItem = this.movieListView.getSelectionModel().getSelectedItem();
+        List<Show> filteredShows = this.movieListView.getSelectionModel().getSelectedItem();
         LocalDate selectedDate = this.movieDatePicker.getValue();
 
-        if (selectedItem == null) {
+        if (filteredShows == null) {
             new AlertHelper("Please select a movie from the list.").executeWarningAlert();
             return;
         }
 
-        // Extract the title from the selected item's first line
-        String selectedMovieTitle = selectedItem.split("\n")[0].replace("Title : ", "").trim();
-
-        // Filter shows based on the extracted title and selected date
-        List<Show> filteredShows = this.aShowsList.stream()
-                .filter(show -> show.getMovie().getMovie_Title().equals(selectedMovieTitle)
-                        && show.getShowDate().equals(selectedDate))
-                .toList();
-
-
         if (filteredShows.isEmpty()) {
             new AlertHelper("No shows available for the selected movie and date.").executeWarningAlert();
             return;
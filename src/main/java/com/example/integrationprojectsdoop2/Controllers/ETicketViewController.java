@@ -11,10 +11,11 @@ import javafx.scene.control.Label;
 import javafx.stage.Stage;
 
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
  * Controller class for the E-Ticket View.
- * Displays the details of an e-ticket and allows the user to navigate back to the client dashboard.
+ * Displays the details of the e-tickets of a purchase and allows the user to navigate back to the client dashboard.
  */
 public class ETicketViewController {
 
@@ -24,9 +25,9 @@ public class ETicketViewController {
     private static final String CLIENT_DASHBOARD_VIEW_PATH = "/com/example/integrationprojectsdoop2/client-dashboard-view.fxml";
 
     /**
-     * The e-ticket to be displayed.
+     * The e-tickets to be displayed, all bought together for the same show.
      */
-    private ETicket aETicket;
+    private List<ETicket> aETickets;
 
     /**
      * Label to display e-ticket details.
@@ -43,40 +44,48 @@ public class ETicketViewController {
     }
 
     /**
-     * Sets the E-Ticket data and updates the view to display the details.
+     * Sets the data of e-tickets bought together and updates the view to display their details.
      *
-     * @param pTicket The e-ticket to display.
+     * @param pTickets The e-tickets to display, all for the same show.
      */
-    public void setETicketView(ETicket pTicket) {
-        this.aETicket = pTicket;
+    public void setETicketView(List<ETicket> pTickets) {
+        this.aETickets = pTickets;
         updateETicketLabel();
     }
 
     /**
      * Updates the e-ticket details label with formatted information.
+     * The details of the show are shown once, followed by the ID and seat of each ticket.
      */
     private void updateETicketLabel() {
-        // Extract details from the ticket
-        String ticketId = this.aETicket.getETicketID();
-        String movieTitle = this.aETicket.getShow().getMovie().getMovie_Title();
-        String screeningRoom = this.aETicket.getShow().getScreenroom().getScreenroom_Name();
-        String clientName = this.aETicket.getClient().getUser_Name();
+        // Extract details from the first ticket, shared by all of them
+        ETicket firstTicket = this.aETickets.getFirst();
+        String movieTitle = firstTicket.getShow().getMovieTitle();
+        String screeningRoom = firstTicket.getShow().getScreenroomName();
+        String clientName = firstTicket.getClient().getUser_Name();
 
         // Format date and time
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        String showtime = this.aETicket.getShow().getShowtime().toString();
-        String purchaseDateTime = this.aETicket.getPurchaseDateTime().format(formatter);
+        String showtime = firstTicket.getShow().getShowtimeTime();
+        String purchaseDateTime = firstTicket.getPurchaseDateTime().format(formatter);
 
         // Build the label text
-        String labelText = "Ticket ID: " + ticketId + "\n" +
-                "Movie Title: " + movieTitle + "\n" +
-                "Showtime: " + showtime + "\n" +
-                "Screening Room: " + screeningRoom + "\n" +
-                "Client Name: " + clientName + "\n" +
-                "Purchase Date & Time: " + purchaseDateTime + "\n";
+        StringBuilder labelText = new StringBuilder();
+        labelText.append("Movie Title: ").append(movieTitle).append("\n")
+                .append("Showtime: ").append(showtime).append("\n")
+                .append("Screening Room: ").append(screeningRoom).append("\n")
+                .append("Client Name: ").append(clientName).append("\n")
+                .append("Purchase Date & Time: ").append(purchaseDateTime).append("\n");
+        for (ETicket eTicket : this.aETickets) {
+            String seat = eTicket.getSeatLabel();
+            labelText.append("\nTicket ID: ").append(eTicket.getETicketID());
+            if (seat != null) {
+                labelText.append("    Seat: ").append(seat);
+            }
+        }
 
         // Set the text to the label
-        eTicketLabel.setText(labelText);
+        eTicketLabel.setText(labelText.toString());
     }
 
     /**
@@ -93,7 +102,7 @@ public class ETicketViewController {
 
             // Pass client data to the Client Dashboard Controller
             ClientDashboardController controller = loader.getController();
-            controller.setClientDashboardView("shows.ser", aETicket.getClient());
+            controller.setClientDashboardView("shows.ser", aETickets.getFirst().getClient());
 
             // Set the new scene
             Scene newScene = new Scene(root);
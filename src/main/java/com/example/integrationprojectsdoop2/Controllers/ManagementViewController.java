@@ -1,34 +1,51 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
+import com.example.integrationprojectsdoop2.Helpers.EventBus;
+import com.example.integrationprojectsdoop2.Helpers.ListCells;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
 import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+import com.example.integrationprojectsdoop2.Models.CatalogManager;
 import com.example.integrationprojectsdoop2.Models.Movie;
 import com.example.integrationprojectsdoop2.Models.Show;
 import com.example.integrationprojectsdoop2.Models.ShowComponent;
+import com.example.integrationprojectsdoop2.Models.StaleEditException;
 import com.example.integrationprojectsdoop2.Models.Showtime;
 import com.example.integrationprojectsdoop2.Models.Screenroom;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
+import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
 import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Callback;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Controller for managing the view and operations related to the management of show components.
  * This class provides functionalities to add, modify, delete, and display details of components.
+ * <p>
+ * While the window is open, the components added, modified or deleted from other windows are
+ * received from the {@link EventBus} and patched into the list in place, keeping its order and
+ * selection, rather than reloading and sorting the whole file.
  *
  * @author Samuel Mireault
  * @since 1.0
@@ -36,7 +53,7 @@ import java.util.stream.Collectors;
 public class ManagementViewController {
 
     /** Observable list containing all managed {@link ShowComponent} instances. */
-    private ObservableList<ShowComponent> aManagementList;
+    private ObservableList<ShowComponent> aManagementList = FXCollections.observableArrayList();
 
     /** The name of the view used for adding and modifying components. */
     private String aAddNModifyViewName;
@@ -44,6 +61,23 @@ public class ManagementViewController {
     /** The filename used for saving and loading the management list. */
     private String aFileName;
 
+    /** The subscription to the changes of the components of the file, or null if none. */
+    private EventBus.Subscription aSubscription;
+
+    /** The changes received while the list is loading, applied once it is shown, or null if it is not loading. */
+    private List<EventBus.Change<? extends ShowComponent>> aPendingChanges;
+
+    /** Orders the components by display name, ignoring case, with unnamed components first. */
+    private static final Comparator<ShowComponent> BY_DISPLAY_NAME = (o1, o2) -> {
+        String displayName1 = o1.getDisplayName();
+        String displayName2 = o2.getDisplayName();
+
+        if (displayName1 == null) return (displayName2 == null) ? 0 : -1;
+        if (displayName2 == null) return 1;
+
+        return displayName1.compareToIgnoreCase(displayName2);
+    };
+
     @FXML
     private Label managementTitleViewLabel;
 
@@ -51,7 +85,11 @@ public class ManagementViewController {
     private Label displayManagerLabel;
 
     @FXML
-    private ListView<String> managementListView;
+    private ListView<ShowComponent> managementListView;
+
+    /** Displays each component by its display name. */
+    private static final Callback<ListView<ShowComponent>, ListCell<ShowComponent>> COMPONENT_CELLS =
+            ListCells.withText(ShowComponent::getDisplayName);
 
     private static final Map<Class<?>, String> VIEW_MAP = Map.of(
             Movie.class, "/com/example/integrationprojectsdoop2/manager-edit-movie-view.fxml",
@@ -63,19 +101,32 @@ public class ManagementViewController {
     /**
      * Initializes the controller after the FXML file is loaded.
      * Sets up a listener for item selection in the ListView and initializes the display label.
+     * Changes stop being received once the list is no longer shown, because its window was
+     * closed or another view replaced it.
      *
      * @author Samuel Mireault
      */
     @FXML
     public void initialize() {
+        managementListView.setCellFactory(COMPONENT_CELLS);
         managementListView.getSelectionModel().selectedItemProperty().addListener(
                 (observable, oldValue, newValue) -> onListViewItemSelect()
         );
+        managementListView.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((observable, wasShowing, isShowing) -> {
+                    if (wasShowing && !isShowing) {
+                        unsubscribe();
+                    }
+                });
         displayManagerLabel.setText("Select an item from the list to see more details.");
     }
 
     /**
      * Sets up the management view with a title, filename for loading data, and a view name for adding/modifying items.
+     * The list is loaded in the background and disabled until it is shown.
      *
      * @param pTitle            the title of the management view.
      * @param pFilename         the filename used for loading and saving data.
@@ -85,14 +136,140 @@ public class ManagementViewController {
     public void setManagementView(String pTitle, String pFilename, String pAddNModifyViewName) {
         this.aFileName = pFilename;
         this.aAddNModifyViewName = pAddNModifyViewName;
-        this.aManagementList = loadManagementListFrom(pFilename);
         managementTitleViewLabel.setText(pTitle);
 
-        ObservableList<String> displayList = FXCollections.observableArrayList();
-        for (ShowComponent component : aManagementList) {
-            displayList.add(component.getDisplayName());
+        // Subscribe before loading, so no change saved while the list loads is missed
+        unsubscribe();
+        if (CatalogManager.isCatalogFile(pFilename)) {
+            aPendingChanges = new ArrayList<>();
+            aSubscription = EventBus.getInstance().subscribe(CatalogManager.typeOf(pFilename),
+                    Platform::runLater, this::onComponentChanged);
+        }
+
+        Task<ObservableList<ShowComponent>> loadTask = PersistenceExecutor.getInstance().load(pFilename,
+                () -> loadManagementListFrom(pFilename),
+                this::showManagementList,
+                e -> new AlertHelper("Error loading " + pFilename + ": " + e.getMessage()).executeErrorAlert());
+        PersistenceExecutor.showProgress(managementListView, loadTask);
+    }
+
+    /**
+     * Displays a loaded management list.
+     *
+     * @param pManagementList the loaded management list.
+     * @author agent
+     */
+    private void showManagementList(ObservableList<ShowComponent> pManagementList) {
+        this.aManagementList = pManagementList;
+        managementListView.setItems(aManagementList);
+
+        // The changes received while loading may or may not be in the loaded list already
+        List<EventBus.Change<? extends ShowComponent>> pendingChanges = aPendingChanges;
+        aPendingChanges = null;
+        if (pendingChanges != null) {
+            pendingChanges.forEach(this::applyChange);
         }
-        managementListView.setItems(displayList);
+    }
+
+    /**
+     * Receives a change to a component of the file, on the JavaFX thread, and patches the list
+     * with it, or keeps it for later if the list is still loading.
+     *
+     * @param pChange the change.
+     * @author agent
+     */
+    private void onComponentChanged(EventBus.Change<? extends ShowComponent> pChange) {
+        if (aPendingChanges != null) {
+            aPendingChanges.add(pChange);
+        } else {
+            applyChange(pChange);
+        }
+    }
+
+    /**
+     * Patches the list with a change, touching only the row of the changed component. A change
+     * already in the list, such as the deletion of an item deleted from this window, or an
+     * older version of a component than the one listed, leaves it as it is.
+     *
+     * @param pChange the change.
+     * @author agent
+     */
+    private void applyChange(EventBus.Change<? extends ShowComponent> pChange) {
+        ShowComponent component = pChange.entity();
+        int index = indexOf(CatalogManager.idOf(component));
+
+        if (pChange.kind() == EventBus.Kind.DELETED) {
+            if (index >= 0) {
+                aManagementList.remove(index);
+            }
+        } else if (index < 0) {
+            insert(component);
+        } else if (aManagementList.get(index).getVersion() < component.getVersion()) {
+            if (isInOrderAt(index, component)) {
+                aManagementList.set(index, component);
+            } else {
+                aManagementList.remove(index);
+                insert(component);
+            }
+        }
+        onListViewItemSelect();
+    }
+
+    /**
+     * Finds a component in the list by its ID.
+     *
+     * @param pID the ID of the component.
+     * @return the index of the component, or -1 if it is not listed.
+     * @author agent
+     */
+    private int indexOf(String pID) {
+        for (int i = 0; i < aManagementList.size(); i++) {
+            if (pID.equals(CatalogManager.idOf(aManagementList.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a component can replace the one at an index without breaking the order of the list.
+     *
+     * @param pIndex     the index of the replaced component.
+     * @param pComponent the new component.
+     * @return {@code true} if the component sorts between the neighbours of the index.
+     * @author agent
+     */
+    private boolean isInOrderAt(int pIndex, ShowComponent pComponent) {
+        return (pIndex == 0 || BY_DISPLAY_NAME.compare(aManagementList.get(pIndex - 1), pComponent) <= 0)
+                && (pIndex == aManagementList.size() - 1
+                || BY_DISPLAY_NAME.compare(pComponent, aManagementList.get(pIndex + 1)) <= 0);
+    }
+
+    /**
+     * Inserts a component at its place in the list, found by binary search.
+     *
+     * @param pComponent the component to insert.
+     * @author agent
+     */
+    private void insert(ShowComponent pComponent) {
+        int index = Collections.binarySearch(aManagementList, pComponent, BY_DISPLAY_NAME);
+        if (index < 0) {
+            index = -(index + 1);
+        }
+        aManagementList.add(index, pComponent);
+    }
+
+    /**
+     * Stops receiving the changes of the components of the file, if they were received.
+     *
+     * @author agent
+     */
+    private void unsubscribe() {
+        if (aSubscription != null) {
+            aSubscription.cancel();
+            aSubscription = null;
+        }
+        aPendingChanges = null;
     }
 
     /**
@@ -108,10 +285,9 @@ public class ManagementViewController {
      * Handles the action of deleting the selected item.
      * Ensures the selected item is not referenced in any existing show before deletion.
      *
-     * @throws IOException if an error occurs during the deletion process.
      * @author Jarvy Lazan
      */
-    public void onDeleteClickButton() throws IOException {
+    public void onDeleteClickButton() {
         int selectedIndex = managementListView.getSelectionModel().getSelectedIndex();
         if (selectedIndex >= 0) {
             ShowComponent selectedItem = aManagementList.get(selectedIndex);
@@ -176,6 +352,7 @@ public class ManagementViewController {
     /**
      * Loads the management list from the specified file.
      * Sorts the list by display name in a case-insensitive manner.
+     * Catalog files are taken from the {@link CatalogManager} rather than read again.
      *
      * @param pFilename the filename from which to load the data.
      * @return the loaded management list as an observable list.
@@ -184,23 +361,15 @@ public class ManagementViewController {
     private ObservableList<ShowComponent> loadManagementListFrom(String pFilename) {
         List<ShowComponent> components = new ArrayList<>();
         try {
-            ReadObjects readObjects = new ReadObjects(pFilename);
-            List<Object> rawObjects = readObjects.read();
-
-            components = rawObjects.stream()
-                    .filter(ShowComponent.class::isInstance)
-                    .map(ShowComponent.class::cast)
-                    .collect(Collectors.toList());
-
-            components.sort((o1, o2) -> {
-                String displayName1 = o1.getDisplayName();
-                String displayName2 = o2.getDisplayName();
-
-                if (displayName1 == null) return (displayName2 == null) ? 0 : -1;
-                if (displayName2 == null) return 1;
+            if (CatalogManager.isCatalogFile(pFilename)) {
+                components = new ArrayList<>(CatalogManager.getInstance().getCatalog(pFilename));
+            } else {
+                try (Stream<ShowComponent> componentStream = new ReadObjects(pFilename).stream(ShowComponent.class)) {
+                    components = componentStream.collect(Collectors.toList());
+                }
+            }
 
-                return displayName1.compareToIgnoreCase(displayName2);
-            });
+            components.sort(BY_DISPLAY_NAME);
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -209,17 +378,25 @@ public class ManagementViewController {
     }
 
     /**
-     * Saves the management list to the specified file.
+     * Deletes a component from its catalog file in the background, unless another manager saved it
+     * since the list was loaded. The list is disabled until the deletion is done, and reloaded if
+     * it was rejected.
      *
-     * @param pFilename        the filename to which the data should be saved.
-     * @param pManagementList the management list to save.
-     * @throws IOException if an error occurs while writing to the file.
-     * @author Samuel Mireault
+     * @param pComponent the component to delete, as loaded in the list.
+     * @param pOnDeleted called once the component is deleted.
+     * @author agent
      */
-    private void saveManagementListToFile(String pFilename, ObservableList<ShowComponent> pManagementList) throws IOException {
-        List<Object> serializableList = new ArrayList<>(pManagementList);
-        WriteObjects writeObjects = new WriteObjects(pFilename);
-        writeObjects.write(serializableList);
+    private void deleteFromFile(ShowComponent pComponent, Runnable pOnDeleted) {
+        Task<Void> deleteTask = PersistenceExecutor.getInstance().save(aFileName,
+                () -> CatalogManager.getInstance().delete(pComponent),
+                pOnDeleted,
+                e -> {
+                    new AlertHelper(e instanceof StaleEditException
+                            ? e.getMessage() + " It was not deleted; the list was reloaded."
+                            : "Error saving " + aFileName + ": " + e.getMessage()).executeErrorAlert();
+                    setManagementView(managementTitleViewLabel.getText(), aFileName, aAddNModifyViewName);
+                });
+        PersistenceExecutor.showProgress(managementListView, deleteTask);
     }
 
     /**
@@ -242,14 +419,13 @@ public class ManagementViewController {
     }
 
     /**
-     * Deletes the selected item from the management list and saves the updated list to the file.
+     * Deletes the selected item from the management list and from its file.
      * Ensures that the selected item is not associated with any existing `Show` objects.
      *
      * @param pSelectedIndex the index of the item to delete.
-     * @throws IOException if an error occurs while saving the updated list to the file.
      * @author Jarvy Lazan
      */
-    private void deleteItem(int pSelectedIndex) throws IOException {
+    private void deleteItem(int pSelectedIndex) {
         if (pSelectedIndex < 0 || pSelectedIndex >= aManagementList.size()) {
             System.out.println("Invalid selection. No item to delete.");
             AlertHelper nothingChosen = new AlertHelper("Invalid selection. No item to delete.");
@@ -266,11 +442,9 @@ public class ManagementViewController {
             return;
         }
 
-        // Proceed with deletion
-        aManagementList.remove(selectedItem);
-        managementListView.getItems().remove(pSelectedIndex);
-        saveManagementListToFile(aFileName, aManagementList);
-        System.out.println("Item deleted successfully.");
+        // Proceed with deletion, unless another manager changed the item since the list was loaded
+        aManagementList.remove(pSelectedIndex);
+        deleteFromFile(selectedItem, () -> System.out.println("Item deleted successfully."));
     }
     /**
      * Checks if the given `ShowComponent` is associated with any existing `Show` objects.
@@ -280,30 +454,8 @@ public class ManagementViewController {
      * @author Jarvy Lazan
      */
     private boolean isAssociatedWithExistingShow(ShowComponent pComponent) {
-        try {
-            // Read the list of existing Shows
-            ReadObjects readObjects = new ReadObjects("shows.ser");
-            List<Object> rawObjects = readObjects.read();
-            List<Show> existingShows = rawObjects.stream()
-                    .filter(Show.class::isInstance)
-                    .map(Show.class::cast)
-                    .collect(Collectors.toList());
-
-            // Check for associations based on the type of ShowComponent
-            if (pComponent instanceof Movie) {
-                String movieID = ((Movie) pComponent).getMovie_ID();
-                return existingShows.stream().anyMatch(show -> show.getMovie().getMovie_ID().equals(movieID));
-            } else if (pComponent instanceof Showtime) {
-                String showtimeID = ((Showtime) pComponent).getShowtimeID();
-                return existingShows.stream().anyMatch(show -> show.getShowtime().getShowtimeID().equals(showtimeID));
-            } else if (pComponent instanceof Screenroom) {
-                String screenroomID = ((Screenroom) pComponent).getScreenroom_ID();
-                return existingShows.stream().anyMatch(show -> show.getScreenroom().getScreenroom_ID().equals(screenroomID));
-            }
-        } catch (IOException | ClassNotFoundException e) {
-            System.err.println("Error reading Shows file: " + e.getMessage());
-        }
-        return false;
+        // Look the component up in the reverse index of the shows instead of reading them all
+        return CatalogManager.getInstance().isReferencedByShow(pComponent);
     }
 
     /**
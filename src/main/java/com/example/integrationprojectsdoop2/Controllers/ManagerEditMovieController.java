@@ -1,13 +1,15 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
+import com.example.integrationprojectsdoop2.Models.CatalogManager;
 import com.example.integrationprojectsdoop2.Models.ModifyController;
 import com.example.integrationprojectsdoop2.Models.Movie;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.TextArea;
@@ -15,8 +17,8 @@ import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Controller for editing and managing movies in the application.
@@ -59,23 +61,17 @@ public class ManagerEditMovieController implements ModifyController<Movie> {
     }
 
     /**
-     * Handles the save button click event. Validates inputs, checks for duplicates,
-     * updates the movie list, sorts it by title, and saves it back to the file.
+     * Handles the save button click event. Validates inputs, checks for duplicates, then saves
+     * an edited copy of the movie in the background, keeping the movies sorted by title.
+     * The save is rejected if another manager saved the movie since it was opened.
      *
      * @param pActionEvent the event triggered by clicking the save button.
-     * @throws IOException if an error occurs during file operations.
-     * @throws ClassNotFoundException if the deserialization fails.
      * @throws IllegalArgumentException if input validation fails.
      * @author Jarvy Lazan
      */
     public void onSaveButtonClick(ActionEvent pActionEvent) {
         try {
-            ReadObjects reader = new ReadObjects("movies.ser");
-            List<Object> rawObjects = reader.read();
-            List<Movie> movieList = rawObjects.stream()
-                    .filter(Movie.class::isInstance)
-                    .map(Movie.class::cast)
-                    .collect(Collectors.toList());
+            List<Movie> movieList = CatalogManager.getInstance().getMovies();
 
             boolean isNewMovie = (aCurrentMovie == null);
 
@@ -93,51 +89,56 @@ public class ManagerEditMovieController implements ModifyController<Movie> {
                 return;
             }
 
-            if (isNewMovie) {
-                // If it's a new movie, create an instance and add it to the list
-                aCurrentMovie = new Movie();
-                movieList.add(aCurrentMovie);
-            }
+            // Edit a copy, since the cached movie is shared with the rest of the application
+            Movie originalMovie = aCurrentMovie;
+            Movie editedMovie = isNewMovie ? new Movie() : CatalogManager.editableCopy(originalMovie);
 
             // Update the movie's details from the form
-            aCurrentMovie.setMovie_Title(enteredTitle);
-            aCurrentMovie.setMovie_Genre(genreTextField.getText().trim());
-            aCurrentMovie.setMovie_Synopsis(synopsisTextArea.getText().trim());
-
-            if (!isNewMovie) {
-                // Find the movie with the same ID and replace it
-                for (int i = 0; i < movieList.size(); i++) {
-                    if (movieList.get(i).getMovie_ID().equals(aCurrentMovie.getMovie_ID())) {
-                        movieList.set(i, aCurrentMovie);  // Replace the movie with updated details
-                        break;
-                    }
-                }
-            }
+            editedMovie.setMovie_Title(enteredTitle);
+            editedMovie.setMovie_Genre(genreTextField.getText().trim());
+            editedMovie.setMovie_Synopsis(synopsisTextArea.getText().trim());
 
             // Sort the movie list by title (case-insensitive, ignoring leading/trailing spaces)
-            movieList.sort((m1, m2) -> {
+            Comparator<Movie> byTitle = (m1, m2) -> {
                 String title1 = m1.getMovie_Title() != null ? m1.getMovie_Title().trim().toLowerCase() : "";
                 String title2 = m2.getMovie_Title() != null ? m2.getMovie_Title().trim().toLowerCase() : "";
                 return title1.compareTo(title2);
-            });
-
-            // Write the sorted list back to the serialized file
-            WriteObjects writer = new WriteObjects("movies.ser");
-            writer.write(movieList.stream().map(m -> (Object) m).collect(Collectors.toList()));
-
-            // Show a success message
-            AlertHelper successAlert = new AlertHelper(isNewMovie ? "New movie added successfully!" : "Movie updated successfully!");
-            successAlert.executeSuccessAlert();
-
-            // Close the current window
-            onBackButtonClick(pActionEvent);
-
-        } catch (IOException | IllegalArgumentException | ClassNotFoundException e) {
+            };
+
+            // Save the movie in the background, then go back to the management view
+            Task<Void> saveTask = PersistenceExecutor.getInstance().save(CatalogManager.MOVIES_FILE,
+                    () -> CatalogManager.getInstance().save(originalMovie, editedMovie, null, byTitle),
+                    () -> {
+                        new AlertHelper(isNewMovie ? "New movie added successfully!" : "Movie updated successfully!").executeSuccessAlert();
+                        onBackButtonClick(pActionEvent);
+                    },
+                    e -> onSaveFailed(e, pActionEvent));
+            PersistenceExecutor.showProgress((Node) pActionEvent.getSource(), saveTask);
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
             AlertHelper errorAlert = new AlertHelper("Error saving movie: " + e.getMessage());
             errorAlert.executeErrorAlert();
         }
     }
 
+    /**
+     * Handles a failed save. If another manager saved the movie meanwhile, asks whether to save
+     * these changes over theirs or to load theirs in the form; if they deleted it, goes back.
+     *
+     * @param pError       the cause of the failure.
+     * @param pActionEvent the event triggered by clicking the save button.
+     * @author agent
+     */
+    private void onSaveFailed(Throwable pError, ActionEvent pActionEvent) {
+        AlertHelper.executeSaveFailedAlerts(pError, "movie", Movie.class,
+                () -> onBackButtonClick(pActionEvent),
+                current -> {
+                    aCurrentMovie = current;
+                    onSaveButtonClick(pActionEvent);
+                },
+                this::initializeData);
+    }
+
     /**
      * Handles the back button click event. Navigates back to the management view.
      *
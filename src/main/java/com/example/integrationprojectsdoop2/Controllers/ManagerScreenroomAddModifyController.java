@@ -1,21 +1,22 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
+import com.example.integrationprojectsdoop2.Models.CatalogManager;
 import com.example.integrationprojectsdoop2.Models.ModifyController;
 import com.example.integrationprojectsdoop2.Models.Screenroom;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
-import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Controller for adding and modifying Screenrooms in the application.
@@ -28,8 +29,25 @@ public class ManagerScreenroomAddModifyController implements ModifyController<Sc
     @FXML
     private TextField NameTextField;
 
+    @FXML
+    private TextField RowsTextField;
+
+    @FXML
+    private TextField SeatsPerRowTextField;
+
     private Screenroom aCurrentScreenroom;
 
+    /**
+     * Initializes the seat layout fields with the default layout of a new Screenroom.
+     *
+     * @author agent
+     */
+    @FXML
+    public void initialize() {
+        RowsTextField.setText(String.valueOf(Screenroom.DEFAULT_ROWS));
+        SeatsPerRowTextField.setText(String.valueOf(Screenroom.DEFAULT_SEATS_PER_ROW));
+    }
+
     /**
      * Initializes the form with the provided Screenroom's data.
      * Clears the form if no Screenroom is provided.
@@ -41,35 +59,35 @@ public class ManagerScreenroomAddModifyController implements ModifyController<Sc
         if (pScreenroom != null) {
             this.aCurrentScreenroom = pScreenroom;
             NameTextField.setText(pScreenroom.getScreenroom_Name());
+            RowsTextField.setText(String.valueOf(pScreenroom.getRows()));
+            SeatsPerRowTextField.setText(String.valueOf(pScreenroom.getSeatsPerRow()));
         } else {
             this.aCurrentScreenroom = null;
             NameTextField.clear();
+            RowsTextField.setText(String.valueOf(Screenroom.DEFAULT_ROWS));
+            SeatsPerRowTextField.setText(String.valueOf(Screenroom.DEFAULT_SEATS_PER_ROW));
         }
     }
 
     /**
-     * Handles the save button click event. Validates inputs, checks for duplicates,
-     * updates the Screenroom list, sorts it alphabetically, and saves it back to the file.
+     * Handles the save button click event. Validates inputs, checks for duplicates, then saves
+     * an edited copy of the Screenroom, or a new one, in the background, keeping the Screenrooms
+     * sorted alphabetically. The save is rejected if another manager saved the Screenroom since
+     * it was opened.
      *
      * @param pActionEvent the event triggered by clicking the save button.
-     * @throws IOException              if an error occurs during file operations.
      * @throws IllegalArgumentException if input validation fails.
-     * @throws ClassNotFoundException   if the deserialization fails.
      * @author Jarvy Lazan
      */
     public void onSaveButtonClick(ActionEvent pActionEvent) {
         try {
-            // Read the list of existing screenrooms
-            ReadObjects reader = new ReadObjects("screenrooms.ser");
-            List<Object> rawObjects = reader.read();
-            List<Screenroom> screenroomList = rawObjects.stream()
-                    .filter(Screenroom.class::isInstance)
-                    .map(Screenroom.class::cast)
-                    .collect(Collectors.toList());
+            List<Screenroom> screenroomList = CatalogManager.getInstance().getScreenrooms();
 
             boolean isNewScreenroom = (aCurrentScreenroom == null);
 
             String enteredName = NameTextField.getText().trim();
+            int enteredRows = parseSeatCount(RowsTextField.getText(), "rows");
+            int enteredSeatsPerRow = parseSeatCount(SeatsPerRowTextField.getText(), "seats per row");
 
             // Check if a screenroom with the same name already exists
             boolean isDuplicate = screenroomList.stream()
@@ -82,49 +100,72 @@ public class ManagerScreenroomAddModifyController implements ModifyController<Sc
                 return;
             }
 
-            if (isNewScreenroom) {
-                // If this is a new screenroom, create and add it to the list
-                aCurrentScreenroom = new Screenroom();
-                screenroomList.add(aCurrentScreenroom);
-            }
+            // Edit a copy, since the cached screenroom is shared with the rest of the application
+            Screenroom originalScreenroom = aCurrentScreenroom;
+            Screenroom editedScreenroom = isNewScreenroom ? new Screenroom() : CatalogManager.editableCopy(originalScreenroom);
 
-            // Update the details of the current screenroom
-            aCurrentScreenroom.setScreenroom_Name(enteredName);
-
-            if (!isNewScreenroom) {
-                // Find the existing screenroom and replace it
-                for (int i = 0; i < screenroomList.size(); i++) {
-                    if (screenroomList.get(i).getScreenroom_ID().equals(aCurrentScreenroom.getScreenroom_ID())) {
-                        screenroomList.set(i, aCurrentScreenroom);
-                        break;
-                    }
-                }
-            }
+            // Update the details of the screenroom
+            editedScreenroom.setScreenroom_Name(enteredName);
+            editedScreenroom.setSeatLayout(enteredRows, enteredSeatsPerRow);
 
             // Sort the screenroom list by name (case-insensitive, ignoring leading/trailing spaces)
-            screenroomList.sort((sr1, sr2) -> {
+            Comparator<Screenroom> byName = (sr1, sr2) -> {
                 String name1 = sr1.getScreenroom_Name() != null ? sr1.getScreenroom_Name().trim().toLowerCase() : "";
                 String name2 = sr2.getScreenroom_Name() != null ? sr2.getScreenroom_Name().trim().toLowerCase() : "";
                 return name1.compareTo(name2);
-            });
-
-            // Write the sorted list back to the file
-            WriteObjects writer = new WriteObjects("screenrooms.ser");
-            writer.write(screenroomList.stream().map(s -> (Object) s).collect(Collectors.toList()));
-
-            // Show success message
-            AlertHelper successAlert = new AlertHelper(isNewScreenroom ? "New screenroom added successfully!" : "Screenroom updated successfully!");
-            successAlert.executeSuccessAlert();
-
-            // Navigate back to the management view
-            onBackButtonClick(pActionEvent);
-
-        } catch (IOException | IllegalArgumentException | ClassNotFoundException e) {
+            };
+
+            // Save the screenroom in the background, then go back to the management view
+            Task<Void> saveTask = PersistenceExecutor.getInstance().save(CatalogManager.SCREENROOMS_FILE,
+                    () -> CatalogManager.getInstance().save(originalScreenroom, editedScreenroom, null, byName),
+                    () -> {
+                        new AlertHelper(isNewScreenroom ? "New screenroom added successfully!" : "Screenroom updated successfully!").executeSuccessAlert();
+                        onBackButtonClick(pActionEvent);
+                    },
+                    e -> onSaveFailed(e, pActionEvent));
+            PersistenceExecutor.showProgress((Node) pActionEvent.getSource(), saveTask);
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
             AlertHelper errorAlert = new AlertHelper("Error saving screenroom: " + e.getMessage());
             errorAlert.executeErrorAlert();
         }
     }
 
+    /**
+     * Handles a failed save. If another manager saved the Screenroom meanwhile, asks whether to
+     * save these details over theirs or to load theirs in the form; if they deleted it, goes back.
+     *
+     * @param pError       the cause of the failure.
+     * @param pActionEvent the event triggered by clicking the save button.
+     * @author agent
+     */
+    private void onSaveFailed(Throwable pError, ActionEvent pActionEvent) {
+        AlertHelper.executeSaveFailedAlerts(pError, "screenroom", Screenroom.class,
+                () -> onBackButtonClick(pActionEvent),
+                current -> {
+                    aCurrentScreenroom = current;
+                    onSaveButtonClick(pActionEvent);
+                },
+                this::initializeData);
+    }
+
+    /**
+     * Parses a number of rows or seats entered in the form.
+     *
+     * @param pText the entered text.
+     * @param pWhat what the number counts, for the error message.
+     * @return the entered number.
+     * @throws IllegalArgumentException if the text is not a whole number.
+     * @author agent
+     */
+    private static int parseSeatCount(String pText, String pWhat) {
+        try {
+            return Integer.parseInt(pText.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("The number of " + pWhat + " must be a whole number.");
+        }
+    }
+
     /**
      * Handles the back button click event. Navigates back to the management view.
      *
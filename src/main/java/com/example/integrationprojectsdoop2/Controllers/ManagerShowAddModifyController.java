@@ -1,26 +1,20 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
 import com.example.integrationprojectsdoop2.Models.*;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.DatePicker;
 import javafx.stage.Stage;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 /**
  * Controller for managing the addition and modification of shows.
@@ -46,76 +40,42 @@ public class ManagerShowAddModifyController implements ModifyController<Show> {
 
     /**
      * Initializes the controller and loads movies, showtimes, and screenrooms into their respective ComboBoxes.
+     * They come from the catalog of the {@link TheatreService}, so the files are only read again after they changed.
      *
      * @author Jarvy Lazan
      */
     @FXML
     public void initialize() {
-        try {
-            loadMovies();
-            loadShowtimes();
-            loadScreenrooms();
-        } catch (IOException | ClassNotFoundException e) {
-            AlertHelper errorAlert = new AlertHelper("Failed to load data: " + e.getMessage());
-            errorAlert.executeErrorAlert();
-        }
+        loadMovies();
+        loadShowtimes();
+        loadScreenrooms();
     }
 
     /**
      * Loads movies into the MovieComboBox.
      *
-     * @throws IOException           if an error occurs while reading the file.
-     * @throws ClassNotFoundException if deserialization fails.
      * @author Jarvy Lazan
      */
-    private void loadMovies() throws IOException, ClassNotFoundException {
-        ReadObjects reader = new ReadObjects("movies.ser");
-        List<Object> movies = reader.read();
-        MovieComboBox.getItems().addAll(
-                movies.stream()
-                        .filter(Movie.class::isInstance)
-                        .map(Movie.class::cast)
-                        .map(Movie::getMovie_Title)
-                        .collect(Collectors.toList())
-        );
+    private void loadMovies() {
+        MovieComboBox.getItems().addAll(TheatreService.getInstance().getMovies().stream().map(Movie::getMovie_Title).toList());
     }
 
     /**
      * Loads showtimes into the ShowtimeComboBox.
      *
-     * @throws IOException           if an error occurs while reading the file.
-     * @throws ClassNotFoundException if deserialization fails.
      * @author Jarvy Lazan
      */
-    private void loadShowtimes() throws IOException, ClassNotFoundException {
-        ReadObjects reader = new ReadObjects("showtimes.ser");
-        List<Object> showtimes = reader.read();
-        ShowtimeComboBox.getItems().addAll(
-                showtimes.stream()
-                        .filter(Showtime.class::isInstance)
-                        .map(Showtime.class::cast)
-                        .map(Showtime::getShowtimeTime)
-                        .collect(Collectors.toList())
-        );
+    private void loadShowtimes() {
+        ShowtimeComboBox.getItems().addAll(TheatreService.getInstance().getShowtimes().stream().map(Showtime::getShowtimeTime).toList());
     }
 
     /**
      * Loads screenrooms into the ScreenroomComboBox.
      *
-     * @throws IOException           if an error occurs while reading the file.
-     * @throws ClassNotFoundException if deserialization fails.
      * @author Jarvy Lazan
      */
-    private void loadScreenrooms() throws IOException, ClassNotFoundException {
-        ReadObjects reader = new ReadObjects("screenrooms.ser");
-        List<Object> screenrooms = reader.read();
-        ScreenroomComboBox.getItems().addAll(
-                screenrooms.stream()
-                        .filter(Screenroom.class::isInstance)
-                        .map(Screenroom.class::cast)
-                        .map(Screenroom::getScreenroom_Name)
-                        .collect(Collectors.toList())
-        );
+    private void loadScreenrooms() {
+        ScreenroomComboBox.getItems().addAll(TheatreService.getInstance().getScreenrooms().stream().map(Screenroom::getScreenroom_Name).toList());
     }
 
     /**
@@ -128,160 +88,64 @@ public class ManagerShowAddModifyController implements ModifyController<Show> {
     public void initializeData(Show pShow) {
         if (pShow != null) {
             this.aCurrentShow = pShow;
-            MovieComboBox.setValue(pShow.getMovie().getMovie_Title());
-            ShowtimeComboBox.setValue(pShow.getShowtime().getShowtimeTime());
-            ScreenroomComboBox.setValue(pShow.getScreenroom().getScreenroom_Name());
+            // A reference missing from the catalog is left unselected, for the manager to choose again
+            MovieComboBox.setValue(pShow.getMovie() != null ? pShow.getMovie().getMovie_Title() : null);
+            ShowtimeComboBox.setValue(pShow.getShowtime() != null ? pShow.getShowtime().getShowtimeTime() : null);
+            ScreenroomComboBox.setValue(pShow.getScreenroom() != null ? pShow.getScreenroom().getScreenroom_Name() : null);
             ShowDatePicker.setValue(pShow.getShowDate());
         }
     }
 
     /**
-     * Handles the save button click. Validates input, checks for duplicates, updates or creates a show,
-     * and saves the list of shows to a file.
+     * Handles the save button click. Has the {@link TheatreService} validate the selection, check for
+     * duplicates, create or update the show and save the list of shows, in the background.
+     * The save is rejected if another manager saved the show since it was opened.
      *
      * @param pActionEvent the event triggered by clicking the save button.
      * @author Jarvy Lazan
      */
     public void onSaveButtonClick(ActionEvent pActionEvent) {
-        try {
-            String filePath = "shows.ser";
-
-            if (!Files.exists(Paths.get(filePath))) {
-                WriteObjects writer = new WriteObjects(filePath);
-                writer.write(new ArrayList<>());
-            }
-
-            ReadObjects reader = new ReadObjects(filePath);
-            List<Object> rawObjects = reader.read();
-            List<Show> showList = rawObjects.stream()
-                    .filter(Show.class::isInstance)
-                    .map(Show.class::cast)
-                    .collect(Collectors.toList());
-
-            boolean isNewShow = (aCurrentShow == null);
-
-            String selectedMovieTitle = MovieComboBox.getValue();
-            String selectedShowtimeTime = ShowtimeComboBox.getValue();
-            String selectedScreenroomName = ScreenroomComboBox.getValue();
-            LocalDate selectedDate = ShowDatePicker.getValue();
-
-            if (selectedMovieTitle == null || selectedShowtimeTime == null || selectedScreenroomName == null || selectedDate == null) {
-                new AlertHelper("All fields, including the date, must be selected.").executeErrorAlert();
-                return;
-            }
-
-            if (selectedDate.isBefore(LocalDate.now())) {
-                new AlertHelper("The selected date cannot be in the past.").executeErrorAlert();
-                return;
-            }
-
-            Movie selectedMovie = getMovieByTitle(selectedMovieTitle);
-            Showtime selectedShowtime = getShowtimeByTime(selectedShowtimeTime);
-            Screenroom selectedScreenroom = getScreenroomByName(selectedScreenroomName);
-
-            if (selectedMovie == null || selectedShowtime == null || selectedScreenroom == null) {
-                new AlertHelper("Unable to find the selected items in the database.").executeErrorAlert();
-                return;
-            }
-
-            boolean duplicateExists = showList.stream().anyMatch(show ->
-                    Objects.equals(show.getMovie().getMovie_Title(), selectedMovieTitle) &&
-                            Objects.equals(show.getShowtime().getShowtimeTime(), selectedShowtimeTime) &&
-                            Objects.equals(show.getScreenroom().getScreenroom_Name(), selectedScreenroomName) &&
-                            Objects.equals(show.getShowDate(), selectedDate)
-            );
-
-            if (duplicateExists) {
-                new AlertHelper("A show with the same details already exists.").executeErrorAlert();
-                return;
-            }
-
-            if (isNewShow) {
-                aCurrentShow = new Show();
-                showList.add(aCurrentShow);
-            }
-
-            aCurrentShow.setMovie(selectedMovie);
-            aCurrentShow.setShowtime(selectedShowtime);
-            aCurrentShow.setScreenroom(selectedScreenroom);
-            aCurrentShow.setShowDate(selectedDate);
-
-            if (!isNewShow) {
-                for (int i = 0; i < showList.size(); i++) {
-                    if (showList.get(i).getShowID().equals(aCurrentShow.getShowID())) {
-                        showList.set(i, aCurrentShow);
-                        break;
-                    }
-                }
-            }
-
-            // Save to file
-            WriteObjects writer = new WriteObjects(filePath);
-            writer.write(showList.stream().map(s -> (Object) s).collect(Collectors.toList()));
-
-            new AlertHelper(isNewShow ? "New show added successfully!" : "Show updated successfully!").executeSuccessAlert();
-            onBackButtonClick(pActionEvent);
-
-        } catch (IOException | ClassNotFoundException e) {
-            new AlertHelper("Error saving show: " + e.getMessage()).executeErrorAlert();
-        }
+        Show currentShow = aCurrentShow;
+        boolean isNewShow = (currentShow == null);
+
+        String selectedMovieTitle = MovieComboBox.getValue();
+        String selectedShowtimeTime = ShowtimeComboBox.getValue();
+        String selectedScreenroomName = ScreenroomComboBox.getValue();
+        LocalDate selectedDate = ShowDatePicker.getValue();
+
+        // Validate and save the show in the background, then go back to the management view
+        Task<Show> saveTask = PersistenceExecutor.getInstance().save(CatalogManager.SHOWS_FILE,
+                () -> TheatreService.getInstance().saveShow(currentShow, selectedMovieTitle, selectedShowtimeTime,
+                        selectedScreenroomName, selectedDate),
+                show -> {
+                    aCurrentShow = show;
+                    new AlertHelper(isNewShow ? "New show added successfully!" : "Show updated successfully!").executeSuccessAlert();
+                    onBackButtonClick(pActionEvent);
+                },
+                e -> onSaveFailed(e, pActionEvent));
+        PersistenceExecutor.showProgress((Node) pActionEvent.getSource(), saveTask);
     }
 
     /**
-     * Retrieves a movie by its title.
+     * Handles a failed save. If another manager saved the show meanwhile, asks whether to save
+     * this selection over theirs or to load theirs in the form; if they deleted it, goes back.
      *
-     * @param pTitle the title of the movie.
-     * @return the matching Movie object, or null if not found.
-     * @throws IOException           if an error occurs while reading the file.
-     * @throws ClassNotFoundException if deserialization fails.
-     * @author Jarvy Lazan
-     */
-    private Movie getMovieByTitle(String pTitle) throws IOException, ClassNotFoundException {
-        ReadObjects reader = new ReadObjects("movies.ser");
-        return reader.read().stream()
-                .filter(Movie.class::isInstance)
-                .map(Movie.class::cast)
-                .filter(movie -> movie.getMovie_Title().equals(pTitle))
-                .findFirst()
-                .orElse(null);
-    }
-
-    /**
-     * Retrieves a showtime by its time.
-     *
-     * @param pTime the time of the showtime.
-     * @return the matching Showtime object, or null if not found.
-     * @throws IOException           if an error occurs while reading the file.
-     * @throws ClassNotFoundException if deserialization fails.
-     * @author Jarvy Lazan
-     */
-    private Showtime getShowtimeByTime(String pTime) throws IOException, ClassNotFoundException {
-        ReadObjects reader = new ReadObjects("showtimes.ser");
-        return reader.read().stream()
-                .filter(Showtime.class::isInstance)
-                .map(Showtime.class::cast)
-                .filter(showtime -> showtime.getShowtimeTime().equals(pTime))
-                .findFirst()
-                .orElse(null);
-    }
-
-    /**
-     * Retrieves a screenroom by its name.
-     *
-     * @param pName the name of the screenroom.
-     * @return the matching Screenroom object, or null if not found.
-     * @throws IOException           if an error occurs while reading the file.
-     * @throws ClassNotFoundException if deserialization fails.
-     * @author Jarvy Lazan
+     * @param pError       the cause of the failure.
+     * @param pActionEvent the event triggered by clicking the save button.
+     * @author agent
      */
-    private Screenroom getScreenroomByName(String pName) throws IOException, ClassNotFoundException {
-        ReadObjects reader = new ReadObjects("screenrooms.ser");
-        return reader.read().stream()
-                .filter(Screenroom.class::isInstance)
-                .map(Screenroom.class::cast)
-                .filter(screenroom -> screenroom.getScreenroom_Name().equals(pName))
-                .findFirst()
-                .orElse(null);
+    private void onSaveFailed(Throwable pError, ActionEvent pActionEvent) {
+        if (pError instanceof IllegalArgumentException) {
+            new AlertHelper(pError.getMessage()).executeErrorAlert();
+            return;
+        }
+        AlertHelper.executeSaveFailedAlerts(pError, "show", Show.class,
+                () -> onBackButtonClick(pActionEvent),
+                current -> {
+                    aCurrentShow = current;
+                    onSaveButtonClick(pActionEvent);
+                },
+                this::initializeData);
     }
 
     /**
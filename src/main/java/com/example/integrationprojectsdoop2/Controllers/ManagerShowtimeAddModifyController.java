@@ -1,21 +1,23 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
+import com.example.integrationprojectsdoop2.Models.CatalogManager;
 import com.example.integrationprojectsdoop2.Models.ModifyController;
 import com.example.integrationprojectsdoop2.Models.Showtime;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Controller for managing the addition and modification of showtimes.
@@ -48,23 +50,17 @@ public class ManagerShowtimeAddModifyController implements ModifyController<Show
 
     /**
      * Handles the save button click. Validates the entered showtime, checks for duplicates,
-     * updates or creates a showtime, sorts the list of showtimes, and saves the list to a file.
+     * then saves an edited copy of the showtime, or a new one, in the background, keeping the
+     * showtimes sorted by time. The save is rejected if another manager saved the showtime since
+     * it was opened.
      *
      * @param pActionEvent the event triggered by clicking the save button.
-     * @throws IOException           if an error occurs while reading or writing to the file.
      * @throws IllegalArgumentException if the entered time format is invalid.
-     * @throws ClassNotFoundException if deserialization fails during reading objects from the file.
      * @author Jarvy Lazan
      */
     public void onSaveButtonClick(ActionEvent pActionEvent) {
         try {
-            // Read the list of existing showtimes
-            ReadObjects reader = new ReadObjects("showtimes.ser");
-            List<Object> rawObjects = reader.read();
-            List<Showtime> showtimeList = rawObjects.stream()
-                    .filter(Showtime.class::isInstance)
-                    .map(Showtime.class::cast)
-                    .collect(Collectors.toList());
+            List<Showtime> showtimeList = CatalogManager.getInstance().getShowtimes();
 
             // Get the entered showtime time
             String enteredTime = TimeTextField.getText().trim();
@@ -89,29 +85,16 @@ public class ManagerShowtimeAddModifyController implements ModifyController<Show
 
             boolean isNewShowtime = (pCurrentShowtime == null);
 
-            if (isNewShowtime) {
-                // If this is a new showtime, create and add it to the list
-                pCurrentShowtime = new Showtime();
-                showtimeList.add(pCurrentShowtime);
-            }
+            // Edit a copy, since the cached showtime is shared with the rest of the application
+            Showtime originalShowtime = pCurrentShowtime;
+            Showtime editedShowtime = isNewShowtime ? new Showtime() : CatalogManager.editableCopy(originalShowtime);
 
-            // Update the details of the current showtime
+            // Update the details of the showtime
             String normalizedTime = normalizeTime(enteredTime);
-            pCurrentShowtime.setShowtimeTime(normalizedTime);
-
-
-            if (!isNewShowtime) {
-                // Find the existing showtime and replace it
-                for (int i = 0; i < showtimeList.size(); i++) {
-                    if (showtimeList.get(i).getShowtimeID().equals(pCurrentShowtime.getShowtimeID())) {
-                        showtimeList.set(i, pCurrentShowtime);
-                        break;
-                    }
-                }
-            }
+            editedShowtime.setShowtimeTime(normalizedTime);
 
             // Sort the showtime list by time (earliest to latest)
-            showtimeList.sort((s1, s2) -> {
+            Comparator<Showtime> byTime = (s1, s2) -> {
                 try {
                     String normalizedTime1 = normalizeTime(s1.getShowtimeTime());
                     String normalizedTime2 = normalizeTime(s2.getShowtimeTime());
@@ -120,28 +103,42 @@ public class ManagerShowtimeAddModifyController implements ModifyController<Show
                 } catch (Exception e) {
                     throw new IllegalArgumentException("Invalid time format: " + e.getMessage());
                 }
-            });
-
-
-
-
-            // Write the sorted list back to the file
-            WriteObjects writer = new WriteObjects("showtimes.ser");
-            writer.write(showtimeList.stream().map(s -> (Object) s).collect(Collectors.toList()));
-
-            // Show success message
-            AlertHelper successAlert = new AlertHelper(isNewShowtime ? "New showtime added successfully!" : "Showtime updated successfully!");
-            successAlert.executeSuccessAlert();
-
-            // Navigate back to the management view
-            onBackButtonClick(pActionEvent);
-
-        } catch (IOException | IllegalArgumentException | ClassNotFoundException e) {
+            };
+
+            // Save the showtime in the background, then go back to the management view
+            Task<Void> saveTask = PersistenceExecutor.getInstance().save(CatalogManager.SHOWTIMES_FILE,
+                    () -> CatalogManager.getInstance().save(originalShowtime, editedShowtime, null, byTime),
+                    () -> {
+                        new AlertHelper(isNewShowtime ? "New showtime added successfully!" : "Showtime updated successfully!").executeSuccessAlert();
+                        onBackButtonClick(pActionEvent);
+                    },
+                    e -> onSaveFailed(e, pActionEvent));
+            PersistenceExecutor.showProgress((Node) pActionEvent.getSource(), saveTask);
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
             AlertHelper errorAlert = new AlertHelper("Error saving showtime: " + e.getMessage());
             errorAlert.executeErrorAlert();
         }
     }
 
+    /**
+     * Handles a failed save. If another manager saved the showtime meanwhile, asks whether to save
+     * this time over theirs or to load theirs in the form; if they deleted it, goes back.
+     *
+     * @param pError       the cause of the failure.
+     * @param pActionEvent the event triggered by clicking the save button.
+     * @author agent
+     */
+    private void onSaveFailed(Throwable pError, ActionEvent pActionEvent) {
+        AlertHelper.executeSaveFailedAlerts(pError, "showtime", Showtime.class,
+                () -> onBackButtonClick(pActionEvent),
+                current -> {
+                    pCurrentShowtime = current;
+                    onSaveButtonClick(pActionEvent);
+                },
+                this::initializeData);
+    }
+
     /**
      * Normalizes a time string to HH:mm format.
      *
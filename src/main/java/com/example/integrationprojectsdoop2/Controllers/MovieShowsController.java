@@ -1,29 +1,42 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+import com.example.integrationprojectsdoop2.Helpers.ListCells;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
+import com.example.integrationprojectsdoop2.Models.AdmissionQueue;
 import com.example.integrationprojectsdoop2.Models.Client;
 import com.example.integrationprojectsdoop2.Models.ETicket;
+import com.example.integrationprojectsdoop2.Models.ETicketManager;
+import com.example.integrationprojectsdoop2.Models.SeatHold;
+import com.example.integrationprojectsdoop2.Models.SeatHoldManager;
 import com.example.integrationprojectsdoop2.Models.Show;
+import com.example.integrationprojectsdoop2.Models.TheatreService;
 import com.example.integrationprojectsdoop2.MovieTheatreApplication;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.Spinner;
+import javafx.scene.control.SpinnerValueFactory;
 import javafx.stage.Stage;
+import javafx.stage.Window;
+import javafx.util.Callback;
+import javafx.util.Duration;
 
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Controller for the movie shows view.
@@ -37,19 +50,10 @@ public class MovieShowsController {
     private static final String ETICKET_VIEW_PATH = "/com/example/integrationprojectsdoop2/e-ticket-view.fxml";
 
     /**
-     * The file path to the e-ticket view FXML file.
+     * The file path to the client dashboard view FXML file.
      */
     private static final String CLIENT_DASHBOARD_VIEW_PATH = "/com/example/integrationprojectsdoop2/client-dashboard-view.fxml";
 
-    /**
-     * Map storing show details as strings mapped to their corresponding Show objects.
-     */
-    private Map<String, Show> aShowMap = new HashMap<>();
-
-    /**
-     * List of available show options.
-     */
-    private List<Show> aShowOptions = new ArrayList<>();
 
     /**
      * Logged-in client interacting with the application.
@@ -63,12 +67,130 @@ public class MovieShowsController {
 
     /** ListView to display shows. */
     @FXML
-    private ListView<String> showListView;
+    private ListView<Show> showListView;
 
     /** Title Label to display the movie and date selected. */
     @FXML
     private Label movieTitleAndDateLabel;
 
+    /** Spinner to choose the number of tickets to buy. */
+    @FXML
+    private Spinner<Integer> ticketQuantitySpinner;
+
+    /** Label telling the client until when their seats are held. */
+    @FXML
+    private Label seatHoldLabel;
+
+    /**
+     * The seats held for the client on the selected show, or null if none are.
+     */
+    private SeatHold aHold;
+
+    /**
+     * The place of the client in the admission queue while they wait to buy, or null if they are not waiting.
+     */
+    private AdmissionQueue.Admission aAdmission;
+
+    /**
+     * Refreshes the place of the client in line every second while they wait, or null if they are not waiting.
+     */
+    private Timeline aQueueTimeline;
+
+    /**
+     * The free seats of each show listed, counted in the background; a show is missing until its seats are counted.
+     */
+    private Map<Show, Integer> aSeatsLeft = Map.of();
+
+    /**
+     * The number of the last hold requested, so a hold obtained after the client chose another show is released.
+     */
+    private int aHoldRequest;
+
+    /**
+     * Displays each show with its free seats, as last counted.
+     */
+    private final Callback<ListView<Show>, ListCell<Show>> aShowCells = ListCells.withText(show -> {
+        Integer seatsLeft = aSeatsLeft.get(show);
+        if (seatsLeft == null) {
+            return show + "\nCounting seats...";
+        }
+        return show + "\n" + (seatsLeft > 0 ? "Seats left: " + seatsLeft : "Sold out");
+    });
+
+    /**
+     * Initializes the ticket quantity spinner to a single ticket, and holds the chosen number
+     * of seats whenever the client selects a show or changes the number of tickets.
+     * The client leaves the admission queue, and the seats held are released, once the view is
+     * no longer shown, because its window was closed or another view replaced it.
+     */
+    @FXML
+    public void initialize() {
+        this.ticketQuantitySpinner.setValueFactory(
+                new SpinnerValueFactory.IntegerSpinnerValueFactory(1, TheatreService.MAX_TICKETS_PER_PURCHASE, 1));
+        this.showListView.setCellFactory(aShowCells);
+        this.showListView.getSelectionModel().selectedItemProperty().addListener((_, _, _) -> holdSelectedSeats());
+        this.ticketQuantitySpinner.valueProperty().addListener((_, _, _) -> holdSelectedSeats());
+        this.showListView.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((_, wasShowing, isShowing) -> {
+                    if (wasShowing && !isShowing) {
+                        leaveQueue();
+                        releaseHold();
+                    }
+                });
+    }
+
+    /**
+     * Releases the seats held for the client, if any, and holds the chosen number of seats of the
+     * selected show instead, in the background, so they cannot be sold to someone else while the
+     * client decides. Nothing is held if the show cannot be sold; the reason is given when buying.
+     */
+    private void holdSelectedSeats() {
+        TheatreService theatre = TheatreService.getInstance();
+        theatre.releaseHold(aHold);
+        aHold = null;
+        int request = ++aHoldRequest;
+        seatHoldLabel.setText("");
+
+        Show selectedShow = showListView.getSelectionModel().getSelectedItem();
+        Client client = aLoggedClient;
+        if (selectedShow == null || client == null) {
+            return;
+        }
+        int quantity = ticketQuantitySpinner.getValue();
+        PersistenceExecutor.getInstance().load(ETicketManager.STORE_FILE,
+                () -> theatre.holdSeats(selectedShow, client, quantity),
+                hold -> {
+                    if (request != aHoldRequest) {
+                        theatre.releaseHold(hold); // The client chose another show, or left, meanwhile
+                        return;
+                    }
+                    aHold = hold;
+                    seatHoldLabel.setText("Seats held for you until "
+                            + hold.getExpiresAt().format(DateTimeFormatter.ofPattern("HH:mm")) + ".");
+                    countSeatsLeft();
+                },
+                e -> {
+                    if (e instanceof IllegalArgumentException || e instanceof IllegalStateException) {
+                        if (request == aHoldRequest) {
+                            seatHoldLabel.setText(e.getMessage());
+                        }
+                    } else {
+                        System.err.println("Error holding seats: " + e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Releases the seats held for the client, if any, including those of a hold still being requested.
+     */
+    private void releaseHold() {
+        aHoldRequest++;
+        TheatreService.getInstance().releaseHold(aHold);
+        aHold = null;
+    }
 
     /**
      * Sets the data for the movie shows view and updates UI components.
@@ -78,111 +200,206 @@ public class MovieShowsController {
      * @param pShowOptions  The list of available show options.
      */
     public void setMovieShowsView(Show pShow, Client pLoggedClient, List<Show> pShowOptions) {
-        this.aShowOptions = pShowOptions;
         this.aLoggedClient = pLoggedClient;
         this.aShow = pShow;
 
         updateMovieTitleAndDateLabel();
-        updateShowListView();
+        this.showListView.setItems(FXCollections.observableArrayList(pShowOptions));
+        countSeatsLeft();
     }
 
     /**
      * Updates the label displaying the movie title and date.
      */
     private void updateMovieTitleAndDateLabel() {
-        this.movieTitleAndDateLabel.setText(this.aShow.getMovie().getMovie_Title() + ", " + this.aShow.getShowDate());
+        this.movieTitleAndDateLabel.setText(this.aShow.getMovieTitle() + ", " + this.aShow.getShowDate());
     }
 
     /**
-     * Updates the ListView to display the available show options.
+     * Counts the free seats of the shows listed in the background, then displays them, keeping the selected show.
      */
-    private void updateShowListView() {
-        ObservableList<String> showDetails = FXCollections.observableArrayList();
-        aShowMap.clear();
-
-        for (Show show : this.aShowOptions) {
-            showDetails.add(show.toString());
-            aShowMap.put(show.toString(), show);
-        }
-
-        this.showListView.setItems(showDetails);
+    private void countSeatsLeft() {
+        List<Show> shows = List.copyOf(this.showListView.getItems());
+        TheatreService theatre = TheatreService.getInstance();
+        PersistenceExecutor.getInstance().load(ETicketManager.STORE_FILE,
+                () -> {
+                    Map<Show, Integer> seatsLeft = new HashMap<>();
+                    shows.forEach(show -> seatsLeft.put(show, theatre.getSeatsLeft(show)));
+                    return seatsLeft;
+                },
+                seatsLeft -> {
+                    aSeatsLeft = seatsLeft;
+                    this.showListView.refresh();
+                },
+                e -> System.err.println("Error counting the seats left: " + e.getMessage()));
     }
 
     /**
      * Handles the action when the "Buy Ticket" button is clicked.
-     * Creates and saves an ETicket for the selected show and navigates to the ETicket view.
+     * Enters the {@link AdmissionQueue}, and buys the tickets once the client is admitted:
+     * right away unless other clients are buying at the same time, in which case the client
+     * is told their place in line and about how long they will wait, refreshed every second.
+     * Nothing is bought if the view is closed or left before the client is admitted.
      *
      * @param pEvent The action event triggered by the button click.
      */
     @FXML
     protected void onBuyTicketButtonClick(ActionEvent pEvent) {
-        String selectedShowDetails = showListView.getSelectionModel().getSelectedItem();
-
-        if (selectedShowDetails == null) {
+        if (showListView.getSelectionModel().getSelectedItem() == null) {
             AlertHelper alert = new AlertHelper("Please select a show before buying a ticket.");
             alert.executeWarningAlert();
             return;
         }
+        if (aAdmission != null) {
+            return; // Already waiting in line
+        }
 
-        Show selectedShow = aShowMap.get(selectedShowDetails);
+        AdmissionQueue.Admission admission = AdmissionQueue.getInstance().enter();
+        if (admission.isAdmitted()) {
+            buySelectedTickets(pEvent, admission);
+            return;
+        }
 
-        if (selectedShow != null) {
-            try {
-                // Check if the current date and time allow for purchasing the ticket
-                LocalDate today = LocalDate.now();
-                LocalTime now = LocalTime.now();
+        Node buyButton = (Node) pEvent.getSource();
+        buyButton.setDisable(true);
+        aAdmission = admission;
+        aQueueTimeline = new Timeline(new KeyFrame(Duration.seconds(1), _ -> showQueuePosition(admission)));
+        aQueueTimeline.setCycleCount(Animation.INDEFINITE);
+        aQueueTimeline.play();
+        showQueuePosition(admission);
+
+        admission.onAdmitted(Platform::runLater, () -> {
+            Window window = buyButton.getScene() != null ? buyButton.getScene().getWindow() : null;
+            if (aAdmission != admission || window == null || !window.isShowing()) {
+                admission.cancel(); // The client left meanwhile: frees the place admitted
+                return;
+            }
+            aAdmission = null;
+            stopQueueTimeline();
+            buyButton.setDisable(false);
+            buySelectedTickets(pEvent, admission);
+        });
+    }
 
-                String showtimeString = String.valueOf(selectedShow.getShowtime()); // Assuming format "HH:mm"
-                LocalTime showtime = LocalTime.parse(showtimeString);
+    /**
+     * Tells the client their place in the admission queue and about how long they will wait.
+     *
+     * @param pAdmission the place of the client.
+     */
+    private void showQueuePosition(AdmissionQueue.Admission pAdmission) {
+        int position = pAdmission.getPosition();
+        if (position > 0) {
+            seatHoldLabel.setText("Many clients are buying. You are number " + position + " in line, about "
+                    + Math.max(1, pAdmission.getEstimatedWait().toSeconds()) + " s left.");
+        }
+    }
 
-                LocalDate showDate = selectedShow.getShowDate(); // Assuming `Show` has a method to get its date
+    /**
+     * Stops waiting in the admission queue, leaving it, or giving up the purchase if the client was admitted meanwhile.
+     */
+    private void leaveQueue() {
+        if (aAdmission != null) {
+            aAdmission.cancel();
+            aAdmission = null;
+        }
+        stopQueueTimeline();
+    }
 
-                if (showDate.equals(today) && now.isAfter(showtime)) {
-                    throw new IllegalArgumentException("You cannot buy a ticket for a show that has started or a show that has passed.");
-                }
+    /**
+     * Stops refreshing the place of the client in line.
+     */
+    private void stopQueueTimeline() {
+        if (aQueueTimeline != null) {
+            aQueueTimeline.stop();
+            aQueueTimeline = null;
+        }
+    }
 
-                // Proceed to create and save the e-ticket
-                ETicket eTicket = new ETicket(selectedShow, aLoggedClient);
+    /**
+     * Buys as many ETickets as chosen for the selected show through the {@link TheatreService}, in the
+     * background, and then navigates to the ETicket view. Either all the tickets are bought, or none is.
+     * The admission of the client is finished once the purchase is done.
+     *
+     * @param pEvent     The action event triggered by the button click.
+     * @param pAdmission The admission of the client to buy.
+     */
+    private void buySelectedTickets(ActionEvent pEvent, AdmissionQueue.Admission pAdmission) {
+        Show selectedShow = showListView.getSelectionModel().getSelectedItem();
 
-                ReadObjects reader = new ReadObjects("etickets.ser");
-                List<ETicket> eTicketList = reader.read().stream()
-                        .filter(ETicket.class::isInstance)
-                        .map(ETicket.class::cast)
-                        .collect(Collectors.toList());
+        if (selectedShow == null) {
+            pAdmission.finish();
+            AlertHelper alert = new AlertHelper("Please select a show before buying a ticket.");
+            alert.executeWarningAlert();
+            return;
+        }
 
-                eTicketList.add(eTicket);
+        int quantity = ticketQuantitySpinner.getValue();
 
-                WriteObjects writer = new WriteObjects("etickets.ser");
-                writer.write(eTicketList.stream().map(s -> (Object) s).collect(Collectors.toList()));
+        // Buy the e-tickets in the background: the held seats if they are still held for this show,
+        // or else any free seats, unless the show has started or other buyers took the last seats
+        SeatHold hold = aHold;
+        aHold = null;
+        aHoldRequest++; // A hold still being requested is released once obtained
+        if (hold != null && (hold.getShow() != selectedShow || hold.getSeatCount() != quantity)) {
+            TheatreService.getInstance().releaseHold(hold);
+        }
+        Task<List<ETicket>> buyTask = PersistenceExecutor.getInstance().save(ETicketManager.STORE_FILE,
+                () -> {
+                    try {
+                        return buyTickets(hold, selectedShow, quantity);
+                    } finally {
+                        pAdmission.finish();
+                    }
+                },
+                eTickets -> navigateToETicketView(pEvent, eTickets),
+                e -> {
+                    if (e instanceof IllegalArgumentException || e instanceof IllegalStateException) {
+                        new AlertHelper(e.getMessage()).executeWarningAlert();
+                        seatHoldLabel.setText("");
+                        countSeatsLeft();
+                    } else {
+                        new AlertHelper("Error saving ETicket: " + e.getMessage()).executeErrorAlert();
+                    }
+                });
+        PersistenceExecutor.showProgress((Node) pEvent.getSource(), buyTask);
+    }
 
-                navigateToETicketView(pEvent, eTicket);
 
-            } catch (IllegalArgumentException e) {
-                AlertHelper alert = new AlertHelper(e.getMessage());
-                alert.executeWarningAlert();
-            } catch (IOException | ClassNotFoundException e) {
-                AlertHelper errorAlert = new AlertHelper("Error saving ETicket: " + e.getMessage());
-                errorAlert.executeErrorAlert();
+    /**
+     * Buys the tickets of a hold, or tickets of a show if the hold expired or there is none.
+     * Runs in the background.
+     *
+     * @param pHold     the seats held for the client, or null.
+     * @param pShow     the show.
+     * @param pQuantity the number of tickets.
+     * @return the tickets bought.
+     * @throws IOException if the tickets cannot be recorded.
+     */
+    private List<ETicket> buyTickets(SeatHold pHold, Show pShow, int pQuantity) throws IOException {
+        TheatreService theatre = TheatreService.getInstance();
+        if (pHold != null && pHold.getShow() == pShow && SeatHoldManager.getInstance().isActive(pHold)) {
+            try {
+                return theatre.buyHeldTickets(pHold);
+            } catch (IllegalStateException e) {
+                // The hold expired just now; buy any free seats instead
             }
-        } else {
-            AlertHelper alert = new AlertHelper("Selected show not found. Please try again.");
-            alert.executeWarningAlert();
         }
+        theatre.releaseHold(pHold);
+        return theatre.buyTickets(pShow, aLoggedClient, pQuantity);
     }
 
-
     /**
      * Navigates to the ETicket view.
      *
-     * @param pEvent  The triggering action event.
-     * @param eTicket The generated ETicket to display.
+     * @param pEvent    The triggering action event.
+     * @param pETickets The generated ETickets to display.
      */
-    private void navigateToETicketView(ActionEvent pEvent, ETicket eTicket) {
+    private void navigateToETicketView(ActionEvent pEvent, List<ETicket> pETickets) {
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(MovieTheatreApplication.class.getResource(ETICKET_VIEW_PATH));
             Parent root = fxmlLoader.load();
             ETicketViewController controller = fxmlLoader.getController();
-            controller.setETicketView(eTicket);
+            controller.setETicketView(pETickets);
 
             Scene scene = new Scene(root);
             Stage currentStage = (Stage) ((javafx.scene.Node) pEvent.getSource()).getScene().getWindow();
@@ -198,11 +415,13 @@ public class MovieShowsController {
 
     /**
      * Handles the action when the "Back" button is clicked.
-     * Navigates back to the Client Dashboard view.
+     * Leaves the admission queue, releases the seats held for the client and navigates back to the Client Dashboard view.
      *
      * @param pActionEvent The action event triggered by the button click.
      */
     public void onBackButtonClick(ActionEvent pActionEvent) {
+        leaveQueue();
+        releaseHold();
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(CLIENT_DASHBOARD_VIEW_PATH));
             Parent root = loader.load();
@@ -1,24 +1,40 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
+import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
+import com.example.integrationprojectsdoop2.Helpers.EventBus;
+import com.example.integrationprojectsdoop2.Helpers.FileLocks;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
 import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
 import com.example.integrationprojectsdoop2.Models.*;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.scene.Scene;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
+import javafx.stage.Window;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Controller for managing and displaying reports in the application.
  * This controller handles operations such as sorting and filtering reports
  * for users, movies, shows, and e-tickets.
+ * <p>
+ * While a ticket sales report is open, the tickets sold from other windows are received from
+ * the {@link EventBus}, and the sales shown are recounted from the live counters without
+ * loading the report again. Tickets sold together are recounted once.
  *
  * @author Jarvy Lazan & Samuel Mireault
  * @version 1.0
@@ -50,22 +66,33 @@ public class ReportViewController {
     /** List of shows for report generation and sorting. */
     private List<Show> aShowList = new ArrayList<>();
 
-    /** List of e-tickets for report generation and sorting. */
-    private List<ETicket> aETicketsList = new ArrayList<>();
+    /** Ticket sales counters, for report generation and sorting. */
+    private SalesAggregates aSales;
+
+    /** The subscription to the tickets sold, or null if no tickets are reported. */
+    private EventBus.Subscription aSubscription;
+
+    /** Whether a recount of the sales shown is already scheduled on the JavaFX thread. */
+    private final AtomicBoolean aRefreshPending = new AtomicBoolean();
+
+    /**
+     * The data of a report, loaded in the background.
+     *
+     * @param users  the users of the report.
+     * @param movies the movies of the report.
+     * @param shows  every show, for the ticket sales per show.
+     * @param sales  the ticket sales counters, or null if no tickets are reported.
+     */
+    private record ReportData(List<User> users, List<Movie> movies, List<Show> shows, SalesAggregates sales) {
+    }
 
     /**
-     * Initializes the report view by setting up the ComboBox listeners and loading show data.
+     * Initializes the report view by setting up the ComboBox listeners.
      * This method is automatically called after the FXML file is loaded.
      *
      * @author Jarvy Lazan & Samuel Mireault
      */
     public void initialize() {
-        List<Object> objects = readObjectsFromFile("shows.ser");
-        aShowList = objects.stream()
-                .filter(Show.class::isInstance)
-                .map(Show.class::cast)
-                .collect(Collectors.toList());
-
         // Add listener to ComboBox to sort the ListView dynamically
         reportComboBox.setOnAction(event -> {
             String selectedOption = reportComboBox.getValue();
@@ -73,11 +100,66 @@ public class ReportViewController {
                 switch (selectedOption) {
                     case "Alphabetical (A-Z)" -> sortData(true);
                     case "Alphabetical (Z-A)" -> sortData(false);
-                    case "Movies Sold" -> sortByMovieSold(aETicketsList); // Chronological sorting
+                    case "Movies Sold" -> sortByMovieSold(aSales); // Chronological sorting
                     case "Show by Tickets Sold" -> sortByShow(true); // Sorting by tickets sold
+                    case "Tickets Sold by Day" -> listByDay(aSales);
+                    case "Seat Holds" -> listSeatHolds();
+                    case "File Locks" -> listFileLocks();
+                    case "Admission Queue" -> listAdmissions();
                 }
             }
         });
+        reportListView.sceneProperty()
+                .flatMap(Scene::windowProperty)
+                .flatMap(Window::showingProperty)
+                .orElse(false)
+                .addListener((observable, wasShowing, isShowing) -> {
+                    if (wasShowing && !isShowing && aSubscription != null) {
+                        aSubscription.cancel();
+                        aSubscription = null;
+                    }
+                });
+    }
+
+    /**
+     * Schedules a recount of the sales shown after a ticket is sold, unless one is already
+     * scheduled. Called on the thread that sold the ticket.
+     *
+     * @author agent
+     */
+    private void onTicketSold() {
+        if (aRefreshPending.compareAndSet(false, true)) {
+            Platform.runLater(this::refreshSales);
+        }
+    }
+
+    /**
+     * Takes the current sales counters and shows the selected sales report again with them.
+     *
+     * @author agent
+     */
+    private void refreshSales() {
+        aRefreshPending.set(false);
+        if (reportComboBox.getItems().isEmpty()) {
+            return; // Still loading; the report recounts once it is shown
+        }
+        aSales = ETicketManager.getInstance().getSalesAggregates();
+
+        String selectedOption = reportComboBox.getValue();
+        if (selectedOption == null) {
+            sortByMovieSold(aSales);
+            return;
+        }
+        switch (selectedOption) {
+            case "Movies Sold" -> sortByMovieSold(aSales);
+            case "Show by Tickets Sold" -> sortByShow(true);
+            case "Tickets Sold by Day" -> listByDay(aSales);
+            case "Seat Holds" -> listSeatHolds();
+            case "Admission Queue" -> listAdmissions();
+            default -> {
+                // The other reports do not count tickets
+            }
+        }
     }
 
     /**
@@ -104,7 +186,7 @@ public class ReportViewController {
         ObservableList<String> sortedShowList = FXCollections.observableArrayList(
                 aShowList.stream()
                         .map(show -> String.format("%s | Tickets Sold: %d\n",
-                                show.getMovie().getMovie_Title() + " at " + show.getShowtime().getShowtimeTime() + " in " + show.getScreenroom().getScreenroom_Name(),
+                                show.getMovieTitle() + " at " + show.getShowtimeTime() + " in " + show.getScreenroomName(),
                                 calculateTicketsSoldForShow(show)))
                         .collect(Collectors.toList())
         );
@@ -120,29 +202,24 @@ public class ReportViewController {
      * @author Samuel Mireault
      */
     private int calculateTicketsSoldForShow(Show pShow) {
-        return (int) aETicketsList.stream()
-                .filter(ticket -> ticket.getShow().getShowID().equals(pShow.getShowID()))
-                .count();
+        return aSales == null ? 0 : aSales.getTicketsSoldForShow(pShow.getShowID());
     }
 
     /**
      * Sorts movies by the number of tickets sold in descending order.
      *
-     * @param pEticketList the list of e-tickets to process for sales data.
+     * @param pSales the ticket sales counters, or null if no tickets are reported.
      * @author Samuel Mireault
      */
-    private void sortByMovieSold(List<ETicket> pEticketList) {
+    private void sortByMovieSold(SalesAggregates pSales) {
         Map<String, Integer> movieSales = new HashMap<>();
 
-        for (ETicket eticket : pEticketList) {
-            String showID = eticket.getShow().getShowID();
-            Optional<Show> matchingShow = aShowList.stream()
-                    .filter(show -> show.getShowID().equals(showID))
-                    .findFirst();
-
-            matchingShow.ifPresent(show -> {
-                String movieName = show.getMovie().getMovie_Title();
-                movieSales.put(movieName, movieSales.getOrDefault(movieName, 0) + 1);
+        if (pSales != null) {
+            CatalogManager catalog = CatalogManager.getInstance();
+            pSales.getTicketsByMovie().forEach((movieID, ticketsSold) -> {
+                Movie movie = catalog.getMovie(movieID);
+                String movieName = movie != null ? movie.getMovie_Title() : movieID;
+                movieSales.merge(movieName, ticketsSold, Integer::sum);
             });
         }
 
@@ -158,51 +235,153 @@ public class ReportViewController {
         reportListView.setItems(reportData);
     }
 
+    /**
+     * Lists the number of tickets sold on each purchase day, in chronological order.
+     *
+     * @param pSales the ticket sales counters, or null if no tickets are reported.
+     * @author agent
+     */
+    private void listByDay(SalesAggregates pSales) {
+        ObservableList<String> reportData = FXCollections.observableArrayList();
+        if (pSales != null) {
+            pSales.getTicketsByDay().forEach((day, ticketsSold) ->
+                    reportData.add("Day: " + day + ", Tickets Sold: " + ticketsSold));
+        }
+        reportListView.setItems(reportData);
+    }
+
+    /**
+     * Lists how many seat holds were placed since the application started, and how they ended.
+     *
+     * @author agent
+     */
+    private void listSeatHolds() {
+        SeatHoldManager.HoldMetrics metrics = SeatHoldManager.getInstance().getMetrics();
+        reportListView.setItems(FXCollections.observableArrayList(
+                "Holds placed: " + metrics.placed(),
+                "Bought: " + metrics.confirmed(),
+                "Purchase failed: " + metrics.failed(),
+                "Released: " + metrics.released(),
+                "Expired: " + metrics.expired(),
+                "Still held: " + metrics.active()));
+    }
+
+    /**
+     * Lists how many purchases wait in the admission queue, how fast and after how long they are admitted,
+     * and how many are in progress.
+     *
+     * @author agent
+     */
+    private void listAdmissions() {
+        AdmissionQueue.AdmissionMetrics metrics = AdmissionQueue.getInstance().getMetrics();
+        reportListView.setItems(FXCollections.observableArrayList(
+                "Waiting in line: " + metrics.waiting() + " (longest: " + metrics.maxWaiting() + ")",
+                "Admitted: " + metrics.admitted() + " (without waiting: " + metrics.admittedAtOnce() + ")",
+                "Left the line: " + metrics.cancelled(),
+                String.format("Admitted per second over the last minute: %.1f (limit: %d, bursts of %d)",
+                        metrics.admittedLastMinute() / 60.0, metrics.rate(), metrics.burst()),
+                "Wait in line: " + metrics.averageWaitMillis() + " ms on average, " + metrics.maxWaitMillis() + " ms at most",
+                "Purchases in progress: " + metrics.inFlight() + " (limit: " + metrics.maxInFlight() + ")"));
+    }
+
+    /**
+     * Lists, for each data file locked since the application started, how many locks were taken
+     * and how long they waited for other threads or other copies of the application.
+     *
+     * @author agent
+     */
+    private void listFileLocks() {
+        ObservableList<String> reportData = FXCollections.observableArrayList();
+        for (FileLocks.LockMetrics metrics : FileLocks.getMetrics()) {
+            reportData.add(String.format("%s | Shared: %d, Exclusive: %d, Waited: %d (avg %.2f ms, max %.2f ms)",
+                    metrics.fileName(), metrics.shared(), metrics.exclusive(), metrics.contended(),
+                    metrics.averageContendedWaitNanos() / 1e6, metrics.maxWaitNanos() / 1e6));
+        }
+        reportListView.setItems(reportData);
+    }
+
     /**
      * Configures the report view to display data from a specific serialized file.
+     * The data is loaded in the background; the list is disabled until it is shown.
      *
      * @param pFilename the name of the serialized file (e.g., "clients.ser").
      * @author Jarvy Lazan & Samuel Mireault
      */
     public void setManagementView(String pFilename) {
-        List<Object> objects = readObjectsFromFile(pFilename);
+        if (ETicketManager.TICKETS_FILE.equals(pFilename) && aSubscription == null) {
+            // Subscribe before loading, so no ticket sold while the report loads is missed
+            aSubscription = EventBus.getInstance().subscribe(ETicket.class, Runnable::run, change -> onTicketSold());
+        }
+        Task<ReportData> loadTask = PersistenceExecutor.getInstance().load(pFilename,
+                () -> loadReportData(pFilename),
+                this::showReportData,
+                e -> new AlertHelper("Error loading the report: " + e.getMessage()).executeErrorAlert());
+        PersistenceExecutor.showProgress(reportListView, loadTask);
+    }
 
-        aUserList = objects.stream()
-                .filter(User.class::isInstance)
-                .map(User.class::cast)
-                .collect(Collectors.toList());
+    /**
+     * Loads the data of a report. Runs in the background.
+     *
+     * @param pFilename the name of the serialized file of the report.
+     * @return the data of the report.
+     * @author agent
+     */
+    private ReportData loadReportData(String pFilename) {
+        List<User> users = new ArrayList<>();
+        List<Movie> movies = new ArrayList<>();
+        SalesAggregates sales = null;
+        if (ETicketManager.TICKETS_FILE.equals(pFilename)) {
+            // Ticket sales come from the counters maintained with every purchase
+            sales = ETicketManager.getInstance().getSalesAggregates();
+        }
 
-        aMovieList = objects.stream()
-                .filter(Movie.class::isInstance)
-                .map(Movie.class::cast)
-                .collect(Collectors.toList());
+        // Sort the objects into their lists in a single pass over the file
+        readObjectsFromFile(pFilename, object -> {
+            if (object instanceof User user) {
+                users.add(user);
+            } else if (object instanceof Movie movie) {
+                movies.add(movie);
+            }
+        });
 
-        aETicketsList = objects.stream()
-                .filter(ETicket.class::isInstance)
-                .map(ETicket.class::cast)
-                .collect(Collectors.toList());
+        return new ReportData(users, movies, new ArrayList<>(CatalogManager.getInstance().getShows()), sales);
+    }
 
-        populateListView(aUserList, aMovieList, aETicketsList);
+    /**
+     * Displays the data of a report once it is loaded.
+     *
+     * @param pData the data of the report.
+     * @author agent
+     */
+    private void showReportData(ReportData pData) {
+        aUserList = pData.users();
+        aMovieList = pData.movies();
+        aShowList = pData.shows();
+        aSales = pData.sales();
+
+        populateListView(aUserList, aMovieList);
 
         if (!aUserList.isEmpty()) {
             reportComboBox.getItems().addAll("Alphabetical (A-Z)", "Alphabetical (Z-A)");
             sortData(true);
         } else {
 //            reportComboBox.getItems().addAll("Movie Sold", "Show");
-            reportComboBox.getItems().addAll("Movies Sold", "Show by Tickets Sold");
-            sortByMovieSold(aETicketsList);
+            reportComboBox.getItems().addAll("Movies Sold", "Show by Tickets Sold", "Tickets Sold by Day", "Seat Holds", "Admission Queue", "File Locks");
+            sortByMovieSold(aSales);
+            if (aSubscription != null) {
+                onTicketSold(); // Counts the tickets sold since the counters were loaded
+            }
         }
     }
 
     /**
-     * Populates the ListView with user, movie, and e-ticket data.
+     * Populates the ListView with user and movie data.
      *
      * @param pUsers  the list of user objects to display.
      * @param pMovies the list of movie objects to display.
-     * @param pETickets the list of e-ticket objects to display.
      * @author Jarvy Lazan & Samuel Mireault
      */
-    private void populateListView(List<User> pUsers, List<Movie> pMovies, List<ETicket> pETickets) {
+    private void populateListView(List<User> pUsers, List<Movie> pMovies) {
         ObservableList<String> displayList = FXCollections.observableArrayList();
 
         for (User user : pUsers) {
@@ -213,10 +392,6 @@ public class ReportViewController {
             displayList.add("Movie: " + movie.toString());
         }
 
-        for (ETicket eTicket : pETickets) {
-            displayList.add("Show: " + eTicket.toString());
-        }
-
         reportListView.setItems(displayList);
     }
 
@@ -238,25 +413,31 @@ public class ReportViewController {
         aUserList.sort(userComparator);
         aMovieList.sort(movieComparator);
 
-        populateListView(aUserList, aMovieList, aETicketsList);
+        populateListView(aUserList, aMovieList);
     }
 
     /**
-     * Reads objects from a serialized file.
+     * Reads objects from a serialized file one at a time and hands each of them to the consumer,
+     * without holding the whole file in memory. Catalog files are already held by the
+     * {@link CatalogManager}, so their cached objects are handed out instead.
      *
      * @param pFilename the name of the file to read from.
-     * @return a list of objects read from the file.
+     * @param pConsumer the consumer receiving each object read from the file.
      * @author Jarvy Lazan
      */
-    private List<Object> readObjectsFromFile(String pFilename) {
-        List<Object> objects = new ArrayList<>();
-        try {
-            ReadObjects reader = new ReadObjects(pFilename);
-            objects = reader.read();
-        } catch (IOException | ClassNotFoundException e) {
+    private void readObjectsFromFile(String pFilename, Consumer<Object> pConsumer) {
+        if (ETicketManager.TICKETS_FILE.equals(pFilename)) {
+            return; // Tickets are not objects in a file anymore, see setManagementView
+        }
+        if (CatalogManager.isCatalogFile(pFilename)) {
+            CatalogManager.getInstance().getCatalog(pFilename).forEach(pConsumer);
+            return;
+        }
+        try (Stream<Object> objects = new ReadObjects(pFilename).stream(Object.class)) {
+            objects.forEach(pConsumer);
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading objects from file: " + e.getMessage());
         }
-        return objects;
     }
 
     /**
@@ -1,9 +1,11 @@
 package com.example.integrationprojectsdoop2.Controllers;
 
 import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
+import com.example.integrationprojectsdoop2.Helpers.PersistenceExecutor;
 import com.example.integrationprojectsdoop2.Models.Client;
-import com.example.integrationprojectsdoop2.Models.User;
+import com.example.integrationprojectsdoop2.Models.TheatreService;
 import com.example.integrationprojectsdoop2.Models.UserManager;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -12,7 +14,6 @@ import javafx.scene.Scene;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -49,88 +50,62 @@ public class SignUpController {
     private PasswordField signUpConfirmPassword;
 
     /**
-     * List of clients retrieved from the {@link UserManager} singleton instance.
-     * Used for checking existing users and managing sign-ups.
-     */
-    private final List<User> aClientsList;
-
-    /**
-     * Constructs a new SignUpController.
-     * Initializes the client list by retrieving it from the {@link UserManager} singleton instance.
+     * Constructs a new SignUpController. The clients are looked up through the {@link TheatreService}
+     * when the user signs up.
      *
      * @author Samuel Mireault
      */
     public SignUpController() {
-        this.aClientsList = UserManager.getInstance().getClientList();
     }
 
     /**
      * Handles the "Sign Up" button click event.
-     * Validates the user's input fields including full name, email, and password.
-     * If the input is valid, creates a new {@link Client} object and adds it to the {@link UserManager}.
-     * Navigate the user to the client dashboard view upon successful sign-up.
+     * Signs up a new {@link Client} with the {@link TheatreService} in the background, which validates
+     * the full name, email and password entered. Navigates the user to the client dashboard view once
+     * the client is saved, or shows why the sign-up failed.
      *
-     * @throws IllegalArgumentException if there is an issue navigating to the client dashboard view or saving user data.
      * @author Samuel Mireault
      */
     public void onSignUpClickButton()  {
-        try {
-            // Validate the user's full name
-            String fullName = signUpName.getText().trim();
-            if (fullName.isEmpty() || !fullName.matches("^[a-zA-Z-]+ [a-zA-Z-]+$")) {
-                throw new IllegalArgumentException("You need to provide your full name. \neg: John Doe");
-            }
-            if (fullName.length() < 3 || fullName.length() > 100) {
-                throw new IllegalArgumentException("You need to provide at least 3 characters and no more than 100 characters.");
-            }
-
-            // Validate the user's email
-            String email = signUpEmail.getText().trim();
-            if (email.isEmpty() || !email.matches("^[\\w._%+-]+@[\\w.-]+\\.[a-zA-Z]{2,}$")) {
-                throw new IllegalArgumentException("You need to provide a valid email address. \neg: example@example.com");
-            }
-            for (User client : UserManager.getInstance().getClientList()) {
-                if (email.equals(client.getUser_Email())) {
-                    throw new IllegalArgumentException("This email is already subscribed. Please try again.");
-                }
-            }
-
-            // Validate the user's password
-            String confirmPassword = signUpConfirmPassword.getText().trim();
-            if (confirmPassword.isEmpty()) {
-                throw new IllegalArgumentException("You need to provide a confirmation password.");
-            }
-            String password = signUpPassword.getText().trim();
-            if (password.isEmpty()) {
-                throw new IllegalArgumentException("You need to enter a password.");
-            }
-            if (password.length() > 8) {
-                throw new IllegalArgumentException("Your password must be no more than 8 characters.");
-            }
-            if (!password.equals(confirmPassword)) {
-                throw new IllegalArgumentException("Passwords do not match.");
-            }
-
-            // Create a new client and add to UserManager
-            Client newClient = new Client(fullName, email, password);
-            UserManager.getInstance().addClient(newClient);
-            System.out.println("New client created: " +
-                    newClient.getClientID() + ", " +
-                    newClient.getUser_Name() + ", " +
-                    newClient.getUser_Email() + ", " +
-                    newClient.getUser_Password() + ", " +
-                    newClient.getFormattedSubscriptionDate());
-            AlertHelper clientAdd = new AlertHelper("Client Added: " + newClient.getUser_Email());
-            clientAdd.setMessage("You have successfully signed up. \n\nWelcome to TJS Theater!");
-            clientAdd.executeSuccessAlert();
-
-            // Navigate to the client dashboard
-            LoginController.clientDashboard(newClient, signUpEmail);
+        String fullName = signUpName.getText();
+        String email = signUpEmail.getText();
+        String password = signUpPassword.getText();
+        String confirmPassword = signUpConfirmPassword.getText();
+
+        // Validate the input and add the new client to the UserManager in the background
+        Task<Client> signUpTask = PersistenceExecutor.getInstance().save(UserManager.CLIENTS_FILE,
+                () -> TheatreService.getInstance().signUp(fullName, email, password, confirmPassword),
+                this::onClientSaved,
+                e -> {
+                    System.err.println(e.getMessage());
+                    new AlertHelper(e.getMessage()).executeWarningAlert();
+                });
+        PersistenceExecutor.showProgress(signUpEmail, signUpTask);
+    }
 
+    /**
+     * Welcomes a client whose sign-up was saved and navigates to the client dashboard.
+     *
+     * @param pClient the new client.
+     * @author agent
+     */
+    private void onClientSaved(Client pClient) {
+        System.out.println("New client created: " +
+                pClient.getClientID() + ", " +
+                pClient.getUser_Name() + ", " +
+                pClient.getUser_Email() + ", " +
+                pClient.getUser_Password() + ", " +
+                pClient.getFormattedSubscriptionDate());
+        AlertHelper clientAdd = new AlertHelper("Client Added: " + pClient.getUser_Email());
+        clientAdd.setMessage("You have successfully signed up. \n\nWelcome to TJS Theater!");
+        clientAdd.executeSuccessAlert();
+
+        // Navigate to the client dashboard
+        try {
+            LoginController.clientDashboard(pClient, signUpEmail);
         } catch (Exception e) {
             System.err.println(e.getMessage());
-            AlertHelper validation = new AlertHelper(e.getMessage());
-            validation.executeWarningAlert();
+            new AlertHelper(e.getMessage()).executeWarningAlert();
         }
     }
 
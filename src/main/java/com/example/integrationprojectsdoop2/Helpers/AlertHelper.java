@@ -1,10 +1,16 @@
 package com.example.integrationprojectsdoop2.Helpers;
 
+import com.example.integrationprojectsdoop2.Models.ShowComponent;
+import com.example.integrationprojectsdoop2.Models.StaleEditException;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonBar;
+import javafx.scene.control.ButtonType;
+import java.util.function.Consumer;
 
 /**
  * Helper class for displaying different types of alerts in a JavaFX application.
- * Provides methods to display success, error, and warning alerts with a customizable message.
+ * Provides methods to display success, error, and warning alerts with a customizable message,
+ * and to ask how to resolve an edit conflicting with another one.
  *
  * @author Jarvy Lazan
  */
@@ -78,4 +84,49 @@ public class AlertHelper {
         Alert alert = new Alert(Alert.AlertType.WARNING, aAlertMessage);
         alert.showAndWait();
     }
+
+    /**
+     * Displays a conflict alert (WARNING type) with the provided message, asking whether to keep
+     * one's own changes over those saved meanwhile from another window, or to load those instead.
+     *
+     * @return {@code true} to keep one's own changes, {@code false} to load the other changes.
+     * @throws IllegalStateException if the JavaFX runtime is not initialized properly.
+     * @author agent
+     */
+    public boolean executeConflictAlert() {
+        ButtonType keepMine = new ButtonType("Keep my changes", ButtonBar.ButtonData.YES);
+        ButtonType loadTheirs = new ButtonType("Load their changes", ButtonBar.ButtonData.NO);
+        Alert alert = new Alert(Alert.AlertType.WARNING, aAlertMessage, keepMine, loadTheirs);
+        alert.setHeaderText("This item was changed in another window");
+        return alert.showAndWait().orElse(loadTheirs) == keepMine;
+    }
+
+    /**
+     * Displays the alerts for a failed save of an edited {@link ShowComponent}. If another window saved
+     * the component meanwhile, asks whether to keep one's own changes or to load the other ones; if it
+     * deleted the component, says so; any other failure is shown as an error.
+     *
+     * @param pError      the cause of the failure.
+     * @param pSubject    the name of the saved component, used in the error message.
+     * @param pType       the type of the saved component.
+     * @param pOnDeleted  run once the component is known to have been deleted meanwhile.
+     * @param pOnKeepMine given the current component, to save one's own changes over it.
+     * @param pOnLoadTheirs given the current component, to load it in place of one's own changes.
+     * @param <T>         the type of the saved component.
+     * @throws IllegalStateException if the JavaFX runtime is not initialized properly.
+     * @author agent
+     */
+    public static <T extends ShowComponent> void executeSaveFailedAlerts(Throwable pError, String pSubject, Class<T> pType,
+            Runnable pOnDeleted, Consumer<T> pOnKeepMine, Consumer<T> pOnLoadTheirs) {
+        if (!(pError instanceof StaleEditException conflict)) {
+            new AlertHelper("Error saving " + pSubject + ": " + pError.getMessage()).executeErrorAlert();
+        } else if (conflict.getCurrent() == null) {
+            new AlertHelper(conflict.getMessage()).executeErrorAlert();
+            pOnDeleted.run();
+        } else if (new AlertHelper(conflict.getMessage()).executeConflictAlert()) {
+            pOnKeepMine.accept(pType.cast(conflict.getCurrent()));
+        } else {
+            pOnLoadTheirs.accept(pType.cast(conflict.getCurrent()));
+        }
+    }
 }
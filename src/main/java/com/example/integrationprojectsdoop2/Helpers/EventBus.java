@@ -0,0 +1,239 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Tells the open views of this application about the objects added, updated or deleted
+ * elsewhere in it, so they can patch what they display instead of loading it all again.
+ * <p>
+ * Changes are published with the type of the object changed, and delivered to the listeners
+ * subscribed to that type or to one of its supertypes. Each listener is called through the
+ * executor it subscribed with, such as {@code Platform::runLater} for a view, so a change
+ * published from a background save reaches the view on its own thread, in publishing order.
+ * A listener that fails is reported and does not keep the others from being called.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * EventBus.Subscription subscription = EventBus.getInstance().subscribe(Movie.class, Platform::runLater,
+ *         change -> System.out.println(change.kind() + " " + change.entity()));
+ * EventBus.getInstance().publish(Movie.class, EventBus.Change.added(movie));
+ * subscription.cancel();
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class EventBus {
+
+    /**
+     * What happened to an object.
+     *
+     * @author agent
+     */
+    public enum Kind {
+        /** The object was created. */
+        ADDED,
+        /** The object was replaced by a new version of itself. */
+        UPDATED,
+        /** The object was deleted. */
+        DELETED
+    }
+
+    /**
+     * A change to an object.
+     *
+     * @param kind     what happened to the object.
+     * @param previous the object before the change, or null if it was added.
+     * @param current  the object after the change, or null if it was deleted.
+     * @param <T>      the type of the object.
+     * @author agent
+     */
+    public record Change<T>(Kind kind, T previous, T current) {
+
+        /**
+         * Creates the change of an added object.
+         *
+         * @param pAdded the added object.
+         * @param <T>    the type of the object.
+         * @return the change.
+         * @author agent
+         */
+        public static <T> Change<T> added(T pAdded) {
+            return new Change<>(Kind.ADDED, null, pAdded);
+        }
+
+        /**
+         * Creates the change of an updated object.
+         *
+         * @param pPrevious the object before the update.
+         * @param pCurrent  the object after the update.
+         * @param <T>       the type of the object.
+         * @return the change.
+         * @author agent
+         */
+        public static <T> Change<T> updated(T pPrevious, T pCurrent) {
+            return new Change<>(Kind.UPDATED, pPrevious, pCurrent);
+        }
+
+        /**
+         * Creates the change of a deleted object.
+         *
+         * @param pDeleted the deleted object.
+         * @param <T>      the type of the object.
+         * @return the change.
+         * @author agent
+         */
+        public static <T> Change<T> deleted(T pDeleted) {
+            return new Change<>(Kind.DELETED, pDeleted, null);
+        }
+
+        /**
+         * Retrieves the object changed: as it is now, or as it was if it was deleted.
+         *
+         * @return the object changed.
+         * @author agent
+         */
+        public T entity() {
+            return current != null ? current : previous;
+        }
+    }
+
+    /**
+     * A listener subscribed to the changes of a type, until it is cancelled.
+     *
+     * @author agent
+     */
+    public final class Subscription {
+
+        /** The type of the objects listened to. */
+        private final Class<?> aType;
+
+        /** The executor calling the listener. */
+        private final Executor aExecutor;
+
+        /** The listener. */
+        private final Consumer<Change<?>> aListener;
+
+        /** Whether the subscription was cancelled. */
+        private volatile boolean aCancelled;
+
+        /**
+         * Constructs a subscription.
+         *
+         * @param pType     the type of the objects listened to.
+         * @param pExecutor the executor calling the listener.
+         * @param pListener the listener.
+         * @author agent
+         */
+        private Subscription(Class<?> pType, Executor pExecutor, Consumer<Change<?>> pListener) {
+            this.aType = pType;
+            this.aExecutor = pExecutor;
+            this.aListener = pListener;
+        }
+
+        /**
+         * Stops delivering changes to the listener, including those published but not delivered yet.
+         * Cancelling it again does nothing.
+         *
+         * @author agent
+         */
+        public void cancel() {
+            aCancelled = true;
+            aSubscriptions.remove(this);
+        }
+
+        /**
+         * Delivers a change to the listener through its executor, unless the subscription is
+         * cancelled by then.
+         *
+         * @param pChange the change.
+         * @author agent
+         */
+        private void deliver(Change<?> pChange) {
+            aExecutor.execute(() -> {
+                if (aCancelled) {
+                    return;
+                }
+                try {
+                    aListener.accept(pChange);
+                } catch (RuntimeException e) {
+                    System.err.println("Error applying a " + pChange.kind() + " change: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    /** The single instance of EventBus. */
+    private static EventBus aInstance;
+
+    /** The listeners subscribed, in subscription order. */
+    private final List<Subscription> aSubscriptions = new CopyOnWriteArrayList<>();
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     *
+     * @author agent
+     */
+    private EventBus() {
+    }
+
+    /**
+     * Returns the single instance of {@code EventBus}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code EventBus}.
+     * @author agent
+     */
+    public static synchronized EventBus getInstance() {
+        if (aInstance == null) {
+            aInstance = new EventBus();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Subscribes a listener to the changes of the objects of a type and of its subtypes.
+     *
+     * @param pType     the type of the objects listened to.
+     * @param pExecutor the executor calling the listener, such as {@code Platform::runLater}.
+     * @param pListener the listener.
+     * @param <T>       the type of the objects.
+     * @return the subscription, to cancel once the listener is no longer needed.
+     * @throws IllegalArgumentException if an argument is null.
+     * @author agent
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Subscription subscribe(Class<T> pType, Executor pExecutor, Consumer<Change<T>> pListener) {
+        if (pType == null || pExecutor == null || pListener == null) {
+            throw new IllegalArgumentException("Type, executor and listener cannot be null.");
+        }
+        Subscription subscription = new Subscription(pType, pExecutor,
+                change -> pListener.accept((Change<T>) change));
+        aSubscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Publishes a change to the listeners of its type and of its supertypes.
+     *
+     * @param pType   the type of the object changed.
+     * @param pChange the change.
+     * @param <T>     the type of the object.
+     * @throws IllegalArgumentException if an argument is null.
+     * @author agent
+     */
+    public <T> void publish(Class<T> pType, Change<T> pChange) {
+        if (pType == null || pChange == null) {
+            throw new IllegalArgumentException("Type and change cannot be null.");
+        }
+        for (Subscription subscription : aSubscriptions) {
+            if (subscription.aType.isAssignableFrom(pType)) {
+                subscription.deliver(pChange);
+            }
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Coordinates the reads and writes of a data file between the threads of this application and
+ * the other copies of the application sharing its working directory.
+ * <p>
+ * Readers take a shared lock and writers an exclusive one. Each lock is taken in two steps:
+ * a read-write lock between the threads of this application, then a {@link FileChannel#lock}
+ * on a lock file next to the data file, {@code .<name>.lock}, between applications. The lock file
+ * is never replaced, unlike the data files, which {@link WriteObjects} renames over, and an
+ * application that dies releases its locks with it. The threads of one application holding a
+ * shared lock share a single shared lock on the lock file.
+ * <p>
+ * Locks are reentrant, and a thread holding the exclusive lock of a file may also take its shared
+ * lock, but a thread holding only the shared lock must not ask for the exclusive one. Locks are
+ * meant to be held briefly, around an open, a rename or a read-modify-write, never while a user
+ * decides. How often and how long threads waited for them is kept per file for the reports.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * try (FileLocks.Lock _ = FileLocks.exclusive("shows.ser")) {
+ *     // Read, change and write shows.ser
+ * }
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class FileLocks {
+
+    /**
+     * Counts of the locks taken on a data file since the application started.
+     *
+     * @param fileName       the name of the data file.
+     * @param shared         the shared locks taken.
+     * @param exclusive      the exclusive locks taken.
+     * @param contended      the locks that had to wait for another thread or application.
+     * @param totalWaitNanos the time spent waiting for the locks, in nanoseconds.
+     * @param maxWaitNanos   the longest wait for a lock, in nanoseconds.
+     * @author agent
+     */
+    public record LockMetrics(String fileName, long shared, long exclusive, long contended,
+                              long totalWaitNanos, long maxWaitNanos) {
+
+        /**
+         * Computes the average wait of the contended locks.
+         *
+         * @return the average wait in nanoseconds, or 0 if no lock had to wait.
+         * @author agent
+         */
+        public long averageContendedWaitNanos() {
+            return contended == 0 ? 0 : totalWaitNanos / contended;
+        }
+    }
+
+    /** The lock of each data file, by absolute path. */
+    private static final Map<Path, LockFile> LOCK_FILES = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor: this class only has static methods.
+     *
+     * @author agent
+     */
+    private FileLocks() {
+    }
+
+    /**
+     * Takes the shared lock of a data file, waiting while a thread or another application holds
+     * its exclusive lock.
+     *
+     * @param pFileName the name of the data file.
+     * @return the lock, to close once the file was read.
+     * @throws IOException if the lock file cannot be opened or locked.
+     * @author agent
+     */
+    public static Lock shared(String pFileName) throws IOException {
+        return lockFileOf(pFileName).lockShared();
+    }
+
+    /**
+     * Takes the exclusive lock of a data file, waiting while a thread or another application holds
+     * one of its locks.
+     *
+     * @param pFileName the name of the data file.
+     * @return the lock, to close once the file was written.
+     * @throws IOException if the lock file cannot be opened or locked.
+     * @author agent
+     */
+    public static Lock exclusive(String pFileName) throws IOException {
+        return lockFileOf(pFileName).lockExclusive();
+    }
+
+    /**
+     * Retrieves the counts of the locks taken on each data file.
+     *
+     * @return a snapshot of the metrics of every data file locked so far, by file name.
+     * @author agent
+     */
+    public static List<LockMetrics> getMetrics() {
+        List<LockMetrics> metrics = new ArrayList<>();
+        LOCK_FILES.values().forEach(lockFile -> metrics.add(lockFile.metrics()));
+        metrics.sort(Comparator.comparing(LockMetrics::fileName));
+        return metrics;
+    }
+
+    /**
+     * Retrieves the lock of a data file, creating it on first use.
+     *
+     * @param pFileName the name of the data file.
+     * @return the lock of the file.
+     * @throws IllegalArgumentException if the file name is null or empty.
+     * @author agent
+     */
+    private static LockFile lockFileOf(String pFileName) {
+        if (pFileName == null || pFileName.isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty.");
+        }
+        return LOCK_FILES.computeIfAbsent(Paths.get(pFileName).toAbsolutePath().normalize(), LockFile::new);
+    }
+
+    /**
+     * A lock held on a data file, released when closed.
+     *
+     * @author agent
+     */
+    public static final class Lock implements AutoCloseable {
+
+        /** The lock file of the data file. */
+        private final LockFile aLockFile;
+
+        /** Whether the lock is exclusive. */
+        private final boolean aExclusive;
+
+        /** Whether this lock holds a share of the shared lock on the lock file. */
+        private final boolean aSharesFileLock;
+
+        /** Whether the lock was released. */
+        private boolean aReleased;
+
+        /**
+         * Constructs a held lock.
+         *
+         * @param pLockFile       the lock file of the data file.
+         * @param pExclusive      whether the lock is exclusive.
+         * @param pSharesFileLock whether the lock holds a share of the shared lock on the lock file.
+         * @author agent
+         */
+        private Lock(LockFile pLockFile, boolean pExclusive, boolean pSharesFileLock) {
+            this.aLockFile = pLockFile;
+            this.aExclusive = pExclusive;
+            this.aSharesFileLock = pSharesFileLock;
+        }
+
+        /**
+         * Releases the lock. Releasing it again does nothing.
+         *
+         * @author agent
+         */
+        @Override
+        public void close() {
+            if (aReleased) {
+                return;
+            }
+            aReleased = true;
+            if (aExclusive) {
+                aLockFile.unlockExclusive();
+            } else {
+                aLockFile.unlockShared(aSharesFileLock);
+            }
+        }
+    }
+
+    /**
+     * The lock file of a data file, with the locks of the threads of this application on it.
+     *
+     * @author agent
+     */
+    private static final class LockFile {
+
+        /** The name of the data file. */
+        private final String aFileName;
+
+        /** The path of the lock file. */
+        private final Path aPath;
+
+        /** Orders the threads of this application before they lock the lock file. */
+        private final ReentrantReadWriteLock aThreadLock = new ReentrantReadWriteLock();
+
+        /** The channel of the lock file, kept open while the application runs. */
+        private FileChannel aChannel;
+
+        /** The lock held on the lock file, or null if none. */
+        private FileLock aFileLock;
+
+        /** Number of shared locks of this application sharing the shared lock on the lock file. */
+        private int aSharedHolders;
+
+        /** Number of shared locks taken. */
+        private final LongAdder aShared = new LongAdder();
+
+        /** Number of exclusive locks taken. */
+        private final LongAdder aExclusive = new LongAdder();
+
+        /** Number of locks that had to wait. */
+        private final LongAdder aContended = new LongAdder();
+
+        /** Time spent waiting for the locks, in nanoseconds. */
+        private final LongAdder aWaitNanos = new LongAdder();
+
+        /** The longest wait for a lock, in nanoseconds. */
+        private final LongAccumulator aMaxWaitNanos = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Constructs the lock file of a data file; the lock file is opened on first use.
+         *
+         * @param pDataPath the absolute path of the data file.
+         * @author agent
+         */
+        private LockFile(Path pDataPath) {
+            this.aFileName = pDataPath.getFileName().toString();
+            this.aPath = pDataPath.resolveSibling("." + aFileName + ".lock");
+        }
+
+        /**
+         * Takes a shared lock. Only the first shared lock of this application locks the lock file.
+         *
+         * @return the held lock.
+         * @throws IOException if the lock file cannot be opened or locked.
+         * @author agent
+         */
+        private Lock lockShared() throws IOException {
+            long start = System.nanoTime();
+            boolean contended = !aThreadLock.readLock().tryLock();
+            if (contended) {
+                aThreadLock.readLock().lock();
+            }
+
+            // A thread holding the exclusive lock already holds the lock file
+            boolean sharesFileLock = !aThreadLock.isWriteLockedByCurrentThread();
+            if (sharesFileLock) {
+                try {
+                    synchronized (this) {
+                        if (aSharedHolders == 0) {
+                            contended |= lockFile(true);
+                        }
+                        aSharedHolders++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    aThreadLock.readLock().unlock();
+                    throw e;
+                }
+            }
+            aShared.increment();
+            recordWait(start, contended);
+            return new Lock(this, false, sharesFileLock);
+        }
+
+        /**
+         * Takes the exclusive lock. A thread already holding it does not lock the lock file again.
+         *
+         * @return the held lock.
+         * @throws IOException if the lock file cannot be opened or locked.
+         * @author agent
+         */
+        private Lock lockExclusive() throws IOException {
+            long start = System.nanoTime();
+            boolean contended = !aThreadLock.writeLock().tryLock();
+            if (contended) {
+                aThreadLock.writeLock().lock();
+            }
+
+            if (aThreadLock.getWriteHoldCount() == 1) {
+                try {
+                    synchronized (this) {
+                        contended |= lockFile(false);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    aThreadLock.writeLock().unlock();
+                    throw e;
+                }
+            }
+            aExclusive.increment();
+            recordWait(start, contended);
+            return new Lock(this, true, false);
+        }
+
+        /**
+         * Releases a shared lock, and the shared lock on the lock file with the last one.
+         *
+         * @param pSharesFileLock whether the lock held a share of the shared lock on the lock file.
+         * @author agent
+         */
+        private void unlockShared(boolean pSharesFileLock) {
+            if (pSharesFileLock) {
+                synchronized (this) {
+                    if (--aSharedHolders == 0) {
+                        unlockFile();
+                    }
+                }
+            }
+            aThreadLock.readLock().unlock();
+        }
+
+        /**
+         * Releases the exclusive lock, and the lock file once the thread no longer holds it.
+         *
+         * @author agent
+         */
+        private void unlockExclusive() {
+            if (aThreadLock.getWriteHoldCount() == 1) {
+                synchronized (this) {
+                    unlockFile();
+                }
+            }
+            aThreadLock.writeLock().unlock();
+        }
+
+        /**
+         * Locks the whole lock file, waiting while another application holds a conflicting lock.
+         * The channel is reopened if it was closed, which happens when a thread waiting for
+         * the lock is interrupted.
+         *
+         * @param pShared whether to take a shared lock rather than an exclusive one.
+         * @return true if the lock had to wait for another application.
+         * @throws IOException if the lock file cannot be opened or locked.
+         * @author agent
+         */
+        private boolean lockFile(boolean pShared) throws IOException {
+            if (aChannel == null || !aChannel.isOpen()) {
+                aChannel = FileChannel.open(aPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+            }
+            try {
+                aFileLock = aChannel.tryLock(0, Long.MAX_VALUE, pShared);
+                if (aFileLock != null) {
+                    return false;
+                }
+                aFileLock = aChannel.lock(0, Long.MAX_VALUE, pShared);
+                return true;
+            } catch (ClosedChannelException e) {
+                System.err.println("Lost the lock file of " + aFileName + ": " + e.getMessage());
+                throw e;
+            }
+        }
+
+        /**
+         * Releases the lock held on the lock file.
+         *
+         * @author agent
+         */
+        private void unlockFile() {
+            FileLock fileLock = aFileLock;
+            aFileLock = null;
+            if (fileLock == null || !fileLock.isValid()) {
+                return;
+            }
+            try {
+                fileLock.release();
+            } catch (IOException e) {
+                System.err.println("Error releasing the lock of " + aFileName + ": " + e.getMessage());
+            }
+        }
+
+        /**
+         * Records how long a lock took to take.
+         *
+         * @param pStartNanos when the lock was asked for, from {@link System#nanoTime()}.
+         * @param pContended  whether the lock had to wait.
+         * @author agent
+         */
+        private void recordWait(long pStartNanos, boolean pContended) {
+            if (pContended) {
+                long wait = System.nanoTime() - pStartNanos;
+                aContended.increment();
+                aWaitNanos.add(wait);
+                aMaxWaitNanos.accumulate(wait);
+            }
+        }
+
+        /**
+         * Takes a snapshot of the counts of the locks of the file.
+         *
+         * @return the metrics of the file.
+         * @author agent
+         */
+        private LockMetrics metrics() {
+            return new LockMetrics(aFileName, aShared.sum(), aExclusive.sum(), aContended.sum(),
+                    aWaitNanos.sum(), aMaxWaitNanos.get());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Combines writes submitted close together into a single durable flush.
+ * <p>
+ * An item submitted when no batch is open opens a new one, and the items submitted while it is
+ * open join it. The first thread to wait for the batch becomes its leader: it waits for a short
+ * window, closes the batch and flushes every item collected in it at once, while the others
+ * wait for the leader's flush. A batch is thus flushed as soon as one of its submitters waits
+ * for it, whichever it is. Every caller returns only once its item is durable, or throws the
+ * exception of the flush that contained it. Batches are flushed one at a time, in the order
+ * they were opened.
+ * <p>
+ * A caller producing its items under a lock of its own, such as snapshots of a list, enqueues
+ * them with {@link #enqueue(Object)} while holding that lock, so they are flushed in the order
+ * they were produced, and awaits the flush with {@link Pending#await()} once it released it,
+ * so the callers queued behind it can join the same batch.
+ *
+ * @param <T> the type of the items submitted.
+ * @author agent
+ */
+final class GroupCommit<T> {
+
+    /**
+     * Flushes a batch of items durably.
+     *
+     * @param <T> the type of the items flushed.
+     */
+    @FunctionalInterface
+    interface Flush<T> {
+        /**
+         * Flushes the items of a batch, in submission order.
+         *
+         * @param pBatch the items of the batch. Never empty.
+         * @throws IOException if the items cannot be made durable.
+         */
+        void flush(List<T> pBatch) throws IOException;
+    }
+
+    /**
+     * A batch of items flushed together.
+     *
+     * @param <T> the type of the items.
+     */
+    private static final class Batch<T> {
+
+        /** The items of the batch, in submission order. */
+        private final List<T> aItems = new ArrayList<>();
+
+        /** Whether a thread leads the batch, guarded by the lock of the group commit. */
+        private boolean aLed;
+
+        /** Whether the batch has been flushed, successfully or not. */
+        private boolean aDone;
+
+        /** The exception of the flush, or null if it succeeded. */
+        private IOException aFailure;
+    }
+
+    /**
+     * An item enqueued in a batch, whose flush must be awaited.
+     *
+     * @author agent
+     */
+    final class Pending {
+
+        /** The batch containing the item. */
+        private final Batch<T> aBatch;
+
+        /**
+         * Constructs the pending flush of an item.
+         *
+         * @param pBatch the batch containing the item.
+         * @author agent
+         */
+        private Pending(Batch<T> pBatch) {
+            this.aBatch = pBatch;
+        }
+
+        /**
+         * Waits until the batch containing the item has been flushed, leading and flushing it
+         * if no other thread does yet. Must be called once by the thread that enqueued the item,
+         * without holding a lock that other submitters need.
+         *
+         * @throws IOException if the flush of the batch failed, or the thread was interrupted while waiting.
+         * @author agent
+         */
+        void await() throws IOException {
+            boolean leader;
+            synchronized (aLock) {
+                leader = !aBatch.aLed;
+                aBatch.aLed = true;
+            }
+            if (leader) {
+                lead(aBatch);
+            } else {
+                awaitFlush(aBatch);
+            }
+
+            if (aBatch.aFailure != null) {
+                throw aBatch.aFailure;
+            }
+        }
+    }
+
+    /** The function flushing a batch. */
+    private final Flush<T> aFlush;
+
+    /** How long a leader waits for more items before flushing, in nanoseconds. */
+    private final long aWindowNanos;
+
+    /** Guards the open batch and the completion of batches. */
+    private final Object aLock = new Object();
+
+    /** Held while a batch is closed and flushed, so batches are flushed in order. */
+    private final ReentrantLock aFlushLock = new ReentrantLock();
+
+    /** The batch accepting new items, or null if none is open. */
+    private Batch<T> aOpenBatch;
+
+    /**
+     * Constructs a group commit flushing batches with the given function.
+     *
+     * @param pFlush        the function flushing a batch.
+     * @param pWindowMillis how long a leader waits for more items before flushing, in milliseconds.
+     * @author agent
+     */
+    GroupCommit(Flush<T> pFlush, long pWindowMillis) {
+        this.aFlush = pFlush;
+        this.aWindowNanos = TimeUnit.MILLISECONDS.toNanos(pWindowMillis);
+    }
+
+    /**
+     * Submits an item and waits until the batch containing it has been flushed.
+     *
+     * @param pItem the item to flush.
+     * @throws IOException if the flush of the batch failed, or the thread was interrupted while waiting.
+     * @author agent
+     */
+    void submit(T pItem) throws IOException {
+        enqueue(pItem).await();
+    }
+
+    /**
+     * Adds an item to the open batch, opening one if there is none, without waiting for its flush.
+     * Items are flushed in the order they were enqueued.
+     *
+     * @param pItem the item to flush.
+     * @return the pending flush of the item, to await.
+     * @author agent
+     */
+    Pending enqueue(T pItem) {
+        synchronized (aLock) {
+            if (aOpenBatch == null) {
+                aOpenBatch = new Batch<>();
+            }
+            aOpenBatch.aItems.add(pItem);
+            return new Pending(aOpenBatch);
+        }
+    }
+
+    /**
+     * Waits for the window to collect more items, then closes and flushes the batch.
+     *
+     * @param pBatch the batch led by the current thread.
+     * @author agent
+     */
+    private void lead(Batch<T> pBatch) {
+        LockSupport.parkNanos(aWindowNanos);
+
+        aFlushLock.lock();
+        try {
+            List<T> items;
+            synchronized (aLock) {
+                aOpenBatch = null; // Later items start the next batch
+                items = new ArrayList<>(pBatch.aItems);
+            }
+
+            IOException failure = null;
+            try {
+                aFlush.flush(items);
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException("Group commit failed: " + e.getMessage(), e);
+            }
+
+            synchronized (aLock) {
+                pBatch.aFailure = failure;
+                pBatch.aDone = true;
+                aLock.notifyAll();
+            }
+        } finally {
+            aFlushLock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the leader of the batch has flushed it.
+     *
+     * @param pBatch the batch joined by the current thread.
+     * @throws InterruptedIOException if the thread is interrupted while waiting.
+     * @author agent
+     */
+    private void awaitFlush(Batch<T> pBatch) throws InterruptedIOException {
+        synchronized (aLock) {
+            while (!pBatch.aDone) {
+                try {
+                    aLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for a group commit.");
+                }
+            }
+        }
+    }
+}
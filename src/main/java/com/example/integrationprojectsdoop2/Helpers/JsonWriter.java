@@ -0,0 +1,484 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Writes JSON documents as UTF-8 bytes into a growable buffer.
+ * Names, strings, numbers and dates are encoded straight into the buffer, character by
+ * character or digit by digit, so writing a field allocates nothing once the buffer is
+ * large enough. Commas between the members of objects and arrays are added automatically.
+ * <p>
+ * A writer is not thread-safe; use one per document, or {@link #reset()} it between documents.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * JsonWriter json = new JsonWriter();
+ * json.beginObject().name("id").value("S1").name("seatsLeft").value(42).endObject();
+ * json.writeTo(outputStream);
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class JsonWriter {
+
+    /** Deepest nesting of objects and arrays supported: one bit of {@link #aHasMember} per level, the document included. */
+    private static final int MAX_DEPTH = Long.SIZE - 1;
+
+    /** Hexadecimal digits, for escaped control characters. */
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    /** The encoded document. */
+    private byte[] aBuffer;
+
+    /** Number of bytes written to the buffer. */
+    private int aSize;
+
+    /** Current nesting depth. */
+    private int aDepth;
+
+    /** One bit per nesting level, set once that level has a member, so the next one needs a comma. */
+    private long aHasMember;
+
+    /** Whether a name was just written, so the value following it needs no comma. */
+    private boolean aAfterName;
+
+    /**
+     * Creates a writer with a buffer of 1 KiB.
+     *
+     * @author agent
+     */
+    public JsonWriter() {
+        this(1024);
+    }
+
+    /**
+     * Creates a writer with a buffer of the given initial capacity.
+     *
+     * @param pCapacity the initial capacity of the buffer, in bytes.
+     * @throws IllegalArgumentException if the capacity is not positive.
+     * @author agent
+     */
+    public JsonWriter(int pCapacity) {
+        if (pCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.aBuffer = new byte[pCapacity];
+    }
+
+    /**
+     * Empties the writer, keeping its buffer, to write another document.
+     *
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter reset() {
+        aSize = 0;
+        aDepth = 0;
+        aHasMember = 0;
+        aAfterName = false;
+        return this;
+    }
+
+    /**
+     * Starts an object.
+     *
+     * @return this writer.
+     * @throws IllegalStateException if objects and arrays are nested too deep.
+     * @author agent
+     */
+    public JsonWriter beginObject() {
+        return begin('{');
+    }
+
+    /**
+     * Ends the current object.
+     *
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter endObject() {
+        return end('}');
+    }
+
+    /**
+     * Starts an array.
+     *
+     * @return this writer.
+     * @throws IllegalStateException if objects and arrays are nested too deep.
+     * @author agent
+     */
+    public JsonWriter beginArray() {
+        return begin('[');
+    }
+
+    /**
+     * Ends the current array.
+     *
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter endArray() {
+        return end(']');
+    }
+
+    /**
+     * Writes the name of the next member of the current object.
+     *
+     * @param pName the name of the member.
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter name(String pName) {
+        separate();
+        writeString(pName);
+        writeByte(':');
+        aAfterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or null.
+     *
+     * @param pValue the value.
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter value(String pValue) {
+        separate();
+        if (pValue == null) {
+            writeNull();
+        } else {
+            writeString(pValue);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @param pValue the value.
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter value(long pValue) {
+        separate();
+        writeLong(pValue);
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param pValue the value.
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter value(boolean pValue) {
+        separate();
+        if (pValue) {
+            writeAscii("true");
+        } else {
+            writeAscii("false");
+        }
+        return this;
+    }
+
+    /**
+     * Writes a date as a string such as {@code "2024-12-31"}, or null.
+     *
+     * @param pDate the date.
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter value(LocalDate pDate) {
+        separate();
+        if (pDate == null) {
+            writeNull();
+        } else {
+            writeByte('"');
+            writeDate(pDate.getYear(), pDate.getMonthValue(), pDate.getDayOfMonth());
+            writeByte('"');
+        }
+        return this;
+    }
+
+    /**
+     * Writes a date and time to the second as a string such as {@code "2024-12-31T20:15:00"}, or null.
+     *
+     * @param pDateTime the date and time.
+     * @return this writer.
+     * @author agent
+     */
+    public JsonWriter value(LocalDateTime pDateTime) {
+        separate();
+        if (pDateTime == null) {
+            writeNull();
+        } else {
+            writeByte('"');
+            writeDate(pDateTime.getYear(), pDateTime.getMonthValue(), pDateTime.getDayOfMonth());
+            writeByte('T');
+            writeTwoDigits(pDateTime.getHour());
+            writeByte(':');
+            writeTwoDigits(pDateTime.getMinute());
+            writeByte(':');
+            writeTwoDigits(pDateTime.getSecond());
+            writeByte('"');
+        }
+        return this;
+    }
+
+    /**
+     * Retrieves the number of bytes of the document written so far.
+     *
+     * @return the size of the document, in bytes.
+     * @author agent
+     */
+    public int size() {
+        return aSize;
+    }
+
+    /**
+     * Writes the document to a stream.
+     *
+     * @param pOut the stream.
+     * @throws IOException if the stream cannot be written.
+     * @author agent
+     */
+    public void writeTo(OutputStream pOut) throws IOException {
+        pOut.write(aBuffer, 0, aSize);
+    }
+
+    /**
+     * Retrieves the document as a string.
+     *
+     * @return the document.
+     * @author agent
+     */
+    @Override
+    public String toString() {
+        return new String(aBuffer, 0, aSize, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens an object or an array.
+     *
+     * @param pBracket the opening bracket.
+     * @return this writer.
+     * @throws IllegalStateException if objects and arrays are nested too deep.
+     * @author agent
+     */
+    private JsonWriter begin(char pBracket) {
+        if (aDepth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested deeper than " + MAX_DEPTH + " levels.");
+        }
+        separate();
+        writeByte(pBracket);
+        aDepth++;
+        aHasMember &= ~(1L << aDepth);
+        return this;
+    }
+
+    /**
+     * Closes an object or an array.
+     *
+     * @param pBracket the closing bracket.
+     * @return this writer.
+     * @author agent
+     */
+    private JsonWriter end(char pBracket) {
+        writeByte(pBracket);
+        aDepth--;
+        return this;
+    }
+
+    /**
+     * Writes the comma preceding a member, unless it is the first of its object or array,
+     * or the value of a name just written.
+     *
+     * @author agent
+     */
+    private void separate() {
+        if (aAfterName) {
+            aAfterName = false;
+            return;
+        }
+        long bit = 1L << aDepth;
+        if ((aHasMember & bit) != 0) {
+            writeByte(',');
+        }
+        aHasMember |= bit;
+    }
+
+    /**
+     * Writes a quoted and escaped string, encoded in UTF-8.
+     *
+     * @param pValue the string.
+     * @author agent
+     */
+    private void writeString(String pValue) {
+        writeByte('"');
+        int length = pValue.length();
+        for (int i = 0; i < length; i++) {
+            char c = pValue.charAt(i);
+            if (c == '"' || c == '\\') {
+                writeByte('\\');
+                writeByte(c);
+            } else if (c < 0x20) {
+                writeEscapedControl(c);
+            } else if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(pValue.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, pValue.charAt(++i));
+                writeByte(0xF0 | (codePoint >> 18));
+                writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                writeByte(0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?'); // Unpaired surrogate
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    /**
+     * Writes a control character as an escape sequence.
+     *
+     * @param pChar the control character.
+     * @author agent
+     */
+    private void writeEscapedControl(char pChar) {
+        writeByte('\\');
+        switch (pChar) {
+            case '\n' -> writeByte('n');
+            case '\r' -> writeByte('r');
+            case '\t' -> writeByte('t');
+            case '\b' -> writeByte('b');
+            case '\f' -> writeByte('f');
+            default -> {
+                writeAscii("u00");
+                writeByte(HEX[pChar >> 4]);
+                writeByte(HEX[pChar & 0xF]);
+            }
+        }
+    }
+
+    /**
+     * Writes the digits of a number.
+     *
+     * @param pValue the number.
+     * @author agent
+     */
+    private void writeLong(long pValue) {
+        if (pValue == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        if (pValue < 0) {
+            writeByte('-');
+            pValue = -pValue;
+        }
+        int digits = 1;
+        for (long rest = pValue / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = aSize + digits - 1; i >= aSize; i--) {
+            aBuffer[i] = (byte) ('0' + pValue % 10);
+            pValue /= 10;
+        }
+        aSize += digits;
+    }
+
+    /**
+     * Writes a date as {@code yyyy-MM-dd}.
+     *
+     * @param pYear  the year.
+     * @param pMonth the month, from 1 to 12.
+     * @param pDay   the day of the month.
+     * @author agent
+     */
+    private void writeDate(int pYear, int pMonth, int pDay) {
+        if (pYear >= 0 && pYear < 10_000) {
+            writeTwoDigits(pYear / 100);
+            writeTwoDigits(pYear % 100);
+        } else {
+            writeLong(pYear);
+        }
+        writeByte('-');
+        writeTwoDigits(pMonth);
+        writeByte('-');
+        writeTwoDigits(pDay);
+    }
+
+    /**
+     * Writes a number from 0 to 99 as two digits.
+     *
+     * @param pValue the number.
+     * @author agent
+     */
+    private void writeTwoDigits(int pValue) {
+        writeByte('0' + pValue / 10);
+        writeByte('0' + pValue % 10);
+    }
+
+    /**
+     * Writes the literal null.
+     *
+     * @author agent
+     */
+    private void writeNull() {
+        writeAscii("null");
+    }
+
+    /**
+     * Writes a string made only of ASCII characters, without quoting or escaping it.
+     *
+     * @param pText the text.
+     * @author agent
+     */
+    private void writeAscii(String pText) {
+        int length = pText.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            aBuffer[aSize++] = (byte) pText.charAt(i);
+        }
+    }
+
+    /**
+     * Writes a single byte.
+     *
+     * @param pByte the byte, in its lowest 8 bits.
+     * @author agent
+     */
+    private void writeByte(int pByte) {
+        ensureCapacity(1);
+        aBuffer[aSize++] = (byte) pByte;
+    }
+
+    /**
+     * Grows the buffer, if needed, to hold more bytes.
+     *
+     * @param pMore the number of bytes about to be written.
+     * @author agent
+     */
+    private void ensureCapacity(int pMore) {
+        if (aSize + pMore > aBuffer.length) {
+            aBuffer = Arrays.copyOf(aBuffer, Math.max(aBuffer.length * 2, aSize + pMore));
+        }
+    }
+}
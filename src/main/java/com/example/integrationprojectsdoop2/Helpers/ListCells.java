@@ -0,0 +1,73 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.util.Callback;
+
+import java.util.function.Function;
+
+/**
+ * Cell factories for list views holding objects rather than their text.
+ * <p>
+ * A list view only creates the cells it can show, and reuses them as the list scrolls, so the
+ * text of an object is only built when its row comes into view, however long the list is.
+ * A cell keeps the text of the object it displays, and only builds it again once it displays
+ * another object, so a cell laid out again does not call into the model.
+ * A factory is stateless: create it once, as a constant of the view, and share it between
+ * every list view displaying the same objects.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private static final Callback<ListView<Movie>, ListCell<Movie>> MOVIE_CELLS = ListCells.withText(Movie::getMovie_Title);
+ * movieListView.setCellFactory(MOVIE_CELLS);
+ * movieListView.setItems(FXCollections.observableArrayList(movies));
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class ListCells {
+
+    /**
+     * Private constructor: this class only has static methods.
+     *
+     * @author agent
+     */
+    private ListCells() {
+    }
+
+    /**
+     * Creates a factory of cells displaying the text of their object, built on its first display
+     * in the cell. Call {@link ListView#refresh()}, which creates the cells again, to display the
+     * text again when it changes but the objects do not.
+     *
+     * @param pText gives the text of an object, only called for the rows in view.
+     * @param <T>   the type of the objects of the list.
+     * @return the cell factory.
+     * @author agent
+     */
+    public static <T> Callback<ListView<T>, ListCell<T>> withText(Function<? super T, String> pText) {
+        return listView -> new ListCell<>() {
+            /** The object whose text the cell last built. */
+            private T aTextItem;
+
+            /** The text last built, of {@link #aTextItem}. */
+            private String aItemText;
+
+            @Override
+            protected void updateItem(T pItem, boolean pEmpty) {
+                super.updateItem(pItem, pEmpty);
+                if (pEmpty || pItem == null) {
+                    setText(null);
+                    return;
+                }
+                if (pItem != aTextItem) {
+                    aItemText = pText.apply(pItem);
+                    aTextItem = pItem;
+                }
+                setText(aItemText);
+            }
+        };
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the loads and saves of the application off the JavaFX Application Thread,
+ * so the interface stays responsive however large the files are.
+ * <p>
+ * Each operation runs as a {@link Task} on a pool of daemon threads. Its result, or its
+ * failure, is handed back on the JavaFX Application Thread, where the caller updates the
+ * interface. Operations on the same file run one at a time, in the order they were submitted,
+ * so two saves of a file never overlap and a load submitted after a save sees it.
+ * {@link #showProgress(Node, Task)} disables a control and shows a busy cursor while an
+ * operation runs.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * Task<Void> task = PersistenceExecutor.getInstance().save("movies.ser",
+ *         () -> new WriteObjects("movies.ser").writeGrouped(movies),
+ *         () -> new AlertHelper("Saved!").executeSuccessAlert(),
+ *         e -> new AlertHelper(e.getMessage()).executeErrorAlert());
+ * PersistenceExecutor.showProgress(saveButton, task);
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class PersistenceExecutor {
+
+    /**
+     * A save that may fail with an {@link IOException}.
+     */
+    @FunctionalInterface
+    public interface Save {
+        /**
+         * Performs the save.
+         *
+         * @throws IOException if the save fails.
+         */
+        void run() throws IOException;
+    }
+
+    /** The single instance of PersistenceExecutor. */
+    private static PersistenceExecutor aInstance;
+
+    /** The threads running the operations. */
+    private final ExecutorService aWorkers;
+
+    /** The queue of operations of each file, by absolute path. */
+    private final Map<Path, FileQueue> aFileQueues = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     *
+     * @author agent
+     */
+    private PersistenceExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "persistence-" + threadCount.incrementAndGet());
+            thread.setDaemon(true); // Never keeps the application from exiting
+            return thread;
+        };
+        this.aWorkers = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * Returns the single instance of {@code PersistenceExecutor}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code PersistenceExecutor}.
+     * @author agent
+     */
+    public static synchronized PersistenceExecutor getInstance() {
+        if (aInstance == null) {
+            aInstance = new PersistenceExecutor();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Loads data in the background, after the operations already submitted on the same file.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param pFileName the name of the file read.
+     * @param pLoad     the load, run in the background.
+     * @param pOnLoaded called with the loaded data on the JavaFX Application Thread.
+     * @param pOnFailed called with the failure on the JavaFX Application Thread.
+     * @param <T>       the type of the loaded data.
+     * @return the task running the load.
+     * @author agent
+     */
+    public <T> Task<T> load(String pFileName, Callable<T> pLoad, Consumer<T> pOnLoaded, Consumer<Throwable> pOnFailed) {
+        return submit(pFileName, "Loading " + pFileName, pLoad, pOnLoaded, pOnFailed);
+    }
+
+    /**
+     * Saves data in the background, after the operations already submitted on the same file.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param pFileName the name of the file written.
+     * @param pSave     the save, run in the background.
+     * @param pOnSaved  called on the JavaFX Application Thread once the save is done.
+     * @param pOnFailed called with the failure on the JavaFX Application Thread.
+     * @return the task running the save.
+     * @author agent
+     */
+    public Task<Void> save(String pFileName, Save pSave, Runnable pOnSaved, Consumer<Throwable> pOnFailed) {
+        return submit(pFileName, "Saving " + pFileName, () -> {
+            pSave.run();
+            return null;
+        }, _ -> pOnSaved.run(), pOnFailed);
+    }
+
+    /**
+     * Saves data in the background, after the operations already submitted on the same file,
+     * and hands back the result of the save, such as the objects it created.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param pFileName the name of the file written.
+     * @param pSave     the save, run in the background.
+     * @param pOnSaved  called with the result of the save on the JavaFX Application Thread.
+     * @param pOnFailed called with the failure on the JavaFX Application Thread.
+     * @param <T>       the type of the result.
+     * @return the task running the save.
+     * @author agent
+     */
+    public <T> Task<T> save(String pFileName, Callable<T> pSave, Consumer<T> pOnSaved, Consumer<Throwable> pOnFailed) {
+        return submit(pFileName, "Saving " + pFileName, pSave, pOnSaved, pOnFailed);
+    }
+
+    /**
+     * Disables a control and shows a busy cursor on its scene while a task runs.
+     * Must be called on the JavaFX Application Thread.
+     *
+     * @param pNode the control to disable, typically the button that started the task.
+     * @param pTask the running task.
+     * @author agent
+     */
+    public static void showProgress(Node pNode, Task<?> pTask) {
+        if (pTask.isDone()) {
+            return;
+        }
+        Scene scene = pNode.getScene();
+        pNode.setDisable(true);
+        if (scene != null) {
+            scene.setCursor(Cursor.WAIT);
+        }
+        pTask.stateProperty().addListener((_, _, state) -> {
+            if (state == Worker.State.SUCCEEDED || state == Worker.State.FAILED || state == Worker.State.CANCELLED) {
+                pNode.setDisable(false);
+                if (scene != null) {
+                    scene.setCursor(Cursor.DEFAULT);
+                }
+            }
+        });
+    }
+
+    /**
+     * Wraps an operation in a task and queues it behind the operations on the same file.
+     *
+     * @param pFileName    the name of the file the operation works on.
+     * @param pDescription the message of the task while it runs.
+     * @param pWork        the operation, run in the background.
+     * @param pOnSucceeded called with the result on the JavaFX Application Thread.
+     * @param pOnFailed    called with the failure on the JavaFX Application Thread.
+     * @param <T>          the type of the result.
+     * @return the task running the operation.
+     * @author agent
+     */
+    private <T> Task<T> submit(String pFileName, String pDescription, Callable<T> pWork,
+                               Consumer<T> pOnSucceeded, Consumer<Throwable> pOnFailed) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                updateMessage(pDescription);
+                updateProgress(-1, 1); // The length of a load or save is not known in advance
+                T result = pWork.call();
+                updateProgress(1, 1);
+                return result;
+            }
+        };
+        // Task handlers run on the JavaFX Application Thread
+        task.setOnSucceeded(_ -> pOnSucceeded.accept(task.getValue()));
+        task.setOnFailed(_ -> {
+            Throwable failure = task.getException();
+            System.err.println(pDescription + " failed: " + failure.getMessage());
+            pOnFailed.accept(failure);
+        });
+
+        Path path = Paths.get(pFileName).toAbsolutePath().normalize();
+        aFileQueues.computeIfAbsent(path, _ -> new FileQueue(aWorkers)).execute(task);
+        return task;
+    }
+
+    /**
+     * Runs the operations of one file on the shared threads, one at a time, in submission order.
+     *
+     * @author agent
+     */
+    private static final class FileQueue implements Executor {
+
+        /** The threads running the operations. */
+        private final Executor aWorkers;
+
+        /** The operations waiting for the current one to finish. */
+        private final Queue<Runnable> aPending = new ArrayDeque<>();
+
+        /** Whether an operation of the file is running. */
+        private boolean aRunning;
+
+        /**
+         * Constructs the queue of a file.
+         *
+         * @param pWorkers the threads running the operations.
+         * @author agent
+         */
+        private FileQueue(Executor pWorkers) {
+            this.aWorkers = pWorkers;
+        }
+
+        /**
+         * Queues an operation, starting it right away if no other operation of the file is running.
+         *
+         * @param pOperation the operation.
+         * @author agent
+         */
+        @Override
+        public synchronized void execute(Runnable pOperation) {
+            aPending.add(() -> {
+                try {
+                    pOperation.run();
+                } finally {
+                    runNext();
+                }
+            });
+            if (!aRunning) {
+                runNext();
+            }
+        }
+
+        /**
+         * Starts the next queued operation, if any.
+         *
+         * @author agent
+         */
+        private synchronized void runNext() {
+            Runnable next = aPending.poll();
+            aRunning = next != null;
+            if (next != null) {
+                aWorkers.execute(next);
+            }
+        }
+    }
+}
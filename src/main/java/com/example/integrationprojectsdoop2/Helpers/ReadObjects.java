@@ -2,7 +2,13 @@ package com.example.integrationprojectsdoop2.Helpers;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A utility class to handle deserialization of objects from a specified file.
@@ -21,6 +27,17 @@ import java.util.List;
  * }
  * }
  * </pre>
+ * <p>
+ * Large files can also be read lazily with {@link #stream(Class)}, which deserializes one object
+ * at a time and stops reading as soon as a short-circuiting operation such as {@code findFirst}
+ * or {@code anyMatch} has its answer:
+ * <pre>
+ * {@code
+ * try (Stream<Movie> movies = new ReadObjects("movies.ser").stream(Movie.class)) {
+ *     Movie movie = movies.filter(m -> m.getMovie_Title().equals(title)).findFirst().orElse(null);
+ * }
+ * }
+ * </pre>
  *
  * @author Samuel Mireault
  */
@@ -62,7 +79,7 @@ public class ReadObjects {
 
         System.out.println("Reading objects from file: " + aFileName);
 
-        try (FileInputStream fi = new FileInputStream(aFileName);
+        try (FileInputStream fi = openInput();
              ObjectInputStream os = new ObjectInputStream(fi)) {
 
             while (true) {
@@ -85,4 +102,160 @@ public class ReadObjects {
         System.out.println("Successfully read " + objectsList.size() + " objects.");
         return objectsList;
     }
+
+    /**
+     * Returns a lazy stream of the objects of the given type stored in the file.
+     * Objects are deserialized one at a time as the stream is consumed, and objects of other
+     * types are skipped, so the whole file is never held in memory. Short-circuiting operations
+     * stop reading the file once they have their answer.
+     * <p>
+     * The returned stream holds the file open and must be closed, preferably with a
+     * try-with-resources statement. Errors raised while reading are thrown as
+     * {@link UncheckedIOException}.
+     *
+     * @param pType the type of the objects to keep; {@code Object.class} keeps every object.
+     * @param <T>   the type of the objects in the stream.
+     * @return a lazy stream of the objects of type {@code T}, in file order.
+     * @throws FileNotFoundException if the specified file does not exist.
+     * @throws IOException           if an I/O error occurs while opening the file.
+     * @author agent
+     */
+    public <T> Stream<T> stream(Class<T> pType) throws IOException {
+        if (pType == null) {
+            throw new IllegalArgumentException("Type cannot be null.");
+        }
+        ObjectIterator iterator = iterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(iterator::close)
+                .filter(pType::isInstance)
+                .map(pType::cast);
+    }
+
+    /**
+     * Returns a lazy iterator over every object stored in the file.
+     * The iterator holds the file open until it is exhausted or closed.
+     *
+     * @return an iterator deserializing one object at a time.
+     * @throws FileNotFoundException if the specified file does not exist.
+     * @throws IOException           if an I/O error occurs while opening the file.
+     * @author agent
+     */
+    public ObjectIterator iterator() throws IOException {
+        try {
+            return new ObjectIterator(new ObjectInputStream(new BufferedInputStream(openInput())));
+        } catch (FileNotFoundException e) {
+            System.err.println("File not found: " + aFileName);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the file under its shared {@link FileLocks} lock, so it is not opened while another
+     * copy of the application replaces it. The lock is released once the file is open: the open
+     * file keeps its content even if it is replaced while it is read.
+     *
+     * @return the open file.
+     * @throws FileNotFoundException if the specified file does not exist.
+     * @throws IOException           if the lock of the file cannot be taken.
+     * @author agent
+     */
+    private FileInputStream openInput() throws IOException {
+        try (FileLocks.Lock _ = FileLocks.shared(aFileName)) {
+            return new FileInputStream(aFileName);
+        }
+    }
+
+    /**
+     * An iterator reading the objects of a serialized file on demand.
+     * The file is closed when the end is reached or when {@link #close()} is called.
+     *
+     * @author agent
+     */
+    public static class ObjectIterator implements Iterator<Object>, Closeable {
+
+        /** The stream the objects are read from. */
+        private final ObjectInputStream aInput;
+
+        /** The next object, read ahead by {@link #hasNext()}. */
+        private Object aNext;
+
+        /** Whether the end of the file has been reached or the iterator closed. */
+        private boolean aDone;
+
+        /**
+         * Constructs an iterator over the given stream.
+         *
+         * @param pInput the object stream to read from.
+         * @author agent
+         */
+        private ObjectIterator(ObjectInputStream pInput) {
+            this.aInput = pInput;
+        }
+
+        /**
+         * Checks whether another object is available, reading it ahead if needed.
+         *
+         * @return {@code true} if another object is available.
+         * @throws UncheckedIOException if an error occurs while reading the file.
+         * @author agent
+         */
+        @Override
+        public boolean hasNext() {
+            if (aNext != null) {
+                return true;
+            }
+            if (aDone) {
+                return false;
+            }
+            try {
+                aNext = aInput.readObject();
+                return true;
+            } catch (EOFException e) {
+                close(); // End of the file reached
+                return false;
+            } catch (IOException e) {
+                close();
+                System.err.println("Error reading objects: " + e.getMessage());
+                throw new UncheckedIOException(e);
+            } catch (ClassNotFoundException e) {
+                close();
+                System.err.println("Error reading objects: " + e.getMessage());
+                throw new UncheckedIOException(new InvalidClassException(e.getMessage()));
+            }
+        }
+
+        /**
+         * Returns the next object of the file.
+         *
+         * @return the next deserialized object.
+         * @throws NoSuchElementException if the end of the file has been reached.
+         * @author agent
+         */
+        @Override
+        public Object next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object next = aNext;
+            aNext = null;
+            return next;
+        }
+
+        /**
+         * Closes the underlying file. Further calls to {@link #hasNext()} return {@code false}.
+         *
+         * @author agent
+         */
+        @Override
+        public void close() {
+            if (!aDone) {
+                aDone = true;
+                try {
+                    aInput.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing file: " + e.getMessage());
+                }
+            }
+        }
+    }
 }
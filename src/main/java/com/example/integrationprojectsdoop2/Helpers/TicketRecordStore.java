@@ -0,0 +1,465 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A store of fixed-width binary ticket records in a memory-mapped file.
+ * Unlike {@link WriteObjects}, no object serialization is involved:
+ * scans and lookups read the fields of each record directly from the mapped file.
+ * <p>
+ * The file starts with a header holding a magic number, the format version, the record size
+ * and the number of committed records, followed by the records themselves. An append writes the
+ * records after the last committed one and forces them to disk before the count in the header
+ * is updated and forced in turn, so a crash in the middle of an append leaves the store as it
+ * was before. Appends hold the exclusive {@link FileLocks} lock of the store and start after the count in
+ * the header rather than the one last seen, so several copies of the application can append to
+ * the same store without overwriting each other's records, and an append claiming a seat that
+ * another copy sold in the meantime is rejected. The records those copies append are picked up
+ * by {@link #size()}, {@link #indexOf(long)} and {@link #indexesOfShow(int)}, which read the count
+ * in the header again under the shared lock whenever it changed, and remap the file if it grew.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * TicketRecordStore store = new TicketRecordStore("etickets.dat");
+ * store.appendAll(List.of(new TicketRecordStore.TicketRecord(20240000000001L, 4, 2, epochSecond, 17)));
+ * int showNumber = store.showNumberAt(0);
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public class TicketRecordStore {
+
+    /**
+     * A ticket record: the numeric ticket ID, the number of the show and of the client
+     * (0 when unknown), the purchase time in epoch seconds and the seat (-1 when unassigned).
+     *
+     * @param ticketNumber        the ticket ID as a number.
+     * @param showNumber          the number of the show, or 0 if unknown.
+     * @param clientNumber        the number of the client, or 0 if unknown.
+     * @param purchaseEpochSecond the purchase time in epoch seconds.
+     * @param seatNumber          the number of the seat, or -1 if the ticket has no seat.
+     * @author agent
+     */
+    public record TicketRecord(long ticketNumber, int showNumber, int clientNumber, long purchaseEpochSecond,
+                               int seatNumber) {
+    }
+
+    /** Magic number written at the start of every store ("TKST"). */
+    private static final int MAGIC = 0x544B5354;
+
+    /** Version of the record format. */
+    private static final int VERSION = 1;
+
+    /** Size of the file header. */
+    private static final int HEADER_SIZE = 32;
+
+    /** Offset of the committed record count in the header. */
+    private static final int COUNT_OFFSET = 16;
+
+    /** Offset of the seat number in a record. */
+    private static final int SEAT_OFFSET = Long.BYTES + Integer.BYTES * 2 + Long.BYTES;
+
+    /** Size of a record: ticket number, show number, client number, purchase time and seat, padded to 8 bytes. */
+    private static final int RECORD_SIZE = SEAT_OFFSET + Integer.BYTES * 2;
+
+    /** Number of records the file can hold when it is created. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The name of the store file. */
+    private final String aFileName;
+
+    /** The channel of the store file, kept open to remap it when it grows. */
+    private final FileChannel aChannel;
+
+    /** The mapping of the whole file. */
+    private volatile MappedByteBuffer aBuffer;
+
+    /** The number of committed records. */
+    private volatile int aCount;
+
+    /** The index of the first record of each ticket number, for the committed records. */
+    private final Map<Long, Integer> aIndexByTicketNumber = new ConcurrentHashMap<>();
+
+    /** The indexes of the committed records of each show, by show number, in append order. */
+    private final Map<Integer, List<Integer>> aIndexesByShow = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the store in the specified file, creating it if it does not exist.
+     *
+     * @param pFileName the name of the store file. Must not be {@code null} or empty.
+     * @throws IllegalArgumentException if the provided file name is {@code null} or empty.
+     * @throws IOException              if the file cannot be opened or is not a ticket store.
+     * @author agent
+     */
+    public TicketRecordStore(String pFileName) throws IOException {
+        if (pFileName == null || pFileName.isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty.");
+        }
+        this.aFileName = pFileName;
+
+        // Another copy of the application may be creating or appending to the store
+        try (FileLocks.Lock _ = FileLocks.exclusive(pFileName)) {
+            this.aChannel = FileChannel.open(Paths.get(pFileName),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            try {
+                if (aChannel.size() < HEADER_SIZE) {
+                    createHeader();
+                } else {
+                    openHeader();
+                }
+            } catch (IOException e) {
+                System.err.println("Error opening ticket store: " + e.getMessage());
+                aChannel.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of committed records, including those appended by other copies of the application.
+     *
+     * @return the number of records in the store.
+     * @throws UncheckedIOException if the records appended by other copies cannot be read.
+     * @author agent
+     */
+    public int size() {
+        refresh();
+        return aCount;
+    }
+
+    /**
+     * Reads a whole record.
+     *
+     * @param pIndex the index of the record, in append order.
+     * @return the record.
+     * @throws IndexOutOfBoundsException if there is no record at that index.
+     * @author agent
+     */
+    public TicketRecord get(int pIndex) {
+        int offset = recordOffset(pIndex); // Reads the count before the buffer it may require
+        MappedByteBuffer buffer = aBuffer;
+        return new TicketRecord(buffer.getLong(offset),
+                buffer.getInt(offset + Long.BYTES),
+                buffer.getInt(offset + Long.BYTES + Integer.BYTES),
+                buffer.getLong(offset + Long.BYTES + Integer.BYTES * 2),
+                buffer.getInt(offset + SEAT_OFFSET));
+    }
+
+    /**
+     * Reads the ticket number of a record without reading the rest of it.
+     *
+     * @param pIndex the index of the record, in append order.
+     * @return the ticket number of the record.
+     * @throws IndexOutOfBoundsException if there is no record at that index.
+     * @author agent
+     */
+    public long ticketNumberAt(int pIndex) {
+        int offset = recordOffset(pIndex);
+        return aBuffer.getLong(offset);
+    }
+
+    /**
+     * Reads the show number of a record without reading the rest of it.
+     *
+     * @param pIndex the index of the record, in append order.
+     * @return the show number of the record.
+     * @throws IndexOutOfBoundsException if there is no record at that index.
+     * @author agent
+     */
+    public int showNumberAt(int pIndex) {
+        int offset = recordOffset(pIndex);
+        return aBuffer.getInt(offset + Long.BYTES);
+    }
+
+    /**
+     * Reads the seat number of a record without reading the rest of it.
+     *
+     * @param pIndex the index of the record, in append order.
+     * @return the seat number of the record, or -1 if the ticket has no seat.
+     * @throws IndexOutOfBoundsException if there is no record at that index.
+     * @author agent
+     */
+    public int seatNumberAt(int pIndex) {
+        int offset = recordOffset(pIndex);
+        return aBuffer.getInt(offset + SEAT_OFFSET);
+    }
+
+    /**
+     * Finds the index of the first record with the given ticket number, through an index of the
+     * ticket numbers kept up to date with the appends.
+     *
+     * @param pTicketNumber the ticket number to look for.
+     * @return the index of the record, or -1 if not found.
+     * @throws UncheckedIOException if the records appended by other copies cannot be read.
+     * @author agent
+     */
+    public int indexOf(long pTicketNumber) {
+        refresh();
+        Integer index = aIndexByTicketNumber.get(pTicketNumber);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Finds the committed records of a show, through an index of the shows kept up to date with the appends.
+     *
+     * @param pShowNumber the number of the show.
+     * @return the indexes of the records of the show, in append order; empty if it has none.
+     * @throws UncheckedIOException if the records appended by other copies cannot be read.
+     * @author agent
+     */
+    public int[] indexesOfShow(int pShowNumber) {
+        refresh();
+        List<Integer> indexes = aIndexesByShow.get(pShowNumber);
+        if (indexes == null) {
+            return new int[0];
+        }
+        synchronized (indexes) {
+            return indexes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Checks whether a committed record holds a seat of a show.
+     *
+     * @param pShowNumber the number of the show.
+     * @param pSeatNumber the number of the seat.
+     * @return true if a ticket of the store has that seat.
+     * @author agent
+     */
+    public boolean isSeatSold(int pShowNumber, int pSeatNumber) {
+        for (int index : indexesOfShow(pShowNumber)) {
+            if (seatNumberAt(index) == pSeatNumber) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Appends every record of the list as a single commit: either all of them are in the
+     * store after a crash, or none of them. Nothing is appended if a record has the seat of a
+     * committed record of its show, such as one appended meanwhile by another copy of the application.
+     *
+     * @param pRecords the records to append. Must not be {@code null}.
+     * @throws IllegalArgumentException if {@code pRecords} is {@code null}.
+     * @throws IllegalStateException    if the seat of a record is already sold.
+     * @throws IOException              if an I/O error occurs while appending.
+     * @author agent
+     */
+    public synchronized void appendAll(List<TicketRecord> pRecords) throws IOException {
+        if (pRecords == null) {
+            throw new IllegalArgumentException("Record list cannot be null.");
+        }
+        if (pRecords.isEmpty()) {
+            return;
+        }
+
+        try (FileLocks.Lock _ = FileLocks.exclusive(aFileName)) {
+            // Append after the records committed by the other copies of the application too
+            int count = committedCount();
+            ensureCapacity(count + pRecords.size());
+            int indexed = aCount;
+            aCount = count;
+            indexRecords(indexed, count);
+            checkSeatsFree(pRecords);
+            MappedByteBuffer buffer = aBuffer;
+
+            int offset = HEADER_SIZE + count * RECORD_SIZE;
+            for (TicketRecord record : pRecords) {
+                buffer.putLong(offset, record.ticketNumber());
+                buffer.putInt(offset + Long.BYTES, record.showNumber());
+                buffer.putInt(offset + Long.BYTES + Integer.BYTES, record.clientNumber());
+                buffer.putLong(offset + Long.BYTES + Integer.BYTES * 2, record.purchaseEpochSecond());
+                buffer.putInt(offset + SEAT_OFFSET, record.seatNumber());
+                buffer.putInt(offset + SEAT_OFFSET + Integer.BYTES, 0);
+                offset += RECORD_SIZE;
+            }
+            buffer.force(HEADER_SIZE + count * RECORD_SIZE, pRecords.size() * RECORD_SIZE);
+
+            // The records only become visible once the new count is durable
+            buffer.putLong(COUNT_OFFSET, count + pRecords.size());
+            buffer.force(0, HEADER_SIZE);
+            aCount = count + pRecords.size();
+            indexRecords(count, aCount);
+        } catch (IllegalStateException e) {
+            throw e; // A seat already sold: nothing was written
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error appending ticket records: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that no record to append has the seat of a committed record of its show.
+     *
+     * @param pRecords the records to append.
+     * @throws IllegalStateException if the seat of a record is already sold.
+     * @author agent
+     */
+    private void checkSeatsFree(List<TicketRecord> pRecords) {
+        for (TicketRecord record : pRecords) {
+            if (record.seatNumber() >= 0 && isSeatSold(record.showNumber(), record.seatNumber())) {
+                throw new IllegalStateException("Seat " + record.seatNumber() + " of show " + record.showNumber()
+                        + " is already sold.");
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a new store and maps it with the initial capacity.
+     *
+     * @throws IOException if an I/O error occurs.
+     * @author agent
+     */
+    private void createHeader() throws IOException {
+        aBuffer = aChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) INITIAL_CAPACITY * RECORD_SIZE);
+        aBuffer.putInt(0, MAGIC);
+        aBuffer.putInt(4, VERSION);
+        aBuffer.putInt(8, RECORD_SIZE);
+        aBuffer.putLong(COUNT_OFFSET, 0);
+        aBuffer.force(0, HEADER_SIZE);
+        aCount = 0;
+    }
+
+    /**
+     * Maps an existing store and reads its header.
+     *
+     * @throws IOException if the file is not a ticket store of a supported version.
+     * @author agent
+     */
+    private void openHeader() throws IOException {
+        long size = aChannel.size();
+        aBuffer = aChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (aBuffer.getInt(0) != MAGIC) {
+            throw new StreamCorruptedException("Not a ticket store: " + aFileName);
+        }
+        if (aBuffer.getInt(4) != VERSION || aBuffer.getInt(8) != RECORD_SIZE) {
+            throw new StreamCorruptedException("Unsupported ticket store version: " + aBuffer.getInt(4));
+        }
+
+        long count = aBuffer.getLong(COUNT_OFFSET);
+        long capacity = (size - HEADER_SIZE) / RECORD_SIZE;
+        if (count < 0 || count > capacity) {
+            throw new StreamCorruptedException("Invalid record count in " + aFileName + ": " + count);
+        }
+        aCount = (int) count;
+        indexRecords(0, aCount);
+    }
+
+    /**
+     * Picks up the records appended by other copies of the application, if the count in the
+     * header changed since it was last read. Reading the header without the lock only tells
+     * whether to read it again under the shared lock.
+     *
+     * @throws UncheckedIOException if the lock cannot be taken or the count in the header is invalid.
+     * @author agent
+     */
+    private void refresh() {
+        if (aBuffer.getLong(COUNT_OFFSET) != aCount) {
+            refreshCount();
+        }
+    }
+
+    /**
+     * Reads the number of committed records under the shared lock, remaps the file if it grew
+     * beyond the mapping, and indexes the records appended since the count was last read.
+     *
+     * @throws UncheckedIOException if the lock cannot be taken or the count in the header is invalid.
+     * @author agent
+     */
+    private synchronized void refreshCount() {
+        try (FileLocks.Lock _ = FileLocks.shared(aFileName)) {
+            int count = committedCount();
+            if (HEADER_SIZE + (long) count * RECORD_SIZE > aBuffer.capacity()) {
+                aBuffer = aChannel.map(FileChannel.MapMode.READ_WRITE, 0, aChannel.size());
+            }
+            int indexed = aCount;
+            aCount = count;
+            indexRecords(indexed, count);
+        } catch (IOException e) {
+            System.err.println("Error reading ticket records: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds committed records to the indexes of the ticket numbers and of the shows.
+     *
+     * @param pFrom the index of the first record to add.
+     * @param pTo   the index after the last record to add.
+     * @author agent
+     */
+    private void indexRecords(int pFrom, int pTo) {
+        for (int i = pFrom; i < pTo; i++) {
+            aIndexByTicketNumber.putIfAbsent(ticketNumberAt(i), i);
+            aIndexesByShow.computeIfAbsent(showNumberAt(i), _ -> Collections.synchronizedList(new ArrayList<>())).add(i);
+        }
+    }
+
+    /**
+     * Reads the number of committed records from the header, which the other copies of the
+     * application sharing the file update as they append. Called under the lock of the file.
+     *
+     * @return the number of committed records.
+     * @throws StreamCorruptedException if the count in the header is invalid.
+     * @author agent
+     */
+    private int committedCount() throws IOException {
+        long count = aBuffer.getLong(COUNT_OFFSET);
+        if (count < aCount || HEADER_SIZE + count * RECORD_SIZE > Math.max(aChannel.size(), aBuffer.capacity())) {
+            throw new StreamCorruptedException("Invalid record count in " + aFileName + ": " + count);
+        }
+        return (int) count;
+    }
+
+    /**
+     * Grows and remaps the file if it cannot hold the given number of records.
+     * The capacity is doubled so that appends rarely remap.
+     *
+     * @param pRecords the number of records the file must hold.
+     * @throws IOException if an I/O error occurs.
+     * @author agent
+     */
+    private void ensureCapacity(int pRecords) throws IOException {
+        long capacity = (aBuffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        if (pRecords <= capacity) {
+            return;
+        }
+        long newCapacity = Math.max(pRecords, capacity * 2);
+        long newSize = HEADER_SIZE + newCapacity * RECORD_SIZE;
+        if (newSize > Integer.MAX_VALUE) {
+            throw new IOException("Ticket store is full: " + aFileName);
+        }
+        aBuffer = aChannel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    /**
+     * Computes the offset of a committed record in the file.
+     *
+     * @param pIndex the index of the record.
+     * @return the offset of the record.
+     * @throws IndexOutOfBoundsException if there is no record at that index.
+     * @author agent
+     */
+    private int recordOffset(int pIndex) {
+        if (pIndex < 0 || pIndex >= aCount) {
+            throw new IndexOutOfBoundsException("No ticket record at index " + pIndex);
+        }
+        return HEADER_SIZE + pIndex * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.integrationprojectsdoop2.Helpers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs tasks after a delay on a hashed timing wheel: a ring of buckets, one per tick, turned by a
+ * single daemon thread. Scheduling a task only adds it to a queue, and each tick only visits one
+ * bucket, so thousands of pending tasks cost neither a timer thread each nor a scan of all of them.
+ * <p>
+ * Tasks run on the thread of the wheel, at most one tick late, and must therefore be short.
+ * Cancelled tasks are dropped when the wheel reaches their bucket.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * TimingWheel wheel = new TimingWheel("hold-expiry", Duration.ofSeconds(1), 512);
+ * TimingWheel.Timeout timeout = wheel.schedule(() -> System.out.println("Expired"), Duration.ofMinutes(5));
+ * timeout.cancel();
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class TimingWheel implements AutoCloseable {
+
+    /** State of a task waiting for its delay. */
+    private static final int PENDING = 0;
+
+    /** State of a task cancelled before its delay. */
+    private static final int CANCELLED = 1;
+
+    /** State of a task run, or about to be. */
+    private static final int EXPIRED = 2;
+
+    /**
+     * A task scheduled on the wheel, which can be cancelled until it runs.
+     *
+     * @author agent
+     */
+    public static final class Timeout {
+
+        /** The task to run. */
+        private final Runnable aTask;
+
+        /** When the task is due, in nanoseconds since the wheel started. */
+        private final long aDeadline;
+
+        /** Turns of the wheel left before the task is due, once it is in its bucket. */
+        private long aRounds;
+
+        /** Whether the task is pending, cancelled or expired. */
+        private final AtomicInteger aState = new AtomicInteger(PENDING);
+
+        /** The wheel of the task. */
+        private final TimingWheel aWheel;
+
+        /**
+         * Creates a pending task.
+         *
+         * @param pWheel    the wheel of the task.
+         * @param pTask     the task to run.
+         * @param pDeadline when the task is due, in nanoseconds since the wheel started.
+         * @author agent
+         */
+        private Timeout(TimingWheel pWheel, Runnable pTask, long pDeadline) {
+            this.aWheel = pWheel;
+            this.aTask = pTask;
+            this.aDeadline = pDeadline;
+        }
+
+        /**
+         * Cancels the task, unless it already ran or was cancelled.
+         *
+         * @return true if this call cancelled the task, so it will never run.
+         * @author agent
+         */
+        public boolean cancel() {
+            if (!aState.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            aWheel.aPendingCount.decrementAndGet();
+            return true;
+        }
+
+        /**
+         * Tells whether the task is still waiting for its delay.
+         *
+         * @return true if the task was neither run nor cancelled.
+         * @author agent
+         */
+        public boolean isPending() {
+            return aState.get() == PENDING;
+        }
+
+        /**
+         * Runs the task, unless it was cancelled.
+         *
+         * @author agent
+         */
+        private void expire() {
+            if (!aState.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            aWheel.aPendingCount.decrementAndGet();
+            try {
+                aTask.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error running a timed task: " + e.getMessage());
+            }
+        }
+    }
+
+    /** The length of a tick, in nanoseconds. */
+    private final long aTickNanos;
+
+    /** The buckets, one per tick of a turn; only touched by the thread of the wheel. */
+    private final Queue<Timeout>[] aBuckets;
+
+    /** Mask giving the bucket of a tick, the number of buckets being a power of two. */
+    private final int aMask;
+
+    /** Tasks scheduled since the last tick, not yet in their bucket. */
+    private final Queue<Timeout> aScheduled = new ConcurrentLinkedQueue<>();
+
+    /** Number of tasks neither run nor cancelled. */
+    private final AtomicInteger aPendingCount = new AtomicInteger();
+
+    /** When the wheel started, from {@link System#nanoTime()}. */
+    private final long aStartNanos;
+
+    /** The thread turning the wheel. */
+    private final Thread aThread;
+
+    /** Whether the wheel was closed. */
+    private volatile boolean aClosed;
+
+    /**
+     * Creates a wheel and starts turning it.
+     *
+     * @param pName        the name of the thread of the wheel.
+     * @param pTick        the length of a tick, the precision of the delays.
+     * @param pBucketCount the number of buckets, rounded up to a power of two.
+     * @throws IllegalArgumentException if the tick is not positive or there is no bucket.
+     * @author agent
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String pName, Duration pTick, int pBucketCount) {
+        if (pTick == null || pTick.isNegative() || pTick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive.");
+        }
+        if (pBucketCount <= 0 || pBucketCount > 1 << 20) {
+            throw new IllegalArgumentException("Bucket count must be between 1 and 1048576.");
+        }
+        int bucketCount = Integer.highestOneBit(pBucketCount);
+        if (bucketCount < pBucketCount) {
+            bucketCount <<= 1;
+        }
+        this.aTickNanos = pTick.toNanos();
+        this.aBuckets = (Queue<Timeout>[]) new Queue<?>[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            aBuckets[i] = new ArrayDeque<>();
+        }
+        this.aMask = bucketCount - 1;
+        this.aStartNanos = System.nanoTime();
+        this.aThread = Thread.ofPlatform().name(pName).daemon().start(this::turn);
+    }
+
+    /**
+     * Schedules a task to run once a delay has passed.
+     *
+     * @param pTask  the task, run on the thread of the wheel.
+     * @param pDelay the delay.
+     * @return the timeout of the task, to cancel it.
+     * @throws IllegalArgumentException if the task or the delay is null.
+     * @throws IllegalStateException    if the wheel was closed.
+     * @author agent
+     */
+    public Timeout schedule(Runnable pTask, Duration pDelay) {
+        if (pTask == null || pDelay == null) {
+            throw new IllegalArgumentException("Task and delay cannot be null.");
+        }
+        if (aClosed) {
+            throw new IllegalStateException("The timing wheel was closed.");
+        }
+        long deadline = System.nanoTime() - aStartNanos + Math.max(0, pDelay.toNanos());
+        Timeout timeout = new Timeout(this, pTask, deadline);
+        aPendingCount.incrementAndGet();
+        aScheduled.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Retrieves the number of tasks neither run nor cancelled.
+     *
+     * @return the number of pending tasks.
+     * @author agent
+     */
+    public int getPendingCount() {
+        return aPendingCount.get();
+    }
+
+    /**
+     * Stops turning the wheel. Pending tasks never run.
+     *
+     * @author agent
+     */
+    @Override
+    public void close() {
+        aClosed = true;
+        LockSupport.unpark(aThread);
+    }
+
+    /**
+     * Turns the wheel until it is closed: at every tick, places the newly scheduled tasks in
+     * their bucket, then runs the due tasks of the bucket of the tick.
+     *
+     * @author agent
+     */
+    private void turn() {
+        long tick = 0;
+        while (!aClosed) {
+            long wait = aStartNanos + (tick + 1) * aTickNanos - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue; // Woken early, or time to tick
+            }
+            placeScheduled(tick);
+            expireBucket(aBuckets[(int) (tick & aMask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * Places the tasks scheduled since the last tick in the buckets of their deadlines.
+     * A task already due goes in the bucket of the current tick.
+     *
+     * @param pTick the current tick.
+     * @author agent
+     */
+    private void placeScheduled(long pTick) {
+        Timeout timeout;
+        while ((timeout = aScheduled.poll()) != null) {
+            if (!timeout.isPending()) {
+                continue; // Cancelled before being placed
+            }
+            long dueTick = Math.max(timeout.aDeadline / aTickNanos, pTick);
+            timeout.aRounds = (dueTick - pTick) / aBuckets.length;
+            aBuckets[(int) (dueTick & aMask)].add(timeout);
+        }
+    }
+
+    /**
+     * Runs the tasks of a bucket due on this turn of the wheel and drops the cancelled ones.
+     *
+     * @param pBucket the bucket of the current tick.
+     * @author agent
+     */
+    private void expireBucket(Queue<Timeout> pBucket) {
+        for (int i = pBucket.size(); i > 0; i--) {
+            Timeout timeout = pBucket.poll();
+            if (!timeout.isPending()) {
+                continue;
+            }
+            if (timeout.aRounds <= 0) {
+                timeout.expire();
+            } else {
+                timeout.aRounds--;
+                pBucket.add(timeout);
+            }
+        }
+    }
+}
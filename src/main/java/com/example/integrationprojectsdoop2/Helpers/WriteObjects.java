@@ -1,15 +1,43 @@
 package com.example.integrationprojectsdoop2.Helpers;
 
+import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * A utility class for serializing and writing objects to a specified file.
  * This class enables saving objects into a file for later retrieval, making use of serialization.
  * Objects are written from a provided list and can be deserialized using {@link ReadObjects}.
+ * <p>
+ * Writes are crash-safe: the objects are written to a temporary file in the same directory,
+ * forced to disk and atomically renamed over the target, so a crash leaves either the old
+ * or the new file, never a truncated one. {@link #writeGrouped(List)} additionally combines
+ * saves of the same file arriving close together into a single durable write of the latest list;
+ * {@link #submitGrouped(List)} lets a caller submit its list under its own lock and wait for the
+ * write after releasing it. {@link #submitMerged(UnaryOperator, Consumer)} submits a change instead
+ * of a whole list, applied to the objects of the file as other copies of the application left them.
+ * The rename is made under the exclusive {@link FileLocks} lock of the file, so it never overlaps
+ * with a read or another write of the file by another copy of the application; a caller changing
+ * what it read holds that lock around both. Listeners registered with
+ * {@link #addWriteListener(Consumer)} are told of every file replaced, so in-memory copies of a
+ * file are invalidated as soon as it is saved.
  *
  * <p>Example usage:</p>
  * <pre>
@@ -24,6 +52,62 @@ import java.util.List;
  */
 public class WriteObjects {
 
+    /** How long a group commit waits for more saves of the same file, in milliseconds. */
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = 5;
+
+    /** The group commit of each file saved with {@link #writeGrouped(List)}, by absolute path. */
+    private static final Map<Path, GroupCommit<List<Object>>> GROUP_COMMITS = new ConcurrentHashMap<>();
+
+    /** The group commit of each file saved with {@link #submitMerged(UnaryOperator, Consumer)}, by absolute path. */
+    private static final Map<Path, GroupCommit<Merge>> MERGE_COMMITS = new ConcurrentHashMap<>();
+
+    /** The listeners told of each file replaced, with its absolute path. */
+    private static final List<Consumer<Path>> WRITE_LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * A change submitted with {@link #submitMerged(UnaryOperator, Consumer)}.
+     *
+     * @param change    changes the objects of the file into the objects to write.
+     * @param onWritten told of the objects written.
+     * @author agent
+     */
+    private record Merge(UnaryOperator<List<Object>> change, Consumer<List<Object>> onWritten) {
+    }
+
+    /**
+     * A save submitted with {@link #submitGrouped(List)} or {@link #submitMerged(UnaryOperator, Consumer)},
+     * durable once {@link #await()} returns.
+     *
+     * @author agent
+     */
+    public static final class GroupedWrite {
+
+        /** The pending flush of the save. */
+        private final GroupCommit<?>.Pending aPending;
+
+        /**
+         * Constructs a submitted save.
+         *
+         * @param pPending the pending flush of the save.
+         * @author agent
+         */
+        private GroupedWrite(GroupCommit<?>.Pending pPending) {
+            this.aPending = pPending;
+        }
+
+        /**
+         * Waits until a list at least as recent as the one submitted is on disk.
+         * Must be called once, by the thread that submitted the list, after it released the
+         * lock it held while submitting.
+         *
+         * @throws IOException if an I/O error occurs while writing the objects to the file.
+         * @author agent
+         */
+        public void await() throws IOException {
+            aPending.await();
+        }
+    }
+
     /**
      * The name of the file to which objects will be written.
      */
@@ -45,10 +129,22 @@ public class WriteObjects {
         this.aFileName = pFileName;
     }
 
+    /**
+     * Registers a listener told of every file replaced by a {@code WriteObjects},
+     * with the absolute path of the file, once the new content is on disk.
+     *
+     * @param pListener the listener to register.
+     * @author agent
+     */
+    public static void addWriteListener(Consumer<Path> pListener) {
+        WRITE_LISTENERS.add(pListener);
+    }
+
     /**
      * Serializes the provided list of objects and writes them to the specified file.
      * Each object in the list is serialized and stored individually.
      * The written objects can later be retrieved using the {@link ReadObjects} class.
+     * The file is replaced atomically once the new content is durable.
      *
      * @param pObjectsList the list of objects to serialize and write to the file.
      *                     Must not be {@code null}.
@@ -60,17 +156,146 @@ public class WriteObjects {
         if (pObjectsList == null) {
             throw new IllegalArgumentException("Object list cannot be null.");
         }
+        writeAtomically(pObjectsList);
+    }
+
+    /**
+     * Writes the provided list of objects like {@link #write(List)}, combining it with the other
+     * saves of the same file submitted within a few milliseconds. Every list is a full snapshot
+     * of the file, so only the last one submitted in the group is written, with a single durable flush.
+     * Returns once a snapshot at least as recent as {@code pObjectsList} is on disk; a caller
+     * taking its snapshots under a lock uses {@link #submitGrouped(List)} instead, so they are
+     * submitted in the order they were taken.
+     *
+     * @param pObjectsList the list of objects to serialize and write to the file.
+     *                     Must not be {@code null}.
+     * @throws IllegalArgumentException if {@code pObjectsList} is {@code null}.
+     * @throws IOException              if an I/O error occurs while writing the objects to the file.
+     * @author agent
+     */
+    public void writeGrouped(List<Object> pObjectsList) throws IOException {
+        submitGrouped(pObjectsList).await();
+    }
+
+    /**
+     * Submits the provided list of objects to be written like {@link #writeGrouped(List)}, without
+     * waiting for the write. Call it while holding the lock under which the list was taken, so
+     * the lists are written in the order they were taken, then release the lock and call
+     * {@link GroupedWrite#await()}, so other saves can join the same write meanwhile.
+     *
+     * @param pObjectsList the list of objects to serialize and write to the file.
+     *                     Must not be {@code null}.
+     * @return the submitted save, to await.
+     * @throws IllegalArgumentException if {@code pObjectsList} is {@code null}.
+     * @author agent
+     */
+    public GroupedWrite submitGrouped(List<Object> pObjectsList) {
+        if (pObjectsList == null) {
+            throw new IllegalArgumentException("Object list cannot be null.");
+        }
+        Path target = Paths.get(aFileName).toAbsolutePath().normalize();
+        GroupCommit<List<Object>> groupCommit = GROUP_COMMITS.computeIfAbsent(target,
+                _ -> new GroupCommit<>(batch -> writeAtomically(batch.getLast()), GROUP_COMMIT_WINDOW_MILLIS));
+        return new GroupedWrite(groupCommit.enqueue(new ArrayList<>(pObjectsList))); // Snapshot the list as it is now
+    }
 
+    /**
+     * Submits a change to the objects of the file, without waiting for the write. The change is
+     * applied when the file is written, under its exclusive {@link FileLocks} lock, to the objects
+     * read from the file at that moment, so the changes saved by other copies of the application
+     * are kept. Changes submitted within a few milliseconds are applied in submission order and
+     * written with a single durable flush. Call it, like {@link #submitGrouped(List)}, while holding
+     * the lock under which the change was made, then release the lock and call {@link GroupedWrite#await()}.
+     * <p>
+     * Once the file is written, and its lock released, the callback of the last change written
+     * is told of the objects written, which include every change submitted before it.
+     *
+     * @param pChange    changes the objects read from the file, an empty list if there is none,
+     *                   into the objects to write. It may change and return the list it is given.
+     * @param pOnWritten told of the objects written, as an unmodifiable list, if this change is the
+     *                   last one written by its flush.
+     * @return the submitted save, to await.
+     * @throws IllegalArgumentException if an argument is {@code null}.
+     * @author agent
+     */
+    public GroupedWrite submitMerged(UnaryOperator<List<Object>> pChange, Consumer<List<Object>> pOnWritten) {
+        if (pChange == null || pOnWritten == null) {
+            throw new IllegalArgumentException("Change and callback cannot be null.");
+        }
+        Path target = Paths.get(aFileName).toAbsolutePath().normalize();
+        GroupCommit<Merge> groupCommit = MERGE_COMMITS.computeIfAbsent(target,
+                _ -> new GroupCommit<>(this::writeMerged, GROUP_COMMIT_WINDOW_MILLIS));
+        return new GroupedWrite(groupCommit.enqueue(new Merge(pChange, pOnWritten)));
+    }
+
+    /**
+     * Reads the objects of the file, applies a batch of changes to them and writes the result,
+     * all under the exclusive lock of the file, then tells the last change of the objects written.
+     *
+     * @param pBatch the changes, in submission order.
+     * @throws IOException if the file cannot be read or written.
+     * @author agent
+     */
+    private void writeMerged(List<Merge> pBatch) throws IOException {
+        List<Object> objects;
+        try (FileLocks.Lock _ = FileLocks.exclusive(aFileName)) {
+            objects = new ArrayList<>();
+            if (Files.exists(Paths.get(aFileName))) {
+                try {
+                    objects = new ReadObjects(aFileName).read();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Cannot read " + aFileName + ": " + e.getMessage(), e);
+                }
+            }
+            for (Merge merge : pBatch) {
+                objects = merge.change().apply(objects);
+            }
+            writeAtomically(objects);
+        }
+        pBatch.getLast().onWritten().accept(Collections.unmodifiableList(objects));
+    }
+
+    /**
+     * Writes the objects to a temporary file, forces it to disk, renames it over the target
+     * and forces the directory so the rename itself survives a crash.
+     *
+     * @param pObjectsList the list of objects to write.
+     * @throws IOException if an I/O error occurs while writing the objects to the file.
+     * @author agent
+     */
+    private void writeAtomically(List<Object> pObjectsList) throws IOException {
         System.out.println("Writing objects to file: " + aFileName);
 
-        try (FileOutputStream fs = new FileOutputStream(aFileName);
-             ObjectOutputStream os = new ObjectOutputStream(fs)) {
+        Path target = Paths.get(aFileName).toAbsolutePath();
+        Path directory = target.getParent();
+        Path temp = null;
+
+        try {
+            temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+
+            try (FileOutputStream fs = new FileOutputStream(temp.toFile());
+                 ObjectOutputStream os = new ObjectOutputStream(new BufferedOutputStream(fs))) {
+
+                for (Object o : pObjectsList) {
+                    os.writeObject(o); // Serialize and write each object
+                }
+                os.flush();
+                fs.getFD().sync(); // Durable before it replaces the target
+            }
 
-            for (Object o : pObjectsList) {
-                os.writeObject(o); // Serialize and write each object
+            // Only the rename excludes the readers and writers of other copies of the application
+            try (FileLocks.Lock _ = FileLocks.exclusive(aFileName)) {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                temp = null;
+                syncDirectory(directory);
             }
 
             System.out.println("Successfully wrote objects to " + aFileName);
+            WRITE_LISTENERS.forEach(listener -> listener.accept(target));
 
         } catch (FileNotFoundException e) {
             System.err.println("File not found: " + aFileName);
@@ -78,6 +303,25 @@ public class WriteObjects {
         } catch (IOException e) {
             System.err.println("Error writing objects: " + e.getMessage());
             throw e; // Re-throw to propagate the error to the caller
+        } finally {
+            if (temp != null) {
+                Files.deleteIfExists(temp); // Leave the target untouched after a failure
+            }
+        }
+    }
+
+    /**
+     * Forces a directory to disk so that a rename inside it is durable.
+     * Some platforms cannot open a directory; the rename is then as durable as the platform allows.
+     *
+     * @param pDirectory the directory to force.
+     * @author agent
+     */
+    public static void syncDirectory(Path pDirectory) {
+        try (FileChannel channel = FileChannel.open(pDirectory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on Windows
         }
     }
 }
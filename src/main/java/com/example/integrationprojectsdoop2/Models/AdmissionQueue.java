@@ -0,0 +1,532 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits buyers to the purchase path at a steady rate, first come first served, and only as many
+ * at a time as the ticket store serves well, so a rush of clients when a show opens never drives
+ * the store past what it can sustain.
+ * <p>
+ * Each purchase first enters the queue and waits for its {@link Admission}. Admissions are
+ * granted by a token bucket: tokens accrue at the admission rate, up to the burst size, and
+ * each admission spends one. An admitted buyer also takes one of a fixed number of places for
+ * purchases in progress, which it frees with {@link Admission#finish()} once its purchase is
+ * done. A buyer entering an empty queue while a token and a place are left is admitted at once;
+ * the others wait in line, and a single daemon thread admits them in order as tokens accrue and
+ * places free up. While waiting, a buyer can be told its place in line and about how long it will wait.
+ * <p>
+ * The rate is {@value #DEFAULT_RATE} admissions per second, with bursts of {@value #DEFAULT_BURST}
+ * and at most {@value #DEFAULT_MAX_IN_FLIGHT} purchases in progress, unless the system properties
+ * {@value #RATE_PROPERTY}, {@value #BURST_PROPERTY} and {@value #MAX_IN_FLIGHT_PROPERTY} give others;
+ * measure what the store sustains with the {@code PurchaseLoadSimulator} tool.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * AdmissionQueue.Admission admission = AdmissionQueue.getInstance().enter();
+ * if (admission.await(Duration.ofSeconds(10))) {
+ *     try {
+ *         TheatreService.getInstance().buyTickets(show, client, 2);
+ *     } finally {
+ *         admission.finish();
+ *     }
+ * } else {
+ *     admission.cancel();
+ * }
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class AdmissionQueue {
+
+    /** System property giving the number of purchases admitted per second. */
+    public static final String RATE_PROPERTY = "theatre.admission.rate";
+
+    /** System property giving the number of purchases that can be admitted at once after a lull. */
+    public static final String BURST_PROPERTY = "theatre.admission.burst";
+
+    /** System property giving the number of purchases in progress at once. */
+    public static final String MAX_IN_FLIGHT_PROPERTY = "theatre.admission.maxInFlight";
+
+    /** Purchases admitted per second when the system property is not set. */
+    public static final int DEFAULT_RATE = 200;
+
+    /** Purchases admitted at once after a lull when the system property is not set. */
+    public static final int DEFAULT_BURST = 20;
+
+    /** Purchases in progress at once when the system property is not set. */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 32;
+
+    /** Number of seconds over which the recent admissions are counted. */
+    private static final int RECENT_SECONDS = 60;
+
+    /**
+     * Counts of admissions since the application started, and the state of the queue.
+     *
+     * @param waiting             the buyers waiting in line, including those who left but were not reached yet.
+     * @param maxWaiting          the longest the line has been.
+     * @param admitted            the buyers admitted.
+     * @param admittedAtOnce      the buyers admitted without waiting in line.
+     * @param cancelled           the buyers who left the line before being admitted.
+     * @param admittedLastMinute  the buyers admitted in the last minute.
+     * @param averageWaitMillis   the average wait of the buyers admitted after waiting in line, in milliseconds.
+     * @param maxWaitMillis       the longest wait of a buyer admitted, in milliseconds.
+     * @param inFlight            the purchases admitted and not finished yet.
+     * @param rate                the purchases admitted per second.
+     * @param burst               the purchases admitted at once after a lull.
+     * @param maxInFlight         the most purchases in progress at once.
+     * @author agent
+     */
+    public record AdmissionMetrics(int waiting, int maxWaiting, long admitted, long admittedAtOnce, long cancelled,
+                                   long admittedLastMinute, long averageWaitMillis, long maxWaitMillis,
+                                   int inFlight, int rate, int burst, int maxInFlight) {
+    }
+
+    /**
+     * A buyer's place in the queue, until it is admitted to buy or leaves.
+     *
+     * @author agent
+     */
+    public final class Admission {
+
+        /** The number of the buyer in the order of arrival. */
+        private final long aNumber;
+
+        /** When the buyer entered the queue, in {@link System#nanoTime()} units. */
+        private final long aEnteredAt;
+
+        /** Completed once the buyer is admitted. */
+        private final CompletableFuture<Void> aAdmitted = new CompletableFuture<>();
+
+        /** Whether the buyer was granted a token, guarded by the lock of the queue. */
+        private boolean aGranted;
+
+        /** Whether the admitted buyer freed its place, guarded by the lock of the queue. */
+        private boolean aFinished;
+
+        /** Whether the buyer left the queue before being admitted. */
+        private volatile boolean aCancelled;
+
+        /**
+         * Constructs the place of a buyer entering the queue.
+         *
+         * @param pNumber    the number of the buyer in the order of arrival.
+         * @param pEnteredAt when the buyer entered the queue.
+         * @author agent
+         */
+        private Admission(long pNumber, long pEnteredAt) {
+            this.aNumber = pNumber;
+            this.aEnteredAt = pEnteredAt;
+        }
+
+        /**
+         * Tells whether the buyer was admitted to buy.
+         *
+         * @return true once the buyer is admitted.
+         * @author agent
+         */
+        public boolean isAdmitted() {
+            return aAdmitted.isDone();
+        }
+
+        /**
+         * Retrieves the place of the buyer in line. Buyers ahead who left the line are counted
+         * until the queue reaches them.
+         *
+         * @return 1 for the next buyer to be admitted, or 0 if the buyer was admitted or left.
+         * @author agent
+         */
+        public int getPosition() {
+            if (isAdmitted() || aCancelled) {
+                return 0;
+            }
+            return (int) Math.max(1, aNumber - aHeadNumber + 1);
+        }
+
+        /**
+         * Estimates how long the buyer will still wait, from its place in line and the admission rate.
+         *
+         * @return the estimated wait, or zero if the buyer was admitted or left.
+         * @author agent
+         */
+        public Duration getEstimatedWait() {
+            int position = getPosition();
+            return position == 0 ? Duration.ZERO : Duration.ofMillis((long) Math.ceil(position * 1000.0 / aRate));
+        }
+
+        /**
+         * Waits for the buyer to be admitted.
+         *
+         * @param pTimeout the longest time to wait.
+         * @return true if the buyer was admitted, false if the time ran out first.
+         * @throws InterruptedException if the thread is interrupted while waiting.
+         * @author agent
+         */
+        public boolean await(Duration pTimeout) throws InterruptedException {
+            try {
+                aAdmitted.get(pTimeout.toNanos(), TimeUnit.NANOSECONDS);
+                return true;
+            } catch (TimeoutException e) {
+                return false;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Runs an action once the buyer is admitted, or right away if it already is.
+         * The action does not run if the buyer leaves the line first.
+         *
+         * @param pExecutor the executor running the action, such as {@code Platform::runLater}.
+         * @param pAction   the action.
+         * @author agent
+         */
+        public void onAdmitted(Executor pExecutor, Runnable pAction) {
+            aAdmitted.thenRunAsync(pAction, pExecutor);
+        }
+
+        /**
+         * Leaves the line. The place of the buyer is skipped when the queue reaches it, without
+         * spending a token. Leaving after being admitted gives up the purchase, like {@link #finish()}.
+         *
+         * @author agent
+         */
+        public void cancel() {
+            aLock.lock();
+            try {
+                if (aGranted) {
+                    finish();
+                } else if (!aCancelled) {
+                    aCancelled = true;
+                    aCancelledCount++;
+                }
+            } finally {
+                aLock.unlock();
+            }
+        }
+
+        /**
+         * Ends the purchase of an admitted buyer, bought or not, freeing its place for the next
+         * buyer in line. Does nothing if the buyer was not admitted or already finished.
+         *
+         * @author agent
+         */
+        public void finish() {
+            aLock.lock();
+            try {
+                if (aGranted && !aFinished) {
+                    aFinished = true;
+                    aInFlight--;
+                    aChanged.signalAll();
+                }
+            } finally {
+                aLock.unlock();
+            }
+        }
+    }
+
+    /** The single instance of AdmissionQueue. */
+    private static AdmissionQueue aInstance;
+
+    /** Guards the queue, the token bucket and the counts. */
+    private final ReentrantLock aLock = new ReentrantLock();
+
+    /** Signalled when a buyer enters an empty queue, a purchase finishes or the rate changes. */
+    private final Condition aChanged = aLock.newCondition();
+
+    /** The buyers waiting in line, in order of arrival. */
+    private final ArrayDeque<Admission> aWaiting = new ArrayDeque<>();
+
+    /** The number of the next buyer entering the queue. */
+    private long aNextNumber = 1;
+
+    /** The number of the buyer at the head of the line, or the next buyer if the line is empty. */
+    private volatile long aHeadNumber = 1;
+
+    /** The purchases admitted per second. */
+    private volatile int aRate;
+
+    /** The most tokens the bucket holds. */
+    private int aBurst;
+
+    /** The most purchases in progress at once. */
+    private int aMaxInFlight;
+
+    /** The purchases admitted and not finished yet. */
+    private int aInFlight;
+
+    /** The tokens in the bucket, each admitting one buyer. */
+    private double aTokens;
+
+    /** When the tokens were last counted, in {@link System#nanoTime()} units. */
+    private long aTokensCountedAt = System.nanoTime();
+
+    /** The thread admitting the buyers waiting in line, started with the first buyer to wait. */
+    private Thread aAdmitter;
+
+    /** Admissions counted per second over the last minute, by second. */
+    private final long[] aRecentAdmitted = new long[RECENT_SECONDS];
+
+    /** The second of each count of {@link #aRecentAdmitted}. */
+    private final long[] aRecentSeconds = new long[RECENT_SECONDS];
+
+    /** Number of buyers admitted. */
+    private long aAdmittedCount;
+
+    /** Number of buyers admitted without waiting in line. */
+    private long aAdmittedAtOnceCount;
+
+    /** Number of buyers who left the line before being admitted. */
+    private long aCancelledCount;
+
+    /** The longest the line has been. */
+    private int aMaxWaiting;
+
+    /** Total wait of the buyers admitted after waiting in line, in nanoseconds. */
+    private long aTotalWaitNanos;
+
+    /** Longest wait of a buyer admitted, in nanoseconds. */
+    private long aMaxWaitNanos;
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     * Reads the admission rate, burst and most purchases in progress from the system properties;
+     * the bucket starts full.
+     *
+     * @author agent
+     */
+    private AdmissionQueue() {
+        setRate(Integer.getInteger(RATE_PROPERTY, DEFAULT_RATE), Integer.getInteger(BURST_PROPERTY, DEFAULT_BURST));
+        setMaxInFlight(Integer.getInteger(MAX_IN_FLIGHT_PROPERTY, DEFAULT_MAX_IN_FLIGHT));
+        this.aTokens = aBurst;
+    }
+
+    /**
+     * Returns the single instance of {@code AdmissionQueue}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code AdmissionQueue}.
+     * @author agent
+     */
+    public static synchronized AdmissionQueue getInstance() {
+        if (aInstance == null) {
+            aInstance = new AdmissionQueue();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Sets how many purchases are admitted per second, and at once after a lull.
+     * The tokens already accrued are kept, up to the new burst.
+     *
+     * @param pRate  the purchases admitted per second.
+     * @param pBurst the most purchases admitted at once.
+     * @throws IllegalArgumentException if the rate or burst is not positive.
+     * @author agent
+     */
+    public void setRate(int pRate, int pBurst) {
+        if (pRate < 1 || pBurst < 1) {
+            throw new IllegalArgumentException("Admission rate and burst must be positive.");
+        }
+        aLock.lock();
+        try {
+            refill(System.nanoTime());
+            this.aRate = pRate;
+            this.aBurst = pBurst;
+            this.aTokens = Math.min(aTokens, pBurst);
+            aChanged.signalAll();
+        } finally {
+            aLock.unlock();
+        }
+    }
+
+    /**
+     * Sets how many purchases can be in progress at once. Purchases in progress beyond a
+     * lowered limit finish normally, and no buyer is admitted until they do.
+     *
+     * @param pMaxInFlight the most purchases in progress at once.
+     * @throws IllegalArgumentException if the limit is not positive.
+     * @author agent
+     */
+    public void setMaxInFlight(int pMaxInFlight) {
+        if (pMaxInFlight < 1) {
+            throw new IllegalArgumentException("The number of purchases in progress at once must be positive.");
+        }
+        aLock.lock();
+        try {
+            this.aMaxInFlight = pMaxInFlight;
+            aChanged.signalAll();
+        } finally {
+            aLock.unlock();
+        }
+    }
+
+    /**
+     * Enters the queue to buy. The buyer is admitted at once if nobody is waiting and a token
+     * and a place for its purchase are left, and otherwise waits in line behind the buyers who
+     * came before. An admitted buyer must {@link Admission#finish()} its purchase.
+     *
+     * @return the place of the buyer, to wait on until it is admitted.
+     * @author agent
+     */
+    public Admission enter() {
+        long now = System.nanoTime();
+        Admission admission;
+        aLock.lock();
+        try {
+            admission = new Admission(aNextNumber++, now);
+            refill(now);
+            if (aWaiting.isEmpty() && aTokens >= 1 && aInFlight < aMaxInFlight) {
+                aTokens--;
+                aInFlight++;
+                admission.aGranted = true;
+                aHeadNumber = aNextNumber;
+                aAdmittedAtOnceCount++;
+                countAdmitted(now, 0);
+            } else {
+                aWaiting.addLast(admission);
+                aMaxWaiting = Math.max(aMaxWaiting, aWaiting.size());
+                startAdmitter();
+                aChanged.signalAll();
+                return admission;
+            }
+        } finally {
+            aLock.unlock();
+        }
+        admission.aAdmitted.complete(null);
+        return admission;
+    }
+
+    /**
+     * Retrieves the counts of admissions and the state of the queue.
+     *
+     * @return a snapshot of the admission metrics.
+     * @author agent
+     */
+    public AdmissionMetrics getMetrics() {
+        aLock.lock();
+        try {
+            long second = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+            long admittedLastMinute = 0;
+            for (int i = 0; i < RECENT_SECONDS; i++) {
+                if (second - aRecentSeconds[i] < RECENT_SECONDS) {
+                    admittedLastMinute += aRecentAdmitted[i];
+                }
+            }
+            long waitedCount = aAdmittedCount - aAdmittedAtOnceCount;
+            return new AdmissionMetrics(aWaiting.size(), aMaxWaiting, aAdmittedCount, aAdmittedAtOnceCount,
+                    aCancelledCount, admittedLastMinute,
+                    waitedCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(aTotalWaitNanos / waitedCount),
+                    TimeUnit.NANOSECONDS.toMillis(aMaxWaitNanos), aInFlight, aRate, aBurst, aMaxInFlight);
+        } finally {
+            aLock.unlock();
+        }
+    }
+
+    /**
+     * Starts the thread admitting the buyers waiting in line, unless it runs already.
+     * Called with the lock held.
+     *
+     * @author agent
+     */
+    private void startAdmitter() {
+        if (aAdmitter == null) {
+            aAdmitter = Thread.ofPlatform().name("admission-queue").daemon().start(this::admitWaiting);
+        }
+    }
+
+    /**
+     * Admits the buyers waiting in line, in order, as tokens accrue and purchases finish;
+     * sleeps while the line is empty.
+     * Runs on the thread of the queue.
+     *
+     * @author agent
+     */
+    private void admitWaiting() {
+        List<Admission> admitted = new ArrayList<>();
+        while (true) {
+            aLock.lock();
+            try {
+                while (aWaiting.isEmpty()) {
+                    aChanged.awaitUninterruptibly();
+                }
+                long now = System.nanoTime();
+                refill(now);
+                while (!aWaiting.isEmpty()
+                        && (aWaiting.peekFirst().aCancelled || (aTokens >= 1 && aInFlight < aMaxInFlight))) {
+                    Admission admission = aWaiting.pollFirst();
+                    if (!admission.aCancelled) {
+                        aTokens--;
+                        aInFlight++;
+                        admission.aGranted = true;
+                        countAdmitted(now, now - admission.aEnteredAt);
+                        admitted.add(admission);
+                    }
+                }
+                aHeadNumber = aWaiting.isEmpty() ? aNextNumber : aWaiting.peekFirst().aNumber;
+                if (admitted.isEmpty() && aInFlight >= aMaxInFlight) {
+                    aChanged.await(); // Until a purchase finishes, or the limit changes
+                } else if (admitted.isEmpty()) {
+                    // Sleep until the next token accrues, or the rate changes
+                    long nanosToToken = (long) Math.ceil((1 - aTokens) * TimeUnit.SECONDS.toNanos(1) / aRate);
+                    aChanged.awaitNanos(Math.max(1, nanosToToken));
+                }
+            } catch (InterruptedException e) {
+                // Not interrupted by the queue; keep admitting
+            } finally {
+                aLock.unlock();
+            }
+
+            // Completed without the lock, since the actions of the buyers may run right away
+            for (Admission admission : admitted) {
+                admission.aAdmitted.complete(null);
+            }
+            admitted.clear();
+        }
+    }
+
+    /**
+     * Adds the tokens accrued since they were last counted, up to the burst.
+     * Called with the lock held.
+     *
+     * @param pNow the current time, in {@link System#nanoTime()} units.
+     * @author agent
+     */
+    private void refill(long pNow) {
+        double accrued = (pNow - aTokensCountedAt) * (double) aRate / TimeUnit.SECONDS.toNanos(1);
+        aTokens = Math.min(aBurst, aTokens + accrued);
+        aTokensCountedAt = pNow;
+    }
+
+    /**
+     * Counts an admission in the metrics. Called with the lock held.
+     *
+     * @param pNow       the time of the admission, in {@link System#nanoTime()} units.
+     * @param pWaitNanos how long the buyer waited in line, in nanoseconds.
+     * @author agent
+     */
+    private void countAdmitted(long pNow, long pWaitNanos) {
+        aAdmittedCount++;
+        aTotalWaitNanos += pWaitNanos;
+        aMaxWaitNanos = Math.max(aMaxWaitNanos, pWaitNanos);
+
+        long second = TimeUnit.NANOSECONDS.toSeconds(pNow);
+        int slot = Math.floorMod(second, RECENT_SECONDS);
+        if (aRecentSeconds[slot] != second) {
+            aRecentSeconds[slot] = second;
+            aRecentAdmitted[slot] = 0;
+        }
+        aRecentAdmitted[slot]++;
+    }
+}
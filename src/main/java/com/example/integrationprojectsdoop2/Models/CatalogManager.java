@@ -0,0 +1,929 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import com.example.integrationprojectsdoop2.Helpers.EventBus;
+import com.example.integrationprojectsdoop2.Helpers.FileLocks;
+import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
+import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Provides singleton access to the catalog of {@link Movie}, {@link Showtime}, {@link Screenroom}
+ * and {@link Show} instances, indexed by ID, with the shows also indexed by date and by the
+ * components they refer to. Each catalog file is read once and kept until it changes, and is
+ * saved optimistically through {@link #save} and {@link #delete}, which publish each change on
+ * the {@link EventBus}. The lists and objects handed out are shared and read-only: edit a copy
+ * from {@link #editableCopy}.
+ *
+ * @author agent
+ */
+public class CatalogManager {
+
+    /** The file containing the movies. */
+    public static final String MOVIES_FILE = "movies.ser";
+
+    /** The file containing the showtimes. */
+    public static final String SHOWTIMES_FILE = "showtimes.ser";
+
+    /** The file containing the screenrooms. */
+    public static final String SCREENROOMS_FILE = "screenrooms.ser";
+
+    /** The file containing the shows. */
+    public static final String SHOWS_FILE = "shows.ser";
+
+    /** The single instance of CatalogManager. */
+    private static CatalogManager aInstance;
+
+    /** Movies indexed by ID. */
+    private final CatalogFile<Movie> aMovies = new CatalogFile<>(MOVIES_FILE, Movie.class, Movie::getMovie_ID, _ -> { });
+
+    /** Showtimes indexed by ID. */
+    private final CatalogFile<Showtime> aShowtimes = new CatalogFile<>(SHOWTIMES_FILE, Showtime.class, Showtime::getShowtimeID, _ -> { });
+
+    /** Screenrooms indexed by ID. */
+    private final CatalogFile<Screenroom> aScreenrooms = new CatalogFile<>(SCREENROOMS_FILE, Screenroom.class, Screenroom::getScreenroom_ID, _ -> { });
+
+    /** Shows indexed by ID. */
+    private final CatalogFile<Show> aShows = new CatalogFile<>(SHOWS_FILE, Show.class, Show::getShowID, this::indexShows);
+
+    /** Every catalog file, for invalidation by path. */
+    private final List<CatalogFile<?>> aFiles = List.of(aMovies, aShowtimes, aScreenrooms, aShows);
+
+    /** Shows indexed by date, then by movie ID, in file order. */
+    private volatile Map<LocalDate, Map<String, List<Show>>> aShowsByDate = Collections.emptyMap();
+
+    /** IDs of the shows referring to each movie, by movie ID. */
+    private volatile Map<String, Set<String>> aShowsByMovie = Collections.emptyMap();
+
+    /** IDs of the shows referring to each showtime, by showtime ID. */
+    private volatile Map<String, Set<String>> aShowsByShowtime = Collections.emptyMap();
+
+    /** IDs of the shows referring to each screenroom, by screenroom ID. */
+    private volatile Map<String, Set<String>> aShowsByScreenroom = Collections.emptyMap();
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     * The catalog files are read the first time they are needed; from then on they are
+     * invalidated by the saves of this application and by the watch service.
+     *
+     * @author agent
+     */
+    private CatalogManager() {
+        WriteObjects.addWriteListener(this::invalidate);
+        startWatching();
+    }
+
+    /**
+     * Returns the single instance of {@code CatalogManager}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code CatalogManager}.
+     * @author agent
+     */
+    public static synchronized CatalogManager getInstance() {
+        if (aInstance == null) {
+            aInstance = new CatalogManager();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Retrieves a movie by its ID.
+     *
+     * @param pMovieID the ID of the movie.
+     * @return the matching Movie object, or null if not found.
+     * @author agent
+     */
+    public Movie getMovie(String pMovieID) {
+        return aMovies.get(pMovieID);
+    }
+
+    /**
+     * Retrieves a showtime by its ID.
+     *
+     * @param pShowtimeID the ID of the showtime.
+     * @return the matching Showtime object, or null if not found.
+     * @author agent
+     */
+    public Showtime getShowtime(String pShowtimeID) {
+        return aShowtimes.get(pShowtimeID);
+    }
+
+    /**
+     * Retrieves a screenroom by its ID.
+     *
+     * @param pScreenroomID the ID of the screenroom.
+     * @return the matching Screenroom object, or null if not found.
+     * @author agent
+     */
+    public Screenroom getScreenroom(String pScreenroomID) {
+        return aScreenrooms.get(pScreenroomID);
+    }
+
+    /**
+     * Retrieves a show by its ID.
+     *
+     * @param pShowID the ID of the show.
+     * @return the matching Show object, or null if not found.
+     * @author agent
+     */
+    public Show getShow(String pShowID) {
+        return aShows.get(pShowID);
+    }
+
+    /**
+     * Retrieves every movie, in file order.
+     *
+     * @return an unmodifiable list of the movies.
+     * @author agent
+     */
+    public List<Movie> getMovies() {
+        return aMovies.getAll();
+    }
+
+    /**
+     * Retrieves every showtime, in file order.
+     *
+     * @return an unmodifiable list of the showtimes.
+     * @author agent
+     */
+    public List<Showtime> getShowtimes() {
+        return aShowtimes.getAll();
+    }
+
+    /**
+     * Retrieves every screenroom, in file order.
+     *
+     * @return an unmodifiable list of the screenrooms.
+     * @author agent
+     */
+    public List<Screenroom> getScreenrooms() {
+        return aScreenrooms.getAll();
+    }
+
+    /**
+     * Retrieves every show, in file order.
+     *
+     * @return an unmodifiable list of the shows.
+     * @author agent
+     */
+    public List<Show> getShows() {
+        return aShows.getAll();
+    }
+
+    /**
+     * Retrieves every object of a catalog file, in file order.
+     *
+     * @param pFileName the name of the catalog file, one of the file constants of this class.
+     * @return an unmodifiable list of the objects of the file.
+     * @throws IllegalArgumentException if the file is not a catalog file.
+     * @author agent
+     */
+    public List<? extends ShowComponent> getCatalog(String pFileName) {
+        return switch (pFileName) {
+            case MOVIES_FILE -> getMovies();
+            case SHOWTIMES_FILE -> getShowtimes();
+            case SCREENROOMS_FILE -> getScreenrooms();
+            case SHOWS_FILE -> getShows();
+            default -> throw new IllegalArgumentException("Not a catalog file: " + pFileName);
+        };
+    }
+
+    /**
+     * Checks whether a file is one of the catalog files.
+     *
+     * @param pFileName the name of the file.
+     * @return {@code true} if the file is kept by this catalog.
+     * @author agent
+     */
+    public static boolean isCatalogFile(String pFileName) {
+        return MOVIES_FILE.equals(pFileName) || SHOWTIMES_FILE.equals(pFileName)
+                || SCREENROOMS_FILE.equals(pFileName) || SHOWS_FILE.equals(pFileName);
+    }
+
+    /**
+     * Retrieves a movie by its title.
+     *
+     * @param pTitle the title of the movie.
+     * @return the first movie with that title, or null if not found.
+     * @author agent
+     */
+    public Movie getMovieByTitle(String pTitle) {
+        return getMovies().stream()
+                .filter(movie -> movie.getMovie_Title().equals(pTitle))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves a showtime by its time.
+     *
+     * @param pTime the time of the showtime.
+     * @return the first showtime at that time, or null if not found.
+     * @author agent
+     */
+    public Showtime getShowtimeByTime(String pTime) {
+        return getShowtimes().stream()
+                .filter(showtime -> showtime.getShowtimeTime().equals(pTime))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves a screenroom by its name.
+     *
+     * @param pName the name of the screenroom.
+     * @return the first screenroom with that name, or null if not found.
+     * @author agent
+     */
+    public Screenroom getScreenroomByName(String pName) {
+        return getScreenrooms().stream()
+                .filter(screenroom -> screenroom.getScreenroom_Name().equals(pName))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves the shows scheduled on a date, grouped by movie.
+     * The movies are in the order of their first show in the file.
+     *
+     * @param pDate the date of the shows.
+     * @return an unmodifiable map of the shows of that day, by movie ID; empty if there are none.
+     * @author agent
+     */
+    public Map<String, List<Show>> getShowsOn(LocalDate pDate) {
+        aShows.refresh();
+        return aShowsByDate.getOrDefault(pDate, Collections.emptyMap());
+    }
+
+    /**
+     * Retrieves the IDs of the shows referring to a movie, showtime or screenroom.
+     *
+     * @param pComponent the movie, showtime or screenroom.
+     * @return an unmodifiable set of the IDs of the referring shows; empty for any other component.
+     * @author agent
+     */
+    public Set<String> getShowsReferencing(ShowComponent pComponent) {
+        aShows.refresh();
+        Set<String> showIDs = switch (pComponent) {
+            case Movie movie -> aShowsByMovie.get(movie.getMovie_ID());
+            case Showtime showtime -> aShowsByShowtime.get(showtime.getShowtimeID());
+            case Screenroom screenroom -> aShowsByScreenroom.get(screenroom.getScreenroom_ID());
+            default -> null;
+        };
+        return showIDs != null ? showIDs : Collections.emptySet();
+    }
+
+    /**
+     * Counts the shows referring to a movie, showtime or screenroom.
+     *
+     * @param pComponent the movie, showtime or screenroom.
+     * @return the number of shows referring to the component.
+     * @author agent
+     */
+    public int getReferenceCount(ShowComponent pComponent) {
+        return getShowsReferencing(pComponent).size();
+    }
+
+    /**
+     * Checks whether any show refers to a movie, showtime or screenroom.
+     *
+     * @param pComponent the movie, showtime or screenroom.
+     * @return {@code true} if at least one show refers to the component.
+     * @author agent
+     */
+    public boolean isReferencedByShow(ShowComponent pComponent) {
+        return getReferenceCount(pComponent) > 0;
+    }
+
+    /**
+     * Saves a new or edited movie, showtime, screenroom or show, unless another manager saved or
+     * deleted it since it was opened. The saved component gets the next version.
+     *
+     * @param pOriginal the component as it was opened, or null if the component is new.
+     * @param pEdited   the edited copy of the component, from {@link #editableCopy}, or the new component.
+     * @param pCheck    checks the save against the components of the file as they are now and
+     *                  throws to reject it, or null; run under the lock of the file.
+     * @param pOrder    the order of the components in the file, or null to keep the file order.
+     * @param <T>       the type of the component.
+     * @return the saved component.
+     * @throws StaleEditException       if the component was saved or deleted by another manager meanwhile.
+     * @throws IllegalArgumentException if the component is not a catalog component.
+     * @throws IOException              if the file cannot be written.
+     * @author agent
+     */
+    public <T extends ShowComponent> T save(T pOriginal, T pEdited, Consumer<List<T>> pCheck,
+                                            Comparator<? super T> pOrder) throws IOException {
+        CatalogFile<T> file = fileOf(pEdited);
+        T replaced = file.compareAndSet(pOriginal, pEdited, pCheck, pOrder);
+        EventBus.getInstance().publish(file.aType, replaced == null
+                ? EventBus.Change.added(pEdited)
+                : EventBus.Change.updated(replaced, pEdited));
+        return pEdited;
+    }
+
+    /**
+     * Deletes a movie, showtime, screenroom or show, unless another manager saved it since it was
+     * loaded. Deleting a component already deleted does nothing.
+     *
+     * @param pComponent the component as it was loaded.
+     * @throws StaleEditException       if the component was saved by another manager meanwhile.
+     * @throws IllegalArgumentException if the component is not a catalog component.
+     * @throws IOException              if the file cannot be written.
+     * @author agent
+     */
+    public void delete(ShowComponent pComponent) throws IOException {
+        CatalogFile<ShowComponent> file = fileOf(pComponent);
+        ShowComponent removed = file.compareAndSet(pComponent, null, null, null);
+        if (removed != null) {
+            EventBus.getInstance().publish(file.aType, EventBus.Change.deleted(removed));
+        }
+    }
+
+    /**
+     * Retrieves the ID of a movie, showtime, screenroom or show.
+     *
+     * @param pComponent the component.
+     * @return the ID of the component.
+     * @throws IllegalArgumentException if the component is not a catalog component.
+     * @author agent
+     */
+    public static String idOf(ShowComponent pComponent) {
+        return switch (pComponent) {
+            case Movie movie -> movie.getMovie_ID();
+            case Showtime showtime -> showtime.getShowtimeID();
+            case Screenroom screenroom -> screenroom.getScreenroom_ID();
+            case Show show -> show.getShowID();
+            case null, default -> throw new IllegalArgumentException("Not a catalog component: " + pComponent);
+        };
+    }
+
+    /**
+     * Retrieves the type of the objects stored in a catalog file, under which their changes are
+     * published on the {@link EventBus}.
+     *
+     * @param pFileName the name of the catalog file, one of the file constants of this class.
+     * @return the type of the objects of the file.
+     * @throws IllegalArgumentException if the file is not a catalog file.
+     * @author agent
+     */
+    public static Class<? extends ShowComponent> typeOf(String pFileName) {
+        return switch (pFileName) {
+            case MOVIES_FILE -> Movie.class;
+            case SHOWTIMES_FILE -> Showtime.class;
+            case SCREENROOMS_FILE -> Screenroom.class;
+            case SHOWS_FILE -> Show.class;
+            default -> throw new IllegalArgumentException("Not a catalog file: " + pFileName);
+        };
+    }
+
+    /**
+     * Copies a movie, showtime, screenroom or show to edit it without changing the shared one,
+     * which other windows keep displaying until the edit is saved.
+     *
+     * @param pComponent the component to copy.
+     * @param <T>        the type of the component.
+     * @return a copy of the component with the same ID and version.
+     * @throws IllegalStateException if the component cannot be copied.
+     * @author agent
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends ShowComponent> T editableCopy(T pComponent) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(pComponent);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (T) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot copy " + pComponent.getDisplayName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrieves the catalog file storing a component.
+     *
+     * @param pComponent the movie, showtime, screenroom or show.
+     * @param <T>        the type of the component.
+     * @return the catalog file of the component.
+     * @throws IllegalArgumentException if the component is not a catalog component.
+     * @author agent
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends ShowComponent> CatalogFile<T> fileOf(T pComponent) {
+        CatalogFile<?> file = switch (pComponent) {
+            case Movie movie -> aMovies;
+            case Showtime showtime -> aShowtimes;
+            case Screenroom screenroom -> aScreenrooms;
+            case Show show -> aShows;
+            case null, default -> throw new IllegalArgumentException("Not a catalog component: " + pComponent);
+        };
+        return (CatalogFile<T>) file;
+    }
+
+    /**
+     * Sets the version of a movie, showtime, screenroom or show about to be saved.
+     *
+     * @param pComponent the component.
+     * @param pVersion   the new version.
+     * @author agent
+     */
+    private static void setVersion(ShowComponent pComponent, long pVersion) {
+        switch (pComponent) {
+            case Movie movie -> movie.setVersion(pVersion);
+            case Showtime showtime -> showtime.setVersion(pVersion);
+            case Screenroom screenroom -> screenroom.setVersion(pVersion);
+            case Show show -> show.setVersion(pVersion);
+            default -> throw new IllegalArgumentException("Not a catalog component: " + pComponent);
+        }
+    }
+
+    /**
+     * Marks a movie, showtime, screenroom or show read from its file as shared, so it cannot be edited.
+     *
+     * @param pComponent the component.
+     * @author agent
+     */
+    private static void share(ShowComponent pComponent) {
+        switch (pComponent) {
+            case Movie movie -> movie.share();
+            case Showtime showtime -> showtime.share();
+            case Screenroom screenroom -> screenroom.share();
+            case Show show -> show.share();
+            default -> throw new IllegalArgumentException("Not a catalog component: " + pComponent);
+        }
+    }
+
+    /**
+     * Invalidates the catalog file at a path, if it is one, so it is read again on its next lookup.
+     *
+     * @param pPath the path of the changed file.
+     * @author agent
+     */
+    private void invalidate(Path pPath) {
+        Path path = pPath.toAbsolutePath().normalize();
+        for (CatalogFile<?> file : aFiles) {
+            if (file.getPath().equals(path)) {
+                file.invalidate();
+            }
+        }
+    }
+
+    /**
+     * Watches the working directory for changes to the catalog files made by other processes.
+     * If the directory cannot be watched, the files are checked on each lookup instead.
+     *
+     * @author agent
+     */
+    private void startWatching() {
+        Path directory = Paths.get("").toAbsolutePath();
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Cannot watch the catalog files, checking them on each lookup: " + e.getMessage());
+            return;
+        }
+
+        Thread watcher = new Thread(() -> watch(watchService, directory), "catalog-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+        aFiles.forEach(CatalogFile::watched);
+    }
+
+    /**
+     * Invalidates the catalog files reported changed by the watch service, until it closes.
+     * If events were lost, every file is invalidated.
+     *
+     * @param pWatchService the watch service on the working directory.
+     * @param pDirectory    the working directory.
+     * @author agent
+     */
+    private void watch(WatchService pWatchService, Path pDirectory) {
+        try {
+            while (true) {
+                WatchKey key = pWatchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        aFiles.forEach(CatalogFile::invalidate);
+                    } else if (event.context() instanceof Path changed) {
+                        invalidate(pDirectory.resolve(changed));
+                    }
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // The application is shutting down
+        }
+
+        // The directory can no longer be watched: fall back to checking the files on each lookup
+        aFiles.forEach(CatalogFile::unwatched);
+    }
+
+    /**
+     * Rebuilds the indexes of the shows after {@code shows.ser} was reloaded.
+     *
+     * @param pShows every show of the file, in file order.
+     * @author agent
+     */
+    private void indexShows(Collection<Show> pShows) {
+        indexShowsByDate(pShows);
+        aShowsByMovie = indexShowsBy(pShows, Show::getMovieID);
+        aShowsByShowtime = indexShowsBy(pShows, Show::getShowtimeID);
+        aShowsByScreenroom = indexShowsBy(pShows, Show::getScreenroomID);
+    }
+
+    /**
+     * Builds a reverse index from the ID of a referenced component to the IDs of the shows referring to it.
+     *
+     * @param pShows     every show of the file.
+     * @param pReference the function giving the ID of the referenced component of a show.
+     * @return an unmodifiable map of the IDs of the referring shows, by component ID.
+     * @author agent
+     */
+    private static Map<String, Set<String>> indexShowsBy(Collection<Show> pShows, Function<Show, String> pReference) {
+        Map<String, Set<String>> showsByReference = new HashMap<>();
+        for (Show show : pShows) {
+            String referenceID = pReference.apply(show);
+            if (referenceID != null) {
+                showsByReference.computeIfAbsent(referenceID, _ -> new LinkedHashSet<>()).add(show.getShowID());
+            }
+        }
+        showsByReference.replaceAll((_, showIDs) -> Collections.unmodifiableSet(showIDs));
+        return Collections.unmodifiableMap(showsByReference);
+    }
+
+    /**
+     * Rebuilds the index of the shows by date and movie.
+     *
+     * @param pShows every show of the file, in file order.
+     * @author agent
+     */
+    private void indexShowsByDate(Collection<Show> pShows) {
+        Map<LocalDate, Map<String, List<Show>>> showsByDate = new TreeMap<>();
+        for (Show show : pShows) {
+            if (show.getShowDate() != null) {
+                showsByDate.computeIfAbsent(show.getShowDate(), _ -> new LinkedHashMap<>())
+                        .computeIfAbsent(show.getMovieID(), _ -> new ArrayList<>())
+                        .add(show);
+            }
+        }
+
+        // Freeze the index so callers can share it
+        showsByDate.replaceAll((_, byMovie) -> {
+            byMovie.replaceAll((_, shows) -> List.copyOf(shows));
+            return Collections.unmodifiableMap(byMovie);
+        });
+        aShowsByDate = Collections.unmodifiableMap(showsByDate);
+    }
+
+    /**
+     * A catalog file whose objects are kept in memory, indexed by ID, until the file changes.
+     *
+     * @param <T> the type of the objects stored in the file.
+     * @author agent
+     */
+    private static final class CatalogFile<T extends ShowComponent> {
+
+        /** The name of the file. */
+        private final String aFileName;
+
+        /** The absolute path of the file. */
+        private final Path aPath;
+
+        /** The type of the objects stored in the file. */
+        private final Class<T> aType;
+
+        /** The function giving the ID of an object. */
+        private final Function<T, String> aIdOf;
+
+        /** Called with every object of the file, in file order, each time it is reloaded. */
+        private final Consumer<Collection<T>> aOnReload;
+
+        /** The objects of the file, in file order. */
+        private List<T> aObjects = Collections.emptyList();
+
+        /** The objects of the file, indexed by ID. */
+        private Map<String, T> aById = Collections.emptyMap();
+
+        /** The modification time of the file when it was last read. */
+        private FileTime aModifiedTime;
+
+        /** The size of the file when it was last read, or -1 if it was never read. */
+        private long aSize = -1;
+
+        /** The file key of the file when it was last read, which changes when a save renames a new file over it. */
+        private Object aFileKey;
+
+        /** Whether the file must be read again on its next lookup. */
+        private volatile boolean aStale = true;
+
+        /** Whether changes to the file are reported by a watch service, sparing a check on each lookup. */
+        private volatile boolean aWatched;
+
+        /**
+         * Constructs a catalog file notifying each reload.
+         *
+         * @param pFileName the name of the file.
+         * @param pType     the type of the objects stored in the file.
+         * @param pIdOf     the function giving the ID of an object.
+         * @param pOnReload called with every object of the file, in file order, each time it is reloaded.
+         * @author agent
+         */
+        private CatalogFile(String pFileName, Class<T> pType, Function<T, String> pIdOf,
+                            Consumer<Collection<T>> pOnReload) {
+            this.aFileName = pFileName;
+            this.aPath = Paths.get(pFileName).toAbsolutePath().normalize();
+            this.aType = pType;
+            this.aIdOf = pIdOf;
+            this.aOnReload = pOnReload;
+        }
+
+        /**
+         * Retrieves the absolute path of the file.
+         *
+         * @return the absolute path of the file.
+         * @author agent
+         */
+        private Path getPath() {
+            return aPath;
+        }
+
+        /**
+         * Retrieves an object by its ID, reloading the file first if it changed.
+         *
+         * @param pID the ID of the object.
+         * @return the matching object, or null if not found.
+         * @author agent
+         */
+        private synchronized T get(String pID) {
+            if (pID == null) {
+                return null;
+            }
+            refreshIfChanged();
+            return aById.get(pID);
+        }
+
+        /**
+         * Retrieves every object of the file, reloading it first if it changed.
+         *
+         * @return an unmodifiable list of the objects, in file order.
+         * @author agent
+         */
+        private synchronized List<T> getAll() {
+            refreshIfChanged();
+            return aObjects;
+        }
+
+        /**
+         * Reloads the file if it changed since it was last read.
+         *
+         * @author agent
+         */
+        private synchronized void refresh() {
+            refreshIfChanged();
+        }
+
+        /**
+         * Adds, replaces or removes an object and writes the file, unless the object in the file
+         * is no longer the version the change was made from. The file is checked for changes
+         * first, even those not reported yet, and no other lookup or save of the file runs until
+         * it is written, in this application or, through the exclusive {@link FileLocks} lock of
+         * the file, in the other copies sharing the working directory. Saves are therefore one at
+         * a time, and written right away rather than grouped.
+         *
+         * @param pOriginal the object as the change was made from, or null to add pEdited.
+         * @param pEdited   the object to write in place of the original, or null to remove it.
+         * @param pCheck    checks the change against the objects of the file, or null.
+         * @param pOrder    the order of the objects in the file, or null to keep the file order.
+         * @return the object replaced or removed, or null if pEdited was added or the original was
+         *         already removed.
+         * @throws StaleEditException if the object was changed or removed since the original was read.
+         * @throws IOException        if the file cannot be written.
+         * @author agent
+         */
+        private synchronized T compareAndSet(T pOriginal, T pEdited, Consumer<List<T>> pCheck,
+                                             Comparator<? super T> pOrder) throws IOException {
+            try (FileLocks.Lock _ = FileLocks.exclusive(aFileName)) {
+                return compareAndSetLocked(pOriginal, pEdited, pCheck, pOrder);
+            }
+        }
+
+        /**
+         * Performs {@link #compareAndSet} under the exclusive lock of the file.
+         *
+         * @param pOriginal the object as the change was made from, or null to add pEdited.
+         * @param pEdited   the object to write in place of the original, or null to remove it.
+         * @param pCheck    checks the change against the objects of the file, or null.
+         * @param pOrder    the order of the objects in the file, or null to keep the file order.
+         * @return the object replaced or removed, or null if pEdited was added or the original was
+         *         already removed.
+         * @throws StaleEditException if the object was changed or removed since the original was read.
+         * @throws IOException        if the file cannot be written.
+         * @author agent
+         */
+        private T compareAndSetLocked(T pOriginal, T pEdited, Consumer<List<T>> pCheck,
+                                      Comparator<? super T> pOrder) throws IOException {
+            aStale = true;
+            refreshIfChanged();
+
+            List<T> objects = new ArrayList<>(aObjects);
+            T current = null;
+            int index = -1;
+            if (pOriginal != null) {
+                current = aById.get(aIdOf.apply(pOriginal));
+                if (current == null) {
+                    if (pEdited == null) {
+                        return null; // Already deleted
+                    }
+                    throw new StaleEditException(pOriginal.getDisplayName()
+                            + " was deleted by another manager since you opened it.", null);
+                }
+                if (current.getVersion() != pOriginal.getVersion()) {
+                    throw new StaleEditException(current.getDisplayName()
+                            + " was changed by another manager since you opened it.", current);
+                }
+                index = objects.indexOf(current);
+            }
+            if (pCheck != null) {
+                pCheck.accept(aObjects);
+            }
+
+            if (pEdited == null) {
+                objects.remove(index);
+            } else {
+                setVersion(pEdited, pOriginal != null ? pOriginal.getVersion() + 1 : 1);
+                if (index >= 0) {
+                    objects.set(index, pEdited);
+                } else {
+                    objects.add(pEdited);
+                }
+            }
+            if (pOrder != null) {
+                objects.sort(pOrder);
+            }
+            new WriteObjects(aFileName).write(new ArrayList<>(objects));
+            if (pEdited != null) {
+                share(pEdited);
+            }
+            cache(List.copyOf(objects));
+            return current;
+        }
+
+        /**
+         * Keeps the objects just written as those of the file, with the attributes of the file
+         * as written, so the report of the save does not make the next lookup read it again.
+         * The file is left to be read again if its attributes cannot be read.
+         *
+         * @param pObjects the objects written, in file order.
+         * @author agent
+         */
+        private void cache(List<T> pObjects) {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(aPath, BasicFileAttributes.class);
+            } catch (IOException e) {
+                System.err.println("Error checking " + aFileName + ": " + e.getMessage());
+                aStale = true;
+                return;
+            }
+            Map<String, T> byId = new HashMap<>();
+            pObjects.forEach(object -> byId.put(aIdOf.apply(object), object));
+            aObjects = pObjects;
+            aById = byId;
+            aModifiedTime = attributes.lastModifiedTime();
+            aSize = attributes.size();
+            aFileKey = attributes.fileKey();
+            aOnReload.accept(pObjects);
+        }
+
+        /**
+         * Marks the file as changed, so it is read again on its next lookup.
+         *
+         * @author agent
+         */
+        private void invalidate() {
+            aStale = true;
+        }
+
+        /**
+         * Records that changes to the file are now reported by a watch service.
+         *
+         * @author agent
+         */
+        private void watched() {
+            aWatched = true;
+        }
+
+        /**
+         * Records that changes to the file are no longer reported, so it is checked on each lookup.
+         *
+         * @author agent
+         */
+        private void unwatched() {
+            aWatched = false;
+        }
+
+        /**
+         * Reloads the file if it changed since it was last read. A watched file is only checked
+         * once it was invalidated; the file key, modification time and size then tell whether
+         * it really changed, since a save is reported both by its writer and by the watch service.
+         *
+         * @author agent
+         */
+        private void refreshIfChanged() {
+            boolean stale = aStale;
+            if (!stale && aWatched) {
+                return;
+            }
+            aStale = false; // Cleared before reading, so a change made meanwhile is not missed
+
+            FileTime modifiedTime;
+            long size;
+            Object fileKey;
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(aPath, BasicFileAttributes.class);
+                modifiedTime = attributes.lastModifiedTime();
+                size = attributes.size();
+                fileKey = attributes.fileKey();
+            } catch (NoSuchFileException e) {
+                if (aSize != -1) {
+                    aObjects = Collections.emptyList();
+                    aById = Collections.emptyMap();
+                    aModifiedTime = null;
+                    aSize = -1;
+                    aFileKey = null;
+                    aOnReload.accept(Collections.emptyList());
+                }
+                return;
+            } catch (IOException e) {
+                System.err.println("Error checking " + aFileName + ": " + e.getMessage());
+                aStale = stale;
+                return;
+            }
+
+            if (size == aSize && modifiedTime.equals(aModifiedTime) && Objects.equals(fileKey, aFileKey)) {
+                return;
+            }
+
+            List<T> objects;
+            try (Stream<T> objectStream = new ReadObjects(aFileName).stream(aType)) {
+                objects = objectStream.toList();
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("Error reading " + aFileName + ": " + e.getMessage());
+                aStale = stale;
+                return;
+            }
+            Map<String, T> byId = new HashMap<>();
+            objects.forEach(object -> {
+                share(object);
+                byId.put(aIdOf.apply(object), object);
+            });
+            aObjects = objects;
+            aById = byId;
+            aModifiedTime = modifiedTime;
+            aSize = size;
+            aFileKey = fileKey;
+            aOnReload.accept(objects);
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * Represents a Client, which is a type of {@link User}.
@@ -12,6 +11,7 @@ import java.util.List;
  * Implements {@link Serializable} for object serialization.
  * This class is designed to manage clients of the application.
  * Each client is assigned a unique ID and a subscription date upon creation.
+ * Clients are serialized in the compact {@link UserRecord} form, which holds only the client's own fields.
  *
  * @author Samuel Mireault
  * @version 1.0
@@ -22,12 +22,6 @@ public class Client extends User {
     @Serial
     private static final long serialVersionUID = -5727091206595037865L;
 
-    /** The list of all clients managed by the {@link UserManager}. */
-    private final List<User> aClientsList = UserManager.getInstance().getClientList();
-
-    /** Counter for generating unique Client IDs. */
-    private int aClientIDCounter = lastIncrement();
-
     /** Unique ID for each Client. */
     private final String aClientID;
 
@@ -67,13 +61,29 @@ public class Client extends User {
     }
 
     /**
-     * Generates a unique Client ID by incrementing the ID counter.
+     * Restores a client from its compact serialized form.
+     *
+     * @param pClientID               the unique Client ID.
+     * @param pUser_Name              the name of the user.
+     * @param pUser_Email             the email address of the user.
+     * @param pUser_Password          the password of the user.
+     * @param pClientSubscriptionDate the subscription date of the client.
+     * @author agent
+     */
+    Client(String pClientID, String pUser_Name, String pUser_Email, String pUser_Password, LocalDate pClientSubscriptionDate) {
+        super(pUser_Name, pUser_Email, pUser_Password);
+        this.aClientSubscriptionDate = pClientSubscriptionDate;
+        this.aClientID = pClientID;
+    }
+
+    /**
+     * Generates a unique Client ID from the client sequence of the {@link IDSequences}.
      *
      * @return the generated Client ID in the format "C<number>".
      * @author Samuel Mireault
      */
-    private synchronized String generateClientID() {
-        return "C" + aClientIDCounter++;
+    private static String generateClientID() {
+        return IDSequences.getInstance().nextID(IDSequences.CLIENT);
     }
 
     /**
@@ -108,19 +118,13 @@ public class Client extends User {
     }
 
     /**
-     * Determines the last increment value for generating unique Client IDs.
-     * If the client list is empty or uninitialized, the increment starts at 1.
+     * Replaces the client with its compact {@link UserRecord} form when serialized.
      *
-     * @return the next increment value for generating unique Client IDs.
-     * @throws ClassCastException if the list contains objects that are not of type {@link Client}.
-     * @author Samuel Mireault
+     * @return the compact serialized form of the client.
+     * @author agent
      */
-    private int lastIncrement() {
-        if (this.aClientsList == null || this.aClientsList.isEmpty()) {
-            return 1;  // Start at 1 if the list is empty or uninitialized
-        }
-        Client lastClient = (Client) this.aClientsList.getLast();  // Get the last client
-        int lastIncrement = Integer.parseInt(lastClient.getClientID().substring(1));
-        return lastIncrement + 1;
+    @Serial
+    private Object writeReplace() {
+        return UserRecord.of(this);
     }
 }
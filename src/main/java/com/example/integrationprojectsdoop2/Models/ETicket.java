@@ -1,21 +1,23 @@
 package com.example.integrationprojectsdoop2.Models;
 
-import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
-
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDateTime;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * ETicket Class
  *
  * This class represents an e-ticket for a show, including unique ticket IDs,
  * associated show details, client information, and purchase date/time.
- * The ticket ID is dynamically generated to ensure uniqueness within each year.
+ * The ticket ID is minted by the {@link ETicketIDAllocator} of the {@link ETicketManager},
+ * as the year followed by a counter restarting every year.
+ * A ticket is saved with the IDs of its show and client, which are resolved through
+ * the {@link CatalogManager} and the {@link UserManager} each time they are needed.
+ * The {@link ETicketManager} assigns the ticket a seat of the show when it is sold.
  *
  * Author: Mohammad Tarin Wahidi
  */
@@ -24,24 +26,33 @@ public class ETicket implements Serializable {
     private static final long serialVersionUID = 80085L;
 
     /**
-     * The last recorded year for which ticket IDs were generated.
+     * The serialized fields of an ETicket: its own fields, its seat and the IDs of its show and client.
+     * Tickets saved before the IDs were introduced embed the show and client themselves;
+     * {@link #readObject(ObjectInputStream)} reads both forms.
      */
-    private static String aLastYear = String.valueOf(LocalDateTime.now().getYear());
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("aTicketID", String.class),
+            new ObjectStreamField("aShowID", String.class),
+            new ObjectStreamField("aPurchaseDateTime", LocalDateTime.class),
+            new ObjectStreamField("aClientID", String.class),
+            new ObjectStreamField("aSeatNumber", int.class)
+    };
 
     /**
-     * Counter for ticket IDs within the current year.
+     * The unique ID of the ticket.
      */
-    private static int aCounter = lastIncrement();
+    private String aTicketID;
 
     /**
-     * The unique ID of the ticket.
+     * The ID of the show associated with the ticket.
      */
-    private String aTicketID;
+    private String aShowID;
 
     /**
-     * The show associated with the ticket.
+     * The show the ticket was sold for, or embedded by the legacy format, used if the catalog has none with {@link #aShowID}.
      */
-    private Show aShow;
+    private transient Show aShow;
 
     /**
      * The date and time of the ticket purchase.
@@ -49,74 +60,53 @@ public class ETicket implements Serializable {
     private LocalDateTime aPurchaseDateTime;
 
     /**
-     * The client who purchased the ticket.
+     * The ID of the client who purchased the ticket.
+     */
+    private String aClientID;
+
+    /**
+     * The client who purchased the ticket, or embedded by the legacy format, used if no client has {@link #aClientID}.
      */
-    private Client aClient;
+    private transient Client aClient;
+
+    /**
+     * The number of the seat of the ticket in the screenroom of the show, or -1 if it has none.
+     */
+    private int aSeatNumber = -1;
 
     /**
      * Constructs a new ETicket with the given show ID and client ID.
      *
      * @param pShow  the ID of the show associated with the ticket.
      * @param pClient the ID of the client purchasing the ticket.
+     * @throws IllegalStateException if no ticket ID is left for the current year.
+     * @throws java.io.UncheckedIOException if a new block of ticket IDs cannot be leased.
      */
     public ETicket(Show pShow, Client pClient) {
         this.aShow = pShow;
+        this.aShowID = pShow.getShowID();
         this.aPurchaseDateTime = LocalDateTime.now();
         this.aClient = pClient;
-        this.aTicketID = setETicketID();
+        this.aClientID = pClient.getClientID();
+        this.aTicketID = ETicketManager.getInstance().nextETicketID();
     }
 
     /**
-     * Reads the last incremented counter from the stored tickets in etickets.ser.
-     * Resets to 1 if no tickets exist or the file is empty.
-     */
-    private static int lastIncrement() {
-        List<ETicket> eTicketList;
-        try {
-            ReadObjects reader = new ReadObjects("etickets.ser");
-            eTicketList = reader.read().stream()
-                    .filter(ETicket.class::isInstance)
-                    .map(ETicket.class::cast)
-                    .collect(Collectors.toList());
-        } catch (IOException | ClassNotFoundException e) {
-            eTicketList = Collections.emptyList(); // Fallback in case of errors
-        }
-
-        if (eTicketList.isEmpty()) {
-            return 1; // Start from 1 if no tickets exist
-        }
-
-        // Get the last ticket and extract its counter
-        ETicket lastTicket = eTicketList.getLast();
-        String lastTicketID = lastTicket.getETicketID(); // Assuming getTicketID() exists
-        String lastYear = lastTicketID.substring(0, 4); // Extract the year from the ID
-
-        // If the year has changed, reset the counter
-        if (!lastYear.equals(aLastYear)) {
-            return 1;
-        }
-
-        // Extract and increment the 10-digit counter
-        String counterPart = lastTicketID.substring(4);
-        return Integer.parseInt(counterPart) + 1;
-    }
-
-    /**
-     * Generates the next ETicket ID in the format Year + 10-digit counter.
+     * Restores a ticket from the fields kept by the {@link ETicketManager}.
+     * The show and client are resolved each time they are needed.
      *
-     * @return a formatted ETicket ID.
+     * @param pTicketID         the unique ID of the ticket.
+     * @param pShowID           the ID of the show, or null if unknown.
+     * @param pClientID         the ID of the client, or null if unknown.
+     * @param pPurchaseDateTime the date and time of the purchase.
+     * @param pSeatNumber       the number of the seat, or -1 if the ticket has none.
      */
-    private static synchronized String setETicketID() {
-        String currentYear = String.valueOf(LocalDateTime.now().getYear());
-
-        // Reset counter if the year changes
-        if (!currentYear.equals(aLastYear)) {
-            aLastYear = currentYear;
-            aCounter = 1;
-        }
-
-        // Format the ticket ID as Year + 10-digit counter (padded with leading zeros)
-        return currentYear + String.format("%010d", aCounter++);
+    ETicket(String pTicketID, String pShowID, String pClientID, LocalDateTime pPurchaseDateTime, int pSeatNumber) {
+        this.aTicketID = pTicketID;
+        this.aShowID = pShowID;
+        this.aClientID = pClientID;
+        this.aPurchaseDateTime = pPurchaseDateTime;
+        this.aSeatNumber = pSeatNumber;
     }
 
     /**
@@ -131,10 +121,20 @@ public class ETicket implements Serializable {
     /**
      * Retrieves the show associated with the ticket.
      *
-     * @return the show.
+     * @return the show, or null if it is missing from the catalog.
      */
     public Show getShow() {
-        return this.aShow;
+        Show show = CatalogManager.getInstance().getShow(this.aShowID);
+        return show != null ? show : this.aShow;
+    }
+
+    /**
+     * Retrieves the ID of the show associated with the ticket, without resolving the show.
+     *
+     * @return the show ID.
+     */
+    public String getShowID() {
+        return this.aShowID;
     }
 
     /**
@@ -149,9 +149,95 @@ public class ETicket implements Serializable {
     /**
      * Retrieves the client who purchased the ticket.
      *
-     * @return the client.
+     * @return the client, or null if no client has its ID.
      */
     public Client getClient() {
-        return this.aClient;
+        Client client = UserManager.getInstance().findClientByID(this.aClientID);
+        return client != null ? client : this.aClient;
+    }
+
+    /**
+     * Retrieves the ID of the client who purchased the ticket, without resolving the client.
+     *
+     * @return the client ID.
+     */
+    public String getClientID() {
+        return this.aClientID;
+    }
+
+    /**
+     * Retrieves the number of the seat of the ticket.
+     *
+     * @return the seat number, or -1 if the ticket has no seat.
+     */
+    public int getSeatNumber() {
+        return this.aSeatNumber;
+    }
+
+    /**
+     * Retrieves the label of the seat of the ticket, such as {@code "C7"}.
+     *
+     * @return the seat label, or null if the ticket has no seat or its screenroom is unknown.
+     */
+    public String getSeatLabel() {
+        Show show = getShow();
+        if (aSeatNumber < 0 || show == null || show.getScreenroom() == null
+                || aSeatNumber >= show.getScreenroom().getCapacity()) {
+            return null;
+        }
+        return show.getScreenroom().getSeatLabel(aSeatNumber);
+    }
+
+    /**
+     * Assigns the ticket its seat, when the {@link ETicketManager} sells it.
+     *
+     * @param pSeatNumber the number of the seat.
+     */
+    void setSeatNumber(int pSeatNumber) {
+        this.aSeatNumber = pSeatNumber;
+    }
+
+    /**
+     * Writes the ticket with the IDs of its show and client instead of the objects.
+     *
+     * @param pOut the stream to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    @Serial
+    private void writeObject(ObjectOutputStream pOut) throws IOException {
+        ObjectOutputStream.PutField fields = pOut.putFields();
+        fields.put("aTicketID", aTicketID);
+        fields.put("aShowID", aShowID);
+        fields.put("aPurchaseDateTime", aPurchaseDateTime);
+        fields.put("aClientID", aClientID);
+        fields.put("aSeatNumber", aSeatNumber);
+        pOut.writeFields();
+    }
+
+    /**
+     * Reads a ticket saved with ID references, or a legacy ticket embedding its show and client.
+     * The references are resolved each time they are needed.
+     *
+     * @param pIn the stream to read from.
+     * @throws IOException            if an I/O error occurs.
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found.
+     */
+    @Serial
+    private void readObject(ObjectInputStream pIn) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = pIn.readFields();
+        aTicketID = (String) fields.get("aTicketID", null);
+        aPurchaseDateTime = (LocalDateTime) fields.get("aPurchaseDateTime", null);
+        aSeatNumber = fields.get("aSeatNumber", -1); // Tickets saved before seats have none
+
+        if (!fields.defaulted("aShowID")) {
+            aShowID = (String) fields.get("aShowID", null);
+            aClientID = (String) fields.get("aClientID", null);
+        } else {
+            // Legacy format: keep the embedded copies as a fallback and use their IDs
+            aShow = (Show) fields.get("aShow", null);
+            aClient = (Client) fields.get("aClient", null);
+            aShowID = aShow != null ? aShow.getShowID() : null;
+            aClientID = aClient != null ? aClient.getClientID() : null;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,229 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import com.example.integrationprojectsdoop2.Helpers.FileLocks;
+import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Mints the IDs of new tickets: the year followed by a 10-digit counter, such as
+ * {@code 20240000000042}, which is also the ticket number kept in the ticket store.
+ * <p>
+ * IDs are leased from a small high-water-mark file in blocks. Within a block, buyers take
+ * IDs with an atomic increment and never wait for each other; only the buyer who exhausts a
+ * block takes a lock, to record the end of the next block in the file before handing it out.
+ * An ID is therefore never given twice, even across restarts, while the file is written once
+ * per block rather than once per ticket. The IDs left in a block when the application stops
+ * are skipped. The counter starts again at 1 every year. Leases are taken under the exclusive
+ * {@link FileLocks} lock of the file, from the mark as it is in the file, so copies of the
+ * application sharing the file lease disjoint blocks. The mark is written to a temporary file
+ * renamed over the old one, so a crash never leaves a torn mark behind.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * ETicketIDAllocator allocator = new ETicketIDAllocator("etickets.hwm", () -> lastTicketNumber + 1);
+ * String ticketID = allocator.nextID();
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class ETicketIDAllocator {
+
+    /** Number of IDs leased at once. */
+    private static final int BLOCK_SIZE = 512;
+
+    /** Multiplier placing the year before the 10-digit counter. */
+    private static final long YEAR_FACTOR = 10_000_000_000L;
+
+    /**
+     * A block of leased IDs of one year.
+     *
+     * @param yearEndMillis the start of the next year, in epoch milliseconds.
+     * @param next          the next ID to hand out.
+     * @param end           the first ID past the block.
+     */
+    private record Lease(long yearEndMillis, AtomicLong next, long end) {
+    }
+
+    /** The high-water-mark file. */
+    private final Path aPath;
+
+    /** The first ID not leased yet, as recorded in the file. */
+    private long aHighWaterMark;
+
+    /** The block IDs are taken from. */
+    private volatile Lease aLease;
+
+    /**
+     * Opens the allocator of a high-water-mark file, creating the file on the first lease if needed.
+     *
+     * @param pFileName the name of the high-water-mark file.
+     * @param pFloor    gives the lowest ID that may be handed out when the file has no
+     *                  high-water mark yet, typically the ID following the tickets stored.
+     * @throws IllegalArgumentException if the file name is null or empty.
+     * @throws UncheckedIOException     if the file exists but its high-water mark cannot be read.
+     * @author agent
+     */
+    public ETicketIDAllocator(String pFileName, LongSupplier pFloor) {
+        if (pFileName == null || pFileName.isEmpty()) {
+            throw new IllegalArgumentException("File name cannot be null or empty.");
+        }
+        this.aPath = Paths.get(pFileName);
+        long highWaterMark = readHighWaterMark();
+        this.aHighWaterMark = highWaterMark > 0 ? highWaterMark : pFloor.getAsLong();
+        this.aLease = new Lease(Long.MIN_VALUE, new AtomicLong(), 0); // Leased on the first ID
+    }
+
+    /**
+     * Mints the next ticket ID as a number, without allocating.
+     *
+     * @return the next ticket number.
+     * @throws IllegalStateException if the IDs of the current year are exhausted.
+     * @throws UncheckedIOException  if a new block of IDs cannot be leased.
+     * @author agent
+     */
+    public long nextNumber() {
+        while (true) {
+            Lease lease = aLease;
+            if (System.currentTimeMillis() < lease.yearEndMillis()) {
+                long number = lease.next().getAndIncrement();
+                if (number < lease.end()) {
+                    return number;
+                }
+            }
+            renew(lease);
+        }
+    }
+
+    /**
+     * Mints the next ticket ID. The year and counter are the digits of the ticket number,
+     * so the ID is built without any formatting.
+     *
+     * @return the next ticket ID.
+     * @throws IllegalStateException if the IDs of the current year are exhausted.
+     * @throws UncheckedIOException  if a new block of IDs cannot be leased.
+     * @author agent
+     */
+    public String nextID() {
+        return Long.toString(nextNumber());
+    }
+
+    /**
+     * Leases the next block of IDs, unless another buyer already replaced the exhausted lease.
+     *
+     * @param pExhausted the lease found exhausted or out of its year.
+     * @throws IllegalStateException if the IDs of the current year are exhausted.
+     * @throws UncheckedIOException  if the file cannot be locked or the new high-water mark recorded.
+     * @author agent
+     */
+    private synchronized void renew(Lease pExhausted) {
+        if (aLease != pExhausted) {
+            return;
+        }
+        try (FileLocks.Lock _ = FileLocks.exclusive(aPath.toString())) {
+            // Other copies of the application sharing the file may have leased blocks since
+            aHighWaterMark = Math.max(aHighWaterMark, readHighWaterMark());
+
+            ZoneId zone = ZoneId.systemDefault();
+            int year = Math.max(LocalDate.now(zone).getYear(), (int) (aHighWaterMark / YEAR_FACTOR));
+            long start = Math.max(aHighWaterMark, year * YEAR_FACTOR + 1);
+            long end = start + BLOCK_SIZE;
+            if (end > (year + 1) * YEAR_FACTOR) {
+                throw new IllegalStateException("No ticket IDs left for " + year + ".");
+            }
+
+            writeHighWaterMark(end);
+            aHighWaterMark = end;
+            long yearEndMillis = LocalDate.of(year + 1, 1, 1).atStartOfDay(zone).toInstant().toEpochMilli();
+            aLease = new Lease(yearEndMillis, new AtomicLong(start), end);
+        } catch (IOException e) {
+            System.err.println("Error locking " + aPath + ": " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the high-water mark recorded in the file.
+     *
+     * @return the recorded high-water mark, or 0 if there is no file yet.
+     * @throws UncheckedIOException if the file exists but cannot be read or is not a whole mark,
+     *                              so IDs already handed out are never handed out again.
+     * @author agent
+     */
+    private long readHighWaterMark() {
+        try (FileChannel channel = FileChannel.open(aPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read the whole mark
+            }
+            if (buffer.hasRemaining()) {
+                throw new StreamCorruptedException("Truncated high-water mark in " + aPath);
+            }
+            return buffer.flip().getLong();
+        } catch (NoSuchFileException e) {
+            return 0; // No file yet
+        } catch (IOException e) {
+            System.err.println("Error reading " + aPath + ": " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Records a high-water mark in the file: writes it to a temporary file, forces it to disk,
+     * and renames it over the file, so the file always holds a whole mark.
+     *
+     * @param pHighWaterMark the first ID not leased.
+     * @throws UncheckedIOException if the file cannot be written, in which case the block
+     *                              is not handed out.
+     * @author agent
+     */
+    private void writeHighWaterMark(long pHighWaterMark) {
+        Path target = aPath.toAbsolutePath();
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(pHighWaterMark).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temp = null;
+            WriteObjects.syncDirectory(target.getParent());
+        } catch (IOException e) {
+            System.err.println("Error writing " + aPath + ": " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    System.err.println("Error deleting " + temp + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,644 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import com.example.integrationprojectsdoop2.Helpers.EventBus;
+import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
+import com.example.integrationprojectsdoop2.Helpers.TicketRecordStore;
+import com.example.integrationprojectsdoop2.Helpers.TicketRecordStore.TicketRecord;
+import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Manages the sold {@link ETicket} instances.
+ * Provides singleton access to the ticket history and persists every purchase
+ * as a fixed-width binary record in a memory-mapped {@link TicketRecordStore}.
+ *
+ * <p>Tickets bought together are recorded in a single commit of the store, so a purchase of
+ * several tickets never leaves only some of them recorded.</p>
+ *
+ * <p>Reports and lookups read the records straight from the mapped file, without
+ * deserializing any object. Tickets sold before the store existed, in {@code etickets.ser},
+ * are imported into it once, the first time it is opened; that file is then no longer read or written.</p>
+ *
+ * <p>The {@link SalesAggregates} counters are updated with every purchase and saved in
+ * {@code sales.ser}, so reports never go over the tickets. Each save adds the tickets counted
+ * since the last one to the counters in the file, which other copies of the application update
+ * too, and the counters in memory become those saved plus the tickets not saved yet. Counters
+ * that do not cover every ticket of the store, after a crash between the two writes, are
+ * rebuilt on startup.</p>
+ *
+ * <p>Every ticket sold takes a seat of its show, claimed in the {@link SeatMap} of the show
+ * without any lock, so a show is never sold beyond the capacity of its screenroom. The seat
+ * map of a show is built from the tickets of the show in the store, found through its index of
+ * the shows, when the show is first sold, with the capacity its screenroom has at that time;
+ * tickets sold before seats existed take any free seat. The store rejects a seat sold meanwhile
+ * by another copy of the application sharing it, and the seats of the tickets it sold are then
+ * claimed in the seat maps too.</p>
+ *
+ * <p>The IDs of new tickets are leased in blocks from {@code etickets.hwm} by an
+ * {@link ETicketIDAllocator}. Only when that file is missing are the tickets of the store
+ * scanned, to start above the highest ID sold.</p>
+ *
+ * <p>Every ticket recorded is published on the {@link EventBus} once it is counted, so the
+ * open sales reports recount without reading the store again.</p>
+ *
+ * @author agent
+ */
+public class ETicketManager {
+
+    /** The legacy ticket file, fully rewritten on every purchase before the record store existed. */
+    public static final String TICKETS_FILE = "etickets.ser";
+
+    /** The binary record store holding every ticket. */
+    public static final String STORE_FILE = "etickets.dat";
+
+    /** The file holding the sales counters. */
+    public static final String SALES_FILE = "sales.ser";
+
+    /** The file holding the high-water mark of the ticket IDs. */
+    public static final String ID_FILE = "etickets.hwm";
+
+    /** The single instance of ETicketManager. */
+    private static ETicketManager aInstance;
+
+    /** The store holding one record per ticket sold, in purchase order. */
+    private final TicketRecordStore aStore;
+
+    /** Mints the IDs of new tickets. */
+    private final ETicketIDAllocator aIDAllocator;
+
+    /** The sales counters, guarded by the manager. */
+    private SalesAggregates aSales;
+
+    /** The tickets counted in the sales counters but not saved yet, by number of their count, guarded by the manager. */
+    private final NavigableMap<Long, SalesAggregates> aUnsavedSales = new TreeMap<>();
+
+    /** The number of the last count of tickets submitted to be saved, guarded by the manager. */
+    private long aLastSalesCount;
+
+    /** The seats of each show sold so far in this run, by show ID. */
+    private final Map<String, SeatMap> aSeatMaps = new ConcurrentHashMap<>();
+
+    /** The number of records of the store whose seats are claimed in the seat maps built. */
+    private volatile int aSeatedCount;
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     * Opens the record store, importing the legacy tickets into it if it is new.
+     * Errors are logged and thrown, for the caller to report.
+     *
+     * @throws UncheckedIOException if the store cannot be opened or the legacy tickets imported.
+     * @author agent
+     */
+    private ETicketManager() {
+        try {
+            aStore = new TicketRecordStore(STORE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error opening the ticket store: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        if (aStore.size() == 0) {
+            importLegacyTickets();
+        }
+        aSeatedCount = aStore.size();
+        aIDAllocator = new ETicketIDAllocator(ID_FILE, () -> maxTicketNumber() + 1);
+        aSales = salesReader();
+        if (aSales == null || aSales.getTicketCount() != aStore.size()) {
+            aSales = rebuildSales();
+            try {
+                new WriteObjects(SALES_FILE).write(List.of(aSales));
+            } catch (IOException e) {
+                System.err.println("Error saving sales counters: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the single instance of {@code ETicketManager}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code ETicketManager}.
+     * @author agent
+     */
+    public static synchronized ETicketManager getInstance() {
+        if (aInstance == null) {
+            aInstance = new ETicketManager();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Retrieves every ticket sold, in purchase order.
+     * Each ticket is built from its record; prefer the other methods for scans.
+     *
+     * @return an unmodifiable list of tickets.
+     * @author agent
+     */
+    public List<ETicket> getETicketList() {
+        int count = aStore.size();
+        List<ETicket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tickets.add(toETicket(aStore.get(i)));
+        }
+        return Collections.unmodifiableList(tickets);
+    }
+
+    /**
+     * Retrieves the number of tickets sold.
+     *
+     * @return the number of tickets.
+     * @author agent
+     */
+    public int getETicketCount() {
+        return aStore.size();
+    }
+
+    /**
+     * Finds a ticket by its ID.
+     *
+     * @param pETicketID the ID of the ticket.
+     * @return the matching ticket, or null if not found.
+     * @author agent
+     */
+    public ETicket findETicket(String pETicketID) {
+        try {
+            int index = aStore.indexOf(Long.parseLong(pETicketID));
+            return index < 0 ? null : toETicket(aStore.get(index));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Mints the ID of a new ticket.
+     *
+     * @return a ticket ID never handed out before.
+     * @throws IllegalStateException if the IDs of the current year are exhausted.
+     * @throws UncheckedIOException  if a new block of IDs cannot be leased.
+     * @author agent
+     */
+    String nextETicketID() {
+        return aIDAllocator.nextID();
+    }
+
+    /**
+     * Retrieves the sales counters per show, movie and day.
+     *
+     * @return a snapshot of the sales counters.
+     * @author agent
+     */
+    public synchronized SalesAggregates getSalesAggregates() {
+        return new SalesAggregates(aSales);
+    }
+
+    /**
+     * Retrieves the seats of a show, building its seat map from the tickets sold if needed.
+     *
+     * @param pShow the show.
+     * @return the seat map of the show.
+     * @author agent
+     */
+    public SeatMap getSeatMap(Show pShow) {
+        claimSeatsSoldElsewhere();
+        return aSeatMaps.computeIfAbsent(pShow.getShowID(), _ -> buildSeatMap(pShow));
+    }
+
+    /**
+     * Releases a seat of a show claimed in its seat map, unless a ticket of the store has it,
+     * such as one sold by another copy of the application while the seat was held here.
+     *
+     * @param pShow the show.
+     * @param pSeat the seat to release.
+     * @author agent
+     */
+    void releaseSeat(Show pShow, int pSeat) {
+        if (pSeat >= 0 && !aStore.isSeatSold(numberOf(IDSequences.SHOW, pShow.getShowID()), pSeat)) {
+            getSeatMap(pShow).release(pSeat);
+        }
+    }
+
+    /**
+     * Records tickets bought together, such as the tickets of a family, as a single commit:
+     * either every ticket is recorded, or none is. Each ticket takes its own seat if it has one,
+     * or any free seat of its show otherwise; if a seat cannot be claimed, or the tickets cannot
+     * be recorded, the seats already claimed are released, and the seats given are taken back.
+     *
+     * @param pETickets the tickets to record.
+     * @throws IllegalArgumentException if the list is null or empty.
+     * @throws IllegalStateException    if there are not enough seats left for all the tickets.
+     * @throws IOException              if an error occurs while appending to the store.
+     * @author agent
+     */
+    public void addETickets(List<ETicket> pETickets) throws IOException {
+        if (pETickets == null || pETickets.isEmpty()) {
+            throw new IllegalArgumentException("ETicket list cannot be null or empty.");
+        }
+        List<ETicket> seated = new ArrayList<>(pETickets.size());
+        List<ETicket> assigned = new ArrayList<>(pETickets.size());
+        try {
+            for (ETicket eTicket : pETickets) {
+                if (claimSeat(getSeatMap(eTicket.getShow()), eTicket)) {
+                    assigned.add(eTicket);
+                }
+                seated.add(eTicket);
+            }
+            aStore.appendAll(pETickets.stream().map(ETicketManager::toRecord).toList());
+        } catch (IllegalStateException e) {
+            releaseSeats(seated, assigned);
+            throw new IllegalStateException(pETickets.size() == 1 ? e.getMessage()
+                    : "Not enough seats are left for " + pETickets.size() + " tickets: " + e.getMessage()
+                    + " No ticket was bought.", e);
+        } catch (IOException | RuntimeException e) {
+            releaseSeats(seated, assigned);
+            throw e;
+        }
+
+        recordSales(pETickets);
+    }
+
+    /**
+     * Records tickets whose seats are already claimed, by a {@link SeatHold}, as a single commit.
+     * The seats are left claimed if the tickets cannot be recorded; the caller releases them.
+     *
+     * @param pETickets the tickets to record, each with its claimed seat.
+     * @throws IllegalArgumentException if the list is null or empty, or a ticket has no claimed seat.
+     * @throws IOException              if an error occurs while appending to the store.
+     * @author agent
+     */
+    void addHeldETickets(List<ETicket> pETickets) throws IOException {
+        if (pETickets == null || pETickets.isEmpty()) {
+            throw new IllegalArgumentException("ETicket list cannot be null or empty.");
+        }
+        for (ETicket eTicket : pETickets) {
+            SeatMap seats = getSeatMap(eTicket.getShow());
+            int seat = eTicket.getSeatNumber();
+            if (seat < 0 || seat >= seats.getCapacity() || !seats.isTaken(seat)) {
+                throw new IllegalArgumentException("The seat of ticket " + eTicket.getETicketID() + " is not held.");
+            }
+        }
+        aStore.appendAll(pETickets.stream().map(ETicketManager::toRecord).toList());
+
+        recordSales(pETickets);
+    }
+
+    /**
+     * Releases the seats of tickets that could not be recorded, and takes back the seats
+     * given to those that had none, so they can be recorded again later.
+     *
+     * @param pETickets the tickets whose seats were claimed.
+     * @param pAssigned the tickets among them that were given their seat.
+     * @author agent
+     */
+    private void releaseSeats(List<ETicket> pETickets, List<ETicket> pAssigned) {
+        for (ETicket eTicket : pETickets) {
+            releaseSeat(eTicket.getShow(), eTicket.getSeatNumber());
+        }
+        for (ETicket eTicket : pAssigned) {
+            eTicket.setSeatNumber(-1);
+        }
+    }
+
+    /**
+     * Counts recorded tickets in the sales counters, saves the counters, and publishes each
+     * ticket on the {@link EventBus} for the open sales reports.
+     *
+     * @param pETickets the recorded tickets.
+     * @author agent
+     */
+    private void recordSales(List<ETicket> pETickets) {
+        WriteObjects.GroupedWrite write;
+        synchronized (this) {
+            SalesAggregates sold = new SalesAggregates();
+            for (ETicket eTicket : pETickets) {
+                sold.record(eTicket.getShowID(), eTicket.getShow().getMovieID(),
+                        eTicket.getPurchaseDateTime().toLocalDate());
+            }
+            aSales.add(sold);
+            long count = ++aLastSalesCount;
+            aUnsavedSales.put(count, sold);
+            write = salesWriter(count, sold);
+        }
+        awaitSalesWrite(write); // Outside the monitor, so concurrent purchases share the write
+
+        EventBus eventBus = EventBus.getInstance();
+        for (ETicket eTicket : pETickets) {
+            eventBus.publish(ETicket.class, EventBus.Change.added(eTicket));
+        }
+    }
+
+    /**
+     * Finds the highest ticket number of the store. Concurrent purchases may be stored out of order,
+     * so the last record does not always hold it.
+     *
+     * @return the highest ticket number, or 0 if the store is empty.
+     * @author agent
+     */
+    private long maxTicketNumber() {
+        long max = 0;
+        int count = aStore.size();
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, aStore.ticketNumberAt(i));
+        }
+        return max;
+    }
+
+    /**
+     * Claims the seat of a ticket, or any free seat of its show if it has none.
+     *
+     * @param pSeats   the seat map of the show of the ticket.
+     * @param pETicket the ticket.
+     * @return true if the ticket had no seat and was given one.
+     * @throws IllegalStateException if the show is sold out or the seat of the ticket is taken.
+     * @author agent
+     */
+    private static boolean claimSeat(SeatMap pSeats, ETicket pETicket) {
+        if (pETicket.getSeatNumber() >= 0) {
+            if (pETicket.getSeatNumber() >= pSeats.getCapacity() || !pSeats.claim(pETicket.getSeatNumber())) {
+                throw new IllegalStateException("This seat is no longer available. Please choose another one.");
+            }
+            return false;
+        }
+        int seat = pSeats.claimAny();
+        if (seat < 0) {
+            throw new IllegalStateException("This show is sold out.");
+        }
+        pETicket.setSeatNumber(seat);
+        return true;
+    }
+
+    /**
+     * Builds the seat map of a show from the tickets of the store.
+     * Tickets without a seat, sold before seats existed, take any free seat.
+     *
+     * @param pShow the show.
+     * @return the seat map of the show.
+     * @author agent
+     */
+    private SeatMap buildSeatMap(Show pShow) {
+        Screenroom screenroom = pShow.getScreenroom();
+        SeatMap seats = new SeatMap(screenroom != null ? screenroom.getCapacity()
+                : Screenroom.DEFAULT_ROWS * Screenroom.DEFAULT_SEATS_PER_ROW);
+        int unseated = 0;
+        for (int index : aStore.indexesOfShow(numberOf(IDSequences.SHOW, pShow.getShowID()))) {
+            int seat = aStore.seatNumberAt(index);
+            if (seat < 0 || seat >= seats.getCapacity() || !seats.claim(seat)) {
+                unseated++;
+            }
+        }
+        // Seated tickets first, so a legacy ticket never takes the seat of a seated one
+        for (int i = 0; i < unseated; i++) {
+            seats.claimAny();
+        }
+        return seats;
+    }
+
+    /**
+     * Claims, in the seat maps already built, the seats of the tickets recorded in the store since
+     * they were last claimed: those sold by the other copies of the application sharing the store.
+     * The seats of the tickets sold here are already claimed, and claiming them again does nothing.
+     *
+     * @author agent
+     */
+    private void claimSeatsSoldElsewhere() {
+        if (aStore.size() == aSeatedCount) {
+            return;
+        }
+        synchronized (aSeatMaps) {
+            int count = aStore.size();
+            for (int i = aSeatedCount; i < count; i++) {
+                String showID = idOf(IDSequences.SHOW, aStore.showNumberAt(i));
+                SeatMap seats = showID == null ? null : aSeatMaps.get(showID);
+                int seat = aStore.seatNumberAt(i);
+                if (seats != null && seat >= 0 && seat < seats.getCapacity()) {
+                    seats.claim(seat);
+                }
+            }
+            aSeatedCount = count;
+        }
+    }
+
+    /**
+     * Imports the tickets of the legacy ticket file into the record store, as a single commit.
+     *
+     * @throws UncheckedIOException     if the legacy tickets cannot be read or appended to the store.
+     * @throws IllegalArgumentException if a legacy ticket cannot be converted to a record.
+     * @author agent
+     */
+    private void importLegacyTickets() {
+        List<ETicket> tickets = legacyTicketsReader();
+        if (tickets.isEmpty()) {
+            return;
+        }
+
+        try {
+            aStore.appendAll(tickets.stream().map(ETicketManager::toRecord).toList());
+            System.out.println("Imported " + tickets.size() + " tickets into " + STORE_FILE);
+        } catch (IOException e) {
+            System.err.println("Error importing tickets: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error importing tickets: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the sales counters saved alongside the tickets.
+     *
+     * @return the saved counters, or null if there are none.
+     * @author agent
+     */
+    private SalesAggregates salesReader() {
+        if (!Files.exists(Paths.get(SALES_FILE))) {
+            return null;
+        }
+        try (Stream<SalesAggregates> sales = new ReadObjects(SALES_FILE).stream(SalesAggregates.class)) {
+            return sales.findFirst().orElse(null);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading sales counters, rebuilding them: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Submits tickets counted to be added to the saved sales counters, combined with the saves of
+     * concurrent purchases. They are added to the counters in the file as they are when it is
+     * written, which include the tickets sold by other copies of the application.
+     * Called under the manager's monitor, so the tickets are saved in the order they were counted.
+     *
+     * @param pCount the number of the count of the tickets.
+     * @param pSold  the counters of the tickets.
+     * @return the submitted save, to await once the monitor is released.
+     * @author agent
+     */
+    private WriteObjects.GroupedWrite salesWriter(long pCount, SalesAggregates pSold) {
+        return new WriteObjects(SALES_FILE).submitMerged(objects -> {
+            SalesAggregates sales = objects.stream()
+                    .filter(SalesAggregates.class::isInstance)
+                    .map(SalesAggregates.class::cast)
+                    .findFirst()
+                    .orElseGet(SalesAggregates::new);
+            sales.add(pSold);
+            return new ArrayList<>(List.of(sales));
+        }, objects -> salesSaved(pCount, (SalesAggregates) objects.getFirst()));
+    }
+
+    /**
+     * Replaces the sales counters with those saved, which include the tickets sold by other copies
+     * of the application, plus the tickets counted since.
+     *
+     * @param pCount the number of the last count of tickets saved.
+     * @param pSaved the counters saved.
+     * @author agent
+     */
+    private synchronized void salesSaved(long pCount, SalesAggregates pSaved) {
+        aUnsavedSales.headMap(pCount, true).clear();
+        SalesAggregates sales = new SalesAggregates(pSaved);
+        aUnsavedSales.values().forEach(sales::add);
+        aSales = sales;
+    }
+
+    /**
+     * Waits for a save of the sales counters.
+     * A failure is only reported: the counters are rebuilt from the tickets on the next startup.
+     *
+     * @param pWrite the submitted save.
+     * @author agent
+     */
+    private static void awaitSalesWrite(WriteObjects.GroupedWrite pWrite) {
+        try {
+            pWrite.await();
+        } catch (IOException e) {
+            System.err.println("Error saving sales counters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuilds the sales counters from every ticket record of the store.
+     *
+     * @return the rebuilt counters.
+     * @author agent
+     */
+    private SalesAggregates rebuildSales() {
+        SalesAggregates sales = new SalesAggregates();
+        CatalogManager catalog = CatalogManager.getInstance();
+        int count = aStore.size();
+        for (int i = 0; i < count; i++) {
+            TicketRecord record = aStore.get(i);
+            String showID = idOf(IDSequences.SHOW, record.showNumber());
+            Show show = catalog.getShow(showID);
+            sales.record(showID, show != null ? show.getMovieID() : null,
+                    LocalDateTime.ofEpochSecond(record.purchaseEpochSecond(), 0, ZoneOffset.UTC).toLocalDate());
+        }
+        System.out.println("Rebuilt sales counters from " + count + " tickets.");
+        return sales;
+    }
+
+    /**
+     * Reads the tickets saved in the legacy ticket file, if any.
+     *
+     * @return a list of tickets read from the legacy file.
+     * @throws UncheckedIOException if the legacy file cannot be read.
+     * @author agent
+     */
+    private List<ETicket> legacyTicketsReader() {
+        if (!Files.exists(Paths.get(TICKETS_FILE))) {
+            return Collections.emptyList();
+        }
+        try (Stream<ETicket> tickets = new ReadObjects(TICKETS_FILE).stream(ETicket.class)) {
+            return tickets.toList();
+        } catch (IOException e) {
+            System.err.println("Error reading tickets: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        } catch (UncheckedIOException e) {
+            System.err.println("Error reading tickets: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Converts a ticket to its binary record.
+     *
+     * @param pETicket the ticket to convert.
+     * @return the record of the ticket.
+     * @throws IllegalArgumentException if the ticket ID is not numeric, or the show or client ID is malformed.
+     * @author agent
+     */
+    private static TicketRecord toRecord(ETicket pETicket) {
+        return new TicketRecord(Long.parseLong(pETicket.getETicketID()),
+                numberOf(IDSequences.SHOW, pETicket.getShowID()),
+                numberOf(IDSequences.CLIENT, pETicket.getClientID()),
+                pETicket.getPurchaseDateTime().toEpochSecond(ZoneOffset.UTC),
+                pETicket.getSeatNumber());
+    }
+
+    /**
+     * Converts a binary record back to a ticket.
+     *
+     * @param pRecord the record to convert.
+     * @return the ticket of the record.
+     * @author agent
+     */
+    private static ETicket toETicket(TicketRecord pRecord) {
+        return new ETicket(String.valueOf(pRecord.ticketNumber()),
+                idOf(IDSequences.SHOW, pRecord.showNumber()),
+                idOf(IDSequences.CLIENT, pRecord.clientNumber()),
+                LocalDateTime.ofEpochSecond(pRecord.purchaseEpochSecond(), 0, ZoneOffset.UTC),
+                pRecord.seatNumber());
+    }
+
+    /**
+     * Extracts the number of an ID such as {@code "S12"}.
+     *
+     * @param pPrefix the prefix of the ID.
+     * @param pID     the ID, or null if unknown.
+     * @return the number of the ID, or 0 if the ID is null.
+     * @throws IllegalArgumentException if the ID does not have the prefix followed by a positive number.
+     * @author agent
+     */
+    private static int numberOf(String pPrefix, String pID) {
+        if (pID == null) {
+            return 0;
+        }
+        try {
+            if (pID.startsWith(pPrefix)) {
+                int number = Integer.parseInt(pID.substring(pPrefix.length()));
+                if (number > 0) {
+                    return number;
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Malformed ID: " + pID + " (expected " + pPrefix + " followed by a positive number)");
+    }
+
+    /**
+     * Builds an ID such as {@code "S12"} from its number.
+     *
+     * @param pPrefix the prefix of the ID.
+     * @param pNumber the number of the ID, or 0 if unknown.
+     * @return the ID, or null if the number is 0.
+     * @throws IllegalArgumentException if the number is negative.
+     * @author agent
+     */
+    private static String idOf(String pPrefix, int pNumber) {
+        if (pNumber < 0) {
+            throw new IllegalArgumentException("Malformed " + pPrefix + " number: " + pNumber);
+        }
+        return pNumber == 0 ? null : pPrefix + pNumber;
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import com.example.integrationprojectsdoop2.Helpers.FileLocks;
+import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
+import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Generates the IDs of movies, shows, showtimes, screenrooms, clients and managers.
+ * Each kind of object has its own sequence, identified by the prefix of its IDs, such as
+ * {@code "MOV"} for {@code MOV12}.
+ * <p>
+ * IDs are leased from {@code sequences.ser} in blocks, like the ticket IDs of the
+ * {@link ETicketIDAllocator}: the file holds the first value not leased of every sequence, and
+ * is only read and written, under its exclusive {@link FileLocks} lock, when a block runs out.
+ * IDs therefore do not depend on which objects have been loaded, nor in what order, an ID is
+ * never given again, even after its object is deleted or by another copy of the application
+ * sharing the file, and the IDs left in a block when the application stops are skipped.
+ * A sequence missing from the file starts after the highest ID of the objects of its kind.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * String movieID = IDSequences.getInstance().nextID(IDSequences.MOVIE);
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class IDSequences {
+
+    /** The file holding the next value of each sequence. */
+    public static final String SEQUENCES_FILE = "sequences.ser";
+
+    /** Prefix of movie IDs. */
+    public static final String MOVIE = "MOV";
+
+    /** Prefix of show IDs. */
+    public static final String SHOW = "S";
+
+    /** Prefix of showtime IDs. */
+    public static final String SHOWTIME = "T";
+
+    /** Prefix of screenroom IDs. */
+    public static final String SCREENROOM = "R";
+
+    /** Prefix of client IDs. */
+    public static final String CLIENT = "C";
+
+    /** Prefix of manager IDs. */
+    public static final String MANAGER = "M";
+
+    /** Number of IDs of a sequence leased at once. */
+    private static final int BLOCK_SIZE = 32;
+
+    /**
+     * A block of leased values of a sequence.
+     *
+     * @param next the next value to hand out.
+     * @param end  the first value past the block.
+     */
+    private record Lease(AtomicLong next, long end) {
+    }
+
+    /** The single instance of IDSequences. */
+    private static IDSequences aInstance;
+
+    /** The block each sequence takes its values from, by prefix; missing until its first ID. */
+    private final Map<String, Lease> aLeases = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     *
+     * @author agent
+     */
+    private IDSequences() {
+    }
+
+    /**
+     * Returns the single instance of {@code IDSequences}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code IDSequences}.
+     * @author agent
+     */
+    public static synchronized IDSequences getInstance() {
+        if (aInstance == null) {
+            aInstance = new IDSequences();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Generates the next ID of a sequence, from the block leased for it, leasing a new block
+     * when it runs out.
+     *
+     * @param pPrefix the prefix of the IDs of the sequence, such as {@link #MOVIE}.
+     * @return the generated ID, such as {@code "MOV12"}.
+     * @throws IllegalArgumentException if the prefix is not one of the prefixes of this class.
+     * @throws UncheckedIOException     if a new block cannot be leased: the sequences file
+     *                                  cannot be locked, read or written.
+     * @author agent
+     */
+    public String nextID(String pPrefix) {
+        while (true) {
+            Lease lease = aLeases.get(pPrefix);
+            if (lease != null) {
+                long next = lease.next().getAndIncrement();
+                if (next < lease.end()) {
+                    return pPrefix + next;
+                }
+            }
+            renew(pPrefix, lease);
+        }
+    }
+
+    /**
+     * Leases the next block of a sequence, unless another thread already replaced the exhausted
+     * lease. The block starts at the value saved in the file, which the other copies of the
+     * application sharing it advance as they lease, and its end is saved before it is handed out.
+     *
+     * @param pPrefix    the prefix of the IDs of the sequence.
+     * @param pExhausted the lease found exhausted, or null if the sequence has none yet.
+     * @throws IllegalArgumentException if the prefix is unknown.
+     * @throws UncheckedIOException     if the sequences file cannot be locked, read or written.
+     * @author agent
+     */
+    private synchronized void renew(String pPrefix, Lease pExhausted) {
+        if (aLeases.get(pPrefix) != pExhausted) {
+            return;
+        }
+        try (FileLocks.Lock _ = FileLocks.exclusive(SEQUENCES_FILE)) {
+            Map<String, Long> sequences = sequencesReader();
+            long start = pExhausted != null ? pExhausted.end() : 1;
+            Long saved = sequences.get(pPrefix);
+            start = Math.max(start, saved != null ? saved : seed(pPrefix));
+            long end = start + BLOCK_SIZE;
+
+            sequences.put(pPrefix, end);
+            new WriteObjects(SEQUENCES_FILE).write(List.of(new HashMap<>(sequences)));
+            aLeases.put(pPrefix, new Lease(new AtomicLong(start), end));
+        } catch (IOException e) {
+            System.err.println("Error leasing " + pPrefix + " IDs: " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finds where a sequence missing from the file starts: after the highest ID of its objects.
+     *
+     * @param pPrefix the prefix of the IDs of the sequence.
+     * @return the first value of the sequence.
+     * @throws IllegalArgumentException if the prefix is unknown.
+     * @author agent
+     */
+    private static long seed(String pPrefix) {
+        CatalogManager catalog = CatalogManager.getInstance();
+        Stream<String> ids = switch (pPrefix) {
+            case MOVIE -> catalog.getMovies().stream().map(Movie::getMovie_ID);
+            case SHOW -> catalog.getShows().stream().map(Show::getShowID);
+            case SHOWTIME -> catalog.getShowtimes().stream().map(Showtime::getShowtimeID);
+            case SCREENROOM -> catalog.getScreenrooms().stream().map(Screenroom::getScreenroom_ID);
+            case CLIENT -> UserManager.getInstance().getClientIDs().stream();
+            case MANAGER -> UserManager.getInstance().getManagerIDs().stream();
+            default -> throw new IllegalArgumentException("Unknown ID prefix: " + pPrefix);
+        };
+        return ids.mapToLong(id -> numberOf(pPrefix, id)).max().orElse(0) + 1;
+    }
+
+    /**
+     * Extracts the number of an ID such as {@code "MOV12"}.
+     *
+     * @param pPrefix the prefix of the ID.
+     * @param pID     the ID, possibly null.
+     * @return the number of the ID, or 0 if the ID is null or malformed.
+     * @author agent
+     */
+    private static long numberOf(String pPrefix, String pID) {
+        if (pID == null || !pID.startsWith(pPrefix)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(pID.substring(pPrefix.length()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid ID format: " + pID);
+            return 0;
+        }
+    }
+
+    /**
+     * Reads the saved sequences. Called under the exclusive lock of the file.
+     *
+     * @return the first value not leased of each saved sequence, by prefix, empty if there is no file.
+     * @throws IOException if the file exists but cannot be read, so IDs are never given twice.
+     * @author agent
+     */
+    private static Map<String, Long> sequencesReader() throws IOException {
+        Map<String, Long> sequences = new HashMap<>();
+        if (!Files.exists(Paths.get(SEQUENCES_FILE))) {
+            return sequences; // No ID leased yet: every sequence starts after the existing IDs
+        }
+        try (Stream<Map<?, ?>> saved = new ReadObjects(SEQUENCES_FILE).stream(Map.class).map(map -> (Map<?, ?>) map)) {
+            saved.findFirst().ifPresent(map -> map.forEach((prefix, next) -> {
+                if (prefix instanceof String p && next instanceof Long n) {
+                    sequences.put(p, n);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return sequences;
+    }
+}
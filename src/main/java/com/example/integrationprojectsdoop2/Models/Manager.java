@@ -2,13 +2,13 @@ package com.example.integrationprojectsdoop2.Models;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.List;
 
 /**
  * Represents a Manager, which is a type of {@link User}.
  * Inherits all properties and behaviors of the {@link User} class.
  * Implements {@link Serializable} for object serialization.
  * Each Manager is assigned a unique manager ID upon creation.
+ * Managers are serialized in the compact {@link UserRecord} form, which holds only the manager's own fields.
  * The class is part of a user management system for the application.
  *
  * @author Samuel Mireault
@@ -20,12 +20,6 @@ public class Manager extends User {
     @Serial
     private static final long serialVersionUID = 1824568323534453788L;
 
-    /** List of all managers managed by the {@link UserManager}. */
-    private final List<User> aManagersList = UserManager.getInstance().getManagerList();
-
-    /** Counter for generating unique Manager IDs. */
-    private int aManagerIDCounter = lastIncrement();
-
     /** Unique ID for each Manager. */
     private final String aManagerID;
 
@@ -44,14 +38,28 @@ public class Manager extends User {
     }
 
     /**
-     * Generates a unique Manager ID by incrementing the ID counter.
+     * Restores a manager from its compact serialized form.
+     *
+     * @param pManagerID     the unique Manager ID.
+     * @param pUser_Name     the name of the user.
+     * @param pUser_Email    the email address of the user.
+     * @param pUser_Password the password of the user.
+     * @author agent
+     */
+    Manager(String pManagerID, String pUser_Name, String pUser_Email, String pUser_Password) {
+        super(pUser_Name, pUser_Email, pUser_Password);
+        this.aManagerID = pManagerID;
+    }
+
+    /**
+     * Generates a unique Manager ID from the manager sequence of the {@link IDSequences}.
      * The format of the ID is "M<number>", where the number is generated sequentially.
      *
      * @return the generated Manager ID.
      * @author Samuel Mireault
      */
-    private synchronized String generateManagerID() {
-        return "M" + aManagerIDCounter++;
+    private static String generateManagerID() {
+        return IDSequences.getInstance().nextID(IDSequences.MANAGER);
     }
 
     /**
@@ -65,19 +73,13 @@ public class Manager extends User {
     }
 
     /**
-     * Determines the last increment value for generating unique Manager IDs.
-     * If the manager's list is empty or uninitialized, the increment starts at 1.
+     * Replaces the manager with its compact {@link UserRecord} form when serialized.
      *
-     * @return the next increment value for generating unique Manager IDs.
-     * @throws ClassCastException if the list contains objects that are not of type {@link Manager}.
-     * @author Samuel Mireault
+     * @return the compact serialized form of the manager.
+     * @author agent
      */
-    private int lastIncrement() {
-        if (this.aManagersList == null || this.aManagersList.isEmpty()) {
-            return 1;  // Start at 1 if the list is empty or uninitialized
-        }
-        Client lastClient = (Client) this.aManagersList.getLast();  // Get the last client
-        int lastIncrement = Integer.parseInt(lastClient.getClientID().substring(1));
-        return lastIncrement + 1;
+    @Serial
+    private Object writeReplace() {
+        return UserRecord.of(this);
     }
 }
@@ -2,7 +2,6 @@ package com.example.integrationprojectsdoop2.Models;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.List;
 
 /**
  * Represents a Movie with attributes such as ID, title, genre, and synopsis.
@@ -23,9 +22,6 @@ public class Movie implements Serializable, ShowComponent {
     @Serial
     private static final long serialVersionUID = 69L;
 
-    /** Counter for generating unique Movie IDs. */
-    private static int aMovieIDCounter = 1;
-
     /** Unique ID for each Movie. */
     private final String aMovie_ID;
 
@@ -38,6 +34,12 @@ public class Movie implements Serializable, ShowComponent {
     /** Synopsis of the Movie. */
     private String aMovie_Synopsis;
 
+    /** The number of saves of this Movie, compared on each save to reject edits of an older version. */
+    private long aVersion;
+
+    /** Whether this Movie is the one shared by the {@link CatalogManager}, which cannot be edited. */
+    private transient boolean aShared;
+
     /**
      * Default constructor for the Movie class.
      * Automatically generates a unique Movie ID.
@@ -67,13 +69,13 @@ public class Movie implements Serializable, ShowComponent {
     }
 
     /**
-     * Generates a unique Movie ID by incrementing the counter.
+     * Generates a unique Movie ID from the movie sequence of the {@link IDSequences}.
      *
      * @return the generated Movie ID in the format "MOV<number>".
      * @author Jarvy Lazan
      */
-    private synchronized static String generateMovieID() {
-        return "MOV" + aMovieIDCounter++;
+    private static String generateMovieID() {
+        return IDSequences.getInstance().nextID(IDSequences.MOVIE);
     }
 
     /**
@@ -86,6 +88,49 @@ public class Movie implements Serializable, ShowComponent {
         return this.aMovie_ID;
     }
 
+    /**
+     * Retrieves the version of the Movie: the number of times it was saved.
+     *
+     * @return the version, 0 if the Movie was never saved.
+     * @author agent
+     */
+    @Override
+    public long getVersion() {
+        return this.aVersion;
+    }
+
+    /**
+     * Sets the version of the Movie, when the {@link CatalogManager} saves it.
+     *
+     * @param pVersion the new version.
+     * @author agent
+     */
+    void setVersion(long pVersion) {
+        this.aVersion = pVersion;
+    }
+
+    /**
+     * Marks this Movie as the one shared by the {@link CatalogManager}, after which its setters throw:
+     * edits are made to a copy from {@link CatalogManager#editableCopy}, which is not shared.
+     *
+     * @author agent
+     */
+    void share() {
+        this.aShared = true;
+    }
+
+    /**
+     * Checks that this Movie can be edited.
+     *
+     * @throws IllegalStateException if it is the one shared by the {@link CatalogManager}.
+     * @author agent
+     */
+    private void checkEditable() {
+        if (aShared) {
+            throw new IllegalStateException("Movie " + getDisplayName() + " is shared and cannot be edited; edit a copy instead.");
+        }
+    }
+
     /**
      * Gets the title of the movie.
      *
@@ -101,9 +146,11 @@ public class Movie implements Serializable, ShowComponent {
      *
      * @param pMovie_Title the title of the movie.
      * @throws IllegalArgumentException if the title is null or empty.
+     * @throws IllegalStateException if the Movie is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setMovie_Title(String pMovie_Title) {
+        checkEditable();
         if (pMovie_Title == null || pMovie_Title.trim().isEmpty()) {
             throw new IllegalArgumentException("Movie Title cannot be null or empty.");
         }
@@ -125,9 +172,11 @@ public class Movie implements Serializable, ShowComponent {
      *
      * @param pMovie_Genre the genre of the movie.
      * @throws IllegalArgumentException if the genre is null or empty.
+     * @throws IllegalStateException if the Movie is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setMovie_Genre(String pMovie_Genre) {
+        checkEditable();
         if (pMovie_Genre == null || pMovie_Genre.trim().isEmpty()) {
             throw new IllegalArgumentException("Movie Genre cannot be null or empty.");
         }
@@ -149,9 +198,11 @@ public class Movie implements Serializable, ShowComponent {
      *
      * @param pMovie_Synopsis the synopsis of the movie.
      * @throws IllegalArgumentException if the synopsis is null or empty.
+     * @throws IllegalStateException if the Movie is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setMovie_Synopsis(String pMovie_Synopsis) {
+        checkEditable();
         if (pMovie_Synopsis == null || pMovie_Synopsis.trim().isEmpty()) {
             throw new IllegalArgumentException("Movie Synopsis cannot be null or empty.");
         }
@@ -182,45 +233,4 @@ public class Movie implements Serializable, ShowComponent {
                 "\nGenre:\t" + aMovie_Genre +
                 "\nSynopsis:\t" + aMovie_Synopsis;
     }
-
-    /**
-     * Resets the Movie ID counter based on existing movies.
-     * Sets the counter to the highest existing ID + 1.
-     *
-     * @param pExistingMovies the list of existing movies.
-     * @author Jarvy Lazan
-     */
-    public static void resetMovieIDCounter(List<Movie> pExistingMovies) {
-        if (pExistingMovies != null && !pExistingMovies.isEmpty()) {
-            aMovieIDCounter = pExistingMovies.stream()
-                    .mapToInt(movie -> Integer.parseInt(movie.getMovie_ID().substring(3)))
-                    .max().orElse(0) + 1; // Find the max ID and set counter to max + 1
-        }
-    }
-
-    /**
-     * Ensures the Movie ID counter is updated after deserialization.
-     *
-     * @return the current instance of {@code Movie}.
-     * @author Jarvy Lazan
-     */
-    @Serial
-    private Object readResolve() {
-        updateMovieIDCounter(); // Ensure the ID counter is correct after deserialization
-        return this;
-    }
-
-    /**
-     * Updates the Movie ID counter based on the current movie's ID.
-     * Ensures the counter is at least one higher than the current movie's ID.
-     *
-     * @throws NumberFormatException if the Movie ID is improperly formatted.
-     * @author Jarvy Lazan
-     */
-    private void updateMovieIDCounter() {
-        int currentID = Integer.parseInt(this.aMovie_ID.substring(3));
-        if (currentID >= aMovieIDCounter) { // Only update if the current ID is greater than the counter
-            aMovieIDCounter = currentID + 1;
-        }
-    }
 }
@@ -0,0 +1,145 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Ticket sales counters, maintained by the {@link ETicketManager} as each ticket is sold.
+ * Counts the tickets sold per show, per movie and per purchase day, so reports read
+ * these counters instead of going over every ticket.
+ *
+ * <p>The counters are saved in {@code sales.ser} alongside the tickets. They also record
+ * how many tickets they cover, which lets the manager detect counters left behind by a
+ * crash and rebuild them from the tickets.</p>
+ *
+ * @author agent
+ */
+public class SalesAggregates implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** The number of tickets counted. */
+    private int aTicketCount;
+
+    /** The number of tickets sold, by show ID. */
+    private final Map<String, Integer> aTicketsByShow;
+
+    /** The number of tickets sold, by movie ID. */
+    private final Map<String, Integer> aTicketsByMovie;
+
+    /** The number of tickets sold, by purchase day. */
+    private final Map<LocalDate, Integer> aTicketsByDay;
+
+    /**
+     * Constructs empty counters.
+     *
+     * @author agent
+     */
+    SalesAggregates() {
+        this.aTicketsByShow = new HashMap<>();
+        this.aTicketsByMovie = new HashMap<>();
+        this.aTicketsByDay = new TreeMap<>();
+    }
+
+    /**
+     * Constructs a copy of the given counters.
+     *
+     * @param pOther the counters to copy.
+     * @author agent
+     */
+    SalesAggregates(SalesAggregates pOther) {
+        this.aTicketCount = pOther.aTicketCount;
+        this.aTicketsByShow = new HashMap<>(pOther.aTicketsByShow);
+        this.aTicketsByMovie = new HashMap<>(pOther.aTicketsByMovie);
+        this.aTicketsByDay = new TreeMap<>(pOther.aTicketsByDay);
+    }
+
+    /**
+     * Counts one more ticket.
+     *
+     * @param pShowID     the ID of the show of the ticket, or null if unknown.
+     * @param pMovieID    the ID of the movie of the show, or null if unknown.
+     * @param pPurchaseDay the day the ticket was purchased.
+     * @author agent
+     */
+    void record(String pShowID, String pMovieID, LocalDate pPurchaseDay) {
+        aTicketCount++;
+        if (pShowID != null) {
+            aTicketsByShow.merge(pShowID, 1, Integer::sum);
+        }
+        if (pMovieID != null) {
+            aTicketsByMovie.merge(pMovieID, 1, Integer::sum);
+        }
+        aTicketsByDay.merge(pPurchaseDay, 1, Integer::sum);
+    }
+
+    /**
+     * Counts the tickets of other counters too.
+     *
+     * @param pOther the counters to add.
+     * @author agent
+     */
+    void add(SalesAggregates pOther) {
+        aTicketCount += pOther.aTicketCount;
+        pOther.aTicketsByShow.forEach((showID, tickets) -> aTicketsByShow.merge(showID, tickets, Integer::sum));
+        pOther.aTicketsByMovie.forEach((movieID, tickets) -> aTicketsByMovie.merge(movieID, tickets, Integer::sum));
+        pOther.aTicketsByDay.forEach((day, tickets) -> aTicketsByDay.merge(day, tickets, Integer::sum));
+    }
+
+    /**
+     * Retrieves the number of tickets counted.
+     *
+     * @return the number of tickets.
+     * @author agent
+     */
+    public int getTicketCount() {
+        return aTicketCount;
+    }
+
+    /**
+     * Retrieves the number of tickets sold for a show.
+     *
+     * @param pShowID the ID of the show.
+     * @return the number of tickets sold for the show.
+     * @author agent
+     */
+    public int getTicketsSoldForShow(String pShowID) {
+        return aTicketsByShow.getOrDefault(pShowID, 0);
+    }
+
+    /**
+     * Retrieves the number of tickets sold, by show ID.
+     *
+     * @return an unmodifiable view of the counters per show.
+     * @author agent
+     */
+    public Map<String, Integer> getTicketsByShow() {
+        return Collections.unmodifiableMap(aTicketsByShow);
+    }
+
+    /**
+     * Retrieves the number of tickets sold, by movie ID.
+     *
+     * @return an unmodifiable view of the counters per movie.
+     * @author agent
+     */
+    public Map<String, Integer> getTicketsByMovie() {
+        return Collections.unmodifiableMap(aTicketsByMovie);
+    }
+
+    /**
+     * Retrieves the number of tickets sold, by purchase day in chronological order.
+     *
+     * @return an unmodifiable view of the counters per day.
+     * @author agent
+     */
+    public Map<LocalDate, Integer> getTicketsByDay() {
+        return Collections.unmodifiableMap(aTicketsByDay);
+    }
+}
@@ -2,10 +2,11 @@ package com.example.integrationprojectsdoop2.Models;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.List;
 
 /**
- * Represents a Screenroom with attributes such as ID and name.
+ * Represents a Screenroom with attributes such as ID, name and seat layout.
+ * The seats are laid out in rows of equal length; the capacity of the room bounds
+ * the tickets sold for each of its shows.
  * Implements {@link Serializable} for object serialization.
  * Each Screenroom is assigned a unique Screenroom ID.
  * Provides validation for input values to ensure data integrity.
@@ -21,8 +22,17 @@ public class Screenroom implements Serializable, ShowComponent {
     @Serial
     private static final long serialVersionUID = 34L;
 
-    /** Counter for generating unique Screenroom IDs. */
-    private static int aScreenroomIDCounter = 1;
+    /** Number of rows of a screenroom saved before seat layouts existed. */
+    public static final int DEFAULT_ROWS = 10;
+
+    /** Number of seats per row of a screenroom saved before seat layouts existed. */
+    public static final int DEFAULT_SEATS_PER_ROW = 12;
+
+    /** Maximum number of rows, so every row can be labelled with a letter. */
+    public static final int MAX_ROWS = 26;
+
+    /** Maximum number of seats per row. */
+    public static final int MAX_SEATS_PER_ROW = 50;
 
     /** Unique ID for each Screenroom. */
     private final String aScreenroom_ID;
@@ -30,6 +40,18 @@ public class Screenroom implements Serializable, ShowComponent {
     /** Name of the Screenroom. */
     private String aScreenroom_Name;
 
+    /** Number of rows of seats, or 0 if the screenroom was saved without a seat layout. */
+    private int aRows;
+
+    /** Number of seats in each row, or 0 if the screenroom was saved without a seat layout. */
+    private int aSeatsPerRow;
+
+    /** The number of saves of this Screenroom, compared on each save to reject edits of an older version. */
+    private long aVersion;
+
+    /** Whether this Screenroom is the one shared by the {@link CatalogManager}, which cannot be edited. */
+    private transient boolean aShared;
+
     /**
      * Default constructor for the Screenroom class.
      * Automatically generates a unique Screenroom ID.
@@ -39,6 +61,8 @@ public class Screenroom implements Serializable, ShowComponent {
      */
     public Screenroom() {
         this.aScreenroom_ID = generateScreenroomID();
+        this.aRows = DEFAULT_ROWS;
+        this.aSeatsPerRow = DEFAULT_SEATS_PER_ROW;
     }
 
     /**
@@ -50,18 +74,18 @@ public class Screenroom implements Serializable, ShowComponent {
      * @author Jarvy Lazan
      */
     public Screenroom(String pScreenroom_Name) {
-        this.aScreenroom_ID = generateScreenroomID();
+        this();
         this.setScreenroom_Name(pScreenroom_Name);
     }
 
     /**
-     * Generates a unique Screenroom ID by incrementing the counter.
+     * Generates a unique Screenroom ID from the screenroom sequence of the {@link IDSequences}.
      *
      * @return the generated Screenroom ID in the format "R<number>".
      * @author Jarvy Lazan
      */
-    private static synchronized String generateScreenroomID() {
-        return "R" + aScreenroomIDCounter++;
+    private static String generateScreenroomID() {
+        return IDSequences.getInstance().nextID(IDSequences.SCREENROOM);
     }
 
     /**
@@ -74,6 +98,49 @@ public class Screenroom implements Serializable, ShowComponent {
         return this.aScreenroom_ID;
     }
 
+    /**
+     * Retrieves the version of the Screenroom: the number of times it was saved.
+     *
+     * @return the version, 0 if the Screenroom was never saved.
+     * @author agent
+     */
+    @Override
+    public long getVersion() {
+        return this.aVersion;
+    }
+
+    /**
+     * Sets the version of the Screenroom, when the {@link CatalogManager} saves it.
+     *
+     * @param pVersion the new version.
+     * @author agent
+     */
+    void setVersion(long pVersion) {
+        this.aVersion = pVersion;
+    }
+
+    /**
+     * Marks this Screenroom as the one shared by the {@link CatalogManager}, after which its setters throw:
+     * edits are made to a copy from {@link CatalogManager#editableCopy}, which is not shared.
+     *
+     * @author agent
+     */
+    void share() {
+        this.aShared = true;
+    }
+
+    /**
+     * Checks that this Screenroom can be edited.
+     *
+     * @throws IllegalStateException if it is the one shared by the {@link CatalogManager}.
+     * @author agent
+     */
+    private void checkEditable() {
+        if (aShared) {
+            throw new IllegalStateException("Screenroom " + getDisplayName() + " is shared and cannot be edited; edit a copy instead.");
+        }
+    }
+
     /**
      * Gets the name of the Screenroom.
      *
@@ -90,9 +157,11 @@ public class Screenroom implements Serializable, ShowComponent {
      *
      * @param pScreenroom_Name the name of the screenroom to set.
      * @throws IllegalArgumentException if the name is null or empty.
+     * @throws IllegalStateException if the Screenroom is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setScreenroom_Name(String pScreenroom_Name) {
+        checkEditable();
         if (pScreenroom_Name == null || pScreenroom_Name.trim().isEmpty()) {
             throw new IllegalArgumentException("Screenroom Name cannot be null or empty.");
         }
@@ -100,67 +169,91 @@ public class Screenroom implements Serializable, ShowComponent {
     }
 
     /**
-     * Provides the display name of the Screenroom.
-     * Implements the {@link ShowComponent#getDisplayName()} method.
+     * Gets the number of rows of seats.
      *
-     * @return the name of the Screenroom as the display name.
-     * @author Jarvy Lazan
+     * @return the number of rows.
+     * @author agent
      */
-    @Override
-    public String getDisplayName() {
-        return aScreenroom_Name;
+    public int getRows() {
+        return this.aRows > 0 ? this.aRows : DEFAULT_ROWS;
     }
 
     /**
-     * Returns a string representation of the Screenroom object.
+     * Gets the number of seats in each row.
      *
-     * @return a string containing the Screenroom name.
-     * @author Jarvy Lazan
+     * @return the number of seats per row.
+     * @author agent
      */
-    @Override
-    public String toString() {
-        return "Screenroom: " + aScreenroom_Name;
+    public int getSeatsPerRow() {
+        return this.aSeatsPerRow > 0 ? this.aSeatsPerRow : DEFAULT_SEATS_PER_ROW;
     }
 
     /**
-     * Resets the Screenroom ID counter based on the highest existing ID.
-     * Ensures the counter starts from the next ID after the highest existing ID.
+     * Sets the seat layout of the Screenroom.
      *
-     * @param pExistingScreenrooms a list of existing Screenroom objects.
-     * @author Jarvy Lazan
+     * @param pRows        the number of rows, from 1 to {@link #MAX_ROWS}.
+     * @param pSeatsPerRow the number of seats in each row, from 1 to {@link #MAX_SEATS_PER_ROW}.
+     * @throws IllegalArgumentException if either number is out of range.
+     * @throws IllegalStateException if the Screenroom is the one shared by the {@link CatalogManager}.
+     * @author agent
+     */
+    public void setSeatLayout(int pRows, int pSeatsPerRow) {
+        checkEditable();
+        if (pRows < 1 || pRows > MAX_ROWS) {
+            throw new IllegalArgumentException("A screenroom must have between 1 and " + MAX_ROWS + " rows.");
+        }
+        if (pSeatsPerRow < 1 || pSeatsPerRow > MAX_SEATS_PER_ROW) {
+            throw new IllegalArgumentException("A row must have between 1 and " + MAX_SEATS_PER_ROW + " seats.");
+        }
+        this.aRows = pRows;
+        this.aSeatsPerRow = pSeatsPerRow;
+    }
+
+    /**
+     * Gets the number of seats of the Screenroom.
+     *
+     * @return the capacity of the screenroom.
+     * @author agent
      */
-    public static void resetScreenroomIDCounter(List<Screenroom> pExistingScreenrooms) {
-        if (pExistingScreenrooms != null && !pExistingScreenrooms.isEmpty()) {
-            aScreenroomIDCounter = pExistingScreenrooms.stream()
-                    .mapToInt(screenroom -> Integer.parseInt(screenroom.getScreenroom_ID().substring(1)))
-                    .max().orElse(0) + 1; // Find the max ID and set counter to max + 1
+    public int getCapacity() {
+        return getRows() * getSeatsPerRow();
+    }
+
+    /**
+     * Gets the label of a seat, such as {@code "C7"} for the seventh seat of the third row.
+     *
+     * @param pSeatNumber the number of the seat, from 0 to the capacity minus one, row by row.
+     * @return the label of the seat.
+     * @throws IllegalArgumentException if there is no such seat.
+     * @author agent
+     */
+    public String getSeatLabel(int pSeatNumber) {
+        if (pSeatNumber < 0 || pSeatNumber >= getCapacity()) {
+            throw new IllegalArgumentException("No seat " + pSeatNumber + " in " + aScreenroom_Name + ".");
         }
+        return (char) ('A' + pSeatNumber / getSeatsPerRow()) + String.valueOf(pSeatNumber % getSeatsPerRow() + 1);
     }
 
     /**
-     * Ensures the Screenroom ID counter is correct after deserialization.
-     * Updates the ID counter to reflect the highest existing ID.
+     * Provides the display name of the Screenroom.
+     * Implements the {@link ShowComponent#getDisplayName()} method.
      *
-     * @return the deserialized object.
+     * @return the name of the Screenroom as the display name.
      * @author Jarvy Lazan
      */
-    @Serial
-    private Object readResolve() {
-        updateScreenroomIDCounter();
-        return this;
+    @Override
+    public String getDisplayName() {
+        return aScreenroom_Name;
     }
 
     /**
-     * Updates the Screenroom ID counter based on the current instance ID.
-     * Ensures the counter is at least one higher than the current Screenroom's ID.
+     * Returns a string representation of the Screenroom object.
      *
-     * @throws NumberFormatException if the Screenroom ID is improperly formatted.
+     * @return a string containing the Screenroom name and capacity.
      * @author Jarvy Lazan
      */
-    private void updateScreenroomIDCounter() {
-        int currentID = Integer.parseInt(this.aScreenroom_ID.substring(1));
-        if (currentID >= aScreenroomIDCounter) { // Only update if the current ID is greater than the counter
-            aScreenroomIDCounter = currentID + 1;
-        }
+    @Override
+    public String toString() {
+        return "Screenroom: " + aScreenroom_Name + " (" + getRows() + " rows of " + getSeatsPerRow() + " seats)";
     }
 }
@@ -0,0 +1,132 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import com.example.integrationprojectsdoop2.Helpers.TimingWheel;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Seats of a show held for a client while they decide, given back to the show if the client
+ * neither buys them nor releases them before the hold expires.
+ * Holds are placed, confirmed and released by the {@link SeatHoldManager}.
+ *
+ * @author agent
+ */
+public final class SeatHold {
+
+    /** The ID of the hold, unique while the application runs. */
+    private final long aHoldID;
+
+    /** The show of the held seats. */
+    private final Show aShow;
+
+    /** The client the seats are held for. */
+    private final Client aClient;
+
+    /** The numbers of the held seats. */
+    private final int[] aSeats;
+
+    /** When the hold expires. */
+    private final LocalDateTime aExpiresAt;
+
+    /** The expiry of the hold on the timing wheel, set once the hold is scheduled. */
+    private volatile TimingWheel.Timeout aExpiry;
+
+    /**
+     * Creates a hold on seats already claimed for the client.
+     *
+     * @param pHoldID    the ID of the hold.
+     * @param pShow      the show of the seats.
+     * @param pClient    the client the seats are held for.
+     * @param pSeats     the numbers of the seats.
+     * @param pExpiresAt when the hold expires.
+     * @author agent
+     */
+    SeatHold(long pHoldID, Show pShow, Client pClient, int[] pSeats, LocalDateTime pExpiresAt) {
+        this.aHoldID = pHoldID;
+        this.aShow = pShow;
+        this.aClient = pClient;
+        this.aSeats = pSeats;
+        this.aExpiresAt = pExpiresAt;
+    }
+
+    /**
+     * Retrieves the ID of the hold.
+     *
+     * @return the hold ID.
+     * @author agent
+     */
+    public long getHoldID() {
+        return aHoldID;
+    }
+
+    /**
+     * Retrieves the show of the held seats.
+     *
+     * @return the show.
+     * @author agent
+     */
+    public Show getShow() {
+        return aShow;
+    }
+
+    /**
+     * Retrieves the client the seats are held for.
+     *
+     * @return the client.
+     * @author agent
+     */
+    public Client getClient() {
+        return aClient;
+    }
+
+    /**
+     * Retrieves the number of held seats.
+     *
+     * @return the number of seats.
+     * @author agent
+     */
+    public int getSeatCount() {
+        return aSeats.length;
+    }
+
+    /**
+     * Retrieves the numbers of the held seats.
+     *
+     * @return a copy of the seat numbers.
+     * @author agent
+     */
+    public int[] getSeats() {
+        return Arrays.copyOf(aSeats, aSeats.length);
+    }
+
+    /**
+     * Retrieves when the hold expires.
+     *
+     * @return the expiry date and time.
+     * @author agent
+     */
+    public LocalDateTime getExpiresAt() {
+        return aExpiresAt;
+    }
+
+    /**
+     * Retrieves the expiry of the hold on the timing wheel.
+     *
+     * @return the expiry, or null if the hold is not scheduled yet.
+     * @author agent
+     */
+    TimingWheel.Timeout getExpiry() {
+        return aExpiry;
+    }
+
+    /**
+     * Sets the expiry of the hold on the timing wheel.
+     *
+     * @param pExpiry the expiry.
+     * @author agent
+     */
+    void setExpiry(TimingWheel.Timeout pExpiry) {
+        this.aExpiry = pExpiry;
+    }
+}
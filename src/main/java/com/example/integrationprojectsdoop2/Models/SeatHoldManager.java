@@ -0,0 +1,319 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import com.example.integrationprojectsdoop2.Helpers.TimingWheel;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds seats of a show for a client while they decide, so the seats they chose cannot be sold
+ * to someone else before checkout.
+ * <p>
+ * Held seats are claimed in the {@link SeatMap} of the show like sold seats, and stop counting
+ * as free. A hold ends in one of three ways: the client buys the seats, releases them, or lets
+ * the hold expire after its time to live, at which point the seats return to the show.
+ * Expiries are scheduled on a hashed {@link TimingWheel} ticking every second, so there is
+ * neither a timer per hold nor a scan of the holds. Holds are kept in memory only.
+ * <p>
+ * The time to live is {@value #DEFAULT_TIME_TO_LIVE_SECONDS} seconds, unless the system property
+ * {@value #TIME_TO_LIVE_PROPERTY} gives another number of seconds.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * SeatHold hold = SeatHoldManager.getInstance().hold(show, client, 2);
+ * List<ETicket> tickets = SeatHoldManager.getInstance().confirm(hold);
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class SeatHoldManager {
+
+    /** System property giving the time to live of holds, in seconds. */
+    public static final String TIME_TO_LIVE_PROPERTY = "theatre.hold.ttl.seconds";
+
+    /** Time to live of holds when the system property is not set, in seconds. */
+    public static final long DEFAULT_TIME_TO_LIVE_SECONDS = 300;
+
+    /** Precision of the expiries. */
+    private static final Duration TICK = Duration.ofSeconds(1);
+
+    /** Number of buckets of the timing wheel: a turn of about 8.5 minutes. */
+    private static final int BUCKET_COUNT = 512;
+
+    /**
+     * Counts of holds since the application started, to follow how often holds turn into sales.
+     *
+     * @param placed    the holds placed.
+     * @param confirmed the holds whose seats were bought.
+     * @param failed    the holds whose purchase failed, their seats returned to the show.
+     * @param released  the holds released by their client.
+     * @param expired   the holds expired, their seats returned to the show.
+     * @param active    the holds still in place.
+     * @author agent
+     */
+    public record HoldMetrics(long placed, long confirmed, long failed, long released, long expired, int active) {
+    }
+
+    /** The single instance of SeatHoldManager. */
+    private static SeatHoldManager aInstance;
+
+    /** The wheel expiring the holds. */
+    private final TimingWheel aWheel = new TimingWheel("seat-hold-expiry", TICK, BUCKET_COUNT);
+
+    /** The holds in place, by ID. A hold leaves this map exactly once, whatever ends it. */
+    private final Map<Long, SeatHold> aActiveHolds = new ConcurrentHashMap<>();
+
+    /** The ID of the next hold. */
+    private final AtomicLong aNextHoldID = new AtomicLong(1);
+
+    /** The time to live of new holds. */
+    private volatile Duration aTimeToLive;
+
+    /** Number of holds placed. */
+    private final LongAdder aPlaced = new LongAdder();
+
+    /** Number of holds confirmed. */
+    private final LongAdder aConfirmed = new LongAdder();
+
+    /** Number of holds whose purchase failed. */
+    private final LongAdder aFailed = new LongAdder();
+
+    /** Number of holds released. */
+    private final LongAdder aReleased = new LongAdder();
+
+    /** Number of holds expired. */
+    private final LongAdder aExpired = new LongAdder();
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     * Reads the time to live of holds from the system properties.
+     *
+     * @author agent
+     */
+    private SeatHoldManager() {
+        this.aTimeToLive = Duration.ofSeconds(Long.getLong(TIME_TO_LIVE_PROPERTY, DEFAULT_TIME_TO_LIVE_SECONDS));
+    }
+
+    /**
+     * Returns the single instance of {@code SeatHoldManager}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code SeatHoldManager}.
+     * @author agent
+     */
+    public static synchronized SeatHoldManager getInstance() {
+        if (aInstance == null) {
+            aInstance = new SeatHoldManager();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Retrieves the time to live of new holds.
+     *
+     * @return the time to live.
+     * @author agent
+     */
+    public Duration getTimeToLive() {
+        return aTimeToLive;
+    }
+
+    /**
+     * Sets the time to live of new holds. Holds in place keep their expiry.
+     *
+     * @param pTimeToLive the time to live.
+     * @throws IllegalArgumentException if the time to live is not positive.
+     * @author agent
+     */
+    public void setTimeToLive(Duration pTimeToLive) {
+        if (pTimeToLive == null || pTimeToLive.isNegative() || pTimeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive.");
+        }
+        this.aTimeToLive = pTimeToLive;
+    }
+
+    /**
+     * Holds free seats of a show for a client, all of them or none.
+     *
+     * @param pShow     the show.
+     * @param pClient   the client.
+     * @param pQuantity the number of seats.
+     * @return the hold, which expires after the time to live.
+     * @throws IllegalArgumentException if the show or client is null, or the quantity is not positive.
+     * @throws IllegalStateException    if there are not enough free seats.
+     * @author agent
+     */
+    public SeatHold hold(Show pShow, Client pClient, int pQuantity) {
+        if (pShow == null || pClient == null) {
+            throw new IllegalArgumentException("Show and client cannot be null.");
+        }
+        if (pQuantity < 1) {
+            throw new IllegalArgumentException("Please choose at least one ticket.");
+        }
+
+        SeatMap seatMap = ETicketManager.getInstance().getSeatMap(pShow);
+        int[] seats = new int[pQuantity];
+        for (int i = 0; i < pQuantity; i++) {
+            seats[i] = seatMap.claimAny();
+            if (seats[i] < 0) {
+                releaseSeats(seatMap, seats, i);
+                throw new IllegalStateException(pQuantity == 1 ? "This show is sold out."
+                        : "Not enough seats are left for " + pQuantity + " tickets.");
+            }
+        }
+
+        Duration timeToLive = aTimeToLive;
+        SeatHold hold = new SeatHold(aNextHoldID.getAndIncrement(), pShow, pClient, seats,
+                LocalDateTime.now().plus(timeToLive));
+        aActiveHolds.put(hold.getHoldID(), hold);
+        hold.setExpiry(aWheel.schedule(() -> expire(hold), timeToLive));
+        aPlaced.increment();
+        return hold;
+    }
+
+    /**
+     * Buys the held seats: records one ticket per seat, all of them or none, and ends the hold.
+     *
+     * @param pHold the hold.
+     * @return the tickets bought, each with its held seat.
+     * @throws IllegalStateException if the hold already expired, was released or was confirmed.
+     * @throws IOException           if the tickets cannot be recorded, in which case the seats
+     *                               return to the show.
+     * @author agent
+     */
+    public List<ETicket> confirm(SeatHold pHold) throws IOException {
+        end(pHold);
+        List<ETicket> eTickets = new ArrayList<>(pHold.getSeatCount());
+        try {
+            for (int seat : pHold.getSeats()) {
+                ETicket eTicket = new ETicket(pHold.getShow(), pHold.getClient());
+                eTicket.setSeatNumber(seat);
+                eTickets.add(eTicket);
+            }
+            ETicketManager.getInstance().addHeldETickets(eTickets);
+        } catch (IOException | RuntimeException e) {
+            releaseSeats(pHold);
+            aFailed.increment();
+            throw e;
+        }
+        aConfirmed.increment();
+        return eTickets;
+    }
+
+    /**
+     * Releases the held seats back to the show, if the hold is still in place.
+     *
+     * @param pHold the hold, possibly null.
+     * @return true if this call ended the hold.
+     * @author agent
+     */
+    public boolean release(SeatHold pHold) {
+        if (pHold == null || !aActiveHolds.remove(pHold.getHoldID(), pHold)) {
+            return false;
+        }
+        cancelExpiry(pHold);
+        releaseSeats(pHold);
+        aReleased.increment();
+        return true;
+    }
+
+    /**
+     * Tells whether a hold is still in place.
+     *
+     * @param pHold the hold.
+     * @return true if the hold was neither confirmed, released nor expired.
+     * @author agent
+     */
+    public boolean isActive(SeatHold pHold) {
+        return pHold != null && aActiveHolds.get(pHold.getHoldID()) == pHold;
+    }
+
+    /**
+     * Retrieves the counts of holds placed, confirmed, failed, released and expired.
+     *
+     * @return a snapshot of the hold metrics.
+     * @author agent
+     */
+    public HoldMetrics getMetrics() {
+        return new HoldMetrics(aPlaced.sum(), aConfirmed.sum(), aFailed.sum(), aReleased.sum(), aExpired.sum(),
+                aActiveHolds.size());
+    }
+
+    /**
+     * Ends a hold about to be confirmed, so it can no longer expire or be released.
+     *
+     * @param pHold the hold.
+     * @throws IllegalStateException if the hold already ended.
+     * @author agent
+     */
+    private void end(SeatHold pHold) {
+        if (pHold == null || !aActiveHolds.remove(pHold.getHoldID(), pHold)) {
+            throw new IllegalStateException("Your seat hold has expired. Please select the show again.");
+        }
+        cancelExpiry(pHold);
+    }
+
+    /**
+     * Returns the seats of an expired hold to its show, unless the hold already ended.
+     * Runs on the thread of the timing wheel.
+     *
+     * @param pHold the hold.
+     * @author agent
+     */
+    private void expire(SeatHold pHold) {
+        if (aActiveHolds.remove(pHold.getHoldID(), pHold)) {
+            releaseSeats(pHold);
+            aExpired.increment();
+        }
+    }
+
+    /**
+     * Cancels the expiry of an ended hold, so the wheel drops it.
+     *
+     * @param pHold the hold.
+     * @author agent
+     */
+    private static void cancelExpiry(SeatHold pHold) {
+        TimingWheel.Timeout expiry = pHold.getExpiry();
+        if (expiry != null) {
+            expiry.cancel();
+        }
+    }
+
+    /**
+     * Returns the seats of a hold to its show, except those another copy of the application
+     * sold while they were held.
+     *
+     * @param pHold the hold.
+     * @author agent
+     */
+    private static void releaseSeats(SeatHold pHold) {
+        ETicketManager eTicketManager = ETicketManager.getInstance();
+        for (int seat : pHold.getSeats()) {
+            eTicketManager.releaseSeat(pHold.getShow(), seat);
+        }
+    }
+
+    /**
+     * Releases the first seats of a list.
+     *
+     * @param pSeatMap the seat map of the show.
+     * @param pSeats   the seat numbers.
+     * @param pCount   the number of seats to release.
+     * @author agent
+     */
+    private static void releaseSeats(SeatMap pSeatMap, int[] pSeats, int pCount) {
+        for (int i = 0; i < pCount; i++) {
+            pSeatMap.release(pSeats[i]);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The seats of one show, each either free or taken, in an atomic bitset.
+ * Seats are claimed with compare-and-set on the word holding their bit, so any number of
+ * buyers can claim seats at the same time without a lock, and a seat is never given to
+ * two of them. Once every seat is taken, claims fail: a show cannot be oversold.
+ *
+ * <p>Seats are numbered from 0 to the capacity minus one, row by row, as in
+ * {@link Screenroom#getSeatLabel(int)}.</p>
+ *
+ * @author agent
+ */
+public final class SeatMap {
+
+    /** Number of seats held by each word of the bitset. */
+    private static final int SEATS_PER_WORD = Long.SIZE;
+
+    /** The number of seats. */
+    private final int aCapacity;
+
+    /** One bit per seat, set when the seat is taken. */
+    private final AtomicLongArray aTaken;
+
+    /**
+     * Constructs a map of free seats.
+     *
+     * @param pCapacity the number of seats.
+     * @throws IllegalArgumentException if the capacity is negative.
+     * @author agent
+     */
+    public SeatMap(int pCapacity) {
+        if (pCapacity < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        }
+        this.aCapacity = pCapacity;
+        this.aTaken = new AtomicLongArray((pCapacity + SEATS_PER_WORD - 1) / SEATS_PER_WORD);
+    }
+
+    /**
+     * Gets the number of seats.
+     *
+     * @return the capacity of the map.
+     * @author agent
+     */
+    public int getCapacity() {
+        return aCapacity;
+    }
+
+    /**
+     * Claims a specific seat.
+     *
+     * @param pSeat the number of the seat.
+     * @return {@code true} if the seat was free and is now taken by the caller,
+     *         {@code false} if it was already taken.
+     * @throws IndexOutOfBoundsException if there is no such seat.
+     * @author agent
+     */
+    public boolean claim(int pSeat) {
+        checkSeat(pSeat);
+        int word = pSeat / SEATS_PER_WORD;
+        long bit = 1L << (pSeat % SEATS_PER_WORD);
+        while (true) {
+            long taken = aTaken.get(word);
+            if ((taken & bit) != 0) {
+                return false;
+            }
+            if (aTaken.compareAndSet(word, taken, taken | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Claims any free seat. Buyers start looking at a random word of the bitset,
+     * so concurrent claims rarely compete for the same word.
+     *
+     * @return the number of the seat claimed, or -1 if every seat is taken.
+     * @author agent
+     */
+    public int claimAny() {
+        int words = aTaken.length();
+        if (words == 0) {
+            return -1;
+        }
+        int start = ThreadLocalRandom.current().nextInt(words);
+        for (int i = 0; i < words; i++) {
+            int word = (start + i) % words;
+            long taken;
+            while ((taken = aTaken.get(word)) != wordMask(word)) {
+                long bit = Long.lowestOneBit(~taken & wordMask(word));
+                if (aTaken.compareAndSet(word, taken, taken | bit)) {
+                    return word * SEATS_PER_WORD + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Releases a seat, for instance when the purchase that claimed it fails.
+     *
+     * @param pSeat the number of the seat.
+     * @throws IndexOutOfBoundsException if there is no such seat.
+     * @author agent
+     */
+    public void release(int pSeat) {
+        checkSeat(pSeat);
+        int word = pSeat / SEATS_PER_WORD;
+        long bit = 1L << (pSeat % SEATS_PER_WORD);
+        long taken;
+        do {
+            taken = aTaken.get(word);
+        } while ((taken & bit) != 0 && !aTaken.compareAndSet(word, taken, taken & ~bit));
+    }
+
+    /**
+     * Checks whether a seat is taken.
+     *
+     * @param pSeat the number of the seat.
+     * @return {@code true} if the seat is taken.
+     * @throws IndexOutOfBoundsException if there is no such seat.
+     * @author agent
+     */
+    public boolean isTaken(int pSeat) {
+        checkSeat(pSeat);
+        return (aTaken.get(pSeat / SEATS_PER_WORD) & (1L << (pSeat % SEATS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Counts the seats taken. The count is exact when no claim is in progress.
+     *
+     * @return the number of seats taken.
+     * @author agent
+     */
+    public int getTakenCount() {
+        int count = 0;
+        for (int i = 0; i < aTaken.length(); i++) {
+            count += Long.bitCount(aTaken.get(i));
+        }
+        return count;
+    }
+
+    /**
+     * Counts the free seats. The count is exact when no claim is in progress.
+     *
+     * @return the number of free seats.
+     * @author agent
+     */
+    public int getAvailableCount() {
+        return aCapacity - getTakenCount();
+    }
+
+    /**
+     * Gives the bits of a word that stand for actual seats: all of them except in the last word.
+     *
+     * @param pWord the index of the word.
+     * @return the mask of the seats of the word.
+     * @author agent
+     */
+    private long wordMask(int pWord) {
+        int seats = Math.min(SEATS_PER_WORD, aCapacity - pWord * SEATS_PER_WORD);
+        return seats == SEATS_PER_WORD ? -1L : (1L << seats) - 1;
+    }
+
+    /**
+     * Checks that a seat exists.
+     *
+     * @param pSeat the number of the seat.
+     * @throws IndexOutOfBoundsException if there is no such seat.
+     * @author agent
+     */
+    private void checkSeat(int pSeat) {
+        if (pSeat < 0 || pSeat >= aCapacity) {
+            throw new IndexOutOfBoundsException("No seat " + pSeat + " in a room of " + aCapacity + " seats.");
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.integrationprojectsdoop2.Models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 import java.time.LocalDate;
-import java.util.List;
 
 /**
  * Represents a show in a cinema, including details such as the movie being shown,
  * the screen room, the showtime, and the e-ticket information.
  * Each show has a unique ID that is automatically generated.
  * This class implements {@link Serializable} to allow object serialization.
+ * A show is saved with the IDs of its movie, screen room and showtime, which are resolved
+ * through the {@link CatalogManager} each time they are needed, so edits of the catalog reach
+ * every show already loaded.
  *
  * @author Jarvy Lazan
  */
@@ -17,30 +23,62 @@ public class Show implements Serializable, ShowComponent {
 
     @Serial
     private static final long serialVersionUID = 11L;
+
+    /**
+     * The serialized fields of a Show: its own fields and the IDs of the objects it refers to.
+     * Shows saved before the IDs were introduced embed the objects themselves;
+     * {@link #readObject(ObjectInputStream)} reads both forms.
+     */
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("aShowID", String.class),
+            new ObjectStreamField("aMovieID", String.class),
+            new ObjectStreamField("aScreenroomID", String.class),
+            new ObjectStreamField("aShowtimeID", String.class),
+            new ObjectStreamField("aTicket", ETicket.class),
+            new ObjectStreamField("aShowDate", LocalDate.class),
+            new ObjectStreamField("aVersion", long.class)
+    };
+
     /**
-     * Counter for generating unique Show IDs.
+     * The text displayed in place of a movie, screen room or showtime missing from the catalog.
      */
-    private static int aShowIDCounter = 1;
+    public static final String MISSING_REFERENCE = "Unavailable";
 
     /**
      * Unique identifier for this Show.
      */
-    private final String aShowID;
+    private String aShowID;
+
+    /**
+     * The ID of the movie being shown in this Show.
+     */
+    private String aMovieID;
+
+    /**
+     * The ID of the screen room where the Show takes place.
+     */
+    private String aScreenroomID;
 
     /**
-     * The movie being shown in this Show.
+     * The ID of the showtime of the Show.
      */
-    private Movie aMovie;
+    private String aShowtimeID;
 
     /**
-     * The screen room where the Show takes place.
+     * The movie last set, or embedded by the legacy format, used if the catalog has none with {@link #aMovieID}.
      */
-    private Screenroom aScreenroom;
+    private transient Movie aMovie;
 
     /**
-     * The time the Show is scheduled to start.
+     * The screen room last set, or embedded by the legacy format, used if the catalog has none with {@link #aScreenroomID}.
      */
-    private Showtime aShowtime;
+    private transient Screenroom aScreenroom;
+
+    /**
+     * The showtime last set, or embedded by the legacy format, used if the catalog has none with {@link #aShowtimeID}.
+     */
+    private transient Showtime aShowtime;
 
     /**
      * The e-ticket information for the Show.
@@ -52,6 +90,16 @@ public class Show implements Serializable, ShowComponent {
      */
     private LocalDate aShowDate;
 
+    /**
+     * The number of saves of this Show, compared on each save to reject edits of an older version.
+     */
+    private long aVersion;
+
+    /**
+     * Whether this Show is the one shared by the {@link CatalogManager}, which cannot be edited.
+     */
+    private transient boolean aShared;
+
     /**
      * Default constructor for the Show class.
      * Automatically generates a unique Show ID.
@@ -91,27 +139,80 @@ public class Show implements Serializable, ShowComponent {
     }
 
     /**
-     * Generates a unique ID for each Show.
+     * Generates a unique ID for each Show from the show sequence of the {@link IDSequences}.
      *
      * @return A unique Show ID in the format "S<number>".
      * @author Jarvy Lazan
      */
-    private static synchronized String generateShowID() {
-        return "S" + aShowIDCounter++;
+    private static String generateShowID() {
+        return IDSequences.getInstance().nextID(IDSequences.SHOW);
     }
 
     public String getShowID() {
         return aShowID;
     }
 
+    /**
+     * Retrieves the version of the Show: the number of times it was saved.
+     *
+     * @return the version, 0 if the Show was never saved.
+     * @author agent
+     */
+    @Override
+    public long getVersion() {
+        return this.aVersion;
+    }
+
+    /**
+     * Sets the version of the Show, when the {@link CatalogManager} saves it.
+     *
+     * @param pVersion the new version.
+     * @author agent
+     */
+    void setVersion(long pVersion) {
+        this.aVersion = pVersion;
+    }
+
+    /**
+     * Marks this Show as the one shared by the {@link CatalogManager}, after which its setters throw:
+     * edits are made to a copy from {@link CatalogManager#editableCopy}, which is not shared.
+     *
+     * @author agent
+     */
+    void share() {
+        this.aShared = true;
+    }
+
+    /**
+     * Checks that this Show can be edited.
+     *
+     * @throws IllegalStateException if it is the one shared by the {@link CatalogManager}.
+     * @author agent
+     */
+    private void checkEditable() {
+        if (aShared) {
+            throw new IllegalStateException("Show " + getDisplayName() + " is shared and cannot be edited; edit a copy instead.");
+        }
+    }
+
     /**
      * Gets the movie being shown.
      *
-     * @return The movie for this Show.
+     * @return The movie for this Show, or null if it is missing from the catalog.
      * @author Jarvy Lazan
      */
     public Movie getMovie() {
-        return aMovie;
+        return resolved(CatalogManager.getInstance().getMovie(aMovieID), aMovie);
+    }
+
+    /**
+     * Gets the ID of the movie being shown, without resolving the movie.
+     *
+     * @return The ID of the movie for this Show.
+     * @author agent
+     */
+    public String getMovieID() {
+        return aMovieID;
     }
 
     /**
@@ -119,23 +220,36 @@ public class Show implements Serializable, ShowComponent {
      *
      * @param pMovie The movie to set.
      * @throws IllegalArgumentException if the movie is null.
+     * @throws IllegalStateException if the Show is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setMovie(Movie pMovie) {
+        checkEditable();
         if (pMovie == null) {
             throw new IllegalArgumentException("Movie cannot be null.");
         }
         aMovie = pMovie;
+        aMovieID = pMovie.getMovie_ID();
     }
 
     /**
      * Gets the screen room where the Show is held.
      *
-     * @return The screen room for this Show.
+     * @return The screen room for this Show, or null if it is missing from the catalog.
      * @author Jarvy Lazan
      */
     public Screenroom getScreenroom() {
-        return aScreenroom;
+        return resolved(CatalogManager.getInstance().getScreenroom(aScreenroomID), aScreenroom);
+    }
+
+    /**
+     * Gets the ID of the screen room where the Show is held, without resolving it.
+     *
+     * @return The ID of the screen room for this Show.
+     * @author agent
+     */
+    public String getScreenroomID() {
+        return aScreenroomID;
     }
 
     /**
@@ -143,23 +257,36 @@ public class Show implements Serializable, ShowComponent {
      *
      * @param pScreenroom The screen room to set.
      * @throws IllegalArgumentException if the screen room is null.
+     * @throws IllegalStateException if the Show is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setScreenroom(Screenroom pScreenroom) {
+        checkEditable();
         if (pScreenroom == null) {
             throw new IllegalArgumentException("Screenroom cannot be null.");
         }
         aScreenroom = pScreenroom;
+        aScreenroomID = pScreenroom.getScreenroom_ID();
     }
 
     /**
      * Gets the scheduled showtime.
      *
-     * @return The showtime for this Show.
+     * @return The showtime for this Show, or null if it is missing from the catalog.
      * @author Jarvy Lazan
      */
     public Showtime getShowtime() {
-        return aShowtime;
+        return resolved(CatalogManager.getInstance().getShowtime(aShowtimeID), aShowtime);
+    }
+
+    /**
+     * Gets the ID of the scheduled showtime, without resolving it.
+     *
+     * @return The ID of the showtime for this Show.
+     * @author agent
+     */
+    public String getShowtimeID() {
+        return aShowtimeID;
     }
 
     /**
@@ -167,13 +294,16 @@ public class Show implements Serializable, ShowComponent {
      *
      * @param pShowtime The showtime to set.
      * @throws IllegalArgumentException if the showtime is null.
+     * @throws IllegalStateException if the Show is the one shared by the {@link CatalogManager}.
      * @author Jarvy Lazan
      */
     public void setShowtime(Showtime pShowtime) {
+        checkEditable();
         if (pShowtime == null) {
             throw new IllegalArgumentException("Showtime cannot be null.");
         }
         aShowtime = pShowtime;
+        aShowtimeID = pShowtime.getShowtimeID();
     }
 
     /**
@@ -214,8 +344,10 @@ public class Show implements Serializable, ShowComponent {
      *
      * @param pShowDate The date to set for the show.
      * @throws IllegalArgumentException if the date is null or in the past.
+     * @throws IllegalStateException if the Show is the one shared by the {@link CatalogManager}.
      */
     public void setShowDate(LocalDate pShowDate) {
+        checkEditable();
         if (pShowDate == null) {
             throw new IllegalArgumentException("Show date cannot be null.");
         }
@@ -225,50 +357,118 @@ public class Show implements Serializable, ShowComponent {
         this.aShowDate = pShowDate;
     }
 
+    /**
+     * Gets the title of the movie being shown, for display.
+     *
+     * @return The title of the movie, or {@link #MISSING_REFERENCE} if it is missing from the catalog.
+     * @author agent
+     */
+    public String getMovieTitle() {
+        Movie movie = getMovie();
+        return movie != null ? movie.getMovie_Title() : MISSING_REFERENCE;
+    }
+
+    /**
+     * Gets the name of the screen room where the Show is held, for display.
+     *
+     * @return The name of the screen room, or {@link #MISSING_REFERENCE} if it is missing from the catalog.
+     * @author agent
+     */
+    public String getScreenroomName() {
+        Screenroom screenroom = getScreenroom();
+        return screenroom != null ? screenroom.getScreenroom_Name() : MISSING_REFERENCE;
+    }
+
+    /**
+     * Gets the time the Show starts at, for display.
+     *
+     * @return The time of the showtime, or {@link #MISSING_REFERENCE} if it is missing from the catalog.
+     * @author agent
+     */
+    public String getShowtimeTime() {
+        Showtime showtime = getShowtime();
+        return showtime != null ? showtime.getShowtimeTime() : MISSING_REFERENCE;
+    }
+
     @Override
     public String getDisplayName() {
-        return "Show: " + aMovie.getMovie_Title() +
-                "\n" + aShowtime.getShowtimeTime() +
+        return "Show: " + getMovieTitle() +
+                "\n" + getShowtimeTime() +
                 " "+ aShowDate + "\nRoom: "
-                + aScreenroom.getScreenroom_Name();
+                + getScreenroomName();
     }
 
-    public static void resetMovieIDCounter(List<Movie> pExistingMovies) {
-        if (pExistingMovies != null && !pExistingMovies.isEmpty()) {
-            aShowIDCounter = pExistingMovies.stream()
-                    .mapToInt(movie -> Integer.parseInt(movie.getMovie_ID().substring(3)))
-                    .max().orElse(0) + 1;  // Find the max ID and set counter to max + 1
-        }
+    /**
+     * Returns the object found in the catalog, or the copy held by the Show if the catalog has none.
+     *
+     * @param pFromCatalog the object found in the catalog, or null.
+     * @param pEmbedded    the copy last set or embedded by the legacy format, or null.
+     * @param <T>          the type of the object.
+     * @return the resolved object.
+     * @author agent
+     */
+    private static <T> T resolved(T pFromCatalog, T pEmbedded) {
+        return pFromCatalog != null ? pFromCatalog : pEmbedded;
     }
 
-    // Make sure to add these methods during the deserialization process
+    /**
+     * Writes the Show with the IDs of its movie, screen room and showtime instead of the objects.
+     *
+     * @param pOut the stream to write to.
+     * @throws IOException if an I/O error occurs.
+     * @author agent
+     */
     @Serial
-    private Object readResolve() {
-        updateMovieIDCounter();  // Ensure the ID counter is correct after deserialization
-        return this;
+    private void writeObject(ObjectOutputStream pOut) throws IOException {
+        ObjectOutputStream.PutField fields = pOut.putFields();
+        fields.put("aShowID", aShowID);
+        fields.put("aMovieID", aMovieID);
+        fields.put("aScreenroomID", aScreenroomID);
+        fields.put("aShowtimeID", aShowtimeID);
+        fields.put("aTicket", aTicket);
+        fields.put("aShowDate", aShowDate);
+        fields.put("aVersion", aVersion);
+        pOut.writeFields();
     }
 
-    private void updateMovieIDCounter() {
-        if (aShowID != null && aShowID.startsWith("S") && aShowID.length() > 1) {
-            try {
-                int currentID = Integer.parseInt(aShowID.substring(1)); // Extract number part
-                if (currentID >= aShowIDCounter) {
-                    aShowIDCounter = currentID + 1; // Update counter if needed
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("Invalid Show ID format: " + aShowID);
-                // Optionally, log or handle invalid IDs
-            }
+    /**
+     * Reads a Show saved with ID references, or a legacy Show embedding its movie,
+     * screen room and showtime. The references are resolved each time they are needed.
+     *
+     * @param pIn the stream to read from.
+     * @throws IOException            if an I/O error occurs.
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found.
+     * @author agent
+     */
+    @Serial
+    private void readObject(ObjectInputStream pIn) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = pIn.readFields();
+        aShowID = (String) fields.get("aShowID", null);
+        aTicket = (ETicket) fields.get("aTicket", null);
+        aShowDate = (LocalDate) fields.get("aShowDate", null);
+        aVersion = fields.get("aVersion", 0L);
+
+        if (!fields.defaulted("aMovieID")) {
+            aMovieID = (String) fields.get("aMovieID", null);
+            aScreenroomID = (String) fields.get("aScreenroomID", null);
+            aShowtimeID = (String) fields.get("aShowtimeID", null);
+        } else {
+            // Legacy format: keep the embedded copies as a fallback and use their IDs
+            aMovie = (Movie) fields.get("aMovie", null);
+            aScreenroom = (Screenroom) fields.get("aScreenroom", null);
+            aShowtime = (Showtime) fields.get("aShowtime", null);
+            aMovieID = aMovie != null ? aMovie.getMovie_ID() : null;
+            aScreenroomID = aScreenroom != null ? aScreenroom.getScreenroom_ID() : null;
+            aShowtimeID = aShowtime != null ? aShowtime.getShowtimeID() : null;
         }
     }
 
-
     @Override
     public String toString() {
         return "The Show has:"+
-                "\n\nMovie: \t"+ aMovie.getMovie_Title()+
-                "\nStarts at:\t"+aShowtime.getShowtimeTime()+
+                "\n\nMovie: \t"+ getMovieTitle()+
+                "\nStarts at:\t"+getShowtimeTime()+
                 "\nOn Date:\t" + aShowDate +
-                "\nIn Screenroom:\t"+ aScreenroom.getScreenroom_Name();
+                "\nIn Screenroom:\t"+ getScreenroomName();
     }
 }
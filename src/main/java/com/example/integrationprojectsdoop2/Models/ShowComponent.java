@@ -16,4 +16,13 @@ public interface ShowComponent {
      * @author Samuel Mireault
      */
     String getDisplayName();
+
+    /**
+     * Retrieves the version of the component: the number of times it was saved.
+     * A save is rejected if the component was saved by someone else since its version was read.
+     *
+     * @return the version, 0 if the component was never saved.
+     * @author agent
+     */
+    long getVersion();
 }
@@ -2,7 +2,7 @@ package com.example.integrationprojectsdoop2.Models;
 
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.List;
+import java.time.LocalTime;
 
 /**
  * Represents a Showtime with a unique identifier and a specific time.
@@ -21,15 +21,18 @@ public class Showtime implements Serializable, ShowComponent {
     @Serial
     private static final long serialVersionUID = 68L;
 
-    /** Counter for generating unique showtime IDs, incremented with each instance. */
-    private static int aShowtimeIDCounter = 1;
-
     /** Unique identifier for the showtime, auto-generated. */
     private final String aShowtime_ID;
 
     /** Specific time for the showtime, validated to follow the format HH:mm. */
     private String aShowtime_Time;
 
+    /** The number of saves of this Showtime, compared on each save to reject edits of an older version. */
+    private long aVersion;
+
+    /** Whether this Showtime is the one shared by the {@link CatalogManager}, which cannot be edited. */
+    private transient boolean aShared;
+
     /**
      * Default constructor for creating a Showtime instance without initializing fields.
      * Automatically generates a unique Showtime ID.
@@ -55,13 +58,13 @@ public class Showtime implements Serializable, ShowComponent {
     }
 
     /**
-     * Generates a unique Showtime ID by incrementing the counter.
+     * Generates a unique Showtime ID from the showtime sequence of the {@link IDSequences}.
      *
      * @return the generated Showtime ID in the format "T<number>".
      * @author Mohammad Tarin Wahidi
      */
-    private static synchronized String generateShowtimeID() {
-        return "T" + (aShowtimeIDCounter++);
+    private static String generateShowtimeID() {
+        return IDSequences.getInstance().nextID(IDSequences.SHOWTIME);
     }
 
     /**
@@ -74,6 +77,49 @@ public class Showtime implements Serializable, ShowComponent {
         return this.aShowtime_ID;
     }
 
+    /**
+     * Retrieves the version of the Showtime: the number of times it was saved.
+     *
+     * @return the version, 0 if the Showtime was never saved.
+     * @author agent
+     */
+    @Override
+    public long getVersion() {
+        return this.aVersion;
+    }
+
+    /**
+     * Sets the version of the Showtime, when the {@link CatalogManager} saves it.
+     *
+     * @param pVersion the new version.
+     * @author agent
+     */
+    void setVersion(long pVersion) {
+        this.aVersion = pVersion;
+    }
+
+    /**
+     * Marks this Showtime as the one shared by the {@link CatalogManager}, after which its setters throw:
+     * edits are made to a copy from {@link CatalogManager#editableCopy}, which is not shared.
+     *
+     * @author agent
+     */
+    void share() {
+        this.aShared = true;
+    }
+
+    /**
+     * Checks that this Showtime can be edited.
+     *
+     * @throws IllegalStateException if it is the one shared by the {@link CatalogManager}.
+     * @author agent
+     */
+    private void checkEditable() {
+        if (aShared) {
+            throw new IllegalStateException("Showtime " + getDisplayName() + " is shared and cannot be edited; edit a copy instead.");
+        }
+    }
+
     /**
      * Gets the time of the showtime.
      *
@@ -84,14 +130,26 @@ public class Showtime implements Serializable, ShowComponent {
         return this.aShowtime_Time;
     }
 
+    /**
+     * Gets the time the showtime starts at.
+     *
+     * @return the showtime time.
+     * @author agent
+     */
+    public LocalTime getStartTime() {
+        return LocalTime.parse(this.aShowtime_Time);
+    }
+
     /**
      * Sets the time of the showtime. The time must follow the format HH:mm (e.g., 12:34).
      *
      * @param pShowtime_Time the showtime time to set.
      * @throws IllegalArgumentException if the showtime time does not match the format HH:mm.
+     * @throws IllegalStateException if the Showtime is the one shared by the {@link CatalogManager}.
      * @author Mohammad Tarin Wahidi & Jarvy Lazan
      */
     public void setShowtimeTime(String pShowtime_Time) {
+        checkEditable();
         String normalizedTime = normalizeTime(pShowtime_Time); // Normalize to HH:mm
         String timePattern = "^(?:[01]?\\d|2[0-3]):[0-5]\\d$";
 
@@ -144,46 +202,4 @@ public class Showtime implements Serializable, ShowComponent {
     public String toString() {
         return aShowtime_Time;
     }
-
-    /**
-     * Resets the Showtime ID counter based on the highest existing ID.
-     * Ensures the counter starts from the next ID after the highest existing ID.
-     *
-     * @param pExistingShowtimes a list of existing Showtime objects.
-     * @author Jarvy Lazan
-     */
-    public static void resetShowtimeIDCounter(List<Showtime> pExistingShowtimes) {
-        if (pExistingShowtimes != null && !pExistingShowtimes.isEmpty()) {
-            aShowtimeIDCounter = pExistingShowtimes.stream()
-                    .mapToInt(showtime -> Integer.parseInt(showtime.getShowtimeID().substring(1)))
-                    .max().orElse(0) + 1; // Find the max ID and set counter to max + 1
-        }
-    }
-
-    /**
-     * Ensures the ID counter is correct after deserialization.
-     * Updates the counter to reflect the highest ID across deserialized objects.
-     *
-     * @return the deserialized Showtime object.
-     * @author Jarvy Lazan
-     */
-    @Serial
-    private Object readResolve() {
-        updateShowtimeIDCounter();
-        return this;
-    }
-
-    /**
-     * Updates the Showtime ID counter based on the current instance ID.
-     * Ensures the counter is at least one higher than the current Showtime's ID.
-     *
-     * @throws NumberFormatException if the Showtime ID is improperly formatted.
-     * @author Jarvy Lazan
-     */
-    private void updateShowtimeIDCounter() {
-        int currentID = Integer.parseInt(this.aShowtime_ID.substring(1));
-        if (currentID >= aShowtimeIDCounter) { // Only update if the current ID is greater than the counter
-            aShowtimeIDCounter = currentID + 1;
-        }
-    }
 }
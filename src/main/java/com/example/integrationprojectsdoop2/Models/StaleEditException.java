@@ -0,0 +1,42 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a movie, showtime, screenroom or show is saved or deleted after another manager
+ * saved or deleted it since it was opened. The edit is rejected rather than overwriting theirs;
+ * the component as it is now is given so the manager can keep their changes or load the others.
+ *
+ * @author agent
+ */
+public class StaleEditException extends IllegalStateException {
+
+    /** Serialized file links to the serialVersionUID */
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /** The component as it is now, or null if it was deleted. */
+    private final transient ShowComponent aCurrent;
+
+    /**
+     * Constructs the exception with a message and the component as it is now.
+     *
+     * @param pMessage the message to show the manager.
+     * @param pCurrent the component as saved by the other manager, or null if they deleted it.
+     * @author agent
+     */
+    public StaleEditException(String pMessage, ShowComponent pCurrent) {
+        super(pMessage);
+        this.aCurrent = pCurrent;
+    }
+
+    /**
+     * Retrieves the component as it is now.
+     *
+     * @return the component as saved by the other manager, or null if they deleted it.
+     * @author agent
+     */
+    public ShowComponent getCurrent() {
+        return aCurrent;
+    }
+}
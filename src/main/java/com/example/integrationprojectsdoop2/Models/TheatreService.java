@@ -0,0 +1,429 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The operations of the theatre, independent of any user interface: catalog queries,
+ * authentication, show scheduling and ticket purchase.
+ * The JavaFX controllers only collect the input of these operations and display their results,
+ * so the same operations can be run from tools, tests or any number of threads at once.
+ * <p>
+ * Invalid input is reported with an {@link IllegalArgumentException} whose message can be
+ * shown to the user as is. Operations that write files may block and should not be called
+ * on the JavaFX Application Thread.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * TheatreService theatre = TheatreService.getInstance();
+ * Client client = (Client) theatre.login("john@doe.com", "pw");
+ * List<ETicket> tickets = theatre.buyTickets(show, client, 2);
+ * }
+ * </pre>
+ *
+ * @author agent
+ */
+public final class TheatreService {
+
+    /** Pattern of valid email addresses. */
+    private static final String EMAIL_PATTERN = "^[\\w._%+-]+@[\\w.-]+\\.[a-zA-Z]{2,}$";
+
+    /** Pattern of valid full names: a first and a last name. */
+    private static final String FULL_NAME_PATTERN = "^[a-zA-Z-]+ [a-zA-Z-]+$";
+
+    /** Maximum length of a password. */
+    private static final int MAX_PASSWORD_LENGTH = 8;
+
+    /** The largest number of tickets bought at once. */
+    public static final int MAX_TICKETS_PER_PURCHASE = 10;
+
+    /** The single instance of TheatreService. */
+    private static TheatreService aInstance;
+
+    /**
+     * Private constructor to enforce the singleton pattern.
+     *
+     * @author agent
+     */
+    private TheatreService() {
+    }
+
+    /**
+     * Returns the single instance of {@code TheatreService}.
+     * Creates a new instance if it doesn't exist.
+     *
+     * @return the singleton instance of {@code TheatreService}.
+     * @author agent
+     */
+    public static synchronized TheatreService getInstance() {
+        if (aInstance == null) {
+            aInstance = new TheatreService();
+        }
+        return aInstance;
+    }
+
+    /**
+     * Retrieves the movies of the catalog.
+     *
+     * @return an unmodifiable list of movies.
+     * @author agent
+     */
+    public List<Movie> getMovies() {
+        return CatalogManager.getInstance().getMovies();
+    }
+
+    /**
+     * Retrieves the showtimes of the catalog.
+     *
+     * @return an unmodifiable list of showtimes.
+     * @author agent
+     */
+    public List<Showtime> getShowtimes() {
+        return CatalogManager.getInstance().getShowtimes();
+    }
+
+    /**
+     * Retrieves the screenrooms of the catalog.
+     *
+     * @return an unmodifiable list of screenrooms.
+     * @author agent
+     */
+    public List<Screenroom> getScreenrooms() {
+        return CatalogManager.getInstance().getScreenrooms();
+    }
+
+    /**
+     * Retrieves the scheduled shows.
+     *
+     * @return an unmodifiable list of shows.
+     * @author agent
+     */
+    public List<Show> getShows() {
+        return CatalogManager.getInstance().getShows();
+    }
+
+    /**
+     * Finds a scheduled show by its ID.
+     *
+     * @param pShowID the ID of the show.
+     * @return the show, or null if not found.
+     * @author agent
+     */
+    public Show getShow(String pShowID) {
+        return CatalogManager.getInstance().getShow(pShowID);
+    }
+
+    /**
+     * Finds a sold ticket by its ID.
+     *
+     * @param pETicketID the ID of the ticket.
+     * @return the ticket, or null if not found.
+     * @author agent
+     */
+    public ETicket findETicket(String pETicketID) {
+        return ETicketManager.getInstance().findETicket(pETicketID);
+    }
+
+    /**
+     * Retrieves the shows of a date, grouped by movie.
+     *
+     * @param pDate the date of the shows.
+     * @return the shows of the date, by movie ID.
+     * @author agent
+     */
+    public Map<String, List<Show>> getShowsOn(LocalDate pDate) {
+        return CatalogManager.getInstance().getShowsOn(pDate);
+    }
+
+    /**
+     * Counts the seats still free for a show.
+     *
+     * @param pShow the show.
+     * @return the number of free seats.
+     * @author agent
+     */
+    public int getSeatsLeft(Show pShow) {
+        return ETicketManager.getInstance().getSeatMap(pShow).getAvailableCount();
+    }
+
+    /**
+     * Authenticates a client or a manager, clients first.
+     *
+     * @param pEmail    the email address entered.
+     * @param pPassword the password entered.
+     * @return the authenticated {@link Client} or {@link Manager}.
+     * @throws IllegalArgumentException if the input is invalid or does not match any user,
+     *                                  or if there is no manager to manage the system.
+     * @author agent
+     */
+    public User login(String pEmail, String pPassword) {
+        UserManager userManager = UserManager.getInstance();
+        if (userManager.getManagerList().isEmpty()) {
+            throw new IllegalArgumentException("No manager to manage the system. Please add at least one manager to the system.");
+        }
+
+        String email = pEmail == null ? "" : pEmail.trim();
+        if (email.isEmpty()) {
+            throw new IllegalArgumentException("Please enter your email address.");
+        }
+        if (!email.matches(EMAIL_PATTERN)) {
+            throw new IllegalArgumentException("Please enter a valid email address. Ex: example@login.com");
+        }
+        String password = pPassword == null ? "" : pPassword.trim();
+        if (password.isEmpty()) {
+            throw new IllegalArgumentException("Please enter your password.");
+        }
+        if (password.length() > MAX_PASSWORD_LENGTH) {
+            throw new IllegalArgumentException("Password must be less than 8 characters long.");
+        }
+
+        // Check the clients first, then the managers, by email; existing data may hold several of each
+        for (User client : userManager.findClientsByEmail(email)) {
+            if (client.getUser_Password().equals(password)) {
+                return client;
+            }
+        }
+        for (User manager : userManager.findManagersByEmail(email)) {
+            if (manager.getUser_Password().equals(password)) {
+                return manager;
+            }
+        }
+        throw new IllegalArgumentException("Invalid email or password. Please try again.");
+    }
+
+    /**
+     * Signs up a new client and saves it.
+     *
+     * @param pFullName        the first and last name of the client.
+     * @param pEmail           the email address of the client.
+     * @param pPassword        the password of the client.
+     * @param pConfirmPassword the password entered again.
+     * @return the new client.
+     * @throws IllegalArgumentException if the input is invalid or the email is already subscribed.
+     * @throws IOException              if the client cannot be saved.
+     * @author agent
+     */
+    public Client signUp(String pFullName, String pEmail, String pPassword, String pConfirmPassword) throws IOException {
+        String fullName = pFullName == null ? "" : pFullName.trim();
+        if (fullName.isEmpty() || !fullName.matches(FULL_NAME_PATTERN)) {
+            throw new IllegalArgumentException("You need to provide your full name. \neg: John Doe");
+        }
+        if (fullName.length() < 3 || fullName.length() > 100) {
+            throw new IllegalArgumentException("You need to provide at least 3 characters and no more than 100 characters.");
+        }
+
+        String email = pEmail == null ? "" : pEmail.trim();
+        if (email.isEmpty() || !email.matches(EMAIL_PATTERN)) {
+            throw new IllegalArgumentException("You need to provide a valid email address. \neg: example@example.com");
+        }
+
+        String confirmPassword = pConfirmPassword == null ? "" : pConfirmPassword.trim();
+        if (confirmPassword.isEmpty()) {
+            throw new IllegalArgumentException("You need to provide a confirmation password.");
+        }
+        String password = pPassword == null ? "" : pPassword.trim();
+        if (password.isEmpty()) {
+            throw new IllegalArgumentException("You need to enter a password.");
+        }
+        if (password.length() > MAX_PASSWORD_LENGTH) {
+            throw new IllegalArgumentException("Your password must be no more than 8 characters.");
+        }
+        if (!password.equals(confirmPassword)) {
+            throw new IllegalArgumentException("Passwords do not match.");
+        }
+
+        // Checked again by addClient, which rejects an email signed up in the meantime
+        UserManager userManager = UserManager.getInstance();
+        if (userManager.findClientByEmail(email) != null) {
+            throw new IllegalArgumentException("This email is already subscribed. Please try again.");
+        }
+        Client client = new Client(fullName, email, password);
+        userManager.addClient(client);
+        return client;
+    }
+
+    /**
+     * Schedules a new show, or reschedules an existing one, and saves the show list.
+     * The show is edited as a copy and only saved if no other manager saved it since it was opened.
+     *
+     * @param pShow           the show to reschedule, or null to schedule a new one.
+     * @param pMovieTitle     the title of the movie.
+     * @param pShowtimeTime   the time of the showtime.
+     * @param pScreenroomName the name of the screenroom.
+     * @param pDate           the date of the show.
+     * @return the saved show.
+     * @throws IllegalArgumentException if a field is missing or invalid, or the same show already exists.
+     * @throws StaleEditException       if another manager saved or deleted the show since it was opened.
+     * @throws IOException              if the show list cannot be saved.
+     * @author agent
+     */
+    public Show saveShow(Show pShow, String pMovieTitle, String pShowtimeTime, String pScreenroomName,
+                         LocalDate pDate) throws IOException {
+        if (pMovieTitle == null || pShowtimeTime == null || pScreenroomName == null || pDate == null) {
+            throw new IllegalArgumentException("All fields, including the date, must be selected.");
+        }
+        if (pDate.isBefore(LocalDate.now())) {
+            throw new IllegalArgumentException("The selected date cannot be in the past.");
+        }
+
+        CatalogManager catalog = CatalogManager.getInstance();
+        Movie movie = catalog.getMovieByTitle(pMovieTitle);
+        Showtime showtime = catalog.getShowtimeByTime(pShowtimeTime);
+        Screenroom screenroom = catalog.getScreenroomByName(pScreenroomName);
+        if (movie == null || showtime == null || screenroom == null) {
+            throw new IllegalArgumentException("Unable to find the selected items in the database.");
+        }
+
+        // Edit a copy, since the cached show is shared with the rest of the application
+        Show show = pShow != null ? CatalogManager.editableCopy(pShow) : new Show();
+        show.setMovie(movie);
+        show.setShowtime(showtime);
+        show.setScreenroom(screenroom);
+        show.setShowDate(pDate);
+
+        // Check for duplicates against the shows as they are when the show is saved
+        return catalog.save(pShow, show, shows -> {
+            boolean duplicateExists = shows.stream().anyMatch(other ->
+                    !other.getShowID().equals(show.getShowID()) &&
+                            Objects.equals(other.getMovieID(), movie.getMovie_ID()) &&
+                            Objects.equals(other.getShowtimeID(), showtime.getShowtimeID()) &&
+                            Objects.equals(other.getScreenroomID(), screenroom.getScreenroom_ID()) &&
+                            Objects.equals(other.getShowDate(), pDate)
+            );
+            if (duplicateExists) {
+                throw new IllegalArgumentException("A show with the same details already exists.");
+            }
+        }, null);
+    }
+
+    /**
+     * Buys tickets for a show, all of them or none.
+     *
+     * @param pShow     the show.
+     * @param pClient   the client buying the tickets.
+     * @param pQuantity the number of tickets.
+     * @return the tickets bought, each with its seat.
+     * @throws IllegalArgumentException if the quantity is not between 1 and {@link #MAX_TICKETS_PER_PURCHASE},
+     *                                  the show has started, or there are not enough seats left.
+     * @throws IllegalStateException    if other buyers took the last seats meanwhile.
+     * @throws IOException              if the tickets cannot be recorded.
+     * @author agent
+     */
+    public List<ETicket> buyTickets(Show pShow, Client pClient, int pQuantity) throws IOException {
+        checkOnSale(pShow, pClient, pQuantity);
+
+        // The manager gives the tickets their seats, unless other buyers took the last ones meanwhile
+        List<ETicket> eTickets = new ArrayList<>(pQuantity);
+        for (int i = 0; i < pQuantity; i++) {
+            eTickets.add(new ETicket(pShow, pClient));
+        }
+        ETicketManager.getInstance().addETickets(eTickets);
+        return eTickets;
+    }
+
+    /**
+     * Holds seats of a show for a client while they decide, all of them or none.
+     * The seats return to the show unless they are bought or released before the hold expires.
+     *
+     * @param pShow     the show.
+     * @param pClient   the client holding the seats.
+     * @param pQuantity the number of seats.
+     * @return the hold.
+     * @throws IllegalArgumentException if the quantity is not between 1 and {@link #MAX_TICKETS_PER_PURCHASE},
+     *                                  the show has started, or there are not enough seats left.
+     * @throws IllegalStateException    if other buyers took the last seats meanwhile.
+     * @author agent
+     */
+    public SeatHold holdSeats(Show pShow, Client pClient, int pQuantity) {
+        checkOnSale(pShow, pClient, pQuantity);
+        return SeatHoldManager.getInstance().hold(pShow, pClient, pQuantity);
+    }
+
+    /**
+     * Buys the seats of a hold, all of them or none.
+     *
+     * @param pHold the hold.
+     * @return the tickets bought, each with its held seat.
+     * @throws IllegalArgumentException if the show has started.
+     * @throws IllegalStateException    if the hold expired or was released.
+     * @throws IOException              if the tickets cannot be recorded.
+     * @author agent
+     */
+    public List<ETicket> buyHeldTickets(SeatHold pHold) throws IOException {
+        if (pHold == null) {
+            throw new IllegalArgumentException("Selected show not found. Please try again.");
+        }
+        if (hasStarted(pHold.getShow())) {
+            SeatHoldManager.getInstance().release(pHold);
+            throw new IllegalArgumentException("You cannot buy a ticket for a show that has started or a show that has passed.");
+        }
+        return SeatHoldManager.getInstance().confirm(pHold);
+    }
+
+    /**
+     * Releases the seats of a hold, if it is still in place.
+     *
+     * @param pHold the hold, possibly null.
+     * @author agent
+     */
+    public void releaseHold(SeatHold pHold) {
+        SeatHoldManager.getInstance().release(pHold);
+    }
+
+    /**
+     * Checks that tickets for a show can be sold to a client.
+     *
+     * @param pShow     the show.
+     * @param pClient   the client.
+     * @param pQuantity the number of tickets.
+     * @throws IllegalArgumentException if the quantity is not between 1 and {@link #MAX_TICKETS_PER_PURCHASE},
+     *                                  the show has started, or there are not enough seats left.
+     * @author agent
+     */
+    private void checkOnSale(Show pShow, Client pClient, int pQuantity) {
+        if (pShow == null || pClient == null) {
+            throw new IllegalArgumentException("Selected show not found. Please try again.");
+        }
+        if (pQuantity < 1) {
+            throw new IllegalArgumentException("Please choose at least one ticket.");
+        }
+        if (pQuantity > MAX_TICKETS_PER_PURCHASE) {
+            throw new IllegalArgumentException("You cannot buy more than " + MAX_TICKETS_PER_PURCHASE + " tickets at once.");
+        }
+        if (hasStarted(pShow)) {
+            throw new IllegalArgumentException("You cannot buy a ticket for a show that has started or a show that has passed.");
+        }
+
+        int seatsLeft = getSeatsLeft(pShow);
+        if (seatsLeft == 0) {
+            throw new IllegalArgumentException("This show is sold out.");
+        }
+        if (seatsLeft < pQuantity) {
+            throw new IllegalArgumentException("Only " + seatsLeft + " seats are left for this show.");
+        }
+    }
+
+    /**
+     * Tells whether a show has started or passed.
+     *
+     * @param pShow the show.
+     * @return true if the show is on a past date, or today at a time already past.
+     * @throws IllegalArgumentException if the showtime of the show is missing from the catalog.
+     * @author agent
+     */
+    private static boolean hasStarted(Show pShow) {
+        Showtime showtime = pShow.getShowtime();
+        if (showtime == null) {
+            throw new IllegalArgumentException("The showtime of this show is missing from the catalog.");
+        }
+        LocalDate today = LocalDate.now();
+        return pShow.getShowDate().isBefore(today)
+                || (pShow.getShowDate().equals(today) && LocalTime.now().isAfter(showtime.getStartTime()));
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.integrationprojectsdoop2.Models;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serial;
 import java.io.Serializable;
 
@@ -34,6 +36,12 @@ public abstract class User implements Serializable {
     /** The password of the user. */
     private String aUser_Password;
 
+    /**
+     * Whether the user was read from the legacy format, which serialized the whole
+     * user list along with each user. Users in the compact format go through {@link UserRecord}.
+     */
+    private transient boolean aLegacyRecord = false;
+
     /**
      * Default constructor that initializes all user fields to empty strings.
      * Typically used when creating a subclass instance where the user details are set later.
@@ -97,7 +105,8 @@ public abstract class User implements Serializable {
     }
 
     /**
-     * Sets the user's email address.
+     * Sets the user's email address. The email of a saved user is changed through
+     * {@link UserManager#changeEmail}, which also indexes the user under it.
      *
      * @param pUser_Email the new email to set for the user. Cannot be {@code null} or empty.
      * @throws IllegalArgumentException if the provided email is {@code null} or empty.
@@ -134,6 +143,31 @@ public abstract class User implements Serializable {
         this.aUser_Password = pUser_Password;
     }
 
+    /**
+     * Checks whether the user was read from the legacy serialized format and should be migrated.
+     *
+     * @return {@code true} if the user was read from the legacy format.
+     * @author agent
+     */
+    boolean isLegacyRecord() {
+        return aLegacyRecord;
+    }
+
+    /**
+     * Reads a user saved in the legacy format. Users saved in the compact format
+     * are read through {@link UserRecord} and never reach this method.
+     *
+     * @param pInput the stream to read from.
+     * @throws IOException            if an I/O error occurs.
+     * @throws ClassNotFoundException if a class of a serialized object cannot be found.
+     * @author agent
+     */
+    @Serial
+    private void readObject(ObjectInputStream pInput) throws IOException, ClassNotFoundException {
+        pInput.defaultReadObject();
+        this.aLegacyRecord = true;
+    }
+
     /**
      * Returns a string representation of the user.
      * Includes the user's name and email for a concise description.
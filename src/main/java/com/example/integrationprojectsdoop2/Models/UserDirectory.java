@@ -0,0 +1,239 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An index of {@link User} instances by email address and by ID.
+ * Emails are compared after trimming and lower-casing them, so a lookup costs
+ * a single hash probe however many users the directory holds.
+ *
+ * <p>A new user cannot take an email already in the directory, but several users may
+ * share an email in existing data: {@link #find} returns the one added first, like a scan
+ * of the user list would, and {@link #findAll} returns them all. A user whose email
+ * changes must be {@linkplain #rekey re-keyed}, or it stays indexed under its old email.
+ * Likewise, {@link #findByID} returns the first user added with an ID.</p>
+ *
+ * @author agent
+ */
+public final class UserDirectory {
+
+    /** The users of the directory, by normalized email, in the order they were added. */
+    private final Map<String, List<User>> aUsersByEmail = new HashMap<>();
+
+    /** The normalized email each user of the directory is indexed under. */
+    private final Map<User, String> aKeys = new IdentityHashMap<>();
+
+    /** The first user added with each ID, by ID. */
+    private final Map<String, User> aUsersByID = new HashMap<>();
+
+    /**
+     * Constructs an empty directory.
+     *
+     * @author agent
+     */
+    public UserDirectory() {
+    }
+
+    /**
+     * Constructs a directory holding the given users, keeping those that share an email.
+     *
+     * @param pUsers the users to index.
+     * @author agent
+     */
+    public UserDirectory(List<? extends User> pUsers) {
+        pUsers.forEach(this::index);
+    }
+
+    /**
+     * Normalizes an email address for lookups: trimmed and lower-cased.
+     *
+     * @param pEmail the email address, possibly null.
+     * @return the normalized email address, or null if {@code pEmail} is null.
+     * @author agent
+     */
+    public static String normalize(String pEmail) {
+        return pEmail == null ? null : pEmail.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds a user to the directory.
+     *
+     * @param pUser the user to add.
+     * @throws IllegalArgumentException if another user of the directory has the same email.
+     * @author agent
+     */
+    public void add(User pUser) {
+        checkAvailable(pUser, normalize(pUser.getUser_Email()));
+        index(pUser);
+    }
+
+    /**
+     * Removes a user from the directory, from under the email it was indexed with.
+     *
+     * @param pUser the user to remove.
+     * @author agent
+     */
+    public void remove(User pUser) {
+        String userID = idOf(pUser);
+        if (userID != null) {
+            aUsersByID.remove(userID, pUser);
+        }
+        unindexEmail(pUser);
+    }
+
+    /**
+     * Removes a user from under the email it was indexed with.
+     *
+     * @param pUser the user to remove.
+     * @author agent
+     */
+    private void unindexEmail(User pUser) {
+        String key = aKeys.remove(pUser);
+        List<User> users = key == null ? null : aUsersByEmail.get(key);
+        if (users != null && users.remove(pUser) && users.isEmpty()) {
+            aUsersByEmail.remove(key);
+        }
+    }
+
+    /**
+     * Indexes a user of the directory again under its current email, once it changed.
+     *
+     * @param pUser the user whose email changed.
+     * @throws IllegalArgumentException if another user of the directory has the new email,
+     *                                  in which case the user stays indexed under its old email.
+     * @author agent
+     */
+    public void rekey(User pUser) {
+        String key = normalize(pUser.getUser_Email());
+        if (key != null && key.equals(aKeys.get(pUser))) {
+            return;
+        }
+        checkAvailable(pUser, key);
+        unindexEmail(pUser);
+        indexEmail(pUser);
+    }
+
+    /**
+     * Checks whether an email could be given to a user without sharing it with another user
+     * of the directory.
+     *
+     * @param pUser  the user.
+     * @param pEmail the email address.
+     * @return true if no other user of the directory has that email.
+     * @author agent
+     */
+    public boolean isAvailable(User pUser, String pEmail) {
+        String key = normalize(pEmail);
+        List<User> users = key == null ? null : aUsersByEmail.get(key);
+        return users == null || users.stream().allMatch(user -> user == pUser);
+    }
+
+    /**
+     * Finds the user with the given email address, ignoring case and surrounding spaces.
+     *
+     * @param pEmail the email address.
+     * @return the first user added with that email, or null if none.
+     * @author agent
+     */
+    public User find(String pEmail) {
+        String key = normalize(pEmail);
+        List<User> users = key == null ? null : aUsersByEmail.get(key);
+        return users == null ? null : users.getFirst();
+    }
+
+    /**
+     * Finds every user with the given email address, ignoring case and surrounding spaces.
+     *
+     * @param pEmail the email address.
+     * @return the users with that email, in the order they were added, possibly empty.
+     * @author agent
+     */
+    public List<User> findAll(String pEmail) {
+        String key = normalize(pEmail);
+        List<User> users = key == null ? null : aUsersByEmail.get(key);
+        return users == null ? List.of() : List.copyOf(users);
+    }
+
+    /**
+     * Finds the user with the given ID.
+     *
+     * @param pID the ID of the user.
+     * @return the first user added with that ID, or null if none.
+     * @author agent
+     */
+    public User findByID(String pID) {
+        return pID == null ? null : aUsersByID.get(pID);
+    }
+
+    /**
+     * Retrieves the ID of a client or manager.
+     *
+     * @param pUser the user.
+     * @return the ID of the user, or null if it is neither a client nor a manager.
+     * @author agent
+     */
+    static String idOf(User pUser) {
+        return switch (pUser) {
+            case Client client -> client.getClientID();
+            case Manager manager -> manager.getManagerID();
+            default -> null;
+        };
+    }
+
+    /**
+     * Returns the number of distinct email addresses in the directory.
+     *
+     * @return the number of distinct emails.
+     * @author agent
+     */
+    public int size() {
+        return aUsersByEmail.size();
+    }
+
+    /**
+     * Indexes a user under its ID, unless another user has it, and under its current email.
+     *
+     * @param pUser the user to index.
+     * @author agent
+     */
+    private void index(User pUser) {
+        String userID = idOf(pUser);
+        if (userID != null) {
+            aUsersByID.putIfAbsent(userID, pUser);
+        }
+        indexEmail(pUser);
+    }
+
+    /**
+     * Indexes a user under its current email, after the users already sharing it.
+     *
+     * @param pUser the user to index.
+     * @author agent
+     */
+    private void indexEmail(User pUser) {
+        String key = normalize(pUser.getUser_Email());
+        if (key != null) {
+            aUsersByEmail.computeIfAbsent(key, _ -> new ArrayList<>(1)).add(pUser);
+            aKeys.put(pUser, key);
+        }
+    }
+
+    /**
+     * Checks that no other user of the directory has an email.
+     *
+     * @param pUser the user to be indexed under the email.
+     * @param pKey  the normalized email.
+     * @throws IllegalArgumentException if another user has the email.
+     * @author agent
+     */
+    private void checkAvailable(User pUser, String pKey) {
+        if (!isAvailable(pUser, pKey)) {
+            throw new IllegalArgumentException("The email " + pKey + " is already used by another user.");
+        }
+    }
+}
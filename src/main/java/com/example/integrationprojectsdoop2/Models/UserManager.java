@@ -5,9 +5,20 @@ import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
 import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 /**
  * Manages {@link User} instances, including both Managers and Clients.
@@ -15,12 +26,30 @@ import java.util.List;
  * and retrieving users, while ensuring persistence via serialization.
  *
  * <p>Handles user data storage and retrieval using helper classes {@link ReadObjects}
- * and {@link WriteObjects} for file I/O operations.</p>
+ * and {@link WriteObjects} for file I/O operations. Files still in the legacy format,
+ * where every user carried a copy of the whole user list, are migrated once to the
+ * compact {@link UserRecord} format when they are first read.</p>
+ *
+ * <p>Clients and managers are also indexed by email in a {@link UserDirectory}, kept
+ * consistent by the add and remove methods and by {@link #changeEmail}, so logins and
+ * sign-up checks do not scan the user lists. A new client or manager cannot take an email
+ * already used by another client or manager, respectively.</p>
+ *
+ * <p>Each save applies only the user added, changed or removed to the file as it is when it
+ * is written, so the users saved meanwhile by other copies of the application sharing the
+ * file are kept. The users those copies added or removed are then added to or removed from
+ * the lists, unless this application has a change of them not saved yet.</p>
  *
  * @author Samuel Mireault
  */
 public class UserManager {
 
+    /** The file containing the managers. */
+    public static final String MANAGERS_FILE = "managers.ser";
+
+    /** The file containing the clients. */
+    public static final String CLIENTS_FILE = "clients.ser";
+
     /** The single instance of UserManager. */
     private static UserManager aInstance;
 
@@ -30,6 +59,21 @@ public class UserManager {
     /** List of clients, initialized from the serialized file. */
     private final List<User> aClientsList;
 
+    /** Managers indexed by email. */
+    private final UserDirectory aManagerDirectory;
+
+    /** Clients indexed by email. */
+    private final UserDirectory aClientDirectory;
+
+    /** The IDs of the managers changed but not saved yet, by number of their change. */
+    private final NavigableMap<Long, String> aUnsavedManagers = new TreeMap<>();
+
+    /** The IDs of the clients changed but not saved yet, by number of their change. */
+    private final NavigableMap<Long, String> aUnsavedClients = new TreeMap<>();
+
+    /** The number of the last change of a user submitted to be saved. */
+    private long aLastChange;
+
     /**
      * Private constructor to enforce the singleton pattern.
      * Initializes user lists by reading from serialized files.
@@ -37,8 +81,10 @@ public class UserManager {
      * @author Samuel Mireault
      */
     private UserManager() {
-        aManagersList = usersReader("managers.ser");
-        aClientsList = usersReader("clients.ser");
+        aManagersList = usersReader(MANAGERS_FILE);
+        aClientsList = usersReader(CLIENTS_FILE);
+        aManagerDirectory = new UserDirectory(aManagersList);
+        aClientDirectory = new UserDirectory(aClientsList);
     }
 
     /**
@@ -78,17 +124,109 @@ public class UserManager {
         return Collections.unmodifiableList(aClientsList);
     }
 
+    /**
+     * Retrieves the IDs of the clients, copied under the lock of the manager so they can be
+     * read while clients are added or removed.
+     *
+     * @return a copy of the IDs of the clients, in list order.
+     *
+     * @author agent
+     */
+    public synchronized List<String> getClientIDs() {
+        return aClientsList.stream().map(user -> ((Client) user).getClientID()).toList();
+    }
+
+    /**
+     * Retrieves the IDs of the managers, copied under the lock of the manager so they can be
+     * read while managers are added or removed.
+     *
+     * @return a copy of the IDs of the managers, in list order.
+     *
+     * @author agent
+     */
+    public synchronized List<String> getManagerIDs() {
+        return aManagersList.stream().map(user -> ((Manager) user).getManagerID()).toList();
+    }
+
+    /**
+     * Finds a client by its ID, through the ID index of the clients.
+     *
+     * @param pClientID the ID of the client.
+     * @return the matching client, or null if not found.
+     *
+     * @author agent
+     */
+    public synchronized Client findClientByID(String pClientID) {
+        return aClientDirectory.findByID(pClientID) instanceof Client client ? client : null;
+    }
+
+    /**
+     * Finds a client by email address, ignoring case and surrounding spaces.
+     *
+     * @param pEmail the email address of the client.
+     * @return the matching client, or null if not found.
+     *
+     * @author agent
+     */
+    public synchronized User findClientByEmail(String pEmail) {
+        return aClientDirectory.find(pEmail);
+    }
+
+    /**
+     * Finds every client with an email address, ignoring case and surrounding spaces.
+     * Only existing data may hold several.
+     *
+     * @param pEmail the email address of the clients.
+     * @return the matching clients, in the order they were added, possibly empty.
+     *
+     * @author agent
+     */
+    public synchronized List<User> findClientsByEmail(String pEmail) {
+        return aClientDirectory.findAll(pEmail);
+    }
+
+    /**
+     * Finds a manager by email address, ignoring case and surrounding spaces.
+     *
+     * @param pEmail the email address of the manager.
+     * @return the matching manager, or null if not found.
+     *
+     * @author agent
+     */
+    public synchronized User findManagerByEmail(String pEmail) {
+        return aManagerDirectory.find(pEmail);
+    }
+
+    /**
+     * Finds every manager with an email address, ignoring case and surrounding spaces.
+     * Only existing data may hold several.
+     *
+     * @param pEmail the email address of the managers.
+     * @return the matching managers, in the order they were added, possibly empty.
+     *
+     * @author agent
+     */
+    public synchronized List<User> findManagersByEmail(String pEmail) {
+        return aManagerDirectory.findAll(pEmail);
+    }
+
     /**
      * Adds a manager to the list and updates the serialized file.
      *
      * @param pManager the manager to add.
+     * @throws IllegalArgumentException if another manager has the same email.
      * @throws IOException if an error occurs during file writing.
      *
      * @author Samuel Mireault
      */
     public void addManager(User pManager) throws IOException {
-        aManagersList.add(pManager);
-        usersWriter("managers.ser", aManagersList);
+        WriteObjects.GroupedWrite write;
+        synchronized (this) {
+            aManagerDirectory.add(pManager); // Throws before the list changes if the email is taken
+            aManagersList.add(pManager);
+            write = usersWriter(MANAGERS_FILE, pManager, true);
+        }
+        write.await(); // Outside the monitor, so concurrent saves share the write
     }
 
     /**
@@ -100,21 +238,32 @@ public class UserManager {
      * @author Samuel Mireault
      */
     public void removeManager(User pManager) throws IOException {
-        aManagersList.remove(pManager);
-        usersWriter("managers.ser", aManagersList);
+        WriteObjects.GroupedWrite write;
+        synchronized (this) {
+            aManagersList.remove(pManager);
+            aManagerDirectory.remove(pManager);
+            write = usersWriter(MANAGERS_FILE, pManager, false);
+        }
+        write.await(); // Outside the monitor, so concurrent saves share the write
     }
 
     /**
      * Adds a client to the list and updates the serialized file.
      *
      * @param pClient the client to add.
+     * @throws IllegalArgumentException if another client has the same email.
      * @throws IOException if an error occurs during file writing.
      *
      * @author Samuel Mireault
      */
     public void addClient(User pClient) throws IOException {
-        aClientsList.add(pClient);
-        usersWriter("clients.ser", aClientsList);
+        WriteObjects.GroupedWrite write;
+        synchronized (this) {
+            aClientDirectory.add(pClient); // Throws before the list changes if the email is taken
+            aClientsList.add(pClient);
+            write = usersWriter(CLIENTS_FILE, pClient, true);
+        }
+        write.await(); // Outside the monitor, so concurrent saves share the write
     }
 
     /**
@@ -126,8 +275,43 @@ public class UserManager {
      * @author Samuel Mireault
      */
     public void removeClient(User pClient) throws IOException {
-        aClientsList.remove(pClient);
-        usersWriter("clients.ser", aClientsList);
+        WriteObjects.GroupedWrite write;
+        synchronized (this) {
+            aClientsList.remove(pClient);
+            aClientDirectory.remove(pClient);
+            write = usersWriter(CLIENTS_FILE, pClient, false);
+        }
+        write.await(); // Outside the monitor, so concurrent saves share the write
+    }
+
+    /**
+     * Changes the email of a saved client or manager, indexes it under the new email
+     * and updates the serialized file.
+     *
+     * @param pUser  the client or manager.
+     * @param pEmail the new email address.
+     * @throws IllegalArgumentException if the email is empty, the user is not saved,
+     *                                  or another client or manager, respectively, has that email.
+     * @throws IOException if an error occurs during file writing.
+     *
+     * @author agent
+     */
+    public void changeEmail(User pUser, String pEmail) throws IOException {
+        WriteObjects.GroupedWrite write;
+        synchronized (this) {
+            boolean client = aClientsList.contains(pUser);
+            if (!client && !aManagersList.contains(pUser)) {
+                throw new IllegalArgumentException("Only the email of a saved user can be changed.");
+            }
+            UserDirectory directory = client ? aClientDirectory : aManagerDirectory;
+            if (!directory.isAvailable(pUser, pEmail)) {
+                throw new IllegalArgumentException("The email " + pEmail + " is already used by another user.");
+            }
+            pUser.setUser_Email(pEmail);
+            directory.rekey(pUser);
+            write = usersWriter(client ? CLIENTS_FILE : MANAGERS_FILE, pUser, true);
+        }
+        write.await(); // Outside the monitor, so concurrent saves share the write
     }
 
     /**
@@ -140,37 +324,155 @@ public class UserManager {
      */
     private List<User> usersReader(String pFilename) {
         List<User> users = new ArrayList<>();
-        try {
-            ReadObjects readObjects = new ReadObjects(pFilename);
-            List<Object> rawObjects = readObjects.read();
-
-            // Safely cast raw objects to User instances
-            users = rawObjects.stream()
-                    .filter(User.class::isInstance)
-                    .map(User.class::cast)
-                    .toList();
+        long start = System.nanoTime();
+        // Only User instances are kept while the file is read
+        try (Stream<User> userStream = new ReadObjects(pFilename).stream(User.class)) {
+            userStream.forEach(users::add);
         } catch (Exception e) {
             AlertHelper error = new AlertHelper(e.getMessage());
             error.executeErrorAlert();
         }
 
-        return new ArrayList<>(users);
+        if (users.stream().anyMatch(User::isLegacyRecord)) {
+            migrateToCompactFormat(pFilename, users, System.nanoTime() - start);
+        }
+        return users;
+    }
+
+    /**
+     * Rewrites a file read in the legacy user format in the compact {@link UserRecord} format.
+     * Reports the file size and load time before and after the migration.
+     *
+     * @param pFilename        the name of the file to migrate.
+     * @param pUsers           the users read from the file.
+     * @param pLegacyLoadNanos the time taken to load the legacy file, in nanoseconds.
+     *
+     * @author agent
+     */
+    private void migrateToCompactFormat(String pFilename, List<User> pUsers, long pLegacyLoadNanos) {
+        try {
+            Path path = Paths.get(pFilename);
+            long legacySize = Files.size(path);
+            new WriteObjects(pFilename).write(new ArrayList<>(pUsers));
+            long compactSize = Files.size(path);
+
+            long start = System.nanoTime();
+            try (Stream<User> userStream = new ReadObjects(pFilename).stream(User.class)) {
+                userStream.forEach(user -> { });
+            }
+            long compactLoadNanos = System.nanoTime() - start;
+
+            System.out.printf("Migrated %s to the compact user format: %d -> %d bytes, load %.2f -> %.2f ms%n",
+                    pFilename, legacySize, compactSize, pLegacyLoadNanos / 1e6, compactLoadNanos / 1e6);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error migrating " + pFilename + ": " + e.getMessage());
+        }
     }
 
     /**
-     * Writes a list of users to a serialized file.
+     * Submits a user added, changed or removed to be saved in a serialized file, grouped with the
+     * other saves of the file. The change is applied to the users of the file as they are when it
+     * is written, so the users saved by other copies of the application are kept.
+     * Called under the monitor, so the changes are written in the order they were made.
      *
      * @param pFilename the name of the file to write to.
-     * @param pUsers   the list of users to serialize and save.
-     * @throws IOException if an error occurs during file writing.
+     * @param pUser     the user added, changed or removed.
+     * @param pSaved    true to save the user as it is now, false to remove it from the file.
+     * @return the submitted write, to await once the monitor is released.
      *
      * @author Samuel Mireault
      */
-    private void usersWriter(String pFilename, List<User> pUsers) throws IOException {
-        WriteObjects writeObjects = new WriteObjects(pFilename);
-        List<Object> objectList = new ArrayList<>(pUsers);
+    private WriteObjects.GroupedWrite usersWriter(String pFilename, User pUser, boolean pSaved) {
+        String userID = UserDirectory.idOf(pUser);
+        long change = ++aLastChange;
+        unsavedOf(pFilename).put(change, userID);
+
+        // Submit the change for writing to the file
+        return new WriteObjects(pFilename).submitMerged(objects -> {
+            int index = indexOf(objects, userID);
+            if (!pSaved) {
+                if (index >= 0) {
+                    objects.remove(index);
+                }
+            } else if (index >= 0) {
+                objects.set(index, pUser);
+            } else {
+                objects.add(pUser);
+            }
+            return objects;
+        }, objects -> usersSaved(pFilename, change, objects));
+    }
+
+    /**
+     * Adds to a list the users that other copies of the application saved in its file, and removes
+     * those they removed from it, except the users with a change not saved yet.
+     *
+     * @param pFilename the name of the file written.
+     * @param pChange   the number of the last change saved.
+     * @param pSaved    the objects saved in the file.
+     *
+     * @author agent
+     */
+    private synchronized void usersSaved(String pFilename, long pChange, List<Object> pSaved) {
+        NavigableMap<Long, String> unsaved = unsavedOf(pFilename);
+        unsaved.headMap(pChange, true).clear();
+        List<User> users = pFilename.equals(CLIENTS_FILE) ? aClientsList : aManagersList;
+        UserDirectory directory = pFilename.equals(CLIENTS_FILE) ? aClientDirectory : aManagerDirectory;
+
+        Map<String, User> saved = new LinkedHashMap<>();
+        for (Object object : pSaved) {
+            if (object instanceof User user && UserDirectory.idOf(user) != null) {
+                saved.put(UserDirectory.idOf(user), user);
+            }
+        }
+        for (Iterator<User> iterator = users.iterator(); iterator.hasNext(); ) {
+            User user = iterator.next();
+            String userID = UserDirectory.idOf(user);
+            if (userID != null && saved.remove(userID) == null && !unsaved.containsValue(userID)) {
+                iterator.remove(); // Removed by another copy
+                directory.remove(user);
+            }
+        }
+        for (User user : saved.values()) {
+            if (unsaved.containsValue(UserDirectory.idOf(user))) {
+                continue;
+            }
+            try {
+                directory.add(user); // Added by another copy
+                users.add(user);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error loading a user saved elsewhere: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retrieves the changes not saved yet of the users of a file.
+     *
+     * @param pFilename the name of the file.
+     * @return the IDs of the users changed, by number of their change.
+     *
+     * @author agent
+     */
+    private NavigableMap<Long, String> unsavedOf(String pFilename) {
+        return pFilename.equals(CLIENTS_FILE) ? aUnsavedClients : aUnsavedManagers;
+    }
 
-        // Write the Object list to the file
-        writeObjects.write(objectList);
+    /**
+     * Finds a user in the objects of a file.
+     *
+     * @param pObjects the objects.
+     * @param pUserID  the ID of the user.
+     * @return the index of the user, or -1 if it is not there.
+     *
+     * @author agent
+     */
+    private static int indexOf(List<Object> pObjects, String pUserID) {
+        for (int i = 0; i < pObjects.size(); i++) {
+            if (pObjects.get(i) instanceof User user && Objects.equals(UserDirectory.idOf(user), pUserID)) {
+                return i;
+            }
+        }
+        return -1;
     }
 }
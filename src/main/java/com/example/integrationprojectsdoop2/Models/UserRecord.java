@@ -0,0 +1,101 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import java.io.InvalidObjectException;
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Compact serialized form of a {@link User}.
+ * {@link Client} and {@link Manager} replace themselves with a {@code UserRecord} when serialized,
+ * so only the user's own fields are written: no user list and no ID counter.
+ * The record turns back into the original user when deserialized.
+ *
+ * @author agent
+ */
+final class UserRecord implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 2L;
+
+    /** Kind of record for a {@link Client}. */
+    private static final char CLIENT = 'C';
+
+    /** Kind of record for a {@link Manager}. */
+    private static final char MANAGER = 'M';
+
+    /** The kind of user, {@code 'C'} for a client or {@code 'M'} for a manager. */
+    private final char aKind;
+
+    /** The unique Client or Manager ID. */
+    private final String aUserID;
+
+    /** The name of the user. */
+    private final String aUser_Name;
+
+    /** The email address of the user. */
+    private final String aUser_Email;
+
+    /** The password of the user. */
+    private final String aUser_Password;
+
+    /** The subscription date of a client as an epoch day, unused for managers. */
+    private final long aSubscriptionEpochDay;
+
+    /**
+     * Constructs a record with the given fields.
+     *
+     * @param pKind                 the kind of user.
+     * @param pUserID               the unique Client or Manager ID.
+     * @param pUser                 the user whose name, email and password are recorded.
+     * @param pSubscriptionEpochDay the subscription date of a client as an epoch day.
+     * @author agent
+     */
+    private UserRecord(char pKind, String pUserID, User pUser, long pSubscriptionEpochDay) {
+        this.aKind = pKind;
+        this.aUserID = pUserID;
+        this.aUser_Name = pUser.getUser_Name();
+        this.aUser_Email = pUser.getUser_Email();
+        this.aUser_Password = pUser.getUser_Password();
+        this.aSubscriptionEpochDay = pSubscriptionEpochDay;
+    }
+
+    /**
+     * Creates the compact record of a client.
+     *
+     * @param pClient the client to record.
+     * @return the compact record of the client.
+     * @author agent
+     */
+    static UserRecord of(Client pClient) {
+        return new UserRecord(CLIENT, pClient.getClientID(), pClient, pClient.getClientSubscriptionDate().toEpochDay());
+    }
+
+    /**
+     * Creates the compact record of a manager.
+     *
+     * @param pManager the manager to record.
+     * @return the compact record of the manager.
+     * @author agent
+     */
+    static UserRecord of(Manager pManager) {
+        return new UserRecord(MANAGER, pManager.getManagerID(), pManager, 0);
+    }
+
+    /**
+     * Turns the record back into the user it was created from.
+     *
+     * @return the restored {@link Client} or {@link Manager}.
+     * @throws InvalidObjectException if the record is of an unknown kind.
+     * @author agent
+     */
+    @Serial
+    private Object readResolve() throws InvalidObjectException {
+        return switch (aKind) {
+            case CLIENT -> new Client(aUserID, aUser_Name, aUser_Email, aUser_Password,
+                    LocalDate.ofEpochDay(aSubscriptionEpochDay));
+            case MANAGER -> new Manager(aUserID, aUser_Name, aUser_Email, aUser_Password);
+            default -> throw new InvalidObjectException("Unknown user record kind: " + aKind);
+        };
+    }
+}
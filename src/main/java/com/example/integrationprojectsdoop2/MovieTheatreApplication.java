@@ -1,5 +1,7 @@
 package com.example.integrationprojectsdoop2;
 
+import com.example.integrationprojectsdoop2.Api.BookingApiServer;
+import com.example.integrationprojectsdoop2.Helpers.AlertHelper;
 import com.example.integrationprojectsdoop2.Helpers.ReadObjects;
 import com.example.integrationprojectsdoop2.Helpers.WriteObjects;
 import com.example.integrationprojectsdoop2.Models.*;
@@ -9,13 +11,31 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
 public class MovieTheatreApplication extends Application {
+
+    /** System property giving the port of the booking API for kiosks; the API is off without it. */
+    public static final String API_PORT_PROPERTY = "theatre.api.port";
+
+    /** The booking API, if it was started. */
+    private BookingApiServer aBookingApi;
+
     @Override
     public void start(Stage stage) throws IOException {
+        try {
+            ETicketManager.getInstance(); // Opens the ticket store, importing legacy tickets once
+        } catch (UncheckedIOException e) {
+            new AlertHelper("Error opening the ticket store: " + e.getMessage()).executeErrorAlert();
+            throw e;
+        }
+        String apiPort = System.getProperty(API_PORT_PROPERTY);
+        if (apiPort != null) {
+            aBookingApi = BookingApiServer.start(Integer.parseInt(apiPort));
+        }
         FXMLLoader fxmlLoader = new FXMLLoader(MovieTheatreApplication.class.getResource("login-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 450, 513);
         scene.getStylesheets().add(Objects.requireNonNull(getClass().getResource("/css/styles.css")).toExternalForm());
@@ -24,6 +44,13 @@ public class MovieTheatreApplication extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (aBookingApi != null) {
+            aBookingApi.stop();
+        }
+    }
+
     public static void main(String[] args) {
 
         launch();
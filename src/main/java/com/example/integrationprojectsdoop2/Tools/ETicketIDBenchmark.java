@@ -0,0 +1,130 @@
+package com.example.integrationprojectsdoop2.Tools;
+
+import com.example.integrationprojectsdoop2.Models.ETicketIDAllocator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark comparing the {@link ETicketIDAllocator} with the former ticket ID generation,
+ * a {@code static synchronized} method formatting the year and counter with {@code String.format},
+ * as the number of threads minting IDs at the same time grows. Also checks that the
+ * allocator never hands out the same ID twice.
+ *
+ * <p>Run with: {@code java -cp <classes> com.example.integrationprojectsdoop2.Tools.ETicketIDBenchmark}</p>
+ *
+ * @author agent
+ */
+public class ETicketIDBenchmark {
+
+    /** The numbers of threads benchmarked. */
+    private static final int[] THREADS = {1, 4, 16};
+
+    /** Number of IDs minted by each thread. */
+    private static final int IDS_PER_THREAD = 500_000;
+
+    /** Counter of the former generation. */
+    private static int aLegacyCounter = 1;
+
+    /**
+     * Runs the benchmark and prints the average cost of minting an ID for each number of threads.
+     *
+     * @param pArgs unused.
+     * @throws Exception if a thread fails or the high-water-mark file cannot be created.
+     * @author agent
+     */
+    public static void main(String[] pArgs) throws Exception {
+        Path file = Files.createTempFile("etickets", ".hwm");
+        try {
+            System.out.printf("%8s %18s %18s%n", "threads", "legacy ns/id", "allocator ns/id");
+            for (int threads : THREADS) {
+                ETicketIDAllocator allocator = new ETicketIDAllocator(file.toString(), () -> 1);
+                time(threads, ETicketIDBenchmark::legacyID); // Warm-up
+                time(threads, allocator::nextID);
+
+                double legacyNanos = time(threads, ETicketIDBenchmark::legacyID);
+                double allocatorNanos = time(threads, allocator::nextID);
+                System.out.printf("%8d %18.1f %18.1f%n", threads, legacyNanos, allocatorNanos);
+            }
+
+            ETicketIDAllocator allocator = new ETicketIDAllocator(file.toString(), () -> 1);
+            checkUnique(allocator);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Mints IDs on several threads at once.
+     *
+     * @param pThreads the number of threads.
+     * @param pMint    mints one ID.
+     * @return the average time between two IDs, in nanoseconds.
+     * @throws Exception if a thread fails.
+     * @author agent
+     */
+    private static double time(int pThreads, Supplier<String> pMint) throws Exception {
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(pThreads)) {
+            Future<?>[] runs = new Future<?>[pThreads];
+            for (int t = 0; t < pThreads; t++) {
+                runs[t] = executor.submit(() -> {
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        pMint.get();
+                    }
+                });
+            }
+            for (Future<?> run : runs) {
+                run.get();
+            }
+        }
+        return (System.nanoTime() - start) / ((double) IDS_PER_THREAD * pThreads);
+    }
+
+    /**
+     * Checks that IDs minted by concurrent threads are all different.
+     *
+     * @param pAllocator the allocator.
+     * @throws Exception if a thread fails.
+     * @throws IllegalStateException if an ID was minted twice.
+     * @author agent
+     */
+    private static void checkUnique(ETicketIDAllocator pAllocator) throws Exception {
+        int threads = THREADS[THREADS.length - 1];
+        long[][] minted = new long[threads][IDS_PER_THREAD];
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                long[] ids = minted[t];
+                executor.submit(() -> {
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = pAllocator.nextNumber();
+                    }
+                });
+            }
+        }
+        long[] all = Arrays.stream(minted).flatMapToLong(Arrays::stream).sorted().toArray();
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                throw new IllegalStateException("Ticket ID minted twice: " + all[i]);
+            }
+        }
+        System.out.printf("%d IDs minted on %d threads, all unique%n", all.length, threads);
+    }
+
+    /**
+     * Mints an ID as the former {@code ETicket.setETicketID} did.
+     *
+     * @return the ID.
+     * @author agent
+     */
+    private static synchronized String legacyID() {
+        String currentYear = String.valueOf(LocalDateTime.now().getYear());
+        return currentYear + String.format("%010d", aLegacyCounter++);
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.integrationprojectsdoop2.Tools;
+
+import com.example.integrationprojectsdoop2.Helpers.FileLocks;
+import com.example.integrationprojectsdoop2.Models.Client;
+import com.example.integrationprojectsdoop2.Models.ETicket;
+import com.example.integrationprojectsdoop2.Models.ETicketManager;
+import com.example.integrationprojectsdoop2.Models.Movie;
+import com.example.integrationprojectsdoop2.Models.Screenroom;
+import com.example.integrationprojectsdoop2.Models.Show;
+import com.example.integrationprojectsdoop2.Models.Showtime;
+import com.example.integrationprojectsdoop2.Models.TheatreService;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Load simulation of the ticket purchase path: clients, each on its own virtual thread, buy
+ * tickets at the same time through {@link TheatreService#buyTickets}, as the Buy button of the
+ * client view does, for the shows of a synthetic catalog. The number of clients grows from
+ * step to step, to find where adding clients stops adding throughput and latency takes off.
+ *
+ * <p>Each step prints the purchases made and rejected, the throughput in purchases and tickets
+ * per second, the 50th, 99th and 99.9th percentiles of the purchase latency, and how many
+ * bytes the ticket store, the sales counters and the ticket ID file grew by. The store is
+ * mapped and grows by whole regions, so it grows in jumps rather than with every ticket.
+ * A first, unreported step warms the purchase path up.</p>
+ *
+ * <p>The simulation runs in a new JVM working in a temporary copy of the data files of the
+ * working directory, deleted once it ends. The tickets it buys, and the IDs of its shows,
+ * clients and tickets, are taken from that copy, so they never reach the real data files.</p>
+ *
+ * <p>Run with: {@code java -cp <classes> com.example.integrationprojectsdoop2.Tools.PurchaseLoadSimulator [clients...]},
+ * for example {@code 1 8 64 512}.</p>
+ *
+ * @author agent
+ */
+public class PurchaseLoadSimulator {
+
+    /** The numbers of clients simulated when none are given. */
+    private static final int[] DEFAULT_CLIENTS = {1, 4, 16, 64, 256, 1_024};
+
+    /** Number of purchases made in each step, shared between its clients. */
+    private static final int PURCHASES_PER_STEP = 4_000;
+
+    /** Number of purchases made by the warm-up step. */
+    private static final int WARM_UP_PURCHASES = 500;
+
+    /** Most tickets bought in a single purchase; each purchase buys between 1 and this many. */
+    private static final int MAX_TICKETS_PER_PURCHASE = 4;
+
+    /** System property set in the JVM running the simulation in the copy of the data files. */
+    private static final String IN_COPY_PROPERTY = "theatre.simulation.inCopy";
+
+    /** Pattern of the names of the data files copied. */
+    private static final String DATA_FILES = "*.{ser,dat,hwm}";
+
+    /** The data files whose growth is reported. */
+    private static final String[] FILES = {
+            ETicketManager.STORE_FILE, ETicketManager.SALES_FILE, ETicketManager.ID_FILE
+    };
+
+    /**
+     * The outcome of the purchases of one client.
+     *
+     * @param latencies the time taken by each purchase, in nanoseconds, bought or rejected.
+     * @param bought    the number of purchases made.
+     * @param tickets   the number of tickets bought.
+     * @param rejected  the number of purchases rejected because the show had too few seats left.
+     */
+    private record ClientResult(long[] latencies, int bought, int tickets, int rejected) {
+    }
+
+    /**
+     * Runs the simulation and prints the results of each step.
+     *
+     * @param pArgs the numbers of clients of each step, or none for the default steps.
+     * @throws Exception if a purchase fails for another reason than a lack of seats.
+     * @author agent
+     */
+    public static void main(String[] pArgs) throws Exception {
+        if (!Boolean.getBoolean(IN_COPY_PROPERTY)) {
+            System.exit(runInCopy(pArgs));
+        }
+        int[] steps = pArgs.length == 0 ? DEFAULT_CLIENTS
+                : Arrays.stream(pArgs).mapToInt(Integer::parseInt).toArray();
+        Screenroom screenroom = new Screenroom("Load Test");
+        Movie movie = new Movie("Load Test", "Test", "Synthetic show of the load simulation.");
+        Showtime showtime = new Showtime("23:59");
+        ETicketManager.getInstance(); // Opens the store before any purchase is timed
+
+        simulate(1, WARM_UP_PURCHASES, createShows(WARM_UP_PURCHASES, screenroom, movie, showtime));
+
+        System.out.printf("%8s %8s %8s %10s %10s %9s %9s %9s %12s %10s %8s%n", "clients", "bought", "rejected",
+                "buys/s", "tickets/s", "p50 ms", "p99 ms", "p99.9 ms", "store +B", "sales +B", "hwm +B");
+        for (int clients : steps) {
+            List<Show> shows = createShows(PURCHASES_PER_STEP, screenroom, movie, showtime);
+            long[] sizesBefore = fileSizes();
+            long start = System.nanoTime();
+            List<ClientResult> results = simulate(clients, PURCHASES_PER_STEP, shows);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long[] sizesAfter = fileSizes();
+
+            long[] latencies = results.stream().flatMapToLong(result -> Arrays.stream(result.latencies())).sorted().toArray();
+            int bought = results.stream().mapToInt(ClientResult::bought).sum();
+            int tickets = results.stream().mapToInt(ClientResult::tickets).sum();
+            int rejected = results.stream().mapToInt(ClientResult::rejected).sum();
+            System.out.printf("%8d %8d %8d %10.0f %10.0f %9.2f %9.2f %9.2f %12d %10d %8d%n", clients, bought, rejected,
+                    bought / seconds, tickets / seconds,
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6, percentile(latencies, 0.999) / 1e6,
+                    sizesAfter[0] - sizesBefore[0], sizesAfter[1] - sizesBefore[1], sizesAfter[2] - sizesBefore[2]);
+        }
+
+        long[] sizes = fileSizes();
+        for (int i = 0; i < FILES.length; i++) {
+            System.out.printf("%s: %,d bytes%n", FILES[i], sizes[i]);
+        }
+    }
+
+    /**
+     * Copies the data files of the working directory into a temporary directory, runs the
+     * simulation in a new JVM working in it, and deletes it.
+     *
+     * @param pArgs the arguments of the simulation.
+     * @return the exit code of the simulation.
+     * @throws IOException          if the data files cannot be copied or the JVM cannot be started.
+     * @throws InterruptedException if interrupted while waiting for the simulation.
+     * @author agent
+     */
+    private static int runInCopy(String[] pArgs) throws IOException, InterruptedException {
+        Path copy = Files.createTempDirectory("purchase-load-");
+        try {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get("").toAbsolutePath(), DATA_FILES)) {
+                for (Path file : files) {
+                    try (FileLocks.Lock _ = FileLocks.shared(file.getFileName().toString())) {
+                        Files.copy(file, copy.resolve(file.getFileName()));
+                    }
+                }
+            }
+            System.out.println("Simulating in a copy of the data files: " + copy);
+
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.add("-D" + IN_COPY_PROPERTY + "=true");
+            String modulePath = System.getProperty("jdk.module.path");
+            if (modulePath != null) {
+                command.addAll(List.of("--module-path", absolutePaths(modulePath),
+                        "-m", PurchaseLoadSimulator.class.getModule().getName() + "/" + PurchaseLoadSimulator.class.getName()));
+            } else {
+                command.addAll(List.of("-cp", absolutePaths(System.getProperty("java.class.path")),
+                        PurchaseLoadSimulator.class.getName()));
+            }
+            command.addAll(Arrays.asList(pArgs));
+            return new ProcessBuilder(command).directory(copy.toFile()).inheritIO().start().waitFor();
+        } finally {
+            try (Stream<Path> paths = Files.walk(copy)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the entries of a class or module path absolute, so they hold in another working directory.
+     *
+     * @param pPath the path, its entries separated by the path separator.
+     * @return the path with absolute entries.
+     * @author agent
+     */
+    private static String absolutePaths(String pPath) {
+        return Arrays.stream(pPath.split(File.pathSeparator))
+                .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    /**
+     * Creates enough shows that purchases rarely find their show sold out, all tomorrow
+     * so none has started.
+     *
+     * @param pPurchases  the number of purchases to be made.
+     * @param pScreenroom the screenroom of the shows.
+     * @param pMovie      the movie of the shows.
+     * @param pShowtime   the showtime of the shows.
+     * @return the shows.
+     * @author agent
+     */
+    private static List<Show> createShows(int pPurchases, Screenroom pScreenroom, Movie pMovie, Showtime pShowtime) {
+        int seatsNeeded = pPurchases * (MAX_TICKETS_PER_PURCHASE + 1) / 2;
+        int showCount = 2 * (seatsNeeded / pScreenroom.getCapacity() + 1);
+        List<Show> shows = new ArrayList<>(showCount);
+        for (int i = 0; i < showCount; i++) {
+            shows.add(new Show(pMovie, pScreenroom, pShowtime, LocalDate.now().plusDays(1)));
+        }
+        return shows;
+    }
+
+    /**
+     * Starts clients on virtual threads at the same moment, each buying tickets for random shows
+     * until they made their share of the purchases.
+     *
+     * @param pClients   the number of clients.
+     * @param pPurchases the number of purchases made by all the clients.
+     * @param pShows     the shows the tickets are bought for.
+     * @return the outcome of the purchases of each client.
+     * @throws Exception if a purchase fails for another reason than a lack of seats.
+     * @author agent
+     */
+    private static List<ClientResult> simulate(int pClients, int pPurchases, List<Show> pShows) throws Exception {
+        TheatreService service = TheatreService.getInstance();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<ClientResult>> futures = new ArrayList<>(pClients);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < pClients; i++) {
+                int purchases = pPurchases / pClients + (i < pPurchases % pClients ? 1 : 0);
+                Client client = new Client("Load Client " + i, "load" + i + "@example.com", "load");
+                futures.add(clients.submit(() -> {
+                    startSignal.await();
+                    return buy(service, client, purchases, pShows);
+                }));
+            }
+            startSignal.countDown();
+        }
+
+        List<ClientResult> results = new ArrayList<>(pClients);
+        for (Future<ClientResult> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    /**
+     * Makes the purchases of a client, each of 1 to {@link #MAX_TICKETS_PER_PURCHASE} tickets
+     * for a random show, and times them.
+     *
+     * @param pService   the service buying the tickets.
+     * @param pClient    the client.
+     * @param pPurchases the number of purchases to make.
+     * @param pShows     the shows the tickets are bought for.
+     * @return the outcome of the purchases.
+     * @throws IOException if the tickets cannot be recorded.
+     * @author agent
+     */
+    private static ClientResult buy(TheatreService pService, Client pClient, int pPurchases, List<Show> pShows)
+            throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] latencies = new long[pPurchases];
+        int bought = 0;
+        int tickets = 0;
+        int rejected = 0;
+        for (int i = 0; i < pPurchases; i++) {
+            Show show = pShows.get(random.nextInt(pShows.size()));
+            int quantity = random.nextInt(1, MAX_TICKETS_PER_PURCHASE + 1);
+            long start = System.nanoTime();
+            try {
+                List<ETicket> eTickets = pService.buyTickets(show, pClient, quantity);
+                bought++;
+                tickets += eTickets.size();
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                rejected++; // Not enough seats left
+            }
+            latencies[i] = System.nanoTime() - start;
+        }
+        return new ClientResult(latencies, bought, tickets, rejected);
+    }
+
+    /**
+     * Gives a percentile of sorted values.
+     *
+     * @param pSorted     the values, in ascending order.
+     * @param pPercentile the percentile, between 0 and 1.
+     * @return the smallest value that the given share of the values do not exceed, or 0 if there are none.
+     * @author agent
+     */
+    private static long percentile(long[] pSorted, double pPercentile) {
+        if (pSorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(pPercentile * pSorted.length) - 1;
+        return pSorted[Math.max(0, index)];
+    }
+
+    /**
+     * Gives the size of each data file whose growth is reported.
+     *
+     * @return the size of each file, in the order of {@link #FILES}, 0 for a missing file.
+     * @throws IOException if the size of a file cannot be read.
+     * @author agent
+     */
+    private static long[] fileSizes() throws IOException {
+        long[] sizes = new long[FILES.length];
+        for (int i = 0; i < FILES.length; i++) {
+            Path path = Paths.get(FILES[i]);
+            sizes[i] = Files.exists(path) ? Files.size(path) : 0;
+        }
+        return sizes;
+    }
+}
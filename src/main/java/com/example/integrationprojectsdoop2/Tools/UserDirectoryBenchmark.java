@@ -0,0 +1,101 @@
+package com.example.integrationprojectsdoop2.Tools;
+
+import com.example.integrationprojectsdoop2.Models.User;
+import com.example.integrationprojectsdoop2.Models.UserDirectory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark comparing email lookups in a {@link UserDirectory} with a scan of the user list,
+ * as the number of users grows. The directory lookup should stay flat while the scan grows
+ * linearly with the number of users.
+ *
+ * <p>Run with: {@code java -cp <classes> com.example.integrationprojectsdoop2.Tools.UserDirectoryBenchmark}</p>
+ *
+ * @author agent
+ */
+public class UserDirectoryBenchmark {
+
+    /** The directory sizes benchmarked. */
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+
+    /** Number of lookups timed with the directory for each size. */
+    private static final int DIRECTORY_LOOKUPS = 1_000_000;
+
+    /** Number of lookups timed with the list scan for each size. */
+    private static final int SCAN_LOOKUPS = 200;
+
+    /**
+     * A user holding only the fields needed by the benchmark.
+     */
+    private static final class BenchmarkUser extends User {
+        private BenchmarkUser(String pName, String pEmail, String pPassword) {
+            super(pName, pEmail, pPassword);
+        }
+    }
+
+    /**
+     * Runs the benchmark and prints the average cost of a lookup for each size.
+     *
+     * @param pArgs unused.
+     * @author agent
+     */
+    public static void main(String[] pArgs) {
+        Random random = new Random(42);
+        System.out.printf("%10s %18s %18s%n", "users", "directory ns/op", "list scan ns/op");
+
+        for (int size : SIZES) {
+            List<User> users = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                users.add(new BenchmarkUser("Member " + i, "member" + i + "@example.com", "pw" + (i % 1000)));
+            }
+            UserDirectory directory = new UserDirectory(users);
+
+            // Mixed-case lookups, as typed in the login form
+            String[] emails = new String[1024];
+            for (int i = 0; i < emails.length; i++) {
+                emails[i] = "Member" + random.nextInt(size) + "@Example.com";
+            }
+
+            long found = 0;
+            for (int i = 0; i < DIRECTORY_LOOKUPS; i++) { // Warm-up
+                found += directory.find(emails[i & 1023]) != null ? 1 : 0;
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < DIRECTORY_LOOKUPS; i++) {
+                found += directory.find(emails[i & 1023]) != null ? 1 : 0;
+            }
+            double directoryNanos = (System.nanoTime() - start) / (double) DIRECTORY_LOOKUPS;
+
+            start = System.nanoTime();
+            for (int i = 0; i < SCAN_LOOKUPS; i++) {
+                found += scan(users, emails[i & 1023]) != null ? 1 : 0;
+            }
+            double scanNanos = (System.nanoTime() - start) / (double) SCAN_LOOKUPS;
+
+            System.out.printf("%10d %18.1f %18.1f%n", size, directoryNanos, scanNanos);
+            if (found != 2L * DIRECTORY_LOOKUPS + SCAN_LOOKUPS) {
+                throw new IllegalStateException("Some lookups failed: " + found);
+            }
+        }
+    }
+
+    /**
+     * Finds a user by email by scanning the list, as the login used to.
+     *
+     * @param pUsers the users to scan.
+     * @param pEmail the email address to look for.
+     * @return the matching user, or null if not found.
+     * @author agent
+     */
+    private static User scan(List<User> pUsers, String pEmail) {
+        for (User user : pUsers) {
+            if (user.getUser_Email().equalsIgnoreCase(pEmail.trim())) {
+                return user;
+            }
+        }
+        return null;
+    }
+}
@@ -2,11 +2,13 @@ module com.example.integrationprojectsdoop2 {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.desktop;
+    requires jdk.httpserver;
 
 
     opens com.example.integrationprojectsdoop2 to javafx.fxml;
     exports com.example.integrationprojectsdoop2;
     exports com.example.integrationprojectsdoop2.Models;
     exports com.example.integrationprojectsdoop2.Controllers;
+    exports com.example.integrationprojectsdoop2.Api;
     opens com.example.integrationprojectsdoop2.Controllers to javafx.fxml;
 }
\ No newline at end of file
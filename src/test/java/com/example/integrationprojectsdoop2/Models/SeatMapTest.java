@@ -0,0 +1,114 @@
+package com.example.integrationprojectsdoop2.Models;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Stress tests of the {@link SeatMap}: thousands of buyers, each on its own virtual thread,
+ * race for the seats of a show. Each race checks that exactly as many seats were sold as the
+ * show has, that no seat was sold twice, and that the show ends up sold out.
+ *
+ * @author agent
+ */
+class SeatMapTest {
+
+    /** Number of buyers racing in each race. */
+    private static final int BUYERS = 10_000;
+
+    /** Number of seats of the show, those of a default screenroom. */
+    private static final int CAPACITY = Screenroom.DEFAULT_ROWS * Screenroom.DEFAULT_SEATS_PER_ROW;
+
+    /**
+     * Buyers claiming any free seat sell every seat exactly once.
+     *
+     * @throws Exception if a buyer fails.
+     * @author agent
+     */
+    @RepeatedTest(20)
+    void claimAnySellsEverySeatOnce() throws Exception {
+        SeatMap seats = new SeatMap(CAPACITY);
+        List<Integer> sold = race(seats::claimAny);
+
+        BitSet seen = new BitSet(CAPACITY);
+        for (int seat : sold) {
+            assertFalse(seen.get(seat), "Seat " + seat + " was sold twice.");
+            seen.set(seat);
+        }
+        assertEquals(CAPACITY, sold.size());
+        assertEquals(0, seats.getAvailableCount());
+        assertEquals(-1, seats.claimAny());
+    }
+
+    /**
+     * Buyers all claiming the same seat sell it once.
+     *
+     * @throws Exception if a buyer fails.
+     * @author agent
+     */
+    @Test
+    void claimSellsASeatOnce() throws Exception {
+        SeatMap seats = new SeatMap(CAPACITY);
+        List<Integer> sold = race(() -> seats.claim(0) ? 0 : -1);
+
+        assertEquals(List.of(0), sold);
+        assertEquals(1, seats.getTakenCount());
+    }
+
+    /**
+     * A released seat can be sold again.
+     *
+     * @author agent
+     */
+    @Test
+    void releasedSeatIsFreeAgain() {
+        SeatMap seats = new SeatMap(CAPACITY);
+        int seat = seats.claimAny();
+        seats.release(seat);
+
+        assertFalse(seats.isTaken(seat));
+        assertEquals(CAPACITY, seats.getAvailableCount());
+    }
+
+    /**
+     * Starts buyers on virtual threads at the same moment and collects the seats they bought.
+     *
+     * @param pBuy a purchase, giving the seat bought or -1 if none was.
+     * @return the seats bought.
+     * @throws Exception if a purchase fails.
+     * @author agent
+     */
+    private static List<Integer> race(Callable<Integer> pBuy) throws Exception {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<Integer>> purchases = new ArrayList<>(BUYERS);
+        try (ExecutorService buyers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < BUYERS; i++) {
+                purchases.add(buyers.submit(() -> {
+                    startSignal.await();
+                    return pBuy.call();
+                }));
+            }
+            startSignal.countDown();
+        }
+
+        List<Integer> sold = new ArrayList<>();
+        for (Future<Integer> purchase : purchases) {
+            int seat = purchase.get();
+            if (seat >= 0) {
+                sold.add(seat);
+            }
+        }
+        return sold;
+    }
+}